@@ -0,0 +1,79 @@
+package com.purva.searchengine.benchmark.jmh;
+
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.index.ShardedIndex;
+import com.purva.searchengine.service.EngineMetrics;
+import com.purva.searchengine.tokenizer.Tokenizer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+
+/**
+ * The corpus every benchmark runs against, shaped by JMH parameters that can be overridden
+ * from the command line, such as {@code -p vocabulary=200000 -p zipfExponent=0.8}.
+ */
+@State(Scope.Benchmark)
+public class CorpusState {
+    static final long SEED = 42;
+    /** Queries are cycled through, so no single query's cost dominates a measurement. */
+    static final int QUERIES = 1024;
+
+    @Param("20000")
+    public int documents;
+    @Param("50000")
+    public int vocabulary;
+    @Param("1.0")
+    public double zipfExponent;
+    @Param("60")
+    public int medianLength;
+    @Param("0.6")
+    public double lengthSigma;
+
+    ZipfianCorpus corpus;
+    Tokenizer tokenizer;
+    List<List<String>> tokenizedDocuments;
+    List<String> queries;
+    /** The whole corpus indexed, for the search benchmarks; built on first use. */
+    private InvertedIndex index;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        corpus = new ZipfianCorpus(documents, vocabulary, zipfExponent, medianLength, lengthSigma, SEED);
+        tokenizer = new Tokenizer();
+        tokenizedDocuments = corpus.documents().stream().map(tokenizer::tokenize).toList();
+        queries = corpus.queries(QUERIES);
+    }
+
+    InvertedIndex index() throws InterruptedException {
+        if (index == null) {
+            index = new InvertedIndex();
+            for (int docId = 1; docId <= tokenizedDocuments.size(); docId++) {
+                index.index(docId, tokenizedDocuments.get(docId - 1));
+            }
+            // Measure the settled segment layout, not one still being merged
+            index.awaitMerges();
+        }
+        return index;
+    }
+
+    /**
+     * Metrics registered with an in-memory registry, which keeps every histogram as an exporting
+     * registry would, or {@code null} when {@code enabled} is false.
+     */
+    EngineMetrics metrics(boolean enabled) throws InterruptedException {
+        return enabled ? new EngineMetrics(new SimpleMeterRegistry(), new ShardedIndex(index())) : null;
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws InterruptedException {
+        if (index != null) {
+            index.close();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.purva.searchengine.benchmark.jmh;
+
+import com.purva.searchengine.index.InvertedIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code InvertedIndex.index} of pre-tokenized documents, one document per operation. Each
+ * iteration starts from an empty index and adds new document ids, so the cost includes
+ * flushing and the background merges the writes trigger. The encoded size per posting of the
+ * last iteration's index is printed at the end of the trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class IndexBenchmark {
+    private InvertedIndex index;
+    private int nextDocId;
+    private long postings;
+    private long postingsBytes;
+
+    @Setup(Level.Iteration)
+    public void createIndex() {
+        index = new InvertedIndex();
+        nextDocId = 1;
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeIndex() throws InterruptedException {
+        // Measure the settled segments, not a write buffer or a merge in progress
+        index.awaitMerges();
+        postings = index.getPostingsCount();
+        postingsBytes = index.getPostingsSizeInBytes();
+        index.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void reportPostingsMemory() {
+        System.out.printf("%nPostings memory: %d postings, %d encoded bytes, %.2f bytes per posting%n",
+                postings, postingsBytes, postings == 0 ? 0.0 : (double) postingsBytes / postings);
+    }
+
+    @Benchmark
+    public void index(CorpusState corpus) {
+        List<List<String>> documents = corpus.tokenizedDocuments;
+        int docId = nextDocId++;
+        index.index(docId, documents.get(docId % documents.size()));
+    }
+}
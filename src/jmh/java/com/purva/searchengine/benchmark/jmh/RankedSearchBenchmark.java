@@ -0,0 +1,66 @@
+package com.purva.searchengine.benchmark.jmh;
+
+import com.purva.searchengine.index.ShardedIndex;
+import com.purva.searchengine.search.Bm25Scorer;
+import com.purva.searchengine.search.Scorer;
+import com.purva.searchengine.search.TfIdfScorer;
+import com.purva.searchengine.service.SearchResult;
+import com.purva.searchengine.service.SearchService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code SearchService.rankedSearch} for the top 10 results, once per scorer, with and without
+ * per-query metrics.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RankedSearchBenchmark {
+    @Param({"bm25", "tfidf"})
+    public String scorer;
+    @Param("10")
+    public int topK;
+    @Param("0.5")
+    public double threshold;
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private SearchService searchService;
+    private List<String> queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(CorpusState corpus) throws InterruptedException {
+        Scorer ranking = switch (scorer) {
+            case "bm25" -> new Bm25Scorer();
+            case "tfidf" -> new TfIdfScorer();
+            default -> throw new IllegalArgumentException("Unknown scorer: " + scorer);
+        };
+        // No result cache, so every operation searches the index
+        searchService = new SearchService(corpus.tokenizer, new ShardedIndex(corpus.index()), ranking,
+                SearchService.Options.DEFAULTS.withMetrics(corpus.metrics(metrics)));
+        queries = corpus.queries;
+    }
+
+    @Benchmark
+    public List<SearchResult> rankedSearch() {
+        return searchService.rankedSearch(queries.get(next++ % queries.size()), topK, threshold);
+    }
+}
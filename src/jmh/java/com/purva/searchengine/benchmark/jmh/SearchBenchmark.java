@@ -0,0 +1,56 @@
+package com.purva.searchengine.benchmark.jmh;
+
+import com.purva.searchengine.index.ShardedIndex;
+import com.purva.searchengine.search.Bm25Scorer;
+import com.purva.searchengine.service.SearchService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code SearchService.search}, the unranked threshold match, over the whole corpus. Queries of
+ * one to three words are cycled through; a threshold of 1.0 intersects their postings and a
+ * lower one counts matches per document. With {@code metrics}, every query records its stage
+ * times and counts, which shows what the instrumentation costs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SearchBenchmark {
+    @Param({"1.0", "0.5"})
+    public double threshold;
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private SearchService searchService;
+    private List<String> queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(CorpusState corpus) throws InterruptedException {
+        // No result cache, so every operation searches the index
+        searchService = new SearchService(corpus.tokenizer, new ShardedIndex(corpus.index()), new Bm25Scorer(),
+                SearchService.Options.DEFAULTS.withMetrics(corpus.metrics(metrics)));
+        queries = corpus.queries;
+    }
+
+    @Benchmark
+    public List<Integer> search() {
+        return searchService.search(queries.get(next++ % queries.size()), threshold);
+    }
+}
@@ -0,0 +1,62 @@
+package com.purva.searchengine.benchmark.jmh;
+
+import com.purva.searchengine.trie.Trie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code Trie.getTopKSuggestions} for the top 10 completions of 2–4 letter prefixes. The trie
+ * holds the corpus's vocabulary, each word counted as often as the corpus is expected to use
+ * it, and prefixes are taken from words drawn like typed queries. With {@code cachedSuggestions}
+ * at 0 every lookup walks the prefix's whole subtree.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TrieBenchmark {
+    @Param({"10", "0"})
+    public int cachedSuggestions;
+
+    private Trie trie;
+    private List<String> prefixes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(CorpusState corpus) {
+        trie = new Trie(cachedSuggestions, Trie.DEFAULT_MIN_PREFIX_LENGTH);
+        String[] vocabulary = corpus.corpus.vocabulary();
+        long tokens = (long) corpus.documents * corpus.medianLength;
+        for (int rank = 0; rank < vocabulary.length; rank++) {
+            trie.insert(vocabulary[rank], corpus.corpus.expectedCount(rank, tokens));
+        }
+        var random = new Random(CorpusState.SEED);
+        prefixes = new ArrayList<>(CorpusState.QUERIES);
+        for (String query : corpus.queries) {
+            String word = query.split(" ")[0];
+            prefixes.add(word.substring(0, Math.min(word.length(), 2 + random.nextInt(3))));
+        }
+    }
+
+    @Benchmark
+    public List<String> getTopKSuggestions() {
+        return trie.getTopKSuggestions(prefixes.get(next++ % prefixes.size()), 10);
+    }
+}
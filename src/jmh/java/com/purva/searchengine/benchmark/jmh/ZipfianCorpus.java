@@ -0,0 +1,119 @@
+package com.purva.searchengine.benchmark.jmh;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Synthetic text whose word frequencies follow Zipf's law, as natural language does, with
+ * log-normal document lengths around {@code medianLength}. The same seed gives the same
+ * corpus.
+ */
+public final class ZipfianCorpus {
+    private final String[] vocabulary;
+    /** {@code cumulative[r]} is the probability of drawing a rank of at most {@code r}. */
+    private final double[] cumulative;
+    private final List<String> documents;
+    private final Random random;
+
+    /**
+     * @param documents    number of documents
+     * @param vocabulary   number of distinct words
+     * @param exponent     Zipf exponent; about 1 for English text
+     * @param medianLength median document length in words
+     * @param lengthSigma  standard deviation of the log of the document length
+     */
+    public ZipfianCorpus(int documents, int vocabulary, double exponent, int medianLength, double lengthSigma, long seed) {
+        this.random = new Random(seed);
+        this.vocabulary = words(vocabulary, random);
+        this.cumulative = new double[vocabulary];
+        double sum = 0;
+        for (int rank = 0; rank < vocabulary; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < vocabulary; rank++) {
+            cumulative[rank] /= sum;
+        }
+
+        this.documents = new ArrayList<>(documents);
+        for (int d = 0; d < documents; d++) {
+            int length = (int) Math.max(1, Math.round(medianLength * Math.exp(lengthSigma * random.nextGaussian())));
+            this.documents.add(text(length));
+        }
+    }
+
+    private static String[] words(int count, Random random) {
+        Set<String> words = new HashSet<>(count * 2);
+        String[] byRank = new String[count];
+        for (int rank = 0; rank < count; rank++) {
+            // Roughly 3 letters for the most frequent words up to 10 for the rarest
+            int length = 3 + (int) Math.min(7, Math.log(rank + 1) / Math.log(4)) + random.nextInt(2);
+            String word;
+            do {
+                char[] chars = new char[length];
+                for (int i = 0; i < length; i++) {
+                    chars[i] = (char) ('a' + random.nextInt(26));
+                }
+                word = new String(chars);
+            } while (!words.add(word));
+            byRank[rank] = word;
+        }
+        return byRank;
+    }
+
+    /** A word drawn from the Zipf distribution. */
+    public String word() {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        return vocabulary[rank >= 0 ? rank : Math.min(-rank - 1, vocabulary.length - 1)];
+    }
+
+    private String text(int length) {
+        StringBuilder text = new StringBuilder(length * 8);
+        boolean sentenceStart = true;
+        for (int i = 0; i < length; i++) {
+            String word = word();
+            if (sentenceStart) {
+                text.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            }
+            else {
+                text.append(word);
+            }
+            sentenceStart = random.nextInt(12) == 0;
+            text.append(sentenceStart ? ". " : random.nextInt(10) == 0 ? ", " : " ");
+        }
+        return text.toString();
+    }
+
+    /** The documents' text, in document id order starting from id 1. */
+    public List<String> documents() {
+        return documents;
+    }
+
+    /** {@code count} queries of one to three words, drawn like the documents' words. */
+    public List<String> queries(int count) {
+        List<String> queries = new ArrayList<>(count);
+        for (int q = 0; q < count; q++) {
+            StringBuilder query = new StringBuilder(word());
+            for (int words = random.nextInt(3); words > 0; words--) {
+                query.append(' ').append(word());
+            }
+            queries.add(query.toString());
+        }
+        return queries;
+    }
+
+    /** The distinct words, most frequent first. */
+    public String[] vocabulary() {
+        return vocabulary.clone();
+    }
+
+    /** The expected number of occurrences of the word of {@code rank} among {@code tokens} drawn words. */
+    public int expectedCount(int rank, long tokens) {
+        double probability = cumulative[rank] - (rank == 0 ? 0 : cumulative[rank - 1]);
+        return (int) Math.max(1, Math.round(probability * tokens));
+    }
+}
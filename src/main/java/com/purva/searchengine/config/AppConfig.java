@@ -1,13 +1,32 @@
 package com.purva.searchengine.config;
 
 import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.index.SegmentStorage;
+import com.purva.searchengine.index.ShardedIndex;
 import com.purva.searchengine.search.Bm25Scorer;
 import com.purva.searchengine.search.Scorer;
+import com.purva.searchengine.service.ClusterSearchService;
 import com.purva.searchengine.service.DocumentService;
+import com.purva.searchengine.service.EngineMetrics;
+import com.purva.searchengine.service.QueryResultCache;
 import com.purva.searchengine.service.SearchService;
+import com.purva.searchengine.service.SnapshotScheduler;
+import com.purva.searchengine.service.SuggestionService;
+import com.purva.searchengine.service.WriteAheadLog;
 import com.purva.searchengine.tokenizer.Tokenizer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 
 @Configuration
 public class AppConfig {
@@ -16,23 +35,110 @@ public class AppConfig {
         return new Tokenizer();
     }
 
+    /** Starts from the snapshot files when they exist, otherwise from empty shards. */
+    @Bean
+    public ShardedIndex index(@Value("${search.snapshot.path:}") String snapshotPath,
+                              @Value("${search.index.storage:heap}") SegmentStorage storage,
+                              @Value("${search.index.shards:1}") int shards) throws IOException {
+        if (shards < 1) {
+            throw new IllegalArgumentException("search.index.shards must be at least 1");
+        }
+        if (!snapshotPath.isBlank() && ShardedIndex.exists(Path.of(snapshotPath), shards)) {
+            return ShardedIndex.open(Path.of(snapshotPath), shards, InvertedIndex.DEFAULT_FLUSH_THRESHOLD,
+                    InvertedIndex.DEFAULT_SEGMENTS_PER_TIER, storage);
+        }
+        return ShardedIndex.create(shards,
+                shard -> new InvertedIndex(InvertedIndex.DEFAULT_FLUSH_THRESHOLD, InvertedIndex.DEFAULT_SEGMENTS_PER_TIER, storage));
+    }
+
+    @Bean
+    @ConditionalOnProperty("search.wal.directory")
+    public WriteAheadLog writeAheadLog(@Value("${search.wal.directory}") String directory,
+                                       @Value("${search.wal.durability:fsync}") WriteAheadLog.Durability durability,
+                                       @Value("${search.wal.sync-interval:100ms}") Duration syncInterval) throws IOException {
+        WriteAheadLog writeAheadLog = new WriteAheadLog(Path.of(directory), durability, syncInterval);
+        writeAheadLog.start();
+        return writeAheadLog;
+    }
+
+    /** Reports the service down once its write-ahead log has failed and refuses writes. */
+    @Bean
+    @ConditionalOnProperty("search.wal.directory")
+    public HealthIndicator writeAheadLogHealthIndicator(WriteAheadLog writeAheadLog) {
+        return () -> {
+            IOException failure = writeAheadLog.failure();
+            return failure == null ? Health.up().build() : Health.down(failure).build();
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty("search.snapshot.path")
+    public SnapshotScheduler snapshotScheduler(ShardedIndex index, ObjectProvider<WriteAheadLog> writeAheadLog,
+                                               @Value("${search.snapshot.path}") String snapshotPath,
+                                               @Value("${search.snapshot.interval:5m}") Duration interval) {
+        SnapshotScheduler snapshotScheduler = new SnapshotScheduler(index, Path.of(snapshotPath), interval,
+                writeAheadLog.getIfAvailable());
+        snapshotScheduler.start();
+        return snapshotScheduler;
+    }
+
+    @Bean
+    public Scorer scorer() {
+        return new Bm25Scorer();
+    }
+
+    /** Per-stage search and indexing meters, registered with the actuator's registry. */
+    @Bean
+    @ConditionalOnProperty(value = "search.metrics.enabled", matchIfMissing = true)
+    public EngineMetrics engineMetrics(MeterRegistry registry, ShardedIndex index) {
+        return new EngineMetrics(registry, index);
+    }
+
     @Bean
-    public InvertedIndex invertedIndex() {
-        return new InvertedIndex();
+    public SearchService searchService(Tokenizer tokenizer, ShardedIndex index, Scorer scorer,
+                                       SuggestionService suggestionService, ObjectProvider<EngineMetrics> metrics,
+                                       @Value("${search.cache.max-bytes:0}") long cacheMaxBytes,
+                                       @Value("${search.fuzzy.max-expansions:50}") int maxExpansions,
+                                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        QueryResultCache resultCache = cacheMaxBytes > 0 ? new QueryResultCache(cacheMaxBytes) : null;
+        return new SearchService(tokenizer, index, scorer, SearchService.Options.DEFAULTS
+                .withResultCache(resultCache)
+                .withVocabulary(suggestionService, maxExpansions)
+                .withVirtualThreads(virtualThreads)
+                .withMetrics(metrics.getIfAvailable()));
     }
 
+    /** Makes this instance a coordinator whose {@code /api/search} fans out to the listed nodes. */
     @Bean
-    public Scorer scorer(InvertedIndex invertedIndex) {
-        return new Bm25Scorer(invertedIndex);
+    @ConditionalOnProperty("search.cluster.nodes")
+    public ClusterSearchService clusterSearchService(@Value("${search.cluster.nodes}") String nodes,
+                                                     @Value("${search.cluster.timeout:1s}") Duration timeout,
+                                                     @Value("${search.cluster.hedge-after:0}") Duration hedgeAfter,
+                                                     JsonMapper jsonMapper) {
+        return new ClusterSearchService(ClusterSearchService.parseNodes(nodes), timeout, hedgeAfter, jsonMapper);
     }
 
+    /** Built from the loaded snapshot; {@link DocumentService} adds every later write, replayed or new, until the next rebuild. */
     @Bean
-    public SearchService searchService(Tokenizer tokenizer, InvertedIndex invertedIndex, Scorer scorer) {
-        return new SearchService(tokenizer, invertedIndex, scorer);
+    public SuggestionService suggestionService(ShardedIndex index,
+                                               @Value("${search.suggest.min-prefix-length:2}") int minPrefixLength,
+                                               @Value("${search.suggest.rebuild-interval:1m}") Duration rebuildInterval) {
+        SuggestionService suggestionService = new SuggestionService(index, minPrefixLength, rebuildInterval);
+        suggestionService.start();
+        return suggestionService;
     }
 
+    /** Replays the write-ahead log, if there is one, on top of the loaded snapshot before serving. */
     @Bean
-    public DocumentService documentService(Tokenizer tokenizer, InvertedIndex invertedIndex) {
-        return new DocumentService(tokenizer, invertedIndex);
+    public DocumentService documentService(Tokenizer tokenizer, ShardedIndex index,
+                                           ObjectProvider<WriteAheadLog> writeAheadLog,
+                                           SuggestionService suggestionService,
+                                           ObjectProvider<EngineMetrics> metrics) throws IOException {
+        DocumentService documentService = new DocumentService(tokenizer, index, DocumentService.Options.NONE
+                .withWriteAheadLog(writeAheadLog.getIfAvailable())
+                .withSuggestionService(suggestionService)
+                .withMetrics(metrics.getIfAvailable()));
+        documentService.replayLog();
+        return documentService;
     }
 }
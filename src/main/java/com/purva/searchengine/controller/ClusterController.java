@@ -0,0 +1,42 @@
+package com.purva.searchengine.controller;
+
+import com.purva.searchengine.service.ClusterSearchService;
+import com.purva.searchengine.service.QueryStatistics;
+import com.purva.searchengine.service.SearchService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * The two phases a {@link ClusterSearchService} coordinator calls on every node. They always
+ * search this node's own index, even when the node is itself a coordinator.
+ */
+@RestController
+public class ClusterController {
+    private final SearchService searchService;
+
+    public ClusterController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    @GetMapping(ClusterSearchService.STATISTICS_PATH)
+    public ResponseEntity<QueryStatistics> statistics(@RequestParam(name = "query") String query) {
+        return ResponseEntity.ok(searchService.statistics(query));
+    }
+
+    @PostMapping(ClusterSearchService.SEARCH_PATH)
+    public ResponseEntity<List<?>> search(@RequestBody ClusterSearchService.NodeRequest request) {
+        if (request.query() == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        if (request.topK() == null) {
+            return ResponseEntity.ok(searchService.search(request.query(), request.threshold()));
+        }
+        if (request.statistics() == null) {
+            throw new IllegalArgumentException("A ranked node search needs the cluster's statistics");
+        }
+        return ResponseEntity.ok(searchService.rankedSearch(request.query(), request.topK(), request.threshold(),
+                request.statistics()));
+    }
+}
@@ -1,10 +1,15 @@
 package com.purva.searchengine.controller;
 
+import com.purva.searchengine.service.BulkIndexResult;
 import com.purva.searchengine.service.DocumentService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.Reader;
+
 @RestController
 @RequestMapping("/api")
 public class IndexController {
@@ -26,4 +31,16 @@ public class IndexController {
         documentService.indexDocument(documentId, content);
         return ResponseEntity.status(HttpStatus.CREATED).body("Document indexed successfully");
     }
+
+    /** Streams newline-delimited {@link IndexRequest} JSON from the body; every line gets its own status. */
+    @PostMapping(value = "/documents/bulk", consumes = {"application/x-ndjson", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<BulkIndexResult> bulkIndexDocuments(Reader body) throws IOException {
+        return ResponseEntity.ok(documentService.bulkIndex(body));
+    }
+
+    @DeleteMapping("/documents/{documentId}")
+    public ResponseEntity<String> deleteDocument(@PathVariable int documentId) {
+        documentService.deleteDocument(documentId);
+        return ResponseEntity.ok("Document deleted successfully");
+    }
 }
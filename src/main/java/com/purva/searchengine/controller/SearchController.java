@@ -1,6 +1,9 @@
 package com.purva.searchengine.controller;
 
+import com.purva.searchengine.service.ClusterSearchService;
+import com.purva.searchengine.service.QueryResultCache;
 import com.purva.searchengine.service.SearchService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -9,29 +12,55 @@ import java.util.List;
 @RestController
 @RequestMapping("/api")
 public class SearchController {
+    /** Set on every response that is missing the results of some search nodes: how many of them. */
+    public static final String FAILED_NODES_HEADER = "X-Search-Failed-Nodes";
+
     private final SearchService searchService;
+    /** {@code null} unless this instance coordinates a cluster, in which case it serves {@code /search}. */
+    private final ClusterSearchService clusterSearchService;
 
-    public SearchController(SearchService searchService) {
+    public SearchController(SearchService searchService, ObjectProvider<ClusterSearchService> clusterSearchService) {
         this.searchService = searchService;
+        this.clusterSearchService = clusterSearchService.getIfAvailable();
     }
 
     @GetMapping("/search")
-    public ResponseEntity<?> search(@RequestParam(name = "query") String query, @RequestParam(name = "topK", required = false) Integer topK, @RequestParam(name = "threshold", required = false, defaultValue = "0.8") Double threshold) {
+    public ResponseEntity<?> search(@RequestParam(name = "query") String query, @RequestParam(name = "topK", required = false) Integer topK, @RequestParam(name = "threshold", required = false, defaultValue = "0.8") Double threshold,
+                                    @RequestParam(name = "fuzziness", required = false, defaultValue = "0") Integer fuzziness) {
         if (query == null || query.trim().isEmpty()) {
             throw new IllegalArgumentException("Query parameter cannot be empty");
         }
         if (threshold <= 0 || threshold > 1) {
             throw new IllegalArgumentException("Threshold must be in the range (0, 1]");
         }
+        if (fuzziness < 0 || fuzziness > SearchService.MAX_FUZZINESS) {
+            throw new IllegalArgumentException("Fuzziness must be between 0 and " + SearchService.MAX_FUZZINESS);
+        }
+        if (topK != null && topK <= 0) {
+            throw new IllegalArgumentException("topK must be greater than 0");
+        }
+        if (clusterSearchService != null) {
+            ClusterSearchService.Results<?> results = topK == null
+                    ? clusterSearchService.search(query, threshold, fuzziness)
+                    : clusterSearchService.rankedSearch(query, topK, threshold, fuzziness);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (results.failedNodes() > 0) {
+                response.header(FAILED_NODES_HEADER, String.valueOf(results.failedNodes()));
+            }
+            return response.body(results.results());
+        }
         List<?> searchResult;
         if (topK == null) {
-            searchResult = searchService.search(query, threshold);
+            searchResult = searchService.search(query, threshold, fuzziness);
         } else {
-            if (topK <= 0) {
-                throw new IllegalArgumentException("topK must be greater than 0");
-            }
-            searchResult = searchService.rankedSearch(query, topK, threshold);
+            searchResult = searchService.rankedSearch(query, topK, threshold, fuzziness);
         }
         return ResponseEntity.ok(searchResult);
     }
+
+    @GetMapping("/search/cache")
+    public ResponseEntity<QueryResultCache.Stats> cacheStats() {
+        QueryResultCache.Stats stats = searchService.cacheStats();
+        return stats == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(stats);
+    }
 }
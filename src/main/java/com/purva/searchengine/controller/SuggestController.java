@@ -0,0 +1,28 @@
+package com.purva.searchengine.controller;
+
+import com.purva.searchengine.service.SuggestionService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+public class SuggestController {
+    private final SuggestionService suggestionService;
+
+    public SuggestController(SuggestionService suggestionService) {
+        this.suggestionService = suggestionService;
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggest(@RequestParam(name = "prefix") String prefix, @RequestParam(name = "k", required = false, defaultValue = "10") Integer k) {
+        if (prefix == null || prefix.trim().isEmpty()) {
+            throw new IllegalArgumentException("Prefix parameter cannot be empty");
+        }
+        if (k <= 0 || k > SuggestionService.MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("k must be between 1 and " + SuggestionService.MAX_SUGGESTIONS);
+        }
+        return ResponseEntity.ok(suggestionService.suggest(prefix, k));
+    }
+}
@@ -0,0 +1,225 @@
+package com.purva.searchengine.index;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Postings of one term read in place from a {@link BufferSegment}, in the same encoding as
+ * {@link PostingsList}.
+ */
+final class BufferPostings extends TermPostings {
+    private static final int BLOCK_SHIFT = 7;
+    private static final int BLOCK_ENTRY_BYTES = 20;
+
+    private final ByteBuffer buffer;
+    private final int dataStart;
+    private final int length;
+    private final int size;
+    private final int lastDocId;
+    private final int maxTermFrequency;
+    private final int minDocumentLength;
+    private final int tailMaxTermFrequency;
+    private final int tailMinDocumentLength;
+    private final int positionsStart;
+    private final int positionsLength;
+    private final int blocksOffset;
+
+    /**
+     * @param buffer         the segment body
+     * @param metadataOffset where the entry's fields start, right after the term bytes
+     * @param dataRegion     where the segment's postings data region starts
+     */
+    BufferPostings(ByteBuffer buffer, int metadataOffset, int dataRegion) {
+        this.buffer = buffer;
+        this.size = buffer.getInt(metadataOffset);
+        this.lastDocId = buffer.getInt(metadataOffset + 4);
+        this.maxTermFrequency = buffer.getInt(metadataOffset + 8);
+        this.minDocumentLength = buffer.getInt(metadataOffset + 12);
+        this.tailMaxTermFrequency = buffer.getInt(metadataOffset + 16);
+        this.tailMinDocumentLength = buffer.getInt(metadataOffset + 20);
+        this.dataStart = dataRegion + buffer.getInt(metadataOffset + 24);
+        this.length = buffer.getInt(metadataOffset + 28);
+        this.positionsStart = dataRegion + buffer.getInt(metadataOffset + 32);
+        this.positionsLength = buffer.getInt(metadataOffset + 36);
+        this.blocksOffset = metadataOffset + SnapshotFormat.ENTRY_METADATA_BYTES;
+    }
+
+    @Override
+    int size() {
+        return size;
+    }
+
+    @Override
+    int sizeInBytes() {
+        return length;
+    }
+
+    @Override
+    int positionsSizeInBytes() {
+        return positionsLength;
+    }
+
+    @Override
+    int sizeBelow(int maxDoc) {
+        if (size == 0 || lastDocId < maxDoc) {
+            return size;
+        }
+        Iterator iterator = new Iterator();
+        iterator.advance(maxDoc);
+        return iterator.index - 1;
+    }
+
+    @Override
+    int maxTermFrequency() {
+        return maxTermFrequency;
+    }
+
+    @Override
+    int minDocumentLength() {
+        return minDocumentLength;
+    }
+
+    @Override
+    PostingsIterator iterator() {
+        return new Iterator();
+    }
+
+    private int blockLastDocId(int block) {
+        return buffer.getInt(blocksOffset + block * BLOCK_ENTRY_BYTES);
+    }
+
+    private int blockEndOffset(int block) {
+        return buffer.getInt(blocksOffset + block * BLOCK_ENTRY_BYTES + 4);
+    }
+
+    private int blockPositionEndOffset(int block) {
+        return buffer.getInt(blocksOffset + block * BLOCK_ENTRY_BYTES + 16);
+    }
+
+    private final class Iterator implements PostingsIterator {
+        private final int blockCount = size >> BLOCK_SHIFT;
+        private int offset;
+        private int index;
+        private int docId = -1;
+        private int termFrequency;
+        private int shallowBlock;
+        private int positionOffset;
+        private int pendingPositions;
+        private int positionsRead;
+        private int position;
+
+        @Override
+        public int docId() {
+            return docId;
+        }
+
+        @Override
+        public int termFrequency() {
+            return termFrequency;
+        }
+
+        @Override
+        public int nextDoc() {
+            if (offset >= length) {
+                return docId = NO_MORE_DOCS;
+            }
+            pendingPositions += termFrequency - positionsRead;
+            positionsRead = 0;
+            long code = readVLong();
+            docId = (int) (Math.max(docId, 0) + (code >>> 1));
+            termFrequency = (code & 1) != 0 ? 1 : (int) readVLong();
+            index++;
+            return docId;
+        }
+
+        @Override
+        public int nextPosition() {
+            if (positionsRead == 0) {
+                for (; pendingPositions > 0; pendingPositions--) {
+                    while (buffer.get(positionsStart + positionOffset++) < 0) {
+                        // continuation byte
+                    }
+                }
+                position = 0;
+            }
+            byte b = buffer.get(positionsStart + positionOffset++);
+            int gap = b & 0x7F;
+            for (int shift = 7; b < 0; shift += 7) {
+                b = buffer.get(positionsStart + positionOffset++);
+                gap |= (b & 0x7F) << shift;
+            }
+            positionsRead++;
+            return position += gap;
+        }
+
+        @Override
+        public int advance(int target) {
+            int block = index >> BLOCK_SHIFT;
+            if (block < blockCount && blockLastDocId(block) < target) {
+                do {
+                    block++;
+                } while (block < blockCount && blockLastDocId(block) < target);
+                offset = blockEndOffset(block - 1);
+                docId = blockLastDocId(block - 1);
+                index = block << BLOCK_SHIFT;
+                positionOffset = blockPositionEndOffset(block - 1);
+                pendingPositions = 0;
+                positionsRead = 0;
+                termFrequency = 0;
+            }
+            int doc = docId;
+            while (doc < target) {
+                doc = nextDoc();
+            }
+            return doc;
+        }
+
+        @Override
+        public int advanceShallow(int target) {
+            int block = Math.max(shallowBlock, Math.max(index - 1, 0) >> BLOCK_SHIFT);
+            while (block < blockCount && blockLastDocId(block) < target) {
+                block++;
+            }
+            if (block < blockCount) {
+                shallowBlock = block;
+                return blockLastDocId(block);
+            }
+            if (block << BLOCK_SHIFT < size && target <= lastDocId) {
+                shallowBlock = blockCount;
+                return lastDocId;
+            }
+            shallowBlock = blockCount + 1;
+            return NO_MORE_DOCS;
+        }
+
+        @Override
+        public int blockMaxTermFrequency() {
+            if (shallowBlock < blockCount) {
+                return buffer.getInt(blocksOffset + shallowBlock * BLOCK_ENTRY_BYTES + 8);
+            }
+            return shallowBlock == blockCount ? tailMaxTermFrequency : 0;
+        }
+
+        @Override
+        public int blockMinDocumentLength() {
+            if (shallowBlock < blockCount) {
+                return buffer.getInt(blocksOffset + shallowBlock * BLOCK_ENTRY_BYTES + 12);
+            }
+            return shallowBlock == blockCount ? tailMinDocumentLength : Integer.MAX_VALUE;
+        }
+
+        @Override
+        public int cost() {
+            return size;
+        }
+
+        private long readVLong() {
+            byte b = buffer.get(dataStart + offset++);
+            long value = b & 0x7FL;
+            for (int shift = 7; b < 0; shift += 7) {
+                b = buffer.get(dataStart + offset++);
+                value |= (b & 0x7FL) << shift;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.purva.searchengine.index;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An immutable segment read in place from a {@link ByteBuffer} in the {@link SnapshotFormat}
+ * segment layout: a memory-mapped snapshot section, or a direct-buffer copy of a sealed
+ * segment with {@link SegmentStorage#OFF_HEAP}.
+ */
+final class BufferSegment extends Segment {
+    private final ByteBuffer buffer;
+    private final int docCount;
+    private final int termCount;
+    private final int sortedIdsOffset;
+    private final int normsOffset;
+    private final int deletedWordsOffset;
+    private final int entryOffsetsOffset;
+    private final int entriesOffset;
+    private final int dataOffset;
+    private final int minDocumentId;
+    private final int maxDocumentId;
+    /**
+     * Term dictionary on the heap, or {@code null} to binary-search the one in the buffer. Set
+     * once by {@link #offHeapCopyOf} before the segment is published to readers.
+     */
+    private TermDictionary dictionary;
+
+    private BufferSegment(ByteBuffer buffer, int docCount, int termCount, long entriesLength, long[] deletedWords) {
+        super(new LiveDocs(deletedWords));
+        this.buffer = buffer;
+        this.docCount = docCount;
+        this.termCount = termCount;
+        this.sortedIdsOffset = SnapshotFormat.SECTION_HEADER_BYTES + 4 * docCount;
+        this.normsOffset = sortedIdsOffset + 8 * docCount;
+        this.deletedWordsOffset = normsOffset + docCount;
+        this.entryOffsetsOffset = deletedWordsOffset + 8 * deletedWords.length;
+        this.entriesOffset = entryOffsetsOffset + 4 * termCount;
+        this.dataOffset = Math.toIntExact(entriesOffset + entriesLength);
+        this.minDocumentId = docCount == 0 ? 0 : (int) (buffer.getLong(sortedIdsOffset) >>> 32);
+        this.maxDocumentId = docCount == 0 ? -1 : (int) (buffer.getLong(sortedIdsOffset + 8 * (docCount - 1)) >>> 32);
+    }
+
+    /** Reads the segment body that starts at position 0 of {@code buffer}. */
+    static BufferSegment read(ByteBuffer buffer) {
+        int docCount = buffer.getInt(0);
+        int termCount = buffer.getInt(4);
+        long entriesLength = buffer.getLong(8);
+        int deletedWordsOffset = SnapshotFormat.SECTION_HEADER_BYTES + 13 * docCount;
+        long[] deletedWords = new long[SnapshotFormat.deletedWordCount(docCount)];
+        for (int word = 0; word < deletedWords.length; word++) {
+            deletedWords[word] = buffer.getLong(deletedWordsOffset + 8 * word);
+        }
+        return new BufferSegment(buffer, docCount, termCount, entriesLength, deletedWords);
+    }
+
+    /**
+     * Copies a segment into a new direct buffer, keeping only its term dictionary on the heap.
+     *
+     * @return the copy, or {@code segment} itself if it is too large for one buffer
+     */
+    static Segment offHeapCopyOf(Segment segment) {
+        ByteBuffer buffer = SnapshotFormat.toDirectBuffer(segment);
+        if (buffer == null) {
+            return segment;
+        }
+        BufferSegment copy = read(buffer);
+        byte[][] sortedTerms = new byte[copy.termCount][];
+        for (int termId = 0; termId < sortedTerms.length; termId++) {
+            sortedTerms[termId] = copy.termBytes(termId);
+        }
+        copy.dictionary = TermDictionary.of(sortedTerms);
+        return copy;
+    }
+
+    @Override
+    int maxDoc() {
+        return docCount;
+    }
+
+    @Override
+    int termCount() {
+        return termCount;
+    }
+
+    @Override
+    int termId(String term, byte[] utf8Term) {
+        if (dictionary != null) {
+            return dictionary.termId(term, utf8Term);
+        }
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int comparison = compareTerm(entryOffset(mid), utf8Term);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    String term(int termId) {
+        return new String(termBytes(termId), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    BufferPostings postings(int termId) {
+        int entry = entryOffset(termId);
+        return new BufferPostings(buffer, entry + 2 + Short.toUnsignedInt(buffer.getShort(entry)), dataOffset);
+    }
+
+    @Override
+    int documentId(int ordinal) {
+        return buffer.getInt(SnapshotFormat.SECTION_HEADER_BYTES + 4 * ordinal);
+    }
+
+    @Override
+    int documentNorm(int ordinal) {
+        return Byte.toUnsignedInt(buffer.get(normsOffset + ordinal));
+    }
+
+    @Override
+    int findLiveOrdinal(int documentId) {
+        // Every write checks every segment for an older copy, so skip those whose id range cannot hold one
+        if (documentId < minDocumentId || documentId > maxDocumentId) {
+            return -1;
+        }
+        int low = 0;
+        int high = docCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long idAndOrdinal = buffer.getLong(sortedIdsOffset + 8 * mid);
+            int midDocumentId = (int) (idAndOrdinal >>> 32);
+            if (midDocumentId < documentId) {
+                low = mid + 1;
+            } else if (midDocumentId > documentId) {
+                high = mid - 1;
+            } else {
+                int ordinal = (int) idAndOrdinal;
+                return liveDocs().isLive(ordinal) ? ordinal : -1;
+            }
+        }
+        return -1;
+    }
+
+    /** Bytes held outside the heap by an {@link #offHeapCopyOf off-heap copy}; 0 for a mapped file. */
+    long offHeapSizeInBytes() {
+        return dictionary != null ? buffer.capacity() : 0;
+    }
+
+    /** Heap bytes of the term dictionary of an off-heap copy; 0 for a mapped file, which searches its own. */
+    long termDictionarySizeInBytes() {
+        return dictionary != null ? dictionary.sizeInBytes() : 0;
+    }
+
+    /** Read-only view of the whole segment body, for writing it to a new snapshot unchanged. */
+    ByteBuffer body() {
+        return buffer.asReadOnlyBuffer().position(0).limit(buffer.capacity());
+    }
+
+    /** Offset of the deletion bits in {@link #body()}, the only part that changes after sealing. */
+    int deletedWordsOffset() {
+        return deletedWordsOffset;
+    }
+
+    private int entryOffset(int term) {
+        return entriesOffset + buffer.getInt(entryOffsetsOffset + 4 * term);
+    }
+
+    private byte[] termBytes(int termId) {
+        int entry = entryOffset(termId);
+        byte[] term = new byte[Short.toUnsignedInt(buffer.getShort(entry))];
+        buffer.get(entry + 2, term);
+        return term;
+    }
+
+    /** Unsigned lexicographic comparison of the entry's UTF-8 term bytes with {@code key}. */
+    private int compareTerm(int entry, byte[] key) {
+        int termLength = Short.toUnsignedInt(buffer.getShort(entry));
+        int common = Math.min(termLength, key.length);
+        for (int i = 0; i < common; i++) {
+            int comparison = Byte.compareUnsigned(buffer.get(entry + 2 + i), key[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(termLength, key.length);
+    }
+}
@@ -0,0 +1,58 @@
+package com.purva.searchengine.index;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Corpus statistics summed over the snapshots of every shard of a {@link ShardedIndex}, or
+ * over every node of a cluster, so that a shard snapshot
+ * {@link IndexSnapshot#withStatistics viewed with} them scores exactly as the unsharded index
+ * would.
+ */
+public final class CollectionStatistics {
+    private final IndexSnapshot[] snapshots;
+    private final int totalDocuments;
+    private final long totalDocumentLength;
+    private final ConcurrentHashMap<String, Integer> docFreqs = new ConcurrentHashMap<>();
+
+    public CollectionStatistics(IndexSnapshot... snapshots) {
+        this.snapshots = snapshots.clone();
+        int totalDocuments = 0;
+        long totalDocumentLength = 0;
+        for (IndexSnapshot snapshot : snapshots) {
+            totalDocuments += snapshot.totalDocuments();
+            totalDocumentLength += snapshot.totalDocumentLength();
+        }
+        this.totalDocuments = totalDocuments;
+        this.totalDocumentLength = totalDocumentLength;
+    }
+
+    /**
+     * Statistics summed elsewhere, such as over the nodes of a cluster. A term missing from
+     * {@code docFreqs} has a document frequency of 0.
+     */
+    public CollectionStatistics(int totalDocuments, long totalDocumentLength, Map<String, Integer> docFreqs) {
+        this.snapshots = new IndexSnapshot[0];
+        this.totalDocuments = totalDocuments;
+        this.totalDocumentLength = totalDocumentLength;
+        this.docFreqs.putAll(docFreqs);
+    }
+
+    public int totalDocuments() {
+        return totalDocuments;
+    }
+
+    public long totalDocumentLength() {
+        return totalDocumentLength;
+    }
+
+    public int docFreq(String term) {
+        return docFreqs.computeIfAbsent(term, text -> {
+            int docFreq = 0;
+            for (IndexSnapshot snapshot : snapshots) {
+                docFreq += snapshot.docFreq(text);
+            }
+            return docFreq;
+        });
+    }
+}
@@ -0,0 +1,53 @@
+package com.purva.searchengine.index;
+
+/**
+ * One-byte lossy encoding of document lengths that preserves their order, decoded by a single
+ * table load; see {@code docs/bm25-scorer-logic.md}.
+ */
+public final class DocumentNorms {
+    public static final int NORM_VALUES = 256;
+    private static final int EXACT_LENGTHS = 24;
+    private static final int[] DECODED_LENGTHS = new int[NORM_VALUES];
+
+    static {
+        for (int norm = 0; norm < NORM_VALUES; norm++) {
+            DECODED_LENGTHS[norm] = decodeSlow(norm);
+        }
+    }
+
+    private DocumentNorms() {}
+
+    /** Encodes a non-negative length into an unsigned norm in {@code [0, 255]}. */
+    public static int encode(int length) {
+        if (length < EXACT_LENGTHS) {
+            return Math.max(length, 0);
+        }
+        int value = length - EXACT_LENGTHS;
+        int bits = 32 - Integer.numberOfLeadingZeros(value);
+        if (bits < 4) {
+            return EXACT_LENGTHS + value;
+        }
+        int shift = bits - 4;
+        return EXACT_LENGTHS + (((value >>> shift) & 0x07) | ((shift + 1) << 3));
+    }
+
+    public static int decode(int norm) {
+        return DECODED_LENGTHS[norm];
+    }
+
+    /** The length a document of the given length is scored with once its norm is stored. */
+    public static int quantize(int length) {
+        return decode(encode(length));
+    }
+
+    private static int decodeSlow(int norm) {
+        if (norm < EXACT_LENGTHS) {
+            return norm;
+        }
+        int code = norm - EXACT_LENGTHS;
+        int mantissa = code & 0x07;
+        int shift = (code >>> 3) - 1;
+        long value = shift < 0 ? mantissa : (long) (mantissa | 0x08) << shift;
+        return (int) Math.min(Integer.MAX_VALUE, EXACT_LENGTHS + value);
+    }
+}
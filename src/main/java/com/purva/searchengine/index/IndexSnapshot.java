@@ -0,0 +1,353 @@
+package com.purva.searchengine.index;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Point-in-time, lock-free read view over all segments of an {@link InvertedIndex}, addressing
+ * documents by a dense snapshot-wide doc number. Take one per query and resolve each token
+ * once with {@link #term(String)}.
+ */
+public final class IndexSnapshot {
+    private final Segment[] segments;
+    private final LiveDocs[] liveDocs;
+    private final int[] maxDocs;
+    private final int[] bases;
+    private final int maxDoc;
+    private final int totalDocuments;
+    private final long totalDocumentLength;
+    /** {@code null} when scoring uses this snapshot's own statistics. */
+    private final CollectionStatistics statistics;
+
+    IndexSnapshot(List<? extends Segment> segments, int totalDocuments, long totalDocumentLength) {
+        int count = segments.size();
+        this.segments = new Segment[count];
+        this.liveDocs = new LiveDocs[count];
+        this.maxDocs = new int[count];
+        this.bases = new int[count];
+
+        int base = 0;
+        for (int i = 0; i < count; i++) {
+            Segment segment = segments.get(i);
+            this.segments[i] = segment;
+            // Deletes made after this point stay invisible; segments without any skip the liveness check
+            this.liveDocs[i] = segment.liveDocs().frozen();
+            this.maxDocs[i] = segment.maxDoc();
+            this.bases[i] = base;
+            base += maxDocs[i];
+        }
+        this.maxDoc = base;
+        this.totalDocuments = totalDocuments;
+        this.totalDocumentLength = totalDocumentLength;
+        this.statistics = null;
+    }
+
+    private IndexSnapshot(IndexSnapshot source, CollectionStatistics statistics) {
+        this.segments = source.segments;
+        this.liveDocs = source.liveDocs;
+        this.maxDocs = source.maxDocs;
+        this.bases = source.bases;
+        this.maxDoc = source.maxDoc;
+        this.totalDocuments = source.totalDocuments;
+        this.totalDocumentLength = source.totalDocumentLength;
+        this.statistics = statistics;
+    }
+
+    /**
+     * The same documents and postings, with {@link #totalDocuments()},
+     * {@link #totalDocumentLength()} and every {@link Term#docFreq()} taken from
+     * {@code statistics} instead. Postings iterators still yield only this snapshot's documents.
+     */
+    public IndexSnapshot withStatistics(CollectionStatistics statistics) {
+        return new IndexSnapshot(this, statistics);
+    }
+
+    /** Exclusive upper bound of the doc numbers in this snapshot. */
+    public int maxDoc() {
+        return maxDoc;
+    }
+
+    public int totalDocuments() {
+        return statistics == null ? totalDocuments : statistics.totalDocuments();
+    }
+
+    public long totalDocumentLength() {
+        return statistics == null ? totalDocumentLength : statistics.totalDocumentLength();
+    }
+
+    public double averageDocumentLength() {
+        int documents = totalDocuments();
+        return documents == 0 ? 1.0 : (double) totalDocumentLength() / documents;
+    }
+
+    public int documentId(int doc) {
+        int segment = segmentOf(doc);
+        return segments[segment].documentId(doc - bases[segment]);
+    }
+
+    /** Length of the document as it is scored, i.e. after {@link DocumentNorms} quantization. */
+    public int documentLength(int doc) {
+        return DocumentNorms.decode(documentNorm(doc));
+    }
+
+    /** The document's {@link DocumentNorms encoded} length, in {@code [0, 255]}. */
+    public int documentNorm(int doc) {
+        int segment = segmentOf(doc);
+        return segments[segment].documentNorm(doc - bases[segment]);
+    }
+
+    /** Looks the term up in every segment of this snapshot. */
+    public Term term(String text) {
+        return new Term(text);
+    }
+
+    public int docFreq(String term) {
+        return term(term).docFreq();
+    }
+
+    /** Largest term frequency of the term in any document of this snapshot, {@code 0} if absent. */
+    public int maxTermFrequency(String term) {
+        return term(term).maxTermFrequency();
+    }
+
+    /** Smallest length of any document containing the term, {@link Integer#MAX_VALUE} if absent. */
+    public int minDocumentLength(String term) {
+        return term(term).minDocumentLength();
+    }
+
+    public PostingsIterator postings(String term) {
+        return term(term).postings();
+    }
+
+    /**
+     * Passes every term to {@code consumer} with the number of times it occurs in live
+     * documents. A term stored in several segments is passed once per segment, with that
+     * segment's count. Walks every posting, so this is for rebuilding structures derived from
+     * the index rather than for queries.
+     */
+    public void forEachTerm(ObjIntConsumer<String> consumer) {
+        for (int i = 0; i < segments.length; i++) {
+            Segment segment = segments[i];
+            for (int termId = 0; termId < segment.termCount(); termId++) {
+                int occurrences = 0;
+                PostingsIterator iterator = segment.postings(termId).iterator();
+                for (int ordinal = iterator.nextDoc(); ordinal < maxDocs[i]; ordinal = iterator.nextDoc()) {
+                    if (liveDocs[i] == null || liveDocs[i].isLive(ordinal)) {
+                        occurrences += iterator.termFrequency();
+                    }
+                }
+                if (occurrences > 0) {
+                    consumer.accept(segment.term(termId), occurrences);
+                }
+            }
+        }
+    }
+
+    private int segmentOf(int doc) {
+        int low = 0;
+        int high = segments.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (bases[mid] <= doc) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * A term resolved against every segment of the snapshot: each segment's dictionary is
+     * searched once, for the term's id there, and the postings and live document frequency
+     * found under that id are kept for the rest of the query.
+     */
+    public final class Term {
+        private final String text;
+        private final TermPostings[] postings;
+        private final int docFreq;
+
+        private Term(String text) {
+            this.text = text;
+            this.postings = new TermPostings[segments.length];
+            byte[] utf8Text = text.getBytes(StandardCharsets.UTF_8);
+            int docFreq = 0;
+            for (int i = 0; i < segments.length; i++) {
+                int termId = segments[i].termId(text, utf8Text);
+                if (termId >= 0) {
+                    postings[i] = segments[i].postings(termId);
+                    docFreq += segments[i].docFreq(termId, postings[i], maxDocs[i], liveDocs[i]);
+                }
+            }
+            this.docFreq = docFreq;
+        }
+
+        public String text() {
+            return text;
+        }
+
+        public int docFreq() {
+            return statistics == null ? docFreq : statistics.docFreq(text);
+        }
+
+        /** Largest term frequency of the term in any document of the snapshot, {@code 0} if absent. */
+        public int maxTermFrequency() {
+            int max = 0;
+            for (TermPostings segmentPostings : postings) {
+                if (segmentPostings != null) {
+                    max = Math.max(max, segmentPostings.maxTermFrequency());
+                }
+            }
+            return max;
+        }
+
+        /** Smallest length of any document containing the term, {@link Integer#MAX_VALUE} if absent. */
+        public int minDocumentLength() {
+            int min = Integer.MAX_VALUE;
+            for (TermPostings segmentPostings : postings) {
+                if (segmentPostings != null) {
+                    min = Math.min(min, segmentPostings.minDocumentLength());
+                }
+            }
+            return min;
+        }
+
+        /** A new iterator over the term's live postings; each call starts from the beginning. */
+        public PostingsIterator postings() {
+            return new MultiSegmentPostingsIterator(postings, docFreq);
+        }
+    }
+
+    /** Concatenates the per-segment postings of one term, skipping deleted documents. */
+    private final class MultiSegmentPostingsIterator implements PostingsIterator {
+        private final TermPostings[] termPostings;
+        private final int cost;
+        private int segment = -1;
+        private PostingsIterator current;
+        private int doc = -1;
+        private int shallowMaxTermFrequency;
+        private int shallowMinDocumentLength = Integer.MAX_VALUE;
+
+        private MultiSegmentPostingsIterator(TermPostings[] termPostings, int cost) {
+            this.termPostings = termPostings;
+            this.cost = cost;
+        }
+
+        @Override
+        public int docId() {
+            return doc;
+        }
+
+        @Override
+        public int termFrequency() {
+            return current.termFrequency();
+        }
+
+        @Override
+        public int nextPosition() {
+            return current.nextPosition();
+        }
+
+        @Override
+        public int nextDoc() {
+            if (current != null) {
+                int ordinal = nextLive(current.nextDoc());
+                if (ordinal != NO_MORE_DOCS) {
+                    return doc = bases[segment] + ordinal;
+                }
+            }
+            return advanceSegment(-1);
+        }
+
+        @Override
+        public int advance(int target) {
+            if (current != null && target < bases[segment] + maxDocs[segment]) {
+                int ordinal = current.docId() >= target - bases[segment]
+                        ? current.docId()
+                        : nextLive(current.advance(target - bases[segment]));
+                if (ordinal != NO_MORE_DOCS) {
+                    return doc = bases[segment] + ordinal;
+                }
+            }
+            return advanceSegment(target);
+        }
+
+        /**
+         * Inside the current segment this delegates to the segment's block data. Segments the
+         * iterator has not entered yet are treated as one block bounded by their whole list.
+         */
+        @Override
+        public int advanceShallow(int target) {
+            if (target >= maxDoc) {
+                return shallowBlock(0, Integer.MAX_VALUE, NO_MORE_DOCS);
+            }
+            int shallowSegment = segmentOf(target);
+            int segmentEnd = bases[shallowSegment] + maxDocs[shallowSegment] - 1;
+            if (shallowSegment == segment && current != null) {
+                int end = current.advanceShallow(target - bases[segment]);
+                shallowBlock(current.blockMaxTermFrequency(), current.blockMinDocumentLength(), 0);
+                return end == NO_MORE_DOCS ? segmentEnd : Math.min(bases[segment] + end, segmentEnd);
+            }
+            TermPostings postings = termPostings[shallowSegment];
+            if (postings == null) {
+                return shallowBlock(0, Integer.MAX_VALUE, segmentEnd);
+            }
+            return shallowBlock(postings.maxTermFrequency(), postings.minDocumentLength(), segmentEnd);
+        }
+
+        @Override
+        public int blockMaxTermFrequency() {
+            return shallowMaxTermFrequency;
+        }
+
+        @Override
+        public int blockMinDocumentLength() {
+            return shallowMinDocumentLength;
+        }
+
+        @Override
+        public int cost() {
+            return cost;
+        }
+
+        private int shallowBlock(int maxTermFrequency, int minDocumentLength, int end) {
+            shallowMaxTermFrequency = maxTermFrequency;
+            shallowMinDocumentLength = minDocumentLength;
+            return end;
+        }
+
+        /** Moves to the next segment that has a live posting at or after {@code target}. */
+        private int advanceSegment(int target) {
+            while (++segment < segments.length) {
+                if (bases[segment] + maxDocs[segment] <= target) {
+                    continue;
+                }
+                TermPostings postings = termPostings[segment];
+                if (postings == null) {
+                    continue;
+                }
+                current = postings.iterator();
+                int first = target > bases[segment] ? current.advance(target - bases[segment]) : current.nextDoc();
+                int ordinal = nextLive(first);
+                if (ordinal != NO_MORE_DOCS) {
+                    return doc = bases[segment] + ordinal;
+                }
+            }
+            current = null;
+            return doc = NO_MORE_DOCS;
+        }
+
+        private int nextLive(int ordinal) {
+            LiveDocs live = liveDocs[segment];
+            int limit = maxDocs[segment];
+            while (ordinal < limit) {
+                if (live == null || live.isLive(ordinal)) {
+                    return ordinal;
+                }
+                ordinal = current.nextDoc();
+            }
+            return NO_MORE_DOCS;
+        }
+    }
+}
@@ -1,94 +1,309 @@
 package com.purva.searchengine.index;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
-public class InvertedIndex {
-    private final Map<String, Map<Integer, Posting>> index = new HashMap<>();
-    private final Map<Integer, Integer> documentLengths = new HashMap<>();
+/**
+ * Segmented (LSM-style) inverted index: writes append to a {@link WriteBuffer} that a
+ * background thread seals and merges into immutable segments, and readers work lock-free on an
+ * {@link IndexSnapshot}. See {@code docs/inverted-index-design.md}.
+ */
+public class InvertedIndex implements AutoCloseable {
+    public static final int DEFAULT_FLUSH_THRESHOLD = 1024;
+    public static final int DEFAULT_SEGMENTS_PER_TIER = 10;
+
+    private final int flushThreshold;
+    private final SegmentStorage storage;
+    private final TieredMergePolicy mergePolicy;
+    private final ExecutorService mergeExecutor;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    /** Signalled when the last pending seal or merge finishes. */
+    private final Condition mergesIdle = writeLock.newCondition();
+    // Only written while holding the writer lock; volatile so metrics can read them without it
+    private volatile long lockAcquisitions;
+    private volatile long contendedLockAcquisitions;
+    private volatile long lockWaitNanos;
     private final AtomicInteger totalDocuments = new AtomicInteger(0);
     private final AtomicLong totalDocumentLength = new AtomicLong(0);
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong generation = new AtomicLong(0);
+    private volatile State state;
+    private boolean mergeRunning;
+    private int pendingSeals;
+
+    /** Segments visible to readers: sealed segments, frozen buffers awaiting sealing, and the write buffer. */
+    private record State(List<Segment> segments, WriteBuffer buffer) {
+        List<Segment> all() {
+            List<Segment> all = new ArrayList<>(segments.size() + 1);
+            all.addAll(segments);
+            all.add(buffer);
+            return all;
+        }
+
+        /** Immutable segments that may be merged: sealed or loaded from a snapshot, but not frozen buffers. */
+        List<Segment> sealed() {
+            List<Segment> sealed = new ArrayList<>(segments.size());
+            for (Segment segment : segments) {
+                if (!(segment instanceof WriteBuffer)) {
+                    sealed.add(segment);
+                }
+            }
+            return sealed;
+        }
+    }
+
+    /**
+     * How often the writer lock was taken, by writers and by seals and merges publishing
+     * their result, how many of those acquisitions found it held, and how long they waited in
+     * total. Readers take no lock, so there is no reader wait to report.
+     */
+    public record WriterLockStats(long acquisitions, long contended, long waitNanos) {
+        public WriterLockStats plus(WriterLockStats other) {
+            return new WriterLockStats(acquisitions + other.acquisitions, contended + other.contended,
+                    waitNanos + other.waitNanos);
+        }
+    }
+
+    public InvertedIndex() {
+        this(DEFAULT_FLUSH_THRESHOLD, DEFAULT_SEGMENTS_PER_TIER);
+    }
+
+    public InvertedIndex(int flushThreshold, int segmentsPerTier) {
+        this(flushThreshold, segmentsPerTier, SegmentStorage.HEAP);
+    }
 
+    public InvertedIndex(int flushThreshold, int segmentsPerTier, SegmentStorage storage) {
+        this(flushThreshold, segmentsPerTier, storage, List.of(), 0, 0, 0);
+    }
+
+    private InvertedIndex(int flushThreshold, int segmentsPerTier, SegmentStorage storage, List<? extends Segment> segments,
+                          long generation, int totalDocuments, long totalDocumentLength) {
+        if (flushThreshold <= 0) {
+            throw new IllegalArgumentException("flushThreshold must be greater than 0");
+        }
+        this.flushThreshold = flushThreshold;
+        this.storage = Objects.requireNonNull(storage);
+        this.mergePolicy = new TieredMergePolicy(segmentsPerTier, flushThreshold);
+        this.mergeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "index-merge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.state = new State(List.copyOf(segments), new WriteBuffer(flushThreshold));
+        this.generation.set(generation);
+        this.totalDocuments.set(totalDocuments);
+        this.totalDocumentLength.set(totalDocumentLength);
+    }
+
+    /** Opens an index saved with {@link #save(Path)}, using the default buffer and merge settings. */
+    public static InvertedIndex open(Path file) throws IOException {
+        return open(file, DEFAULT_FLUSH_THRESHOLD, DEFAULT_SEGMENTS_PER_TIER, SegmentStorage.HEAP);
+    }
+
+    public static InvertedIndex open(Path file, int flushThreshold, int segmentsPerTier) throws IOException {
+        return open(file, flushThreshold, segmentsPerTier, SegmentStorage.HEAP);
+    }
+
+    /**
+     * Opens an index saved with {@link #save(Path)}. The file is checksummed and memory-mapped;
+     * its segments are searched in place, so queries can run as soon as this returns. New
+     * writes go to a fresh write buffer, and the loaded segments take part in merges like
+     * any other sealed segment; {@code storage} applies to the segments they are merged into.
+     *
+     * @throws IOException if the file cannot be read, is corrupt or has an unsupported version
+     */
+    public static InvertedIndex open(Path file, int flushThreshold, int segmentsPerTier, SegmentStorage storage)
+            throws IOException {
+        SnapshotFormat.Contents contents = SnapshotFormat.read(file);
+        return new InvertedIndex(flushThreshold, segmentsPerTier, storage, contents.segments(), contents.generation(),
+                contents.totalDocuments(), contents.totalDocumentLength());
+    }
+
+    /** Indexes a document whose tokens are consecutive. */
     public void index(int docId, List<String> tokens) {
-        if (tokens == null || tokens.isEmpty() || docId <= 0) {
+        index(docId, tokens, null);
+    }
+
+    /**
+     * Replaces whatever the index held for {@code docId}. A document with no tokens cannot be
+     * searched, so indexing one only deletes the previous version; ids below {@code 1} are
+     * ignored.
+     *
+     * @param positions each token's position, ascending, or {@code null} when the tokens are
+     *                  consecutive; see {@link TokenizedDocument}
+     */
+    public void index(int docId, List<String> tokens, int[] positions) {
+        if (docId <= 0) {
             return;
         }
 
-        lock.writeLock().lock();
+        // Counting happens outside the lock so concurrent writers only serialise on the append itself
+        Map<String, int[]> termPositions = hasTokens(tokens) ? termPositions(tokens, positions) : null;
+
+        lockWriter();
 
         try {
-            if (!documentLengths.containsKey(docId)) {
-                totalDocuments.incrementAndGet();
+            if (termPositions == null) {
+                remove(docId);
             }
-            if (documentLengths.containsKey(docId)) {
-                totalDocumentLength.addAndGet(-documentLengths.get(docId));
+            else {
+                append(docId, termPositions, tokens.size());
             }
-            totalDocumentLength.addAndGet(tokens.size());
-            documentLengths.put(docId, tokens.size());
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
 
-            Map<String, Integer> termFreqMap = new HashMap<>();
-            for (String token : tokens) {
-                termFreqMap.put(token, termFreqMap.getOrDefault(token, 0) + 1);
-            }
+    /**
+     * Indexes a batch of documents with one writer lock acquisition. Term positions are
+     * collected in parallel before the lock is taken. Documents are applied in list order, so
+     * a later entry for the same id replaces an earlier one exactly as repeated
+     * {@link #index} calls would.
+     */
+    public void indexAll(List<TokenizedDocument> documents) {
+        List<TokenizedDocument> valid = documents.stream()
+                .filter(document -> document.documentId() > 0)
+                .toList();
+        // A document with no tokens has no map; it only deletes its previous version
+        List<Map<String, int[]>> termPositionMaps = valid.parallelStream()
+                .map(document -> hasTokens(document.tokens())
+                        ? termPositions(document.tokens(), document.positions())
+                        : null)
+                .toList();
 
-            for (Map.Entry<String, Integer> entry : termFreqMap.entrySet()) {
-                String token = entry.getKey();
-                int frequency = entry.getValue();
-                index.computeIfAbsent(token, k -> new HashMap<>()).put(docId, new Posting(docId, frequency));
+        lockWriter();
+
+        try {
+            for (int i = 0; i < valid.size(); i++) {
+                TokenizedDocument document = valid.get(i);
+                Map<String, int[]> termPositions = termPositionMaps.get(i);
+                if (termPositions == null) {
+                    remove(document.documentId());
+                }
+                else {
+                    append(document.documentId(), termPositions, document.tokens().size());
+                }
             }
         }
         finally {
-            lock.writeLock().unlock();
+            writeLock.unlock();
         }
     }
 
-    public Collection<Posting> getPostings(String token) {
-        lock.readLock().lock();
+    /**
+     * Removes the document from search results and corpus statistics immediately. Its
+     * postings are dropped physically by the next merge of its segment, or by a purge once
+     * enough of the segment is deleted.
+     *
+     * @return {@code false} if no live document has this id
+     */
+    public boolean delete(int docId) {
+        lockWriter();
 
         try {
-            Collection<Posting> postings =  index.getOrDefault(token, Map.of()).values();
-            return Collections.unmodifiableCollection(postings);
+            return remove(docId);
         }
         finally {
-            lock.readLock().unlock();
+            writeLock.unlock();
         }
     }
 
-    public Map<Integer, Posting> getPostingsMap(String token) {
-        lock.readLock().lock();
+    /**
+     * Writes every document indexed so far to {@code file}, replacing it atomically.
+     *
+     * <p>Only capturing the segment list, deletions and statistics happens under the writer
+     * lock; the file itself is written on the calling thread while indexing and searching
+     * continue. The write buffer is frozen first so that everything captured is immutable.</p>
+     */
+    public void save(Path file) throws IOException {
+        SnapshotFormat.Checkpoint checkpoint;
+        lockWriter();
 
         try {
-            return Collections.unmodifiableMap(index.getOrDefault(token, Map.of()));
+            if (state.buffer().maxDoc() > 0) {
+                freezeBuffer();
+            }
+            List<Segment> segments = state.segments();
+            List<long[]> deletedWords = new ArrayList<>(segments.size());
+            for (Segment segment : segments) {
+                deletedWords.add(segment.liveDocs().copyDeletedWords());
+            }
+            checkpoint = new SnapshotFormat.Checkpoint(segments, deletedWords, generation.get(),
+                    totalDocuments.get(), totalDocumentLength.get());
         }
         finally {
-            lock.readLock().unlock();
+            writeLock.unlock();
         }
+
+        SnapshotFormat.write(file, checkpoint);
     }
 
-    public boolean contains(String token) {
-        lock.readLock().lock();
+    /** Hands the write buffer over for sealing, even if it is not full. */
+    public void flush() {
+        lockWriter();
 
         try {
-            return index.containsKey(token);
+            if (state.buffer().maxDoc() > 0) {
+                freezeBuffer();
+            }
         }
         finally {
-            lock.readLock().unlock();
+            writeLock.unlock();
         }
     }
 
-    public int getDocumentLength(int docId) {
-        lock.readLock().lock();
+    /**
+     * Counter that changes whenever search results may change. Flushes and merges only
+     * reorganise segments and leave it untouched. Read it <em>before</em> taking a
+     * {@link #snapshot()}: results computed from that snapshot are then at least as new as
+     * the generation they are tagged with.
+     */
+    public long generation() {
+        return generation.get();
+    }
 
-        try {
-            return documentLengths.getOrDefault(docId, 1);
+    /** Returns a lock-free, point-in-time view of the index for query execution. */
+    public IndexSnapshot snapshot() {
+        return new IndexSnapshot(state.all(), totalDocuments.get(), totalDocumentLength.get());
+    }
+
+    public Collection<Posting> getPostings(String token) {
+        return getPostingsMap(token).values();
+    }
+
+    public Map<Integer, Posting> getPostingsMap(String token) {
+        IndexSnapshot snapshot = snapshot();
+        PostingsIterator postings = snapshot.postings(token);
+        Map<Integer, Posting> decoded = new LinkedHashMap<>();
+        for (int doc = postings.nextDoc(); doc != PostingsIterator.NO_MORE_DOCS; doc = postings.nextDoc()) {
+            int docId = snapshot.documentId(doc);
+            decoded.put(docId, new Posting(docId, postings.termFrequency()));
         }
-        finally {
-            lock.readLock().unlock();
+        return Collections.unmodifiableMap(decoded);
+    }
+
+    public boolean contains(String token) {
+        return getDocumentFrequency(token) > 0;
+    }
+
+    /** Length the document is scored with; lengths of 24 tokens or more are quantized by {@link DocumentNorms}. */
+    public int getDocumentLength(int docId) {
+        State current = state;
+        for (Segment segment : current.all()) {
+            int ordinal = segment.findLiveOrdinal(docId);
+            if (ordinal >= 0) {
+                return segment.documentLength(ordinal);
+            }
         }
+        return 1;
     }
 
     public int getTotalDocuments() {
@@ -96,25 +311,267 @@ public class InvertedIndex {
     }
 
     public int getDocumentFrequency(String token) {
-        lock.readLock().lock();
+        return snapshot().docFreq(token);
+    }
+
+    public double getAverageDocumentLength() {
+        int documents = totalDocuments.get();
+        return documents == 0 ? 1.0 : (double) totalDocumentLength.get() / documents;
+    }
+
+    public int getSegmentCount() {
+        return state.segments().size() + 1;
+    }
+
+    public long getPostingsCount() {
+        long count = 0;
+        for (Segment segment : state.all()) {
+            count += segment.postingsCount();
+        }
+        return count;
+    }
+
+    public long getPostingsSizeInBytes() {
+        long bytes = 0;
+        for (Segment segment : state.all()) {
+            bytes += segment.postingsSizeInBytes();
+        }
+        return bytes;
+    }
+
+    /** Encoded size of the position streams, which only phrase queries read. */
+    public long getPositionsSizeInBytes() {
+        long bytes = 0;
+        for (Segment segment : state.all()) {
+            bytes += segment.positionsSizeInBytes();
+        }
+        return bytes;
+    }
+
+    /** Heap bytes of the term dictionaries of sealed segments, excluding their postings and the write buffer. */
+    public long getTermDictionarySizeInBytes() {
+        long bytes = 0;
+        for (Segment segment : state.segments()) {
+            if (segment instanceof SealedSegment sealedSegment) {
+                bytes += sealedSegment.termDictionarySizeInBytes();
+            } else if (segment instanceof BufferSegment bufferSegment) {
+                bytes += bufferSegment.termDictionarySizeInBytes();
+            }
+        }
+        return bytes;
+    }
 
+    /** Direct memory held by {@link SegmentStorage#OFF_HEAP off-heap} segments of the current index. */
+    public long getOffHeapSizeInBytes() {
+        long bytes = 0;
+        for (Segment segment : state.all()) {
+            if (segment instanceof BufferSegment bufferSegment) {
+                bytes += bufferSegment.offHeapSizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    public WriterLockStats writerLockStats() {
+        return new WriterLockStats(lockAcquisitions, contendedLockAcquisitions, lockWaitNanos);
+    }
+
+    /** Blocks until no seal or merge is pending; intended for tests and orderly shutdown. */
+    public void awaitMerges() throws InterruptedException {
+        writeLock.lock();
         try {
-            return index.getOrDefault(token, Map.of()).size();
+            while (mergeRunning || pendingSeals > 0) {
+                mergesIdle.await();
+            }
         }
         finally {
-            lock.readLock().unlock();
+            writeLock.unlock();
         }
     }
 
-    public double getAverageDocumentLength() {
-        lock.readLock().lock();
+    /** Stops merging, waiting up to a minute for a running merge to finish. */
+    @Override
+    public void close() {
+        mergeExecutor.shutdown();
+        try {
+            mergeExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Takes the writer lock, reading the clock only when another thread holds it, so an
+     * uncontended acquisition costs no more than before it was measured.
+     */
+    private void lockWriter() {
+        if (!writeLock.tryLock()) {
+            long start = System.nanoTime();
+            writeLock.lock();
+            lockWaitNanos += System.nanoTime() - start;
+            contendedLockAcquisitions++;
+        }
+        lockAcquisitions++;
+    }
+
+    private static boolean hasTokens(List<String> tokens) {
+        return tokens != null && !tokens.isEmpty();
+    }
+
+    /**
+     * Positions of each term in the document, ascending; a term's frequency is the length of
+     * its array. Without {@code positions}, a position is the index of the token in the list.
+     */
+    private static Map<String, int[]> termPositions(List<String> tokens, int[] positions) {
+        // While collecting, slot 0 holds the number of positions that follow it
+        Map<String, int[]> termPositions = new HashMap<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            int position = positions == null ? i : positions[i];
+            int[] collected = termPositions.get(tokens.get(i));
+            if (collected == null) {
+                termPositions.put(tokens.get(i), new int[] {1, position});
+                continue;
+            }
+            int count = collected[0] + 1;
+            if (count == collected.length) {
+                collected = Arrays.copyOf(collected, count << 1);
+                termPositions.put(tokens.get(i), collected);
+            }
+            collected[0] = count;
+            collected[count] = position;
+        }
+        termPositions.replaceAll((term, collected) -> Arrays.copyOfRange(collected, 1, collected[0] + 1));
+        return termPositions;
+    }
+
+    /** Replaces any live copy of the document with a new one; the caller holds the writer lock. */
+    private void append(int docId, Map<String, int[]> termPositions, int length) {
+        int previousLength = deleteLiveCopy(docId);
+        if (previousLength < 0) {
+            totalDocuments.incrementAndGet();
+        } else {
+            totalDocumentLength.addAndGet(-previousLength);
+            // Updates leave tombstones behind just like deletes
+            maybeScheduleMerge();
+        }
+
+        State current = state;
+        current.buffer().add(docId, termPositions, length);
+        // Totals use the stored (quantized) length so a later delete subtracts exactly what was added
+        totalDocumentLength.addAndGet(DocumentNorms.quantize(length));
+
+        // Bumped only after the document is visible, so a reader that sees the new generation also sees the document
+        generation.incrementAndGet();
 
+        if (current.buffer().isFull()) {
+            freezeBuffer();
+        }
+    }
+
+    /** {@link #delete} with the writer lock held. */
+    private boolean remove(int docId) {
+        int length = deleteLiveCopy(docId);
+        if (length < 0) {
+            return false;
+        }
+        totalDocuments.decrementAndGet();
+        totalDocumentLength.addAndGet(-length);
+        generation.incrementAndGet();
+        maybeScheduleMerge();
+        return true;
+    }
+
+    /** Deletes the live copy of the document, if any, and returns its length or {@code -1}. */
+    private int deleteLiveCopy(int docId) {
+        for (Segment segment : state.all()) {
+            int ordinal = segment.findLiveOrdinal(docId);
+            if (ordinal >= 0 && segment.liveDocs().delete(ordinal)) {
+                return segment.documentLength(ordinal);
+            }
+        }
+        return -1;
+    }
+
+    private void freezeBuffer() {
+        State current = state;
+        WriteBuffer frozen = current.buffer();
+        List<Segment> segments = new ArrayList<>(current.segments());
+        segments.add(frozen);
+        state = new State(List.copyOf(segments), new WriteBuffer(flushThreshold));
+        pendingSeals++;
+        mergeExecutor.execute(() -> runSeal(frozen));
+    }
+
+    private void runSeal(WriteBuffer frozen) {
+        SegmentMerger.MergeResult result = null;
+        try {
+            result = SegmentMerger.merge(List.of(frozen), storage);
+        }
+        finally {
+            lockWriter();
+            try {
+                if (result != null) {
+                    commitMerge(result);
+                }
+                pendingSeals--;
+                maybeScheduleMerge();
+                signalIfIdle();
+            }
+            finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private void maybeScheduleMerge() {
+        // After close() the last running merge must not schedule another one on the stopped executor
+        if (mergeRunning || mergeExecutor.isShutdown()) {
+            return;
+        }
+        List<Segment> toMerge = mergePolicy.findMerge(state.sealed());
+        if (toMerge.isEmpty()) {
+            return;
+        }
+        mergeRunning = true;
+        mergeExecutor.execute(() -> runMerge(toMerge));
+    }
+
+    private void runMerge(List<Segment> toMerge) {
+        SegmentMerger.MergeResult result = null;
         try {
-            int totalDocs = totalDocuments.get();
-            return totalDocs == 0 ? 1.0 : (double) totalDocumentLength.get() / totalDocs;
+            result = SegmentMerger.merge(toMerge, storage);
         }
         finally {
-            lock.readLock().unlock();
+            lockWriter();
+            try {
+                if (result != null) {
+                    commitMerge(result);
+                }
+                mergeRunning = false;
+                maybeScheduleMerge();
+                signalIfIdle();
+            }
+            finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private void signalIfIdle() {
+        if (!mergeRunning && pendingSeals == 0) {
+            mergesIdle.signalAll();
+        }
+    }
+
+    private void commitMerge(SegmentMerger.MergeResult result) {
+        result.carryOverDeletes();
+        State current = state;
+        List<Segment> segments = new ArrayList<>(current.segments());
+        segments.removeAll(result.sources());
+        if (result.merged().liveDocCount() > 0) {
+            segments.add(result.merged());
         }
+        state = new State(List.copyOf(segments), current.buffer());
     }
 }
@@ -0,0 +1,81 @@
+package com.purva.searchengine.index;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Deletion bitset for the documents of one segment, addressed by segment-local ordinal.
+ * Searches read a {@link #frozen() frozen} copy, so deletes made after their snapshot stay
+ * invisible to them.
+ */
+final class LiveDocs {
+    private final AtomicLongArray deletedWords;
+    private final AtomicInteger deletedCount = new AtomicInteger();
+    /** The latest frozen copy, shared by every snapshot taken until the next delete. */
+    private volatile Frozen frozen;
+
+    /** A copy of the bits, tagged with the delete count read before copying. */
+    private record Frozen(int deletedCount, LiveDocs liveDocs) {}
+
+    LiveDocs(int capacity) {
+        this.deletedWords = new AtomicLongArray(Math.max(1, (capacity + 63) >>> 6));
+    }
+
+    /** Restores deletion bits saved with {@link #copyDeletedWords()}. */
+    LiveDocs(long[] deletedWords) {
+        this.deletedWords = new AtomicLongArray(deletedWords);
+        int deleted = 0;
+        for (long word : deletedWords) {
+            deleted += Long.bitCount(word);
+        }
+        this.deletedCount.set(deleted);
+    }
+
+    boolean isLive(int ordinal) {
+        return (deletedWords.get(ordinal >>> 6) & (1L << ordinal)) == 0;
+    }
+
+    /** Marks the ordinal as deleted and returns {@code true} if it was live before. */
+    boolean delete(int ordinal) {
+        int word = ordinal >>> 6;
+        long mask = 1L << ordinal;
+        long previous = deletedWords.getAndAccumulate(word, mask, (current, bit) -> current | bit);
+        if ((previous & mask) != 0) {
+            return false;
+        }
+        deletedCount.incrementAndGet();
+        return true;
+    }
+
+    int deletedCount() {
+        return deletedCount.get();
+    }
+
+    /**
+     * An immutable copy of the current deletion bits, or {@code null} when nothing is deleted.
+     * A copy is made at most once per delete and shared until the next one. A delete racing
+     * with the copy may or may not be in it, but the copy's own count always matches its bits.
+     */
+    LiveDocs frozen() {
+        int count = deletedCount.get();
+        if (count == 0) {
+            return null;
+        }
+        Frozen current = frozen;
+        if (current == null || current.deletedCount() != count) {
+            // The bit is set before the count is incremented, so the copy holds at least count deletes
+            current = new Frozen(count, new LiveDocs(copyDeletedWords()));
+            frozen = current;
+        }
+        return current.liveDocs();
+    }
+
+    /** Point-in-time copy of the deletion bits, used to detect deletes that race with a merge. */
+    long[] copyDeletedWords() {
+        long[] copy = new long[deletedWords.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = deletedWords.get(i);
+        }
+        return copy;
+    }
+}
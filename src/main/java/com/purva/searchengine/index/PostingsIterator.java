@@ -0,0 +1,96 @@
+package com.purva.searchengine.index;
+
+/**
+ * Forward-only cursor over a doc-id sorted postings list, positioned before the first posting
+ * until {@link #nextDoc()} or {@link #advance(int)} is called.
+ */
+public interface PostingsIterator {
+    int NO_MORE_DOCS = Integer.MAX_VALUE;
+    /** Returned by {@link #nextPosition()} of an iterator that is not on a posting. */
+    int NO_MORE_POSITIONS = Integer.MAX_VALUE;
+
+    /** Document id of the current posting, {@code -1} before iteration and {@link #NO_MORE_DOCS} after it. */
+    int docId();
+
+    /** Term frequency of the current posting. */
+    int termFrequency();
+
+    /**
+     * Position of the term's next occurrence in the current document, counted in indexed tokens.
+     * May be called up to {@link #termFrequency()} times per document and returns the positions
+     * in increasing order. Positions are decoded only when asked for.
+     */
+    int nextPosition();
+
+    /** Moves to the next posting and returns its document id. */
+    int nextDoc();
+
+    /** Moves to the first posting whose document id is {@code >= target} and returns that id. */
+    default int advance(int target) {
+        int doc = docId();
+        while (doc < target) {
+            doc = nextDoc();
+        }
+        return doc;
+    }
+
+    /**
+     * Selects, without moving the iterator, the block of postings that contains {@code target}
+     * (or would contain it) and returns the last document id that block covers. The
+     * {@code block*} accessors then describe that block. Targets must not decrease between
+     * calls. Returns {@link #NO_MORE_DOCS} when no posting at or after {@code target} exists;
+     * the default treats the whole list as a single block.
+     */
+    default int advanceShallow(int target) {
+        return NO_MORE_DOCS;
+    }
+
+    /** Largest term frequency in the block selected by {@link #advanceShallow(int)}. */
+    default int blockMaxTermFrequency() {
+        return Integer.MAX_VALUE;
+    }
+
+    /** Smallest document length in the block selected by {@link #advanceShallow(int)}. */
+    default int blockMinDocumentLength() {
+        return 1;
+    }
+
+    /** Number of postings this iterator walks in total; used to order terms cheapest-first. */
+    int cost();
+
+    static PostingsIterator empty() {
+        return new PostingsIterator() {
+            private int doc = -1;
+
+            @Override
+            public int docId() {
+                return doc;
+            }
+
+            @Override
+            public int termFrequency() {
+                return 0;
+            }
+
+            @Override
+            public int nextPosition() {
+                return NO_MORE_POSITIONS;
+            }
+
+            @Override
+            public int nextDoc() {
+                return doc = NO_MORE_DOCS;
+            }
+
+            @Override
+            public int blockMaxTermFrequency() {
+                return 0;
+            }
+
+            @Override
+            public int cost() {
+                return 0;
+            }
+        };
+    }
+}
@@ -0,0 +1,392 @@
+package com.purva.searchengine.index;
+
+import java.util.Arrays;
+
+/**
+ * Doc-id sorted postings for a single term, stored as a variable-byte encoded stream of gaps
+ * with per-block skip data and score bounds, plus a lazily read positions stream. A single
+ * writer may append while any number of readers iterate; see
+ * {@code docs/inverted-index-design.md}.
+ */
+public final class PostingsList extends TermPostings {
+    static final int BLOCK_SIZE = 128;
+    private static final int BLOCK_SHIFT = 7;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private byte[] data = new byte[INITIAL_CAPACITY];
+    private int length;
+    private byte[] positions = new byte[INITIAL_CAPACITY];
+    private int positionsLength;
+    private int size;
+    private int lastDocId;
+    private int maxTermFrequency;
+    private int minDocumentLength = Integer.MAX_VALUE;
+    private Blocks blocks = Blocks.EMPTY;
+    private int tailMaxTermFrequency;
+    private int tailMinDocumentLength = Integer.MAX_VALUE;
+    private volatile View view = View.EMPTY;
+
+    /** Adds a posting whose document length is unknown; the term frequency is its tightest lower bound. */
+    void add(int docId, int termFrequency) {
+        add(docId, termFrequency, termFrequency);
+    }
+
+    /** Adds a posting without positions; its occurrences are recorded at positions {@code 0..termFrequency-1}. */
+    void add(int docId, int termFrequency, int documentLength) {
+        add(docId, termFrequency, null, documentLength);
+    }
+
+    /** @param positions the term's first {@code termFrequency} positions in the document, ascending */
+    void add(int docId, int termFrequency, int[] positions, int documentLength) {
+        if (size == 0 || docId > lastDocId) {
+            append(docId, termFrequency, positions, documentLength);
+        } else {
+            rewriteWith(docId, termFrequency, positions, documentLength);
+        }
+        publish();
+    }
+
+    private void publish() {
+        view = new View(data, length, size, lastDocId, maxTermFrequency, minDocumentLength,
+                blocks, tailMaxTermFrequency, tailMinDocumentLength, positions, positionsLength);
+    }
+
+    /** Releases spare capacity once no more postings will be added. */
+    void trim() {
+        if (data.length > length || positions.length > positionsLength) {
+            data = Arrays.copyOf(data, length);
+            positions = Arrays.copyOf(positions, positionsLength);
+            publish();
+        }
+    }
+
+    @Override
+    public int size() {
+        return view.size();
+    }
+
+    @Override
+    public int sizeInBytes() {
+        return view.length();
+    }
+
+    @Override
+    int positionsSizeInBytes() {
+        return view.positionsLength();
+    }
+
+    @Override
+    int sizeBelow(int maxDoc) {
+        View current = view;
+        if (current.size() == 0 || current.lastDocId() < maxDoc) {
+            return current.size();
+        }
+        // The iterator has consumed every posting up to and including the first one at or past maxDoc
+        Iterator iterator = new Iterator(current);
+        iterator.advance(maxDoc);
+        return iterator.index - 1;
+    }
+
+    /** Largest term frequency of any posting added to this list. */
+    @Override
+    public int maxTermFrequency() {
+        return view.maxTermFrequency();
+    }
+
+    /** Smallest document length of any posting added to this list, {@link Integer#MAX_VALUE} if empty. */
+    @Override
+    public int minDocumentLength() {
+        return view.minDocumentLength();
+    }
+
+    @Override
+    public PostingsIterator iterator() {
+        return new Iterator(view);
+    }
+
+    /** The currently published state, for {@link SnapshotFormat} to write out. */
+    View view() {
+        return view;
+    }
+
+    /**
+     * What a reader sees of the list. Bytes below a published length are never modified in place,
+     * and block entries are written before the view covering them, so a view stays valid after
+     * later appends.
+     */
+    record View(byte[] data, int length, int size, int lastDocId, int maxTermFrequency, int minDocumentLength,
+                        Blocks blocks, int tailMaxTermFrequency, int tailMinDocumentLength,
+                        byte[] positions, int positionsLength) {
+        private static final View EMPTY = new View(new byte[0], 0, 0, 0, 0, Integer.MAX_VALUE, Blocks.EMPTY, 0, Integer.MAX_VALUE,
+                new byte[0], 0);
+
+        /** Completed blocks covered by this view; later entries may already exist but are not visible yet. */
+        int blockCount() {
+            return size >> BLOCK_SHIFT;
+        }
+    }
+
+    /** Skip and bound data of completed blocks, indexed by block number. */
+    record Blocks(int[] lastDocIds, int[] endOffsets, int[] maxTermFrequencies, int[] minDocumentLengths,
+                  int[] positionEndOffsets) {
+        private static final Blocks EMPTY = new Blocks(new int[0], new int[0], new int[0], new int[0], new int[0]);
+
+        private Blocks grow() {
+            int capacity = Math.max(4, lastDocIds.length << 1);
+            return new Blocks(Arrays.copyOf(lastDocIds, capacity), Arrays.copyOf(endOffsets, capacity),
+                    Arrays.copyOf(maxTermFrequencies, capacity), Arrays.copyOf(minDocumentLengths, capacity),
+                    Arrays.copyOf(positionEndOffsets, capacity));
+        }
+    }
+
+    private void append(int docId, int termFrequency, int[] termPositions, int documentLength) {
+        long gap = docId - (long) lastDocId;
+        ensureCapacity(length + 15);
+        if (termFrequency == 1) {
+            length = writeVLong(data, length, (gap << 1) | 1);
+        } else {
+            length = writeVLong(data, length, gap << 1);
+            length = writeVLong(data, length, termFrequency);
+        }
+        lastDocId = docId;
+        size++;
+
+        int previous = 0;
+        for (int i = 0; i < termFrequency; i++) {
+            int position = termPositions == null ? i : termPositions[i];
+            if (positionsLength + 5 > positions.length) {
+                positions = Arrays.copyOf(positions, Math.max(positionsLength + 5, positions.length << 1));
+            }
+            positionsLength = writeVLong(positions, positionsLength, position - previous);
+            previous = position;
+        }
+
+        maxTermFrequency = Math.max(maxTermFrequency, termFrequency);
+        minDocumentLength = Math.min(minDocumentLength, documentLength);
+        tailMaxTermFrequency = Math.max(tailMaxTermFrequency, termFrequency);
+        tailMinDocumentLength = Math.min(tailMinDocumentLength, documentLength);
+        if ((size & (BLOCK_SIZE - 1)) == 0) {
+            closeBlock();
+        }
+    }
+
+    private void closeBlock() {
+        int block = (size >> BLOCK_SHIFT) - 1;
+        if (block == blocks.lastDocIds().length) {
+            blocks = blocks.grow();
+        }
+        blocks.lastDocIds()[block] = lastDocId;
+        blocks.endOffsets()[block] = length;
+        blocks.maxTermFrequencies()[block] = tailMaxTermFrequency;
+        blocks.minDocumentLengths()[block] = tailMinDocumentLength;
+        blocks.positionEndOffsets()[block] = positionsLength;
+        tailMaxTermFrequency = 0;
+        tailMinDocumentLength = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Per-posting document lengths are not stored, so the rewritten postings take the list-wide
+     * minimum as their length. Block bounds stay valid, only less tight.
+     */
+    private void rewriteWith(int docId, int termFrequency, int[] termPositions, int documentLength) {
+        int[] docIds = new int[size + 1];
+        int[] frequencies = new int[size + 1];
+        int[][] allPositions = new int[size + 1][];
+        int count = 0;
+        boolean written = false;
+
+        PostingsIterator it = new Iterator(view);
+        for (int doc = it.nextDoc(); doc != PostingsIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+            if (!written && doc >= docId) {
+                docIds[count] = docId;
+                allPositions[count] = termPositions;
+                frequencies[count++] = termFrequency;
+                written = true;
+                if (doc == docId) {
+                    continue;
+                }
+            }
+            docIds[count] = doc;
+            frequencies[count] = it.termFrequency();
+            allPositions[count] = new int[it.termFrequency()];
+            for (int i = 0; i < it.termFrequency(); i++) {
+                allPositions[count][i] = it.nextPosition();
+            }
+            count++;
+        }
+
+        int knownMinimumLength = minDocumentLength;
+        data = new byte[Math.max(INITIAL_CAPACITY, length + 15)];
+        length = 0;
+        positions = new byte[Math.max(INITIAL_CAPACITY, positionsLength + 5 * termFrequency)];
+        positionsLength = 0;
+        size = 0;
+        lastDocId = 0;
+        blocks = Blocks.EMPTY;
+        tailMaxTermFrequency = 0;
+        tailMinDocumentLength = Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            append(docIds[i], frequencies[i], allPositions[i], docIds[i] == docId ? documentLength : knownMinimumLength);
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > data.length) {
+            data = Arrays.copyOf(data, Math.max(required, data.length << 1));
+        }
+    }
+
+    private static int writeVLong(byte[] buffer, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[offset++] = (byte) value;
+        return offset;
+    }
+
+    private static final class Iterator implements PostingsIterator {
+        private final View view;
+        private final byte[] data;
+        private final int length;
+        private final int blockCount;
+        private int offset;
+        private int index;
+        private int docId = -1;
+        private int termFrequency;
+        private int shallowBlock;
+        /** Read offset in the positions stream, with positions of earlier postings still to skip. */
+        private int positionOffset;
+        private int pendingPositions;
+        private int positionsRead;
+        private int position;
+
+        private Iterator(View view) {
+            this.view = view;
+            this.data = view.data();
+            this.length = view.length();
+            this.blockCount = view.blockCount();
+        }
+
+        @Override
+        public int docId() {
+            return docId;
+        }
+
+        @Override
+        public int termFrequency() {
+            return termFrequency;
+        }
+
+        @Override
+        public int nextDoc() {
+            if (offset >= length) {
+                return docId = NO_MORE_DOCS;
+            }
+            pendingPositions += termFrequency - positionsRead;
+            positionsRead = 0;
+            long code = readVLong();
+            docId = (int) (Math.max(docId, 0) + (code >>> 1));
+            termFrequency = (code & 1) != 0 ? 1 : (int) readVLong();
+            index++;
+            return docId;
+        }
+
+        @Override
+        public int nextPosition() {
+            byte[] stream = view.positions();
+            if (positionsRead == 0) {
+                // Skip the positions of the postings passed since positions were last read
+                for (; pendingPositions > 0; pendingPositions--) {
+                    while (stream[positionOffset++] < 0) {
+                        // continuation byte
+                    }
+                }
+                position = 0;
+            }
+            byte b = stream[positionOffset++];
+            int gap = b & 0x7F;
+            for (int shift = 7; b < 0; shift += 7) {
+                b = stream[positionOffset++];
+                gap |= (b & 0x7F) << shift;
+            }
+            positionsRead++;
+            return position += gap;
+        }
+
+        @Override
+        public int advance(int target) {
+            // Jump over completed blocks that end before the target, then decode linearly
+            int block = index >> BLOCK_SHIFT;
+            if (block < blockCount && view.blocks().lastDocIds()[block] < target) {
+                int[] lastDocIds = view.blocks().lastDocIds();
+                do {
+                    block++;
+                } while (block < blockCount && lastDocIds[block] < target);
+                offset = view.blocks().endOffsets()[block - 1];
+                docId = lastDocIds[block - 1];
+                index = block << BLOCK_SHIFT;
+                positionOffset = view.blocks().positionEndOffsets()[block - 1];
+                pendingPositions = 0;
+                positionsRead = 0;
+                termFrequency = 0;
+            }
+            int doc = docId;
+            while (doc < target) {
+                doc = nextDoc();
+            }
+            return doc;
+        }
+
+        @Override
+        public int advanceShallow(int target) {
+            int[] lastDocIds = view.blocks().lastDocIds();
+            int block = Math.max(shallowBlock, Math.max(index - 1, 0) >> BLOCK_SHIFT);
+            while (block < blockCount && lastDocIds[block] < target) {
+                block++;
+            }
+            if (block < blockCount) {
+                shallowBlock = block;
+                return lastDocIds[block];
+            }
+            if (block << BLOCK_SHIFT < view.size() && target <= view.lastDocId()) {
+                shallowBlock = blockCount;
+                return view.lastDocId();
+            }
+            // Past the last posting: a block number beyond the tail has no postings and no bound
+            shallowBlock = blockCount + 1;
+            return NO_MORE_DOCS;
+        }
+
+        @Override
+        public int blockMaxTermFrequency() {
+            if (shallowBlock < blockCount) {
+                return view.blocks().maxTermFrequencies()[shallowBlock];
+            }
+            return shallowBlock == blockCount ? view.tailMaxTermFrequency() : 0;
+        }
+
+        @Override
+        public int blockMinDocumentLength() {
+            if (shallowBlock < blockCount) {
+                return view.blocks().minDocumentLengths()[shallowBlock];
+            }
+            return shallowBlock == blockCount ? view.tailMinDocumentLength() : Integer.MAX_VALUE;
+        }
+
+        @Override
+        public int cost() {
+            return view.size();
+        }
+
+        private long readVLong() {
+            byte b = data[offset++];
+            long value = b & 0x7FL;
+            for (int shift = 7; b < 0; shift += 7) {
+                b = data[offset++];
+                value |= (b & 0x7FL) << shift;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.purva.searchengine.index;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable segment produced by sealing the write buffer or by merging segments, with its
+ * terms in a front-coded {@link TermDictionary}. Only its {@link LiveDocs} change after
+ * construction.
+ */
+final class SealedSegment extends Segment {
+    private final TermDictionary terms;
+    private final PostingsList[] postings;
+    private final int[] documentIds;
+    private final byte[] documentNorms;
+    private final long[] sortedDocumentIdsAndOrdinals;
+
+    SealedSegment(Map<String, PostingsList> postings, int[] documentIds, byte[] documentNorms) {
+        super(new LiveDocs(documentIds.length));
+        List<Map.Entry<byte[], PostingsList>> entries = new ArrayList<>(postings.size());
+        for (Map.Entry<String, PostingsList> entry : postings.entrySet()) {
+            entries.add(Map.entry(entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue()));
+        }
+        entries.sort((a, b) -> Arrays.compareUnsigned(a.getKey(), b.getKey()));
+        byte[][] sortedTerms = new byte[entries.size()][];
+        this.postings = new PostingsList[entries.size()];
+        for (int termId = 0; termId < sortedTerms.length; termId++) {
+            sortedTerms[termId] = entries.get(termId).getKey();
+            this.postings[termId] = entries.get(termId).getValue();
+        }
+        this.terms = TermDictionary.of(sortedTerms);
+        this.documentIds = documentIds;
+        this.documentNorms = documentNorms;
+
+        // Packs (documentId, ordinal) pairs into longs so a single sort yields an id -> ordinal lookup table
+        this.sortedDocumentIdsAndOrdinals = new long[documentIds.length];
+        for (int ordinal = 0; ordinal < documentIds.length; ordinal++) {
+            sortedDocumentIdsAndOrdinals[ordinal] = ((long) documentIds[ordinal] << 32) | ordinal;
+        }
+        Arrays.sort(sortedDocumentIdsAndOrdinals);
+    }
+
+    @Override
+    int maxDoc() {
+        return documentIds.length;
+    }
+
+    @Override
+    int termCount() {
+        return postings.length;
+    }
+
+    @Override
+    int termId(String term, byte[] utf8Term) {
+        return terms.termId(term, utf8Term);
+    }
+
+    @Override
+    String term(int termId) {
+        return terms.term(termId);
+    }
+
+    @Override
+    PostingsList postings(int termId) {
+        return postings[termId];
+    }
+
+    /** Heap bytes of the term dictionary, excluding the postings it points to. */
+    long termDictionarySizeInBytes() {
+        return terms.sizeInBytes() + 16L + 4L * postings.length;
+    }
+
+    @Override
+    int documentId(int ordinal) {
+        return documentIds[ordinal];
+    }
+
+    @Override
+    int documentNorm(int ordinal) {
+        return Byte.toUnsignedInt(documentNorms[ordinal]);
+    }
+
+    @Override
+    int findLiveOrdinal(int documentId) {
+        int low = 0;
+        int high = sortedDocumentIdsAndOrdinals.length - 1;
+        if (high < 0 || documentId < (int) (sortedDocumentIdsAndOrdinals[0] >>> 32)
+                || documentId > (int) (sortedDocumentIdsAndOrdinals[high] >>> 32)) {
+            return -1;
+        }
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midDocumentId = (int) (sortedDocumentIdsAndOrdinals[mid] >>> 32);
+            if (midDocumentId < documentId) {
+                low = mid + 1;
+            } else if (midDocumentId > documentId) {
+                high = mid - 1;
+            } else {
+                int ordinal = (int) sortedDocumentIdsAndOrdinals[mid];
+                return liveDocs().isLive(ordinal) ? ordinal : -1;
+            }
+        }
+        return -1;
+    }
+}
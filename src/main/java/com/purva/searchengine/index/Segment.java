@@ -0,0 +1,128 @@
+package com.purva.searchengine.index;
+
+import java.util.Arrays;
+
+/**
+ * A unit of the index holding a contiguous range of segment-local document ordinals, with its
+ * terms numbered by dense ids in {@code [0, termCount())}. Deleted documents stay in place
+ * until a merge rewrites the segment.
+ */
+abstract class Segment {
+    private static final LiveDocFreq[] NO_LIVE_DOC_FREQS = new LiveDocFreq[0];
+
+    private final LiveDocs liveDocs;
+    /**
+     * Cached live document frequencies indexed by term id, allocated on the first delete. Racing
+     * writers may lose each other's entries, which only costs a recount.
+     */
+    private volatile LiveDocFreq[] liveDocFreqs = NO_LIVE_DOC_FREQS;
+
+    /** Live document frequency of a term, valid while the segment has the same deletes and size. */
+    private record LiveDocFreq(int deletedCount, int maxDoc, int docFreq) {}
+
+    Segment(LiveDocs liveDocs) {
+        this.liveDocs = liveDocs;
+    }
+
+    /** Number of ordinals currently visible to readers. */
+    abstract int maxDoc();
+
+    /** Number of distinct terms, which is also the exclusive upper bound of the term ids. */
+    abstract int termCount();
+
+    /**
+     * Id of the term, or {@code -1} when the segment does not contain it. {@code utf8Term} is
+     * {@code term} in UTF-8; callers encode it once per query so each segment can search with
+     * the form its dictionary is keyed by.
+     */
+    abstract int termId(String term, byte[] utf8Term);
+
+    abstract String term(int termId);
+
+    abstract TermPostings postings(int termId);
+
+    abstract int documentId(int ordinal);
+
+    /** Length of the document encoded with {@link DocumentNorms}, in {@code [0, 255]}. */
+    abstract int documentNorm(int ordinal);
+
+    /** Length of the document as it is scored, i.e. after {@link DocumentNorms} quantization. */
+    final int documentLength(int ordinal) {
+        return DocumentNorms.decode(documentNorm(ordinal));
+    }
+
+    /** Ordinal of the live copy of the document, or {@code -1} if this segment has none. */
+    abstract int findLiveOrdinal(int documentId);
+
+    final LiveDocs liveDocs() {
+        return liveDocs;
+    }
+
+    final int liveDocCount() {
+        return maxDoc() - liveDocs.deletedCount();
+    }
+
+    /**
+     * Number of live documents below {@code maxDoc} containing the term with the given id,
+     * whose postings the caller has already looked up.
+     *
+     * <p>Without deletes this is the count of postings below {@code maxDoc}. Otherwise the
+     * postings are walked once against the snapshot's live docs and the count is cached for
+     * that set of deletes, so df stays exact between a delete and the merge that physically
+     * drops the postings.</p>
+     *
+     * @param liveDocs the snapshot's {@link LiveDocs#frozen() frozen} live docs, {@code null}
+     *                 when it saw no deletes
+     */
+    final int docFreq(int termId, TermPostings postings, int maxDoc, LiveDocs liveDocs) {
+        if (liveDocs == null) {
+            return postings.sizeBelow(maxDoc);
+        }
+        // Deletes only ever add bits, so the count identifies the set of deletes
+        int deletedCount = liveDocs.deletedCount();
+
+        LiveDocFreq[] cache = liveDocFreqs;
+        LiveDocFreq cached = termId < cache.length ? cache[termId] : null;
+        if (cached != null && cached.deletedCount() == deletedCount && cached.maxDoc() == maxDoc) {
+            return cached.docFreq();
+        }
+        int docFreq = 0;
+        PostingsIterator iterator = postings.iterator();
+        for (int ordinal = iterator.nextDoc(); ordinal < maxDoc; ordinal = iterator.nextDoc()) {
+            if (liveDocs.isLive(ordinal)) {
+                docFreq++;
+            }
+        }
+        if (termId >= cache.length) {
+            // The write buffer keeps adding terms, so its cache may have to grow
+            cache = Arrays.copyOf(cache, Math.max(termCount(), termId + 1));
+            liveDocFreqs = cache;
+        }
+        cache[termId] = new LiveDocFreq(deletedCount, maxDoc, docFreq);
+        return docFreq;
+    }
+
+    final long postingsCount() {
+        long count = 0;
+        for (int termId = 0; termId < termCount(); termId++) {
+            count += postings(termId).size();
+        }
+        return count;
+    }
+
+    final long postingsSizeInBytes() {
+        long bytes = 0;
+        for (int termId = 0; termId < termCount(); termId++) {
+            bytes += postings(termId).sizeInBytes();
+        }
+        return bytes;
+    }
+
+    final long positionsSizeInBytes() {
+        long bytes = 0;
+        for (int termId = 0; termId < termCount(); termId++) {
+            bytes += postings(termId).positionsSizeInBytes();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,101 @@
+package com.purva.searchengine.index;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rewrites one or more segments into a single {@link SealedSegment}, or its off-heap copy,
+ * dropping documents that were deleted when the merge started. Later deletes are carried over
+ * by {@link MergeResult#carryOverDeletes()} under the writer lock.
+ */
+final class SegmentMerger {
+    private SegmentMerger() {}
+
+    record MergeResult(List<? extends Segment> sources, Segment merged, long[][] deletedAtStart, int[][] ordinalMaps) {
+        /** Applies deletes that hit the sources during the merge to the merged segment. */
+        void carryOverDeletes() {
+            for (int source = 0; source < sources.size(); source++) {
+                long[] deletedNow = sources.get(source).liveDocs().copyDeletedWords();
+                int[] ordinalMap = ordinalMaps[source];
+                for (int word = 0; word < deletedNow.length; word++) {
+                    long newlyDeleted = deletedNow[word] & ~deletedAtStart[source][word];
+                    while (newlyDeleted != 0) {
+                        int ordinal = (word << 6) + Long.numberOfTrailingZeros(newlyDeleted);
+                        newlyDeleted &= newlyDeleted - 1;
+                        if (ordinal < ordinalMap.length && ordinalMap[ordinal] >= 0) {
+                            merged.liveDocs().delete(ordinalMap[ordinal]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    static MergeResult merge(List<? extends Segment> sources, SegmentStorage storage) {
+        long[][] deletedAtStart = new long[sources.size()][];
+        int[][] ordinalMaps = new int[sources.size()][];
+        int liveDocs = 0;
+
+        for (int source = 0; source < sources.size(); source++) {
+            Segment segment = sources.get(source);
+            deletedAtStart[source] = segment.liveDocs().copyDeletedWords();
+            int[] ordinalMap = new int[segment.maxDoc()];
+            for (int ordinal = 0; ordinal < ordinalMap.length; ordinal++) {
+                ordinalMap[ordinal] = isDeleted(deletedAtStart[source], ordinal) ? -1 : liveDocs++;
+            }
+            ordinalMaps[source] = ordinalMap;
+        }
+
+        int[] documentIds = new int[liveDocs];
+        byte[] documentNorms = new byte[liveDocs];
+        Map<String, PostingsList> postings = new HashMap<>();
+        int[] positions = new int[16];
+
+        for (int source = 0; source < sources.size(); source++) {
+            Segment segment = sources.get(source);
+            int[] ordinalMap = ordinalMaps[source];
+            for (int ordinal = 0; ordinal < ordinalMap.length; ordinal++) {
+                if (ordinalMap[ordinal] >= 0) {
+                    documentIds[ordinalMap[ordinal]] = segment.documentId(ordinal);
+                    documentNorms[ordinalMap[ordinal]] = (byte) segment.documentNorm(ordinal);
+                }
+            }
+
+            for (int termId = 0; termId < segment.termCount(); termId++) {
+                // Bounds are recomputed from the surviving postings, so merges tighten them again
+                PostingsList target = null;
+                PostingsIterator iterator = segment.postings(termId).iterator();
+                for (int ordinal = iterator.nextDoc(); ordinal < ordinalMap.length; ordinal = iterator.nextDoc()) {
+                    if (ordinalMap[ordinal] < 0) {
+                        continue;
+                    }
+                    if (target == null) {
+                        target = postings.computeIfAbsent(segment.term(termId), k -> new PostingsList());
+                    }
+                    int termFrequency = iterator.termFrequency();
+                    if (termFrequency > positions.length) {
+                        positions = new int[Math.max(termFrequency, positions.length << 1)];
+                    }
+                    for (int i = 0; i < termFrequency; i++) {
+                        positions[i] = iterator.nextPosition();
+                    }
+                    target.add(ordinalMap[ordinal], termFrequency, positions, segment.documentLength(ordinal));
+                }
+            }
+        }
+
+        for (PostingsList list : postings.values()) {
+            list.trim();
+        }
+        Segment merged = new SealedSegment(postings, documentIds, documentNorms);
+        if (storage == SegmentStorage.OFF_HEAP) {
+            merged = BufferSegment.offHeapCopyOf(merged);
+        }
+        return new MergeResult(sources, merged, deletedAtStart, ordinalMaps);
+    }
+
+    private static boolean isDeleted(long[] deletedWords, int ordinal) {
+        return (deletedWords[ordinal >>> 6] & (1L << ordinal)) != 0;
+    }
+}
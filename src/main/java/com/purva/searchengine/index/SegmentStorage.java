@@ -0,0 +1,18 @@
+package com.purva.searchengine.index;
+
+/**
+ * Where sealed segments keep their postings and per-document data. Write buffers and deletion
+ * bits are always on the heap, and segments loaded from a snapshot stay memory-mapped either
+ * way.
+ */
+public enum SegmentStorage {
+    /** Postings as byte arrays and per-document data as primitive arrays on the Java heap. */
+    HEAP,
+    /**
+     * Postings and per-document data in direct buffers outside the Java heap, with only the
+     * term dictionary on it. The heap no longer grows with the corpus, so GC work stays small,
+     * at the cost of copying each sealed or merged segment once. Direct memory is capped by
+     * {@code -XX:MaxDirectMemorySize}, which defaults to the maximum heap size.
+     */
+    OFF_HEAP
+}
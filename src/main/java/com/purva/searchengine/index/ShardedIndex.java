@@ -0,0 +1,190 @@
+package com.purva.searchengine.index;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * A corpus split by a hash of the document id over independent {@link InvertedIndex} shards,
+ * each with its own writer lock and merge thread. The shard count must not change while
+ * snapshot files exist; see {@code docs/inverted-index-design.md}.
+ */
+public final class ShardedIndex implements AutoCloseable {
+    private final InvertedIndex[] shards;
+
+    public ShardedIndex(InvertedIndex... shards) {
+        if (shards.length == 0) {
+            throw new IllegalArgumentException("A sharded index needs at least one shard");
+        }
+        this.shards = shards.clone();
+    }
+
+    public static ShardedIndex create(int shardCount, IntFunction<InvertedIndex> shard) {
+        InvertedIndex[] shards = new InvertedIndex[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = shard.apply(i);
+        }
+        return new ShardedIndex(shards);
+    }
+
+    /** Opens every shard's snapshot file; see {@link #exists(Path, int)}. */
+    public static ShardedIndex open(Path file, int shardCount, int flushThreshold, int segmentsPerTier,
+                                    SegmentStorage storage) throws IOException {
+        InvertedIndex[] shards = new InvertedIndex[shardCount];
+        try {
+            for (int i = 0; i < shardCount; i++) {
+                shards[i] = InvertedIndex.open(shardFile(file, i, shardCount), flushThreshold, segmentsPerTier, storage);
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            for (InvertedIndex shard : shards) {
+                if (shard != null) {
+                    shard.close();
+                }
+            }
+            throw e;
+        }
+        return new ShardedIndex(shards);
+    }
+
+    /** Whether a snapshot of {@code shardCount} shards was saved to {@code file}. */
+    public static boolean exists(Path file, int shardCount) {
+        for (int i = 0; i < shardCount; i++) {
+            if (!Files.exists(shardFile(file, i, shardCount))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static Path shardFile(Path file, int shard, int shardCount) {
+        return shardCount == 1 ? file : file.resolveSibling(file.getFileName() + ".shard" + shard);
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    public InvertedIndex shard(int shard) {
+        return shards[shard];
+    }
+
+    /** The shard that holds {@code documentId}. */
+    public int shardOf(int documentId) {
+        // Fibonacci hashing: ids that share a stride still spread evenly over the shards
+        return (int) ((Integer.toUnsignedLong(documentId * 0x9E3779B9) * shards.length) >>> 32);
+    }
+
+    public void index(int documentId, List<String> tokens) {
+        shards[shardOf(documentId)].index(documentId, tokens);
+    }
+
+    /** See {@link InvertedIndex#index(int, List, int[])}. */
+    public void index(int documentId, List<String> tokens, int[] positions) {
+        shards[shardOf(documentId)].index(documentId, tokens, positions);
+    }
+
+    /**
+     * Splits the batch by shard and indexes each part with {@link InvertedIndex#indexAll}, the
+     * parts in parallel. Documents with the same id land in the same part, in batch order.
+     */
+    public void indexAll(List<TokenizedDocument> documents) {
+        if (shards.length == 1) {
+            shards[0].indexAll(documents);
+            return;
+        }
+        List<List<TokenizedDocument>> parts = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            parts.add(new ArrayList<>(documents.size() / shards.length + 1));
+        }
+        for (TokenizedDocument document : documents) {
+            parts.get(shardOf(document.documentId())).add(document);
+        }
+        IntStream.range(0, shards.length).parallel()
+                .filter(i -> !parts.get(i).isEmpty())
+                .forEach(i -> shards[i].indexAll(parts.get(i)));
+    }
+
+    public boolean delete(int documentId) {
+        return shards[shardOf(documentId)].delete(documentId);
+    }
+
+    /** Sum of the shards' generations: it changes whenever any shard changes. */
+    public long generation() {
+        long generation = 0;
+        for (InvertedIndex shard : shards) {
+            generation += shard.generation();
+        }
+        return generation;
+    }
+
+    /**
+     * One snapshot per shard, each with its own statistics. A write that lands between two
+     * of them may be seen by the later shards only, as with any write racing a query.
+     */
+    public IndexSnapshot[] snapshots() {
+        IndexSnapshot[] snapshots = new IndexSnapshot[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            snapshots[i] = shards[i].snapshot();
+        }
+        return snapshots;
+    }
+
+    /** Saves every shard to its own file, the shards in parallel. */
+    public void save(Path file) throws IOException {
+        try {
+            IntStream.range(0, shards.length).parallel().forEach(i -> {
+                try {
+                    shards[i].save(shardFile(file, i, shards.length));
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public int getTotalDocuments() {
+        int totalDocuments = 0;
+        for (InvertedIndex shard : shards) {
+            totalDocuments += shard.getTotalDocuments();
+        }
+        return totalDocuments;
+    }
+
+    /** The shards' writer lock statistics, summed. */
+    public InvertedIndex.WriterLockStats writerLockStats() {
+        InvertedIndex.WriterLockStats stats = new InvertedIndex.WriterLockStats(0, 0, 0);
+        for (InvertedIndex shard : shards) {
+            stats = stats.plus(shard.writerLockStats());
+        }
+        return stats;
+    }
+
+    public void flush() {
+        for (InvertedIndex shard : shards) {
+            shard.flush();
+        }
+    }
+
+    public void awaitMerges() throws InterruptedException {
+        for (InvertedIndex shard : shards) {
+            shard.awaitMerges();
+        }
+    }
+
+    @Override
+    public void close() {
+        for (InvertedIndex shard : shards) {
+            shard.close();
+        }
+    }
+}
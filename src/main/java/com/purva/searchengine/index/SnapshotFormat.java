@@ -0,0 +1,329 @@
+package com.purva.searchengine.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Versioned, checksummed binary file holding every segment of an index, written to a temporary
+ * file and renamed over its target once synced. The byte layout is in
+ * {@code docs/inverted-index-design.md}.
+ */
+final class SnapshotFormat {
+    static final int MAGIC = 0x49534E50;
+    static final int VERSION = 2;
+    static final int SECTION_HEADER_BYTES = 16;
+    /** Fixed-size part of a dictionary entry between the term bytes and the block table. */
+    static final int ENTRY_METADATA_BYTES = 40;
+
+    private static final int FILE_HEADER_BYTES = 32;
+    private static final int CHECKSUM_BYTES = 8;
+    private static final int CHECKSUM_READ_BYTES = 1 << 16;
+
+    private SnapshotFormat() {}
+
+    /** The segments and statistics captured for saving, with deletion bits copied at capture time. */
+    record Checkpoint(List<Segment> segments, List<long[]> deletedWords, long generation, int totalDocuments,
+                      long totalDocumentLength) {}
+
+    record Contents(List<BufferSegment> segments, long generation, int totalDocuments, long totalDocumentLength) {}
+
+    static int deletedWordCount(int docCount) {
+        return Math.max(1, (docCount + 63) >>> 6);
+    }
+
+    static void write(Path file, Checkpoint checkpoint) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32C checksum = new CRC32C();
+            // Not closed: closing the stream would close the channel before the footer and the sync
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), checksum), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(checkpoint.generation());
+            out.writeInt(checkpoint.totalDocuments());
+            out.writeLong(checkpoint.totalDocumentLength());
+            out.writeInt(checkpoint.segments().size());
+            for (int i = 0; i < checkpoint.segments().size(); i++) {
+                Segment segment = checkpoint.segments().get(i);
+                long[] deletedWords = Arrays.copyOf(checkpoint.deletedWords().get(i), deletedWordCount(segment.maxDoc()));
+                if (segment instanceof BufferSegment bufferSegment) {
+                    copySection(out, bufferSegment, deletedWords);
+                } else {
+                    writeSection(out, segment, deletedWords);
+                }
+            }
+            out.flush();
+
+            ByteBuffer footer = ByteBuffer.allocate(CHECKSUM_BYTES).putLong(checksum.getValue()).flip();
+            while (footer.hasRemaining()) {
+                channel.write(footer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(directory);
+    }
+
+    /**
+     * Maps every segment of the file after verifying its checksum. The mappings stay valid
+     * after this method returns and are released when the segments are garbage collected.
+     */
+    static Contents read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < FILE_HEADER_BYTES + CHECKSUM_BYTES) {
+                throw new IOException("Index snapshot " + file + " is truncated");
+            }
+            verifyChecksum(channel, file, size);
+
+            ByteBuffer header = readFully(channel, 0, FILE_HEADER_BYTES);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not an index snapshot");
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported index snapshot version " + header.getInt(4) + " in " + file);
+            }
+            long generation = header.getLong(8);
+            int totalDocuments = header.getInt(16);
+            long totalDocumentLength = header.getLong(20);
+            int segmentCount = header.getInt(28);
+
+            List<BufferSegment> segments = new ArrayList<>(segmentCount);
+            long position = FILE_HEADER_BYTES;
+            ByteBuffer lengthBuffer = ByteBuffer.allocate(8);
+            for (int i = 0; i < segmentCount; i++) {
+                long bodyLength = readFully(channel, position, lengthBuffer.clear()).getLong(0);
+                if (bodyLength > Integer.MAX_VALUE || position + 8 + bodyLength > size - CHECKSUM_BYTES) {
+                    throw new IOException("Index snapshot " + file + " has an invalid segment length");
+                }
+                segments.add(BufferSegment.read(channel.map(FileChannel.MapMode.READ_ONLY, position + 8, bodyLength)));
+                position += 8 + bodyLength;
+            }
+            if (position != size - CHECKSUM_BYTES) {
+                throw new IOException("Index snapshot " + file + " has trailing data");
+            }
+            return new Contents(segments, generation, totalDocuments, totalDocumentLength);
+        }
+    }
+
+    /**
+     * Encodes a segment as a section body in a new direct buffer, outside the Java heap.
+     *
+     * @return the buffer, or {@code null} if the body would exceed the 2 GB section limit
+     */
+    static ByteBuffer toDirectBuffer(Segment segment) {
+        try {
+            Section section = Section.of(segment, deletedWordsOf(segment));
+            if (section.bodyLength() > Integer.MAX_VALUE) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) section.bodyLength());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                    buffer.put((byte) b);
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) {
+                    buffer.put(bytes, offset, length);
+                }
+            }, 1 << 16));
+            section.writeBody(out);
+            out.flush();
+            return buffer.flip();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long[] deletedWordsOf(Segment segment) {
+        return Arrays.copyOf(segment.liveDocs().copyDeletedWords(), deletedWordCount(segment.maxDoc()));
+    }
+
+    private static void writeSection(DataOutputStream out, Segment segment, long[] deletedWords) throws IOException {
+        Section section = Section.of(segment, deletedWords);
+        if (section.bodyLength() > Integer.MAX_VALUE) {
+            throw new IOException("Segment of " + section.bodyLength() + " bytes exceeds the 2 GB section limit");
+        }
+        out.writeLong(section.bodyLength());
+        section.writeBody(out);
+    }
+
+    /** A segment's terms in dictionary order, with the entry offsets and body length they lead to. */
+    private record Section(Segment segment, long[] deletedWords, List<Map.Entry<byte[], PostingsList.View>> terms,
+                           int[] entryOffsets, long entriesLength, long bodyLength) {
+        static Section of(Segment segment, long[] deletedWords) throws IOException {
+            int docCount = segment.maxDoc();
+            List<Map.Entry<byte[], PostingsList.View>> terms = new ArrayList<>();
+            for (int termId = 0; termId < segment.termCount(); termId++) {
+                byte[] term = segment.term(termId).getBytes(StandardCharsets.UTF_8);
+                if (term.length > 0xFFFF) {
+                    throw new IOException("Term longer than 65535 bytes cannot be saved");
+                }
+                terms.add(Map.entry(term, ((PostingsList) segment.postings(termId)).view()));
+            }
+            terms.sort((a, b) -> Arrays.compareUnsigned(a.getKey(), b.getKey()));
+
+            int[] entryOffsets = new int[terms.size()];
+            long entriesLength = 0;
+            long dataLength = 0;
+            for (int i = 0; i < terms.size(); i++) {
+                entryOffsets[i] = (int) Math.min(entriesLength, Integer.MAX_VALUE);
+                PostingsList.View view = terms.get(i).getValue();
+                entriesLength += 2 + terms.get(i).getKey().length + ENTRY_METADATA_BYTES + 20L * view.blockCount();
+                dataLength += view.length() + view.positionsLength();
+            }
+            long bodyLength = SECTION_HEADER_BYTES + 13L * docCount + 8L * deletedWords.length + 4L * terms.size()
+                    + entriesLength + dataLength;
+            return new Section(segment, deletedWords, terms, entryOffsets, entriesLength, bodyLength);
+        }
+
+        void writeBody(DataOutputStream out) throws IOException {
+            int docCount = segment.maxDoc();
+            out.writeInt(docCount);
+            out.writeInt(terms.size());
+            out.writeLong(entriesLength);
+            long[] sortedIdsAndOrdinals = new long[docCount];
+            for (int ordinal = 0; ordinal < docCount; ordinal++) {
+                out.writeInt(segment.documentId(ordinal));
+                sortedIdsAndOrdinals[ordinal] = ((long) segment.documentId(ordinal) << 32) | ordinal;
+            }
+            Arrays.sort(sortedIdsAndOrdinals);
+            for (long idAndOrdinal : sortedIdsAndOrdinals) {
+                out.writeLong(idAndOrdinal);
+            }
+            for (int ordinal = 0; ordinal < docCount; ordinal++) {
+                out.writeByte(segment.documentNorm(ordinal));
+            }
+            for (long word : deletedWords) {
+                out.writeLong(word);
+            }
+            for (int entryOffset : entryOffsets) {
+                out.writeInt(entryOffset);
+            }
+
+            int dataOffset = 0;
+            int positionsOffset = 0;
+            for (Map.Entry<byte[], PostingsList.View> term : terms) {
+                positionsOffset += term.getValue().length();
+            }
+            for (Map.Entry<byte[], PostingsList.View> term : terms) {
+                PostingsList.View view = term.getValue();
+                out.writeShort(term.getKey().length);
+                out.write(term.getKey());
+                out.writeInt(view.size());
+                out.writeInt(view.lastDocId());
+                out.writeInt(view.maxTermFrequency());
+                out.writeInt(view.minDocumentLength());
+                out.writeInt(view.tailMaxTermFrequency());
+                out.writeInt(view.tailMinDocumentLength());
+                out.writeInt(dataOffset);
+                out.writeInt(view.length());
+                out.writeInt(positionsOffset);
+                out.writeInt(view.positionsLength());
+                PostingsList.Blocks blocks = view.blocks();
+                for (int block = 0; block < view.blockCount(); block++) {
+                    out.writeInt(blocks.lastDocIds()[block]);
+                    out.writeInt(blocks.endOffsets()[block]);
+                    out.writeInt(blocks.maxTermFrequencies()[block]);
+                    out.writeInt(blocks.minDocumentLengths()[block]);
+                    out.writeInt(blocks.positionEndOffsets()[block]);
+                }
+                dataOffset += view.length();
+                positionsOffset += view.positionsLength();
+            }
+            for (Map.Entry<byte[], PostingsList.View> term : terms) {
+                out.write(term.getValue().data(), 0, term.getValue().length());
+            }
+            for (Map.Entry<byte[], PostingsList.View> term : terms) {
+                out.write(term.getValue().positions(), 0, term.getValue().positionsLength());
+            }
+        }
+    }
+
+    /** A segment loaded from a snapshot is written back byte for byte, with its current deletions. */
+    private static void copySection(DataOutputStream out, BufferSegment segment, long[] deletedWords) throws IOException {
+        ByteBuffer body = segment.body();
+        out.writeLong(body.remaining());
+        copy(out, body.duplicate().limit(segment.deletedWordsOffset()));
+        for (long word : deletedWords) {
+            out.writeLong(word);
+        }
+        copy(out, body.position(segment.deletedWordsOffset() + 8 * deletedWords.length));
+    }
+
+    private static void copy(DataOutputStream out, ByteBuffer source) throws IOException {
+        byte[] chunk = new byte[1 << 16];
+        while (source.hasRemaining()) {
+            int length = Math.min(chunk.length, source.remaining());
+            source.get(chunk, 0, length);
+            out.write(chunk, 0, length);
+        }
+    }
+
+    private static void verifyChecksum(FileChannel channel, Path file, long size) throws IOException {
+        CRC32C checksum = new CRC32C();
+        long checked = size - CHECKSUM_BYTES;
+        ByteBuffer chunk = ByteBuffer.allocate(CHECKSUM_READ_BYTES);
+        for (long position = 0; position < checked; position += chunk.limit()) {
+            chunk.clear().limit((int) Math.min(CHECKSUM_READ_BYTES, checked - position));
+            checksum.update(readFully(channel, position, chunk));
+        }
+        long expected = readFully(channel, checked, CHECKSUM_BYTES).getLong(0);
+        if (checksum.getValue() != expected) {
+            throw new IOException("Index snapshot " + file + " failed its checksum");
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        return readFully(channel, position, ByteBuffer.allocate(length));
+    }
+
+    /** Fills {@code buffer} from {@code position} of the file and flips it. */
+    private static ByteBuffer readFully(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of index snapshot");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /** Makes the rename durable; not every platform can open a directory, which is then skipped. */
+    private static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+        catch (IOException e) {
+            // Best effort: the file contents are already synced
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.purva.searchengine.index;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Immutable, front-coded dictionary mapping the terms of a segment to dense ids in
+ * {@code [0, size())}, each id being the term's rank in unsigned UTF-8 byte order as in the
+ * {@link SnapshotFormat}.
+ */
+final class TermDictionary {
+    static final int BLOCK_SIZE = 8;
+    static final TermDictionary EMPTY = of(new byte[0][]);
+
+    private final byte[] data;
+    private final int[] blockOffsets;
+    private final int size;
+    /** Bits of a slot holding {@code termId + 1}; the rest hold the fingerprint. */
+    private final int idBits;
+    /** {@code fingerprint << idBits | (termId + 1)} per occupied slot, {@code 0} for an empty one. */
+    private final int[] hashTable;
+
+    private TermDictionary(byte[] data, int[] blockOffsets, byte[][] sortedTerms) {
+        this.data = data;
+        this.blockOffsets = blockOffsets;
+        this.size = sortedTerms.length;
+        this.idBits = 32 - Integer.numberOfLeadingZeros(size);
+        this.hashTable = new int[size + size / 2 + 1];
+        for (int termId = 0; termId < size; termId++) {
+            int hash = new String(sortedTerms[termId], StandardCharsets.UTF_8).hashCode();
+            int slot = slotOf(hash);
+            while (hashTable[slot] != 0) {
+                slot = slot + 1 == hashTable.length ? 0 : slot + 1;
+            }
+            hashTable[slot] = fingerprint(hash) | (termId + 1);
+        }
+    }
+
+    /** Builds a dictionary from UTF-8 terms in strictly increasing unsigned byte order. */
+    static TermDictionary of(byte[][] sortedTerms) {
+        int[] blockOffsets = new int[(sortedTerms.length + BLOCK_SIZE - 1) / BLOCK_SIZE];
+        byte[] data = new byte[Math.max(16, sortedTerms.length * 8)];
+        int length = 0;
+        for (int id = 0; id < sortedTerms.length; id++) {
+            byte[] term = sortedTerms[id];
+            int prefix = 0;
+            if (id % BLOCK_SIZE == 0) {
+                blockOffsets[id / BLOCK_SIZE] = length;
+            } else {
+                byte[] previous = sortedTerms[id - 1];
+                if (Arrays.compareUnsigned(previous, term) >= 0) {
+                    throw new IllegalArgumentException("Terms must be unique and sorted");
+                }
+                prefix = Arrays.mismatch(previous, term);
+            }
+            if (length + 10 + term.length - prefix > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length << 1, length + 10 + term.length - prefix));
+            }
+            if (id % BLOCK_SIZE != 0) {
+                length = writeVInt(data, length, prefix);
+            }
+            length = writeVInt(data, length, term.length - prefix);
+            System.arraycopy(term, prefix, data, length, term.length - prefix);
+            length += term.length - prefix;
+        }
+        return new TermDictionary(Arrays.copyOf(data, length), blockOffsets, sortedTerms);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Id of the term, or {@code -1} if the dictionary does not contain it; {@code utf8Term} is {@code term} in UTF-8. */
+    int termId(String term, byte[] utf8Term) {
+        int hash = term.hashCode();
+        int fingerprint = fingerprint(hash);
+        int idMask = (1 << idBits) - 1;
+        for (int slot = slotOf(hash); hashTable[slot] != 0; slot = slot + 1 == hashTable.length ? 0 : slot + 1) {
+            int entry = hashTable[slot];
+            if ((entry & ~idMask) == fingerprint) {
+                int termId = (entry & idMask) - 1;
+                if (scanBlock(termId / BLOCK_SIZE, utf8Term) == termId) {
+                    return termId;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /** The term with the given id; decodes its block up to the term. */
+    String term(int id) {
+        return new String(termBytes(id), StandardCharsets.UTF_8);
+    }
+
+    byte[] termBytes(int id) {
+        int offset = blockOffsets[id / BLOCK_SIZE];
+        int length = readVInt(data, offset);
+        offset += vIntLength(length);
+        byte[] term = Arrays.copyOfRange(data, offset, offset + length);
+        offset += length;
+        for (int i = id % BLOCK_SIZE; i > 0; i--) {
+            int prefix = readVInt(data, offset);
+            offset += vIntLength(prefix);
+            int suffixLength = readVInt(data, offset);
+            offset += vIntLength(suffixLength);
+            if (prefix + suffixLength > term.length) {
+                term = Arrays.copyOf(term, prefix + suffixLength);
+            }
+            System.arraycopy(data, offset, term, prefix, suffixLength);
+            length = prefix + suffixLength;
+            offset += suffixLength;
+        }
+        return length == term.length ? term : Arrays.copyOf(term, length);
+    }
+
+    /** Heap bytes held by the dictionary's arrays. */
+    long sizeInBytes() {
+        return 16L + data.length + 16L + 4L * blockOffsets.length + 16L + 4L * hashTable.length;
+    }
+
+    /** Id of the term within the given block, or {@code -1} if the block does not contain it. */
+    private int scanBlock(int block, byte[] term) {
+        // matched is the length of the common prefix of the key and the current term, which sorts below the key
+        int offset = blockOffsets[block];
+        int termLength = readVInt(data, offset);
+        offset += vIntLength(termLength);
+        int matched = commonPrefix(term, 0, offset, termLength);
+        if (matched == termLength && matched == term.length) {
+            return block * BLOCK_SIZE;
+        }
+        if (matched == term.length || matched < termLength && Byte.compareUnsigned(data[offset + matched], term[matched]) > 0) {
+            return -1;
+        }
+        offset += termLength;
+
+        int end = Math.min(size, (block + 1) * BLOCK_SIZE);
+        for (int id = block * BLOCK_SIZE + 1; id < end; id++) {
+            int prefix = readVInt(data, offset);
+            offset += vIntLength(prefix);
+            int suffixLength = readVInt(data, offset);
+            offset += vIntLength(suffixLength);
+            if (prefix < matched) {
+                // The term differs from its predecessor before the key does, so it sorts above the key
+                return -1;
+            }
+            if (prefix == matched) {
+                int common = commonPrefix(term, matched, offset, suffixLength);
+                matched += common;
+                termLength = prefix + suffixLength;
+                if (matched == term.length) {
+                    return matched == termLength ? id : -1;
+                }
+                if (common < suffixLength && Byte.compareUnsigned(data[offset + common], term[matched]) > 0) {
+                    return -1;
+                }
+            }
+            offset += suffixLength;
+        }
+        return -1;
+    }
+
+    /** Maps the scrambled hash onto the table by its high bits. */
+    private int slotOf(int hash) {
+        return (int) (((hash * 0x9E3779B9) & 0xFFFFFFFFL) * hashTable.length >>> 32);
+    }
+
+    /** High bits of a second scramble of the hash, so they do not repeat what picked the slot. */
+    private int fingerprint(int hash) {
+        return (hash * 0x85EBCA6B) >>> idBits << idBits;
+    }
+
+    /** Length of the common prefix of {@code term} from {@code from} and {@code length} data bytes at {@code offset}. */
+    private int commonPrefix(byte[] term, int from, int offset, int length) {
+        // Suffixes are a few bytes long, too short for Arrays.mismatch to pay off
+        int limit = Math.min(term.length - from, length);
+        int common = 0;
+        while (common < limit && term[from + common] == data[offset + common]) {
+            common++;
+        }
+        return common;
+    }
+
+    private static int writeVInt(byte[] buffer, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[offset++] = (byte) value;
+        return offset;
+    }
+
+    private static int readVInt(byte[] buffer, int offset) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer[offset++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static int vIntLength(int value) {
+        return value < 0x80 ? 1 : value < 0x4000 ? 2 : value < 0x200000 ? 3 : value < 0x10000000 ? 4 : 5;
+    }
+}
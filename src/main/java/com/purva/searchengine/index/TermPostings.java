@@ -0,0 +1,27 @@
+package com.purva.searchengine.index;
+
+/** Read access to the postings of one term within one segment, by segment-local ordinal. */
+abstract class TermPostings {
+    abstract int size();
+
+    /** Encoded size of the postings stream, excluding block skip data. */
+    abstract int sizeInBytes();
+
+    /** Encoded size of the positions stream. */
+    abstract int positionsSizeInBytes();
+
+    /**
+     * Number of postings with an ordinal below {@code maxDoc}. Any number of documents may have
+     * been appended since the caller captured {@code maxDoc}, so completed blocks are counted by
+     * their last ordinal and only the block that straddles {@code maxDoc} is decoded.
+     */
+    abstract int sizeBelow(int maxDoc);
+
+    /** Largest term frequency of any posting. */
+    abstract int maxTermFrequency();
+
+    /** Smallest document length of any posting, {@link Integer#MAX_VALUE} if empty. */
+    abstract int minDocumentLength();
+
+    abstract PostingsIterator iterator();
+}
@@ -0,0 +1,64 @@
+package com.purva.searchengine.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Size-tiered merge selection: a tier holding {@code segmentsPerTier} segments is merged into
+ * one segment of the next tier, and when no tier is full, the segment with the largest share
+ * of deleted documents is purged once that share reaches {@link #PURGE_DELETED_RATIO}.
+ */
+final class TieredMergePolicy {
+    static final double PURGE_DELETED_RATIO = 0.3;
+
+    private final int segmentsPerTier;
+    private final int flushSize;
+
+    TieredMergePolicy(int segmentsPerTier, int flushSize) {
+        if (segmentsPerTier < 2) {
+            throw new IllegalArgumentException("segmentsPerTier must be at least 2");
+        }
+        this.segmentsPerTier = segmentsPerTier;
+        this.flushSize = Math.max(1, flushSize);
+    }
+
+    /** Returns the segments to merge next, or an empty list if no tier is full. */
+    List<Segment> findMerge(List<Segment> segments) {
+        List<List<Segment>> tiers = new ArrayList<>();
+        for (Segment segment : segments) {
+            int tier = tierOf(segment);
+            while (tiers.size() <= tier) {
+                tiers.add(new ArrayList<>());
+            }
+            tiers.get(tier).add(segment);
+        }
+
+        for (List<Segment> tier : tiers) {
+            if (tier.size() >= segmentsPerTier) {
+                return List.copyOf(tier.subList(0, segmentsPerTier));
+            }
+        }
+        return findPurge(segments);
+    }
+
+    private static List<Segment> findPurge(List<Segment> segments) {
+        Segment purge = null;
+        double purgeRatio = PURGE_DELETED_RATIO;
+        for (Segment segment : segments) {
+            double deletedRatio = (double) segment.liveDocs().deletedCount() / segment.maxDoc();
+            if (deletedRatio >= purgeRatio) {
+                purge = segment;
+                purgeRatio = deletedRatio;
+            }
+        }
+        return purge == null ? List.of() : List.of(purge);
+    }
+
+    private int tierOf(Segment segment) {
+        int tier = 0;
+        for (long size = (long) flushSize * segmentsPerTier; segment.liveDocCount() >= size; size *= segmentsPerTier) {
+            tier++;
+        }
+        return tier;
+    }
+}
@@ -0,0 +1,16 @@
+package com.purva.searchengine.index;
+
+import java.util.List;
+
+/**
+ * A document ready for {@link InvertedIndex#indexAll}: its id, analyzed tokens and their positions.
+ *
+ * @param positions each token's position, ascending, or {@code null} when the tokens are
+ *                  consecutive, as they are when no stop word was dropped between them
+ */
+public record TokenizedDocument(int documentId, List<String> tokens, int[] positions) {
+    /** A document whose tokens are consecutive. */
+    public TokenizedDocument(int documentId, List<String> tokens) {
+        this(documentId, tokens, null);
+    }
+}
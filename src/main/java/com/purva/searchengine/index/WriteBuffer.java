@@ -0,0 +1,110 @@
+package com.purva.searchengine.index;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The mutable head segment that receives new documents until it is sealed. Only the index
+ * writer appends; readers never lock and see only the documents below the {@link #maxDoc()}
+ * they captured.
+ */
+final class WriteBuffer extends Segment {
+    private final Map<String, Integer> termIds = new ConcurrentHashMap<>();
+    private volatile String[] terms = new String[64];
+    private volatile PostingsList[] postings = new PostingsList[64];
+    private volatile int termCount;
+    private final Map<Integer, Integer> ordinalsByDocumentId = new ConcurrentHashMap<>();
+    private final int[] documentIds;
+    private final byte[] documentNorms;
+    private volatile int docCount;
+    // Written before docCount is advanced, so a reader that reads docCount first sees the range it covers
+    private int minDocumentId = Integer.MAX_VALUE;
+    private int maxDocumentId = Integer.MIN_VALUE;
+
+    WriteBuffer(int capacity) {
+        super(new LiveDocs(capacity));
+        this.documentIds = new int[capacity];
+        this.documentNorms = new byte[capacity];
+    }
+
+    boolean isFull() {
+        return docCount == documentIds.length;
+    }
+
+    void add(int documentId, Map<String, int[]> termPositions, int documentLength) {
+        int ordinal = docCount;
+        int norm = DocumentNorms.encode(documentLength);
+        documentIds[ordinal] = documentId;
+        documentNorms[ordinal] = (byte) norm;
+        for (Map.Entry<String, int[]> entry : termPositions.entrySet()) {
+            Integer termId = termIds.get(entry.getKey());
+            PostingsList list = termId == null ? addTerm(entry.getKey()) : postings[termId];
+            list.add(ordinal, entry.getValue().length, entry.getValue(), DocumentNorms.decode(norm));
+        }
+        ordinalsByDocumentId.put(documentId, ordinal);
+        minDocumentId = Math.min(minDocumentId, documentId);
+        maxDocumentId = Math.max(maxDocumentId, documentId);
+        docCount = ordinal + 1;
+    }
+
+    private PostingsList addTerm(String term) {
+        int termId = termCount;
+        if (termId == postings.length) {
+            terms = Arrays.copyOf(terms, termId << 1);
+            postings = Arrays.copyOf(postings, termId << 1);
+        }
+        PostingsList list = new PostingsList();
+        terms[termId] = term;
+        postings[termId] = list;
+        termCount = termId + 1;
+        termIds.put(term, termId);
+        return list;
+    }
+
+    @Override
+    int maxDoc() {
+        return docCount;
+    }
+
+    @Override
+    int termCount() {
+        return termCount;
+    }
+
+    @Override
+    int termId(String term, byte[] utf8Term) {
+        Integer termId = termIds.get(term);
+        return termId == null ? -1 : termId;
+    }
+
+    @Override
+    String term(int termId) {
+        return terms[termId];
+    }
+
+    @Override
+    PostingsList postings(int termId) {
+        return postings[termId];
+    }
+
+    @Override
+    int documentId(int ordinal) {
+        return documentIds[ordinal];
+    }
+
+    @Override
+    int documentNorm(int ordinal) {
+        return Byte.toUnsignedInt(documentNorms[ordinal]);
+    }
+
+    @Override
+    int findLiveOrdinal(int documentId) {
+        // Writers mostly use increasing ids, so the range check rejects most frozen buffers without hashing
+        if (docCount == 0 || documentId < minDocumentId || documentId > maxDocumentId) {
+            return -1;
+        }
+        Integer ordinal = ordinalsByDocumentId.get(documentId);
+        return ordinal != null && ordinal < docCount && liveDocs().isLive(ordinal) ? ordinal : -1;
+    }
+}
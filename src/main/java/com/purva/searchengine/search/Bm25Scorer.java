@@ -1,28 +1,52 @@
 package com.purva.searchengine.search;
 
-import com.purva.searchengine.index.InvertedIndex;
-import com.purva.searchengine.index.Posting;
+import com.purva.searchengine.index.DocumentNorms;
+import com.purva.searchengine.index.IndexSnapshot;
 
 public class Bm25Scorer implements Scorer {
-    private final InvertedIndex invertedIndex;
     private static final double k1 = 1.5;
     private static final double b = 0.75;
 
-    public Bm25Scorer(InvertedIndex invertedIndex) {
-        this.invertedIndex = invertedIndex;
-    }
+    /** Length normalization of the last seen average length; rebuilt whenever the average changes. */
+    private volatile LengthNormalization lengthNormalization = LengthNormalization.of(1.0);
 
     @Override
-    public double score(int docId, String token) {
-        Posting posting = invertedIndex.getPostingsMap(token).get(docId);
-        if (posting == null) return 0.0;
-        int termFrequency = posting.termFrequency();
-        double documentLength = invertedIndex.getDocumentLength(docId);
-        double averageDocumentLength = invertedIndex.getAverageDocumentLength();
-        double documentFrequency = invertedIndex.getDocumentFrequency(token);
-        double totalDocuments = invertedIndex.getTotalDocuments();
+    public Weight weight(IndexSnapshot snapshot, IndexSnapshot.Term term) {
+        double averageDocumentLength = snapshot.averageDocumentLength();
+        double documentFrequency = term.docFreq();
+        double totalDocuments = snapshot.totalDocuments();
         double idf = Math.log((totalDocuments - documentFrequency + 0.5) / (documentFrequency + 0.5) + 1);
 
-        return idf * ((k1 + 1) * termFrequency) / (k1 * (1 - b + b * (documentLength / averageDocumentLength)) + termFrequency);
+        LengthNormalization normalization = lengthNormalization;
+        if (normalization.averageDocumentLength() != averageDocumentLength) {
+            normalization = LengthNormalization.of(averageDocumentLength);
+            lengthNormalization = normalization;
+        }
+        return new Bm25Weight(idf, normalization.denominators());
+    }
+
+    /** {@code k1 * (1 - b + b * length / avgdl)} for each of the 256 document norms. */
+    private record LengthNormalization(double averageDocumentLength, double[] denominators) {
+        private static LengthNormalization of(double averageDocumentLength) {
+            double[] denominators = new double[DocumentNorms.NORM_VALUES];
+            for (int norm = 0; norm < denominators.length; norm++) {
+                double documentLength = DocumentNorms.decode(norm);
+                denominators[norm] = k1 * (1 - b + b * (documentLength / averageDocumentLength));
+            }
+            return new LengthNormalization(averageDocumentLength, denominators);
+        }
+    }
+
+    private record Bm25Weight(double idf, double[] denominators) implements Weight {
+        @Override
+        public double score(int termFrequency, int documentNorm) {
+            return idf * ((k1 + 1) * termFrequency) / (denominators[documentNorm] + termFrequency);
+        }
+
+        /** The BM25 term weight grows with tf and shrinks with document length, so the extremes bound it. */
+        @Override
+        public double maxScore(int maxTermFrequency, int minDocumentNorm) {
+            return score(maxTermFrequency, minDocumentNorm);
+        }
     }
 }
@@ -1,5 +1,15 @@
 package com.purva.searchengine.search;
 
+import com.purva.searchengine.index.IndexSnapshot;
+
 public interface Scorer {
-    double score(int docId, String token);
+    /**
+     * Captures the statistics needed to score the term's postings in the snapshot. Called once
+     * per query term; the returned weight is only valid for that snapshot.
+     */
+    Weight weight(IndexSnapshot snapshot, IndexSnapshot.Term term);
+
+    default TermScorer termScorer(IndexSnapshot snapshot, IndexSnapshot.Term term) {
+        return new TermScorer(snapshot, term, weight(snapshot, term));
+    }
 }
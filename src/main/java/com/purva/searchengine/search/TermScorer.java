@@ -0,0 +1,49 @@
+package com.purva.searchengine.search;
+
+import com.purva.searchengine.index.DocumentNorms;
+import com.purva.searchengine.index.IndexSnapshot;
+import com.purva.searchengine.index.PostingsIterator;
+
+/**
+ * Scores the postings of one query term: a {@link Weight} bound to that term's postings
+ * iterator within one {@link IndexSnapshot}. Callers move {@link #postings()} and call
+ * {@link #score()} for the document it is positioned on.
+ */
+public final class TermScorer {
+    private final IndexSnapshot snapshot;
+    private final PostingsIterator postings;
+    private final Weight weight;
+    private final double maxScore;
+
+    public TermScorer(IndexSnapshot snapshot, IndexSnapshot.Term term, Weight weight) {
+        this.snapshot = snapshot;
+        this.postings = term.postings();
+        this.weight = weight;
+        int maxTermFrequency = term.maxTermFrequency();
+        this.maxScore = maxTermFrequency == 0
+                ? 0
+                : weight.maxScore(maxTermFrequency, DocumentNorms.encode(term.minDocumentLength()));
+    }
+
+    public PostingsIterator postings() {
+        return postings;
+    }
+
+    /** Score of the posting the iterator is currently positioned on. */
+    public double score() {
+        return weight.score(postings.termFrequency(), snapshot.documentNorm(postings.docId()));
+    }
+
+    /** Upper bound of {@link #score()} over the whole postings list. */
+    public double maxScore() {
+        return maxScore;
+    }
+
+    /** Upper bound of {@link #score()} within the block last selected by {@link PostingsIterator#advanceShallow}. */
+    public double blockMaxScore() {
+        int maxTermFrequency = postings.blockMaxTermFrequency();
+        return maxTermFrequency == 0
+                ? 0
+                : weight.maxScore(maxTermFrequency, DocumentNorms.encode(postings.blockMinDocumentLength()));
+    }
+}
@@ -1,28 +1,31 @@
 package com.purva.searchengine.search;
 
-import com.purva.searchengine.index.InvertedIndex;
-import com.purva.searchengine.index.Posting;
+import com.purva.searchengine.index.DocumentNorms;
+import com.purva.searchengine.index.IndexSnapshot;
 
 public class TfIdfScorer implements Scorer {
-    private final InvertedIndex invertedIndex;
-
-    public TfIdfScorer(InvertedIndex invertedIndex) {
-        this.invertedIndex = invertedIndex;
-    }
 
     @Override
-    public double score(int docId, String token) {
-        Posting posting = invertedIndex.getPostingsMap(token).get(docId);
-        if (posting == null) return 0.0;
-        int termFrequency = posting.termFrequency();
-
-        double documentLength = invertedIndex.getDocumentLength(docId);
-        double  documentFrequency = invertedIndex.getDocumentFrequency(token);
-        double totalDocuments = invertedIndex.getTotalDocuments();
+    public Weight weight(IndexSnapshot snapshot, IndexSnapshot.Term term) {
+        double  documentFrequency = term.docFreq();
+        double totalDocuments = snapshot.totalDocuments();
 
-        double tf = Math.log(1 + termFrequency / documentLength);
         double idf = Math.log((totalDocuments + 1) / (1 + documentFrequency)) + 1;
 
-        return tf * idf;
+        return new TfIdfWeight(idf);
+    }
+
+    private record TfIdfWeight(double idf) implements Weight {
+        @Override
+        public double score(int termFrequency, int documentNorm) {
+            double documentLength = DocumentNorms.decode(documentNorm);
+            double tf = Math.log(1 + termFrequency / documentLength);
+            return tf * idf;
+        }
+
+        @Override
+        public double maxScore(int maxTermFrequency, int minDocumentNorm) {
+            return score(maxTermFrequency, minDocumentNorm);
+        }
     }
 }
@@ -0,0 +1,23 @@
+package com.purva.searchengine.search;
+
+import com.purva.searchengine.index.DocumentNorms;
+
+/**
+ * Scoring state for one query term, created once per query by {@link Scorer#weight} with every
+ * statistic it needs, so scoring a posting is plain arithmetic on its term frequency and
+ * {@link DocumentNorms norm}.
+ */
+public interface Weight {
+    double score(int termFrequency, int documentNorm);
+
+    /**
+     * Upper bound of {@link #score} over postings whose term frequency is at most
+     * {@code maxTermFrequency} and whose document norm is at least {@code minDocumentNorm},
+     * e.g. one block of a postings list. Query execution skips documents whose summed
+     * bounds cannot reach the current top-K, so the bound must never be lower than a real
+     * score. The default disables that pruning.
+     */
+    default double maxScore(int maxTermFrequency, int minDocumentNorm) {
+        return Double.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,5 @@
+package com.purva.searchengine.service;
+
+import java.util.List;
+
+public record BulkIndexResult(int indexed, int failed, List<BulkItemResult> items) {}
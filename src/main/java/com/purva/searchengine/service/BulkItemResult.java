@@ -0,0 +1,19 @@
+package com.purva.searchengine.service;
+
+/**
+ * Outcome of one NDJSON line of a bulk request.
+ *
+ * @param line       1-based line number in the request body
+ * @param documentId the document id, or {@code null} when the line could not be parsed
+ * @param status     the status the single-document endpoint would have returned (201 or 400)
+ * @param error      why the line was rejected, or {@code null} when it was indexed
+ */
+public record BulkItemResult(int line, Integer documentId, int status, String error) {
+    static BulkItemResult created(int line, int documentId) {
+        return new BulkItemResult(line, documentId, 201, null);
+    }
+
+    static BulkItemResult rejected(int line, Integer documentId, String error) {
+        return new BulkItemResult(line, documentId, 400, error);
+    }
+}
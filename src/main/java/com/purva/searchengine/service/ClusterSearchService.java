@@ -0,0 +1,260 @@
+package com.purva.searchengine.service;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Spreads searches over several engine nodes over HTTP and merges their results, scoring
+ * ranked queries with statistics summed over all nodes. Calls are bounded by a timeout and may
+ * be hedged to a replica; see {@code docs/search-service-design.md}.
+ */
+public class ClusterSearchService implements AutoCloseable {
+    public static final String STATISTICS_PATH = "/api/cluster/stats";
+    public static final String SEARCH_PATH = "/api/cluster/search";
+
+    private static final TypeReference<QueryStatistics> STATISTICS = new TypeReference<>() {};
+    private static final TypeReference<List<Integer>> DOCUMENT_IDS = new TypeReference<>() {};
+    private static final TypeReference<List<SearchResult>> SEARCH_RESULTS = new TypeReference<>() {};
+
+    /** @param failedNodes how many nodes did not contribute, so the results may be incomplete */
+    public record Results<T>(List<T> results, int failedNodes) {}
+
+    /** The second-phase request sent to each node; {@code statistics} is {@code null} for a threshold search. */
+    public record NodeRequest(String query, Integer topK, double threshold, QueryStatistics statistics) {}
+
+    private final List<Node> nodes;
+    private final Duration timeout;
+    private final Duration hedgeAfter;
+    private final JsonMapper jsonMapper;
+    private final HttpClient httpClient;
+
+    /**
+     * @param nodes      each node's replicas' base URLs, such as {@code http://host:8080}
+     * @param timeout    how long one phase waits for a node, hedge included
+     * @param hedgeAfter delay before an unanswered call is sent to the next replica, or zero
+     *                   to never hedge
+     */
+    public ClusterSearchService(List<List<URI>> nodes, Duration timeout, Duration hedgeAfter, JsonMapper jsonMapper) {
+        if (nodes.isEmpty() || nodes.stream().anyMatch(List::isEmpty)) {
+            throw new IllegalArgumentException("A cluster needs at least one node, each with at least one URL");
+        }
+        this.nodes = nodes.stream().map(Node::new).toList();
+        this.timeout = timeout;
+        this.hedgeAfter = hedgeAfter;
+        this.jsonMapper = jsonMapper;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    /** Parses a node list such as {@code http://a:8080|http://a2:8080,http://b:8080}: nodes separated by commas, a node's replicas by {@code |}. */
+    public static List<List<URI>> parseNodes(String nodes) {
+        return Arrays.stream(nodes.split(","))
+                .map(String::strip)
+                .filter(node -> !node.isEmpty())
+                .map(node -> Arrays.stream(node.split("\\|")).map(String::strip).map(URI::create).toList())
+                .toList();
+    }
+
+    public Results<Integer> search(String query, double threshold, int fuzziness) {
+        validateFuzziness(fuzziness);
+        NodeRequest request = new NodeRequest(query, null, threshold, null);
+        List<CompletableFuture<List<Integer>>> calls = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            calls.add(call(node, replica -> post(replica, request), DOCUMENT_IDS));
+        }
+        List<List<Integer>> results = new ArrayList<>(nodes.size());
+        gather(calls, (node, result) -> results.add(result));
+        return new Results<>(SearchService.mergeDocumentIds(results), nodes.size() - results.size());
+    }
+
+    public Results<SearchResult> rankedSearch(String query, int topK, double threshold, int fuzziness) {
+        validateFuzziness(fuzziness);
+        URI statisticsPath = URI.create(STATISTICS_PATH + "?query=" + URLEncoder.encode(query, StandardCharsets.UTF_8));
+        List<CompletableFuture<QueryStatistics>> statisticsCalls = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            statisticsCalls.add(call(node, replica -> request(replica.resolve(statisticsPath)).GET().build(), STATISTICS));
+        }
+        List<Node> answered = new ArrayList<>(nodes.size());
+        List<QueryStatistics> statistics = new ArrayList<>(nodes.size());
+        gather(statisticsCalls, (node, result) -> {
+            answered.add(nodes.get(node));
+            statistics.add(result);
+        });
+
+        NodeRequest request = new NodeRequest(query, topK, threshold, QueryStatistics.sum(statistics));
+        List<CompletableFuture<List<SearchResult>>> searchCalls = new ArrayList<>(answered.size());
+        for (Node node : answered) {
+            searchCalls.add(call(node, replica -> post(replica, request), SEARCH_RESULTS));
+        }
+        List<List<SearchResult>> results = new ArrayList<>(answered.size());
+        gather(searchCalls, (node, result) -> results.add(result));
+        return new Results<>(SearchService.mergeTopK(results, topK), nodes.size() - results.size());
+    }
+
+    private interface Gatherer<T> {
+        void accept(int node, T result);
+    }
+
+    /**
+     * Waits for every call, each bounded by its own timeout, and hands the answers to
+     * {@code gatherer} in node order. A node that rejected the query as invalid fails the whole
+     * search, since every node would; other failures only drop the node.
+     *
+     * @throws ClusterUnavailableException if no node answered
+     */
+    private <T> void gather(List<CompletableFuture<T>> calls, Gatherer<T> gatherer) {
+        int answers = 0;
+        for (int node = 0; node < calls.size(); node++) {
+            T result;
+            try {
+                result = calls.get(node).join();
+            }
+            catch (CompletionException e) {
+                if (e.getCause() instanceof IllegalArgumentException invalidQuery) {
+                    throw invalidQuery;
+                }
+                continue;
+            }
+            gatherer.accept(node, result);
+            answers++;
+        }
+        if (answers == 0) {
+            throw new ClusterUnavailableException(nodes.size());
+        }
+    }
+
+    private <T> CompletableFuture<T> call(Node node, Function<URI, HttpRequest> request, TypeReference<T> type) {
+        return new Call<>(node, request, type).start();
+    }
+
+    private HttpRequest post(URI replica, NodeRequest request) {
+        return request(replica.resolve(SEARCH_PATH))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(jsonMapper.writeValueAsString(request)))
+                .build();
+    }
+
+    private HttpRequest.Builder request(URI uri) {
+        return HttpRequest.newBuilder(uri).timeout(timeout);
+    }
+
+    private static void validateFuzziness(int fuzziness) {
+        if (fuzziness != 0) {
+            throw new IllegalArgumentException("Fuzzy search is not supported across search nodes");
+        }
+    }
+
+    /** Abandons calls still in flight, rather than waiting for stalled nodes. */
+    @Override
+    public void close() {
+        httpClient.shutdownNow();
+    }
+
+    /** One node's replicas, handed out in turn so repeated calls spread over them. */
+    private static final class Node {
+        private final List<URI> replicas;
+        private final AtomicInteger next = new AtomicInteger();
+
+        Node(List<URI> replicas) {
+            this.replicas = List.copyOf(replicas);
+        }
+
+        int firstReplica() {
+            return Math.floorMod(next.getAndIncrement(), replicas.size());
+        }
+
+        URI replica(int index) {
+            return replicas.get(index % replicas.size());
+        }
+    }
+
+    /** One call to a node: a first attempt, and at most one hedged attempt to the next replica. */
+    private final class Call<T> {
+        private final Node node;
+        private final Function<URI, HttpRequest> request;
+        private final TypeReference<T> type;
+        private final int firstReplica;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final AtomicInteger attempts = new AtomicInteger(1);
+        private final AtomicInteger failures = new AtomicInteger();
+
+        Call(Node node, Function<URI, HttpRequest> request, TypeReference<T> type) {
+            this.node = node;
+            this.request = request;
+            this.type = type;
+            this.firstReplica = node.firstReplica();
+        }
+
+        CompletableFuture<T> start() {
+            send(node.replica(firstReplica));
+            if (!hedgeAfter.isZero()) {
+                CompletableFuture.delayedExecutor(hedgeAfter.toNanos(), TimeUnit.NANOSECONDS).execute(this::hedge);
+            }
+            return result.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        /** Sends the hedged attempt unless the call is done or already hedged. */
+        private boolean hedge() {
+            if (hedgeAfter.isZero() || result.isDone() || !attempts.compareAndSet(1, 2)) {
+                return false;
+            }
+            send(node.replica(firstReplica + 1));
+            return true;
+        }
+
+        private void send(URI replica) {
+            HttpRequest httpRequest;
+            try {
+                httpRequest = request.apply(replica);
+            }
+            catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, error) -> {
+                        Throwable failure = error;
+                        if (failure == null) {
+                            try {
+                                if (response.statusCode() == 200) {
+                                    result.complete(jsonMapper.readValue(response.body(), type));
+                                    return;
+                                }
+                                if (response.statusCode() == 400) {
+                                    String message = jsonMapper.readTree(response.body()).path("message").asString();
+                                    result.completeExceptionally(new IllegalArgumentException(message));
+                                    return;
+                                }
+                                failure = new IOException(replica + " answered " + response.statusCode());
+                            }
+                            catch (JacksonException e) {
+                                failure = e;
+                            }
+                        }
+                        // Counted before hedging, so the hedge's own failure finds this one counted.
+                        // A failed first attempt is hedged at once rather than after the delay.
+                        int failed = failures.incrementAndGet();
+                        if (!hedge() && failed == attempts.get()) {
+                            result.completeExceptionally(failure);
+                        }
+                    });
+        }
+    }
+}
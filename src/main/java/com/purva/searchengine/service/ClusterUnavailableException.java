@@ -0,0 +1,7 @@
+package com.purva.searchengine.service;
+
+public class ClusterUnavailableException extends RuntimeException {
+    public ClusterUnavailableException(int nodes) {
+        super("None of the " + nodes + " search nodes answered");
+    }
+}
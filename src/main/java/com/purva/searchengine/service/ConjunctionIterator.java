@@ -0,0 +1,61 @@
+package com.purva.searchengine.service;
+
+import com.purva.searchengine.index.PostingsIterator;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Strict-AND intersection of the postings of every query token, led by the rarest term whose
+ * candidates the others {@link PostingsIterator#advance advance} to (leapfrogging).
+ */
+final class ConjunctionIterator {
+    private final PostingsIterator lead;
+    private final PostingsIterator[] others;
+    private int doc = -1;
+    private long postingsVisited;
+
+    /** All clauses are positioned on {@link #docId()} after each match. */
+    ConjunctionIterator(PostingsIterator... clauses) {
+        PostingsIterator[] byCost = clauses.clone();
+        Arrays.sort(byCost, Comparator.comparingInt(PostingsIterator::cost));
+        this.lead = byCost[0];
+        this.others = Arrays.copyOfRange(byCost, 1, byCost.length);
+    }
+
+    int docId() {
+        return doc;
+    }
+
+    int nextDoc() {
+        if (doc == PostingsIterator.NO_MORE_DOCS) {
+            return doc;
+        }
+        postingsVisited++;
+        return doc = align(lead.nextDoc());
+    }
+
+    /** Number of times a clause moved to another posting, a skip over whole blocks counting once. */
+    long postingsVisited() {
+        return postingsVisited;
+    }
+
+    private int align(int target) {
+        advanceLead:
+        while (target != PostingsIterator.NO_MORE_DOCS) {
+            for (PostingsIterator other : others) {
+                if (other.docId() < target) {
+                    postingsVisited++;
+                    int next = other.advance(target);
+                    if (next > target) {
+                        postingsVisited++;
+                        target = lead.advance(next);
+                        continue advanceLead;
+                    }
+                }
+            }
+            return target;
+        }
+        return PostingsIterator.NO_MORE_DOCS;
+    }
+}
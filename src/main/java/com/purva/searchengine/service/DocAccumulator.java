@@ -0,0 +1,119 @@
+package com.purva.searchengine.service;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * Dense, reusable match counters and score sums indexed by snapshot doc number, reset by
+ * {@link #clear()} only in the slots a query touched.
+ */
+final class DocAccumulator {
+    private static final ThreadLocal<DocAccumulator> PER_THREAD = ThreadLocal.withInitial(DocAccumulator::new);
+    /**
+     * Idle instances for virtual threads, most recently used first so their arrays are still
+     * cached. Instances beyond its capacity are left to the garbage collector.
+     */
+    private static final BlockingDeque<DocAccumulator> POOL =
+            new LinkedBlockingDeque<>(Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+
+    private int[] counts = new int[0];
+    private double[] scores = new double[0];
+    private int[] touched = new int[0];
+    private int touchedCount;
+    private final boolean pooled;
+
+    private DocAccumulator() {
+        this(false);
+    }
+
+    private DocAccumulator(boolean pooled) {
+        this.pooled = pooled;
+    }
+
+    /**
+     * Returns this thread's accumulator, or a pooled one on a virtual thread, sized for doc
+     * numbers below {@code maxDoc}. Always {@link #clear()} it in a {@code finally} block; a
+     * query that leaves counters behind corrupts the next one.
+     */
+    static DocAccumulator forCurrentThread(int maxDoc) {
+        DocAccumulator accumulator;
+        if (Thread.currentThread().isVirtual()) {
+            accumulator = POOL.pollFirst();
+            if (accumulator == null) {
+                accumulator = new DocAccumulator(true);
+            }
+        }
+        else {
+            accumulator = PER_THREAD.get();
+        }
+        accumulator.ensureCapacity(maxDoc);
+        return accumulator;
+    }
+
+    void increment(int doc) {
+        if (counts[doc]++ == 0) {
+            touched[touchedCount++] = doc;
+        }
+    }
+
+    int count(int doc) {
+        return counts[doc];
+    }
+
+    void addScore(int doc, double score) {
+        scores[doc] += score;
+    }
+
+    double score(int doc) {
+        return scores[doc];
+    }
+
+    /** Number of distinct doc numbers counted since the last {@link #clear()}. */
+    int touchedCount() {
+        return touchedCount;
+    }
+
+    /** The {@code i}-th distinct doc number counted, in first-counted order. */
+    int touchedDoc(int i) {
+        return touched[i];
+    }
+
+    /** Doc numbers whose count reached {@code minimum}, in the order they were first counted. */
+    int[] docsWithCountAtLeast(int minimum) {
+        int matching = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            if (counts[touched[i]] >= minimum) {
+                matching++;
+            }
+        }
+        int[] docs = new int[matching];
+        int next = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            if (counts[touched[i]] >= minimum) {
+                docs[next++] = touched[i];
+            }
+        }
+        return docs;
+    }
+
+    void clear() {
+        for (int i = 0; i < touchedCount; i++) {
+            counts[touched[i]] = 0;
+            scores[touched[i]] = 0;
+        }
+        touchedCount = 0;
+        if (pooled) {
+            POOL.offerFirst(this);
+        }
+    }
+
+    private void ensureCapacity(int maxDoc) {
+        if (counts.length < maxDoc) {
+            // Grow with headroom so a steadily growing index does not reallocate on every query
+            int capacity = Math.max(maxDoc, counts.length + (counts.length >> 1));
+            counts = new int[capacity];
+            scores = new double[capacity];
+            touched = new int[capacity];
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.purva.searchengine.service;
+
+public class DocumentNotFoundException extends RuntimeException {
+    public DocumentNotFoundException(int documentId) {
+        super("Document " + documentId + " not found");
+    }
+}
@@ -1,24 +1,289 @@
 package com.purva.searchengine.service;
 
 import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.index.ShardedIndex;
+import com.purva.searchengine.index.TokenizedDocument;
+import com.purva.searchengine.tokenizer.TokenizedText;
 import com.purva.searchengine.tokenizer.Tokenizer;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class DocumentService {
+    /** Documents tokenized together and applied to the index under one lock acquisition. */
+    static final int BULK_BATCH_SIZE = 4096;
+
+    static final String INVALID_ID = "Document id must be greater than 0";
+    static final String NO_INDEXABLE_TERMS = "Document content has no indexable terms";
+
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+
     private final Tokenizer tokenizer;
-    private final InvertedIndex invertedIndex;
+    private final ShardedIndex index;
+    /** {@code null} when writes are not logged. */
+    private final WriteAheadLog writeAheadLog;
+    /** {@code null} when indexed terms are not suggested. */
+    private final SuggestionService suggestionService;
+    /** {@code null} when writes are not measured. */
+    private final EngineMetrics metrics;
+
+    /** One NDJSON line; fields are boxed so a missing value can be told apart from zero. */
+    private record BulkLine(Integer documentId, String content) {}
+
+    private record PendingDocument(int line, int documentId, String content) {}
+
+    /**
+     * The optional collaborators of a {@link DocumentService}. {@link #NONE} keeps writes in
+     * memory only, suggests nothing and records no metrics.
+     *
+     * @param writeAheadLog     logs every write before it is applied to the index, or {@code null}
+     *                          to keep writes in memory only
+     * @param suggestionService receives the tokens of every indexed document, including replayed
+     *                          ones, or {@code null}
+     * @param metrics           records how long each write spent tokenizing, logging and updating
+     *                          the index, or {@code null}; replayed writes are not recorded
+     */
+    public record Options(WriteAheadLog writeAheadLog, SuggestionService suggestionService, EngineMetrics metrics) {
+        public static final Options NONE = new Options(null, null, null);
+
+        public Options withWriteAheadLog(WriteAheadLog writeAheadLog) {
+            return new Options(writeAheadLog, suggestionService, metrics);
+        }
+
+        public Options withSuggestionService(SuggestionService suggestionService) {
+            return new Options(writeAheadLog, suggestionService, metrics);
+        }
+
+        public Options withMetrics(EngineMetrics metrics) {
+            return new Options(writeAheadLog, suggestionService, metrics);
+        }
+    }
 
     public DocumentService(Tokenizer tokenizer, InvertedIndex invertedIndex) {
-        this.invertedIndex = invertedIndex;
+        this(tokenizer, invertedIndex, Options.NONE);
+    }
+
+    public DocumentService(Tokenizer tokenizer, InvertedIndex invertedIndex, Options options) {
+        this(tokenizer, new ShardedIndex(invertedIndex), options);
+    }
+
+    public DocumentService(Tokenizer tokenizer, ShardedIndex index, Options options) {
+        this.index = index;
         this.tokenizer = tokenizer;
+        this.writeAheadLog = options.writeAheadLog();
+        this.suggestionService = options.suggestionService();
+        this.metrics = options.metrics();
     }
 
+    /**
+     * Indexes the document, replacing any previous version. Like the index itself, it ignores
+     * ids below {@code 1} and content with no indexable terms, such as only stop words: nothing
+     * is logged or applied, so any previous version stays.
+     *
+     * @throws IllegalArgumentException if the content is blank
+     */
     public void indexDocument(int documentId, String content) {
         if (content == null || content.isBlank()) {
             throw new IllegalArgumentException("Document content cannot be null or blank");
         }
-        List<String> tokens = tokenizer.tokenize(content);
-        invertedIndex.index(documentId, tokens);
+        if (documentId <= 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        TokenizedText text = tokenizer.tokenizeWithPositions(content);
+        if (text.tokens().isEmpty()) {
+            return;
+        }
+        logged(EngineMetrics.WriteOperation.INDEX, System.nanoTime() - start,
+                List.of(WriteAheadLog.Entry.index(documentId, content)), () -> {
+                    index.index(documentId, text.tokens(), text.positions());
+                    return null;
+                });
+        if (suggestionService != null) {
+            suggestionService.addDocument(text.tokens());
+        }
+    }
+
+    public void deleteDocument(int documentId) {
+        if (!logged(EngineMetrics.WriteOperation.DELETE, 0, List.of(WriteAheadLog.Entry.delete(documentId)),
+                () -> index.delete(documentId))) {
+            throw new DocumentNotFoundException(documentId);
+        }
+    }
+
+    /**
+     * Re-applies the writes logged before startup, on top of whatever the index was loaded
+     * from. Runs of indexed documents are applied in bulk batches.
+     *
+     * @return the number of replayed writes
+     */
+    public int replayLog() throws IOException {
+        if (writeAheadLog == null) {
+            return 0;
+        }
+        List<PendingDocument> batch = new ArrayList<>(BULK_BATCH_SIZE);
+        int replayed = writeAheadLog.replay(entry -> {
+            if (entry.isDelete()) {
+                applyBatch(batch);
+                index.delete(entry.documentId());
+            } else {
+                batch.add(new PendingDocument(0, entry.documentId(), entry.content()));
+                if (batch.size() == BULK_BATCH_SIZE) {
+                    applyBatch(batch);
+                }
+            }
+        });
+        applyBatch(batch);
+        return replayed;
+    }
+
+    /**
+     * Indexes newline-delimited JSON documents ({@code {"documentId": 1, "content": "..."}}
+     * per line) while the body is still being read.
+     *
+     * <p>Valid lines are collected into batches of {@link #BULK_BATCH_SIZE}; each batch is
+     * tokenized in parallel and handed to {@link ShardedIndex#indexAll}, so each shard's writer
+     * lock is taken once per batch instead of once per document. A malformed line is reported in
+     * its {@link BulkItemResult} and does not stop the rest of the stream. Blank lines are
+     * skipped. A line whose content has no indexable terms is rejected like the single-document
+     * endpoint rejects it, before anything of it is logged or applied.</p>
+     */
+    public BulkIndexResult bulkIndex(Reader ndjson) throws IOException {
+        BufferedReader reader = ndjson instanceof BufferedReader buffered ? buffered : new BufferedReader(ndjson);
+        List<BulkItemResult> items = new ArrayList<>();
+        List<PendingDocument> batch = new ArrayList<>(BULK_BATCH_SIZE);
+        int failed = 0;
+        int lineNumber = 0;
+
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            BulkLine document;
+            try {
+                document = JSON.readValue(line, BulkLine.class);
+            }
+            catch (JacksonException e) {
+                items.add(BulkItemResult.rejected(lineNumber, null, "Invalid JSON"));
+                failed++;
+                continue;
+            }
+            if (document.documentId() == null) {
+                items.add(BulkItemResult.rejected(lineNumber, null, "Document id is required"));
+                failed++;
+            } else if (document.documentId() <= 0) {
+                items.add(BulkItemResult.rejected(lineNumber, document.documentId(), INVALID_ID));
+                failed++;
+            } else if (document.content() == null || document.content().isBlank()) {
+                items.add(BulkItemResult.rejected(lineNumber, document.documentId(), "Document content cannot be null or blank"));
+                failed++;
+            } else {
+                batch.add(new PendingDocument(lineNumber, document.documentId(), document.content()));
+                if (batch.size() == BULK_BATCH_SIZE) {
+                    failed += indexBatch(batch, items);
+                }
+            }
+        }
+        failed += indexBatch(batch, items);
+
+        // Batched lines are reported when their batch is applied, so restore request order
+        items.sort((a, b) -> Integer.compare(a.line(), b.line()));
+        return new BulkIndexResult(items.size() - failed, failed, items);
+    }
+
+    /** @return the number of lines rejected for having no indexable terms */
+    private int indexBatch(List<PendingDocument> batch, List<BulkItemResult> items) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        List<TokenizedDocument> tokenized = tokenizeAll(batch);
+        long tokenizeNanos = System.nanoTime() - start;
+
+        List<TokenizedDocument> documents = new ArrayList<>(tokenized.size());
+        List<WriteAheadLog.Entry> entries = new ArrayList<>(tokenized.size());
+        int rejected = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            PendingDocument document = batch.get(i);
+            if (tokenized.get(i).tokens().isEmpty()) {
+                items.add(BulkItemResult.rejected(document.line(), document.documentId(), NO_INDEXABLE_TERMS));
+                rejected++;
+            } else {
+                documents.add(tokenized.get(i));
+                entries.add(WriteAheadLog.Entry.index(document.documentId(), document.content()));
+                items.add(BulkItemResult.created(document.line(), document.documentId()));
+            }
+        }
+        if (!documents.isEmpty()) {
+            logged(EngineMetrics.WriteOperation.BULK, tokenizeNanos, entries, () -> {
+                index.indexAll(documents);
+                return null;
+            });
+            addSuggestions(documents);
+        }
+        batch.clear();
+        return rejected;
+    }
+
+    /** Applies a batch read back from the log, which must not be logged again. */
+    private void applyBatch(List<PendingDocument> batch) {
+        if (!batch.isEmpty()) {
+            List<TokenizedDocument> documents = tokenizeAll(batch);
+            index.indexAll(documents);
+            addSuggestions(documents);
+            batch.clear();
+        }
+    }
+
+    private void addSuggestions(List<TokenizedDocument> documents) {
+        if (suggestionService != null) {
+            for (TokenizedDocument document : documents) {
+                suggestionService.addDocument(document.tokens());
+            }
+        }
+    }
+
+    private List<TokenizedDocument> tokenizeAll(List<PendingDocument> batch) {
+        return batch.parallelStream()
+                .map(document -> {
+                    TokenizedText text = tokenizer.tokenizeWithPositions(document.content());
+                    return new TokenizedDocument(document.documentId(), text.tokens(), text.positions());
+                })
+                .toList();
+    }
+
+    /**
+     * Logs the entries and applies them to the index. With metrics, the time spent applying is
+     * recorded as the write stage and the rest, from waiting for the log's lock to its fsync,
+     * as the log stage.
+     */
+    private <T> T logged(EngineMetrics.WriteOperation operation, long tokenizeNanos, List<WriteAheadLog.Entry> entries,
+                         Supplier<T> apply) {
+        if (metrics == null) {
+            return writeAheadLog == null ? apply.get() : writeAheadLog.append(entries, apply);
+        }
+        long[] applyNanos = new long[1];
+        Supplier<T> timedApply = () -> {
+            long start = System.nanoTime();
+            try {
+                return apply.get();
+            }
+            finally {
+                applyNanos[0] = System.nanoTime() - start;
+            }
+        };
+        long start = System.nanoTime();
+        T result = writeAheadLog == null ? timedApply.get() : writeAheadLog.append(entries, timedApply);
+        long logNanos = writeAheadLog == null ? 0 : System.nanoTime() - start - applyNanos[0];
+        metrics.recordWrite(operation, tokenizeNanos, logNanos, applyNanos[0]);
+        return result;
     }
-}
\ No newline at end of file
+}
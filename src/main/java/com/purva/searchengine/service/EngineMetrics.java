@@ -0,0 +1,101 @@
+package com.purva.searchengine.service;
+
+import com.purva.searchengine.index.ShardedIndex;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for where search and indexing time goes, registered up front so recording
+ * allocates nothing. The meters are listed in {@code docs/search-service-design.md}.
+ */
+public class EngineMetrics {
+    enum WriteOperation {INDEX, BULK, DELETE}
+
+    enum WriteStage {TOKENIZE, LOG, WRITE}
+
+    private static final QueryTrace.Stage[] STAGES = QueryTrace.Stage.values();
+    private static final WriteStage[] WRITE_STAGES = WriteStage.values();
+
+    /** Indexed by query type, {@code 0} for search and {@code 1} for ranked, then by stage. */
+    private final Timer[][] searchStages = new Timer[2][STAGES.length];
+    private final DistributionSummary[] candidates = new DistributionSummary[2];
+    private final DistributionSummary[] postings = new DistributionSummary[2];
+    /** Indexed by operation, then by stage. */
+    private final Timer[][] writeStages = new Timer[WriteOperation.values().length][WRITE_STAGES.length];
+
+    public EngineMetrics(MeterRegistry registry, ShardedIndex index) {
+        for (int type = 0; type < 2; type++) {
+            String query = type == 0 ? "search" : "ranked";
+            for (QueryTrace.Stage stage : STAGES) {
+                searchStages[type][stage.ordinal()] = Timer.builder("search.stage")
+                        .description("Time a query spent in one stage, summed over shards")
+                        .tags("query", query, "stage", tag(stage))
+                        .publishPercentileHistogram()
+                        .register(registry);
+            }
+            candidates[type] = DistributionSummary.builder("search.candidates")
+                    .description("Documents a query examined as possible results")
+                    .tag("query", query)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            postings[type] = DistributionSummary.builder("search.postings")
+                    .description("Moves of a query's postings iterators")
+                    .tag("query", query)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+        for (WriteOperation operation : WriteOperation.values()) {
+            for (WriteStage stage : WRITE_STAGES) {
+                writeStages[operation.ordinal()][stage.ordinal()] = Timer.builder("index.stage")
+                        .description("Time a write spent in one stage")
+                        .tags("operation", tag(operation), "stage", tag(stage))
+                        .publishPercentileHistogram()
+                        .register(registry);
+            }
+        }
+        FunctionTimer.builder("index.writer.lock", index,
+                        shards -> shards.writerLockStats().acquisitions(),
+                        shards -> shards.writerLockStats().waitNanos(), TimeUnit.NANOSECONDS)
+                .description("Writer lock acquisitions and the time spent waiting for them")
+                .register(registry);
+        FunctionCounter.builder("index.writer.lock.contended", index, shards -> shards.writerLockStats().contended())
+                .description("Writer lock acquisitions that waited for another holder")
+                .register(registry);
+    }
+
+    private static String tag(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+
+    void recordQuery(QueryTrace trace, boolean ranked) {
+        int type = ranked ? 1 : 0;
+        for (QueryTrace.Stage stage : STAGES) {
+            long nanos = trace.stageNanos(stage);
+            if (nanos > 0) {
+                searchStages[type][stage.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        candidates[type].record(trace.candidates());
+        postings[type].record(trace.postings());
+    }
+
+    /** Stages given {@code 0} nanoseconds, such as the log when there is none, are not recorded. */
+    void recordWrite(WriteOperation operation, long tokenizeNanos, long logNanos, long writeNanos) {
+        Timer[] stages = writeStages[operation.ordinal()];
+        if (tokenizeNanos > 0) {
+            stages[WriteStage.TOKENIZE.ordinal()].record(tokenizeNanos, TimeUnit.NANOSECONDS);
+        }
+        if (logNanos > 0) {
+            stages[WriteStage.LOG.ordinal()].record(logNanos, TimeUnit.NANOSECONDS);
+        }
+        if (writeNanos > 0) {
+            stages[WriteStage.WRITE.ordinal()].record(writeNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.purva.searchengine.service;
+
+import com.purva.searchengine.tokenizer.TokenizedText;
+import com.purva.searchengine.tokenizer.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A query split into its quoted phrases, each with an optional {@code ~N} slop, and the loose
+ * tokens outside them, both tokenized like documents.
+ *
+ * @param tokens  the loose tokens, in query order
+ * @param phrases the phrases that tokenize to at least one token, in query order
+ */
+record ParsedQuery(List<String> tokens, List<Phrase> phrases) {
+    /**
+     * @param offsets each token's position in the phrase, counted from the first token
+     * @param slop    how far, in total, the tokens may move from their phrase positions;
+     *                {@code 0} requires them at exactly those offsets and in order
+     */
+    record Phrase(List<String> tokens, List<Integer> offsets, int slop) {}
+
+    static ParsedQuery parse(Tokenizer tokenizer, String query) {
+        if (query == null || query.indexOf('"') < 0) {
+            return new ParsedQuery(tokenizer.tokenize(query), List.of());
+        }
+
+        StringBuilder loose = new StringBuilder(query.length());
+        List<Phrase> phrases = new ArrayList<>();
+        int i = 0;
+        while (i < query.length()) {
+            int open = query.indexOf('"', i);
+            if (open < 0) {
+                loose.append(query, i, query.length());
+                break;
+            }
+            loose.append(query, i, open).append(' ');
+            int close = query.indexOf('"', open + 1);
+            TokenizedText phraseText = tokenizer.tokenizeWithPositions(query.substring(open + 1, close < 0 ? query.length() : close));
+            i = close < 0 ? query.length() : close + 1;
+
+            int slop = 0;
+            if (i < query.length() && query.charAt(i) == '~') {
+                int digits = i + 1;
+                while (digits < query.length() && Character.isDigit(query.charAt(digits))) {
+                    digits++;
+                }
+                slop = parseSlop(query.substring(i + 1, digits));
+                i = digits;
+            }
+            if (!phraseText.tokens().isEmpty()) {
+                int[] positions = phraseText.positions();
+                List<Integer> offsets = Arrays.stream(positions).map(position -> position - positions[0]).boxed().toList();
+                phrases.add(new Phrase(phraseText.tokens(), offsets, slop));
+            }
+        }
+        return new ParsedQuery(tokenizer.tokenize(loose.toString()), List.copyOf(phrases));
+    }
+
+    private static int parseSlop(String digits) {
+        if (digits.isEmpty()) {
+            return 0;
+        }
+        if (digits.length() > 3 || Integer.parseInt(digits) > SearchService.MAX_PHRASE_SLOP) {
+            throw new IllegalArgumentException("Phrase slop must be between 0 and " + SearchService.MAX_PHRASE_SLOP);
+        }
+        return Integer.parseInt(digits);
+    }
+
+    boolean isEmpty() {
+        return tokens.isEmpty() && phrases.isEmpty();
+    }
+
+    boolean hasPhrases() {
+        return !phrases.isEmpty();
+    }
+}
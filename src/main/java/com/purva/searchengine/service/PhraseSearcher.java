@@ -0,0 +1,189 @@
+package com.purva.searchengine.service;
+
+import com.purva.searchengine.index.IndexSnapshot;
+import com.purva.searchengine.index.PostingsIterator;
+import com.purva.searchengine.search.Scorer;
+import com.purva.searchengine.search.TermScorer;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the documents that contain every phrase of a query within its slop and enough of its
+ * loose tokens, decoding positions only for documents that contain every phrase token.
+ */
+final class PhraseSearcher {
+    private final TermScorer[] phraseScorers;
+    /** Offset of each phrase token in its phrase. */
+    private final int[] offsets;
+    /** Index in {@link #phraseScorers} of each phrase's first token, followed by the total. */
+    private final int[] phraseStarts;
+    private final int[] slops;
+    private final TermScorer[] looseScorers;
+    private final int minimumMatches;
+    private final ConjunctionIterator conjunction;
+    /** Shifted positions of each phrase token in the current candidate. */
+    private final int[][] positions;
+    private final int[] positionCounts;
+    private final int[] cursors;
+    private int doc = -1;
+    private long candidates;
+    private long loosePostingsVisited;
+
+    /**
+     * @param looseTerms     the loose tokens' terms, one per occurrence
+     * @param minimumMatches loose tokens a document must contain besides the phrases
+     */
+    PhraseSearcher(IndexSnapshot snapshot, Scorer scorer, List<ParsedQuery.Phrase> phrases,
+                   IndexSnapshot.Term[] looseTerms, int minimumMatches) {
+        this.phraseStarts = new int[phrases.size() + 1];
+        this.slops = new int[phrases.size()];
+        for (int phrase = 0; phrase < phrases.size(); phrase++) {
+            phraseStarts[phrase + 1] = phraseStarts[phrase] + phrases.get(phrase).tokens().size();
+            slops[phrase] = phrases.get(phrase).slop();
+        }
+
+        int clauseCount = phraseStarts[phrases.size()];
+        this.phraseScorers = new TermScorer[clauseCount];
+        this.offsets = new int[clauseCount];
+        PostingsIterator[] clauses = new PostingsIterator[clauseCount];
+        for (int phrase = 0; phrase < phrases.size(); phrase++) {
+            List<String> tokens = phrases.get(phrase).tokens();
+            for (int token = 0; token < tokens.size(); token++) {
+                int clause = phraseStarts[phrase] + token;
+                phraseScorers[clause] = scorer.termScorer(snapshot, snapshot.term(tokens.get(token)));
+                offsets[clause] = phrases.get(phrase).offsets().get(token);
+                clauses[clause] = phraseScorers[clause].postings();
+            }
+        }
+        this.conjunction = new ConjunctionIterator(clauses);
+
+        this.looseScorers = new TermScorer[looseTerms.length];
+        for (int clause = 0; clause < looseScorers.length; clause++) {
+            looseScorers[clause] = scorer.termScorer(snapshot, looseTerms[clause]);
+        }
+        this.minimumMatches = minimumMatches;
+
+        this.positions = new int[clauseCount][8];
+        this.positionCounts = new int[clauseCount];
+        this.cursors = new int[clauseCount];
+    }
+
+    /** Moves to the next matching snapshot doc number, or {@link PostingsIterator#NO_MORE_DOCS}. */
+    int nextDoc() {
+        candidates:
+        for (int candidate = conjunction.nextDoc(); candidate != PostingsIterator.NO_MORE_DOCS;
+             candidate = conjunction.nextDoc()) {
+            candidates++;
+            for (int phrase = 0; phrase < slops.length; phrase++) {
+                if (!occurs(phrase)) {
+                    continue candidates;
+                }
+            }
+            int matches = 0;
+            for (TermScorer looseScorer : looseScorers) {
+                PostingsIterator postings = looseScorer.postings();
+                if (postings.docId() < candidate) {
+                    loosePostingsVisited++;
+                    postings.advance(candidate);
+                }
+                if (postings.docId() == candidate) {
+                    matches++;
+                }
+            }
+            if (matches >= minimumMatches) {
+                return doc = candidate;
+            }
+        }
+        return doc = PostingsIterator.NO_MORE_DOCS;
+    }
+
+    /** Number of documents containing every phrase token, whose positions were checked. */
+    long candidates() {
+        return candidates;
+    }
+
+    /** Number of times a token's postings moved to another posting, a skip over whole blocks counting once. */
+    long postingsVisited() {
+        return conjunction.postingsVisited() + loosePostingsVisited;
+    }
+
+    /** Score of the document {@link #nextDoc()} last returned. */
+    double score() {
+        double score = 0;
+        for (TermScorer phraseScorer : phraseScorers) {
+            score += phraseScorer.score();
+        }
+        for (TermScorer looseScorer : looseScorers) {
+            if (looseScorer.postings().docId() == doc) {
+                score += looseScorer.score();
+            }
+        }
+        return score;
+    }
+
+    /** Whether the phrase occurs within its slop in the current candidate. */
+    private boolean occurs(int phrase) {
+        int first = phraseStarts[phrase];
+        int end = phraseStarts[phrase + 1];
+        if (end - first == 1) {
+            return true;
+        }
+        for (int clause = first; clause < end; clause++) {
+            PostingsIterator postings = phraseScorers[clause].postings();
+            int termFrequency = postings.termFrequency();
+            if (positions[clause].length < termFrequency) {
+                positions[clause] = Arrays.copyOf(positions[clause], Math.max(termFrequency, positions[clause].length << 1));
+            }
+            for (int i = 0; i < termFrequency; i++) {
+                positions[clause][i] = postings.nextPosition() - offsets[clause];
+            }
+            positionCounts[clause] = termFrequency;
+            cursors[clause] = 0;
+        }
+
+        // Slide the smallest window that holds one shifted position of every token
+        int slop = slops[phrase];
+        while (true) {
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            int minClause = first;
+            for (int clause = first; clause < end; clause++) {
+                int position = positions[clause][cursors[clause]];
+                if (position < min) {
+                    min = position;
+                    minClause = clause;
+                }
+                max = Math.max(max, position);
+            }
+            int moved = minClause;
+            if (max - min <= slop) {
+                moved = sharedPositionClause(first, end);
+                if (moved < 0) {
+                    return true;
+                }
+            }
+            if (++cursors[moved] == positionCounts[moved]) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * A clause on the same position in the text as another clause of the phrase, which must move
+     * to a later occurrence, or -1 when every clause is on a position of its own. Only clauses
+     * of a repeated token can share a position.
+     */
+    private int sharedPositionClause(int first, int end) {
+        for (int a = first; a < end; a++) {
+            int position = positions[a][cursors[a]] + offsets[a];
+            for (int b = a + 1; b < end; b++) {
+                if (positions[b][cursors[b]] + offsets[b] == position) {
+                    // The later token of the phrase moves on, unless it has no occurrence left
+                    return cursors[b] + 1 < positionCounts[b] ? b : a;
+                }
+            }
+        }
+        return -1;
+    }
+}
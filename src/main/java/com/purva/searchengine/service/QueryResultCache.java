@@ -0,0 +1,153 @@
+package com.purva.searchengine.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, lock-striped LRU cache of query results, keyed by the tokenized query and its
+ * parameters and invalidated by
+ * {@link com.purva.searchengine.index.InvertedIndex#generation() index generation}. Memory is
+ * bounded by an estimate of each entry's retained bytes.
+ */
+public final class QueryResultCache {
+    // Approximate retained sizes with compressed oops: object header 12 bytes, references 4 bytes
+    private static final long ENTRY_OVERHEAD_BYTES = 128;
+    private static final long TOKEN_OVERHEAD_BYTES = 48;
+    private static final long INTEGER_RESULT_BYTES = 20;
+    private static final long RANKED_RESULT_BYTES = 28;
+    private static final int MAX_STRIPES = 16;
+    private static final long MIN_STRIPE_BYTES = 1 << 20;
+
+    private final long maxBytes;
+    private final Stripe[] stripes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param tokens    the tokenized query, outside any phrases
+     * @param phrases   the query's quoted phrases
+     * @param topK      the requested result count, or 0 for an unranked threshold search
+     * @param threshold the fraction of tokens a document must match
+     * @param scorer    identifies the scoring function, since the same query ranks differently per scorer
+     */
+    record Key(List<String> tokens, List<ParsedQuery.Phrase> phrases, int topK, double threshold, int fuzziness, String scorer) {}
+
+    private record Entry(long generation, List<?> results, long bytes) {}
+
+    /** One LRU map and its share of the budget, guarded by its own monitor. */
+    private static final class Stripe {
+        private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final long maxBytes;
+        private long usedBytes;
+
+        Stripe(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        void remove(Key key, Entry entry) {
+            entries.remove(key);
+            usedBytes -= entry.bytes();
+        }
+    }
+
+    public record Stats(long hits, long misses, long evictions, int entries, long usedBytes, long maxBytes) {
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    public QueryResultCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be greater than 0");
+        }
+        this.maxBytes = maxBytes;
+        int stripeCount = (int) Math.min(MAX_STRIPES, Math.max(1, Long.highestOneBit(maxBytes / MIN_STRIPE_BYTES)));
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(maxBytes / stripeCount);
+        }
+    }
+
+    private Stripe stripe(Key key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    /** Returns the cached results for {@code key} at {@code generation}, or {@code null} on a miss. */
+    List<?> get(Key key, long generation) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            Entry entry = stripe.entries.get(key);
+            if (entry != null && entry.generation() == generation) {
+                hits.increment();
+                return entry.results();
+            }
+            if (entry != null) {
+                stripe.remove(key, entry);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /** Caches an immutable result list computed from a snapshot taken at {@code generation}. */
+    void put(Key key, long generation, List<?> results) {
+        Stripe stripe = stripe(key);
+        long bytes = estimateBytes(key, results);
+        if (bytes > stripe.maxBytes / 8) {
+            return;
+        }
+
+        synchronized (stripe) {
+            Entry previous = stripe.entries.get(key);
+            if (previous != null) {
+                // A slower query from an older snapshot must not replace a newer result
+                if (previous.generation() > generation) {
+                    return;
+                }
+                stripe.remove(key, previous);
+            }
+            stripe.entries.put(key, new Entry(generation, results, bytes));
+            stripe.usedBytes += bytes;
+
+            Iterator<Map.Entry<Key, Entry>> eldest = stripe.entries.entrySet().iterator();
+            while (stripe.usedBytes > stripe.maxBytes && eldest.hasNext()) {
+                stripe.usedBytes -= eldest.next().getValue().bytes();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    /** Counts are summed stripe by stripe, so they are exact only while the cache is idle. */
+    public Stats stats() {
+        int entries = 0;
+        long usedBytes = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                entries += stripe.entries.size();
+                usedBytes += stripe.usedBytes;
+            }
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries, usedBytes, maxBytes);
+    }
+
+    private static long estimateBytes(Key key, List<?> results) {
+        long bytes = ENTRY_OVERHEAD_BYTES;
+        for (String token : key.tokens()) {
+            bytes += TOKEN_OVERHEAD_BYTES + token.length();
+        }
+        for (ParsedQuery.Phrase phrase : key.phrases()) {
+            for (String token : phrase.tokens()) {
+                bytes += TOKEN_OVERHEAD_BYTES + token.length();
+            }
+        }
+        long perResult = key.topK() > 0 ? RANKED_RESULT_BYTES : INTEGER_RESULT_BYTES;
+        return bytes + perResult * results.size();
+    }
+}
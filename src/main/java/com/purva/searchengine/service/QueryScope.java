@@ -0,0 +1,87 @@
+package com.purva.searchengine.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * The parallel subtasks of one query, forked inside a try-with-resources block and all
+ * finished before the block exits, on virtual threads or the common fork-join pool.
+ */
+final class QueryScope<T> implements AutoCloseable {
+    /** {@code null} when subtasks run on the common fork-join pool. */
+    private final ExecutorService virtualThreads;
+    private final List<Future<T>> subtasks = new ArrayList<>();
+
+    QueryScope(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads ? Executors.newVirtualThreadPerTaskExecutor() : null;
+    }
+
+    void fork(Callable<T> subtask) {
+        subtasks.add(virtualThreads != null ? virtualThreads.submit(subtask) : ForkJoinPool.commonPool().submit(subtask));
+    }
+
+    /**
+     * Waits for every forked subtask and returns their results in fork order.
+     *
+     * @throws RuntimeException the first failure in fork order, once all subtasks finished
+     */
+    List<T> join() {
+        List<T> results = new ArrayList<>(subtasks.size());
+        RuntimeException failure = null;
+        for (Future<T> subtask : subtasks) {
+            try {
+                results.add(subtask.get());
+            }
+            catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for query subtasks", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    /**
+     * Waits for every subtask {@link #join()} did not reach, even when interrupted, since subtasks
+     * read index snapshots that the query closes after the scope.
+     */
+    @Override
+    public void close() {
+        if (virtualThreads != null) {
+            virtualThreads.close();
+            return;
+        }
+        boolean interrupted = false;
+        for (Future<T> subtask : subtasks) {
+            while (true) {
+                try {
+                    subtask.get();
+                    break;
+                }
+                catch (ExecutionException e) {
+                    // Already reported by join(), or the query failed before it got there
+                    break;
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
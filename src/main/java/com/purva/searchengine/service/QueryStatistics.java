@@ -0,0 +1,30 @@
+package com.purva.searchengine.service;
+
+import com.purva.searchengine.index.CollectionStatistics;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The collection statistics a query is scored with, as the nodes of a cluster exchange them:
+ * the document count, the total document length and the document frequency of every term the
+ * query can score.
+ */
+public record QueryStatistics(int totalDocuments, long totalDocumentLength, Map<String, Integer> docFreqs) {
+    static QueryStatistics sum(List<QueryStatistics> statistics) {
+        int totalDocuments = 0;
+        long totalDocumentLength = 0;
+        Map<String, Integer> docFreqs = new HashMap<>();
+        for (QueryStatistics node : statistics) {
+            totalDocuments += node.totalDocuments();
+            totalDocumentLength += node.totalDocumentLength();
+            node.docFreqs().forEach((term, docFreq) -> docFreqs.merge(term, docFreq, Integer::sum));
+        }
+        return new QueryStatistics(totalDocuments, totalDocumentLength, docFreqs);
+    }
+
+    CollectionStatistics toCollectionStatistics() {
+        return new CollectionStatistics(totalDocuments, totalDocumentLength, docFreqs);
+    }
+}
@@ -0,0 +1,111 @@
+package com.purva.searchengine.service;
+
+import java.util.List;
+
+/**
+ * Where one query's time went, stage by stage, and how much of the index it touched, for
+ * {@link EngineMetrics}. Stages are timed as laps, and queries without metrics share the inert
+ * {@link #DISABLED} trace.
+ */
+final class QueryTrace {
+    enum Stage {
+        /** Parsing and tokenizing the query. */
+        TOKENIZE,
+        /** Looking up fuzzy expansions. */
+        EXPAND,
+        /**
+         * Looking up the query's terms and, where candidates are found before they are scored,
+         * walking postings to find them.
+         */
+        DISCOVERY,
+        /**
+         * Scoring candidates. Document-at-a-time paths find candidates as they score them, so
+         * their whole postings walk is charged here.
+         */
+        SCORING,
+        /** Picking and ordering the results, and merging the shards' results. */
+        SELECTION
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    /** Shared by every query when metrics are off. */
+    static final QueryTrace DISABLED = new QueryTrace(false);
+
+    private final boolean enabled;
+    private final long[] stageNanos = new long[STAGES.length];
+    private long lapStart;
+    private long candidates;
+    private long postings;
+
+    QueryTrace() {
+        this(true);
+    }
+
+    private QueryTrace(boolean enabled) {
+        this.enabled = enabled;
+        this.lapStart = enabled ? System.nanoTime() : 0;
+    }
+
+    /** A new trace for one shard of this trace's query, or {@link #DISABLED} if this one is. */
+    QueryTrace forShard() {
+        return enabled ? new QueryTrace() : DISABLED;
+    }
+
+    /** Charges the time since the previous lap, or since the trace was (re)started, to {@code stage}. */
+    void lap(Stage stage) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        stageNanos[stage.ordinal()] += now - lapStart;
+        lapStart = now;
+    }
+
+    /** Starts the next lap now, leaving the time since the previous one uncharged. */
+    void restart() {
+        if (!enabled) {
+            return;
+        }
+        lapStart = System.nanoTime();
+    }
+
+    /**
+     * @param candidates documents examined as possible results
+     * @param postings   postings entries the query's iterators were positioned on
+     */
+    void count(long candidates, long postings) {
+        if (!enabled) {
+            return;
+        }
+        this.candidates += candidates;
+        this.postings += postings;
+    }
+
+    /** Adds the shards' traces, which account for the time since the previous lap. */
+    void addShards(List<QueryTrace> shards) {
+        if (!enabled) {
+            return;
+        }
+        for (QueryTrace shard : shards) {
+            for (int stage = 0; stage < stageNanos.length; stage++) {
+                stageNanos[stage] += shard.stageNanos[stage];
+            }
+            candidates += shard.candidates;
+            postings += shard.postings;
+        }
+        restart();
+    }
+
+    long stageNanos(Stage stage) {
+        return stageNanos[stage.ordinal()];
+    }
+
+    long candidates() {
+        return candidates;
+    }
+
+    long postings() {
+        return postings;
+    }
+}
@@ -1,96 +1,730 @@
 package com.purva.searchengine.service;
 
+import com.purva.searchengine.index.CollectionStatistics;
+import com.purva.searchengine.index.IndexSnapshot;
 import com.purva.searchengine.index.InvertedIndex;
-import com.purva.searchengine.index.Posting;
+import com.purva.searchengine.index.PostingsIterator;
+import com.purva.searchengine.index.ShardedIndex;
 import com.purva.searchengine.search.Scorer;
+import com.purva.searchengine.search.TermScorer;
+import com.purva.searchengine.service.QueryTrace.Stage;
 import com.purva.searchengine.tokenizer.Tokenizer;
 
 import java.util.*;
+import java.util.function.Supplier;
 
+/**
+ * Threshold and ranked search over an {@link InvertedIndex} or a {@link ShardedIndex}, whose
+ * shards are searched in parallel with the {@link CollectionStatistics} of all of them.
+ */
 public class SearchService {
+    /** Most edits a fuzzy query allows per token. */
+    public static final int MAX_FUZZINESS = 2;
+    public static final int DEFAULT_MAX_EXPANSIONS = 50;
+    /** Largest {@code ~N} slop a quoted phrase may ask for. */
+    public static final int MAX_PHRASE_SLOP = 50;
+
     private final Tokenizer tokenizer;
-    private final InvertedIndex invertedIndex;
+    private final ShardedIndex index;
     private final Scorer scorer;
+    private final boolean dynamicPruning;
+    private final QueryResultCache resultCache;
+    /** {@code null} when fuzzy queries are not supported. */
+    private final SuggestionService vocabulary;
+    private final int maxExpansions;
+    /** Whether query subtasks run on virtual threads rather than the common fork-join pool. */
+    private final boolean virtualThreads;
+    /** {@code null} when queries are not measured. */
+    private final EngineMetrics metrics;
+
+    /**
+     * The optional collaborators and tuning of a {@link SearchService}. {@link #DEFAULTS} prunes
+     * with WAND, caches nothing, rejects fuzzy queries and records no metrics.
+     *
+     * @param dynamicPruning whether {@link #rankedSearch} uses WAND to skip documents that cannot
+     *                       reach the top-K; {@code false} scores every candidate, with the same result
+     * @param resultCache    cache for repeated queries, or {@code null} to compute every query
+     * @param vocabulary     source of the indexed terms near a misspelled token, or {@code null} to
+     *                       reject fuzzy queries
+     * @param maxExpansions  most indexed terms one query token of a fuzzy query expands to
+     * @param virtualThreads whether per-shard scoring and per-token fuzzy expansion fork virtual
+     *                       threads, for applications that serve requests on virtual threads
+     * @param metrics        records each query's stage times and counts, or {@code null}
+     */
+    public record Options(boolean dynamicPruning, QueryResultCache resultCache, SuggestionService vocabulary,
+                          int maxExpansions, boolean virtualThreads, EngineMetrics metrics) {
+        public static final Options DEFAULTS = new Options(true, null, null, DEFAULT_MAX_EXPANSIONS, false, null);
+
+        public Options withDynamicPruning(boolean dynamicPruning) {
+            return new Options(dynamicPruning, resultCache, vocabulary, maxExpansions, virtualThreads, metrics);
+        }
+
+        public Options withResultCache(QueryResultCache resultCache) {
+            return new Options(dynamicPruning, resultCache, vocabulary, maxExpansions, virtualThreads, metrics);
+        }
+
+        public Options withVocabulary(SuggestionService vocabulary, int maxExpansions) {
+            return new Options(dynamicPruning, resultCache, vocabulary, maxExpansions, virtualThreads, metrics);
+        }
+
+        public Options withVirtualThreads(boolean virtualThreads) {
+            return new Options(dynamicPruning, resultCache, vocabulary, maxExpansions, virtualThreads, metrics);
+        }
+
+        public Options withMetrics(EngineMetrics metrics) {
+            return new Options(dynamicPruning, resultCache, vocabulary, maxExpansions, virtualThreads, metrics);
+        }
+    }
 
     public SearchService(Tokenizer tokenizer, InvertedIndex invertedIndex, Scorer scorer) {
+        this(tokenizer, invertedIndex, scorer, Options.DEFAULTS);
+    }
+
+    public SearchService(Tokenizer tokenizer, InvertedIndex invertedIndex, Scorer scorer, Options options) {
+        this(tokenizer, new ShardedIndex(invertedIndex), scorer, options);
+    }
+
+    public SearchService(Tokenizer tokenizer, ShardedIndex index, Scorer scorer, Options options) {
         this.tokenizer = tokenizer;
-        this.invertedIndex = invertedIndex;
+        this.index = index;
         this.scorer = scorer;
+        this.dynamicPruning = options.dynamicPruning();
+        this.resultCache = options.resultCache();
+        this.vocabulary = options.vocabulary();
+        this.maxExpansions = options.maxExpansions();
+        this.virtualThreads = options.virtualThreads();
+        this.metrics = options.metrics();
+    }
+
+    /** Hit and miss counters of the result cache, or {@code null} when caching is disabled. */
+    public QueryResultCache.Stats cacheStats() {
+        return resultCache == null ? null : resultCache.stats();
     }
 
     public List<Integer> search(String query, double threshold) {
+        return search(query, threshold, 0);
+    }
+
+    /**
+     * Quoted phrases in the query, optionally followed by a {@code ~N} slop, are required; the
+     * threshold applies to the tokens outside them. See {@link ParsedQuery} and {@link PhraseSearcher}.
+     *
+     * @param fuzziness edits allowed per query token, from {@code 0} to {@link #MAX_FUZZINESS};
+     *                  see {@link #allowedEdits(String, int)}. Not supported with phrases.
+     */
+    public List<Integer> search(String query, double threshold, int fuzziness) {
         validateThreshold(threshold);
-        List<String> tokens = tokenizer.tokenize(query);
-        if (tokens.isEmpty()) {
+        validateFuzziness(fuzziness);
+        QueryTrace trace = newTrace();
+        ParsedQuery parsed = parse(query, fuzziness);
+        trace.lap(Stage.TOKENIZE);
+        if (parsed.isEmpty()) {
             return List.of();
         }
+        if (parsed.hasPhrases()) {
+            return cached(parsed, 0, threshold, fuzziness, traced(trace, false, () -> mergeDocumentIds(
+                    scatter(null, trace, (snapshot, shardTrace) -> executePhraseSearch(snapshot, parsed, threshold, shardTrace)))));
+        }
+        List<String> tokens = parsed.tokens();
+        return cached(parsed, 0, threshold, fuzziness, traced(trace, false, () -> {
+            List<List<SuggestionService.Expansion>> expansions = expand(tokens, fuzziness, trace);
+            return mergeDocumentIds(scatter(null, trace,
+                    (snapshot, shardTrace) -> executeSearch(snapshot, tokens, threshold, expansions, shardTrace)));
+        }));
+    }
+
+    /** @param expansions each token's fuzzy expansions, or {@code null} for an exact search */
+    private List<Integer> executeSearch(IndexSnapshot snapshot, List<String> tokens, double threshold,
+                                        List<List<SuggestionService.Expansion>> expansions, QueryTrace trace) {
+        if (expansions != null) {
+            DocAccumulator accumulator = DocAccumulator.forCurrentThread(snapshot.maxDoc());
+            try {
+                long postings = accumulateFuzzy(snapshot, tokens, expansions, accumulator);
+                trace.count(accumulator.touchedCount(), postings);
+                trace.lap(Stage.DISCOVERY);
+                return documentIds(snapshot, accumulator.docsWithCountAtLeast(minimumMatches(tokens, threshold)));
+            }
+            finally {
+                accumulator.clear();
+            }
+        }
+        IndexSnapshot.Term[] terms = resolve(snapshot, tokens);
+        if (isConjunctive(tokens, threshold)) {
+            List<Integer> documentIds = new ArrayList<>();
+            PostingsIterator[] clauses = new PostingsIterator[terms.length];
+            for (int clause = 0; clause < clauses.length; clause++) {
+                clauses[clause] = terms[clause].postings();
+            }
+            ConjunctionIterator conjunction = new ConjunctionIterator(clauses);
+            for (int doc = conjunction.nextDoc(); doc != PostingsIterator.NO_MORE_DOCS; doc = conjunction.nextDoc()) {
+                documentIds.add(snapshot.documentId(doc));
+            }
+            trace.count(documentIds.size(), conjunction.postingsVisited());
+            trace.lap(Stage.DISCOVERY);
+            documentIds.sort(null);
+            return documentIds;
+        }
+
+        DocAccumulator accumulator = DocAccumulator.forCurrentThread(snapshot.maxDoc());
+        try {
+            long postings = countMatches(terms, accumulator);
+            trace.count(accumulator.touchedCount(), postings);
+            trace.lap(Stage.DISCOVERY);
+            return documentIds(snapshot, accumulator.docsWithCountAtLeast(minimumMatches(tokens, threshold)));
+        }
+        finally {
+            accumulator.clear();
+        }
+    }
+
+    private List<Integer> executePhraseSearch(IndexSnapshot snapshot, ParsedQuery parsed, double threshold,
+                                              QueryTrace trace) {
+        PhraseSearcher searcher = phraseSearcher(snapshot, parsed, threshold);
+        List<Integer> documentIds = new ArrayList<>();
+        for (int doc = searcher.nextDoc(); doc != PostingsIterator.NO_MORE_DOCS; doc = searcher.nextDoc()) {
+            documentIds.add(snapshot.documentId(doc));
+        }
+        trace.count(searcher.candidates(), searcher.postingsVisited());
+        trace.lap(Stage.DISCOVERY);
+        documentIds.sort(null);
+        return documentIds;
+    }
 
-        Set<Integer> candidateDocIds = getCandidateDocIds(tokens, threshold);
-        return candidateDocIds.stream().sorted().toList();
+    private PhraseSearcher phraseSearcher(IndexSnapshot snapshot, ParsedQuery parsed, double threshold) {
+        return new PhraseSearcher(snapshot, scorer, parsed.phrases(), resolve(snapshot, parsed.tokens()),
+                minimumMatches(parsed.tokens(), threshold));
+    }
+
+    private static List<Integer> documentIds(IndexSnapshot snapshot, int[] candidateDocs) {
+        int[] documentIds = new int[candidateDocs.length];
+        for (int i = 0; i < candidateDocs.length; i++) {
+            documentIds[i] = snapshot.documentId(candidateDocs[i]);
+        }
+        Arrays.sort(documentIds);
+        return Arrays.stream(documentIds).boxed().toList();
     }
 
     public List<SearchResult> rankedSearch(String query, int topK, double threshold) {
+        return rankedSearch(query, topK, threshold, 0);
+    }
+
+    /**
+     * Phrases are handled as in {@link #search(String, double, int)}.
+     *
+     * @param fuzziness edits allowed per query token, from {@code 0} to {@link #MAX_FUZZINESS};
+     *                  see {@link #allowedEdits(String, int)}. Not supported with phrases.
+     */
+    public List<SearchResult> rankedSearch(String query, int topK, double threshold, int fuzziness) {
         validateThreshold(threshold);
+        validateFuzziness(fuzziness);
         if (topK <= 0) {
             throw new IllegalArgumentException("topK must be greater than 0");
         }
 
-        List<String> tokens = tokenizer.tokenize(query);
-        if (tokens.isEmpty()) {
+        QueryTrace trace = newTrace();
+        ParsedQuery parsed = parse(query, fuzziness);
+        trace.lap(Stage.TOKENIZE);
+        if (parsed.isEmpty()) {
             return List.of();
         }
+        if (parsed.hasPhrases()) {
+            return cached(parsed, topK, threshold, fuzziness, traced(trace, true, () -> mergeTopK(scatter(null, trace,
+                    (snapshot, shardTrace) -> executeRankedPhraseSearch(snapshot, parsed, topK, threshold, shardTrace)), topK)));
+        }
+        List<String> tokens = parsed.tokens();
+        return cached(parsed, topK, threshold, fuzziness, traced(trace, true, () -> {
+            List<List<SuggestionService.Expansion>> expansions = expand(tokens, fuzziness, trace);
+            return mergeTopK(scatter(null, trace,
+                    (snapshot, shardTrace) -> executeRankedSearch(snapshot, tokens, topK, threshold, expansions, shardTrace)), topK);
+        }));
+    }
 
-        Set<Integer> candidateDocIds = getCandidateDocIds(tokens, threshold);
-        if (candidateDocIds.isEmpty()) {
+    /**
+     * First phase of a search spread over several nodes: this node's document count and total
+     * document length, and the document frequency of every token and phrase token of the query.
+     * A coordinator sums them over all nodes and passes the sums to
+     * {@link #rankedSearch(String, int, double, QueryStatistics)}.
+     */
+    public QueryStatistics statistics(String query) {
+        ParsedQuery parsed = ParsedQuery.parse(tokenizer, query);
+        CollectionStatistics statistics = new CollectionStatistics(index.snapshots());
+        Map<String, Integer> docFreqs = new HashMap<>();
+        for (String token : parsed.tokens()) {
+            docFreqs.computeIfAbsent(token, statistics::docFreq);
+        }
+        for (ParsedQuery.Phrase phrase : parsed.phrases()) {
+            for (String token : phrase.tokens()) {
+                docFreqs.computeIfAbsent(token, statistics::docFreq);
+            }
+        }
+        return new QueryStatistics(statistics.totalDocuments(), statistics.totalDocumentLength(), docFreqs);
+    }
+
+    /**
+     * Second phase of a search spread over several nodes: this node's top K, scored with
+     * {@code statistics} summed over all nodes rather than with its own. Results are not cached,
+     * since they depend on the other nodes. Fuzziness is not supported.
+     */
+    public List<SearchResult> rankedSearch(String query, int topK, double threshold, QueryStatistics statistics) {
+        validateThreshold(threshold);
+        if (topK <= 0) {
+            throw new IllegalArgumentException("topK must be greater than 0");
+        }
+        QueryTrace trace = newTrace();
+        ParsedQuery parsed = parse(query, 0);
+        trace.lap(Stage.TOKENIZE);
+        if (parsed.isEmpty()) {
             return List.of();
         }
+        CollectionStatistics collection = statistics.toCollectionStatistics();
+        if (parsed.hasPhrases()) {
+            return traced(trace, true, () -> mergeTopK(scatter(collection, trace,
+                    (snapshot, shardTrace) -> executeRankedPhraseSearch(snapshot, parsed, topK, threshold, shardTrace)), topK)).get();
+        }
+        List<String> tokens = parsed.tokens();
+        return traced(trace, true, () -> mergeTopK(scatter(collection, trace,
+                (snapshot, shardTrace) -> executeRankedSearch(snapshot, tokens, topK, threshold, null, shardTrace)), topK)).get();
+    }
 
-        PriorityQueue<SearchResult> topKDocs = new PriorityQueue<>((topK + 1), Comparator.comparingDouble(SearchResult::score));
+    private List<SearchResult> executeRankedPhraseSearch(IndexSnapshot snapshot, ParsedQuery parsed, int topK,
+                                                         double threshold, QueryTrace trace) {
+        PhraseSearcher searcher = phraseSearcher(snapshot, parsed, threshold);
+        PriorityQueue<SearchResult> topKDocs = new PriorityQueue<>((topK + 1), WandSearcher.WORST_FIRST);
+        for (int doc = searcher.nextDoc(); doc != PostingsIterator.NO_MORE_DOCS; doc = searcher.nextDoc()) {
+            WandSearcher.offer(topKDocs, topK, snapshot.documentId(doc), searcher.score());
+        }
+        trace.count(searcher.candidates(), searcher.postingsVisited());
+        trace.lap(Stage.SCORING);
+        return WandSearcher.sortedResults(topKDocs);
+    }
 
-        for (Integer docId : candidateDocIds) {
-            double score = 0;
-            for (String token : tokens) {
-                score += scorer.score(docId, token);
+    private List<SearchResult> executeRankedSearch(IndexSnapshot snapshot, List<String> tokens, int topK, double threshold,
+                                                   List<List<SuggestionService.Expansion>> expansions, QueryTrace trace) {
+        if (expansions != null) {
+            DocAccumulator accumulator = DocAccumulator.forCurrentThread(snapshot.maxDoc());
+            try {
+                long postings = accumulateFuzzy(snapshot, tokens, expansions, accumulator);
+                trace.count(accumulator.touchedCount(), postings);
+                trace.lap(Stage.SCORING);
+                return topKResults(snapshot, accumulator, minimumMatches(tokens, threshold), topK);
+            }
+            finally {
+                accumulator.clear();
+            }
+        }
+        IndexSnapshot.Term[] terms = resolve(snapshot, tokens);
+        trace.lap(Stage.DISCOVERY);
+        if (dynamicPruning && isConjunctive(tokens, threshold)) {
+            PriorityQueue<SearchResult> topKDocs = conjunctiveTopK(snapshot, terms, topK, trace);
+            trace.lap(Stage.SCORING);
+            return WandSearcher.sortedResults(topKDocs);
+        }
+        if (dynamicPruning) {
+            WandSearcher searcher = new WandSearcher(snapshot, scorer, terms, minimumMatches(tokens, threshold));
+            PriorityQueue<SearchResult> topKDocs = searcher.search(topK);
+            trace.count(searcher.candidates(), searcher.postingsVisited());
+            trace.lap(Stage.SCORING);
+            return WandSearcher.sortedResults(topKDocs);
+        }
+
+        DocAccumulator accumulator = DocAccumulator.forCurrentThread(snapshot.maxDoc());
+        try {
+            int minimumMatches = minimumMatches(tokens, threshold);
+            long postingsVisited = countMatches(terms, accumulator);
+            trace.lap(Stage.DISCOVERY);
+
+            // Term-at-a-time scoring: each token's postings are walked once and only candidates accumulate a score
+            for (IndexSnapshot.Term term : terms) {
+                TermScorer termScorer = scorer.termScorer(snapshot, term);
+                PostingsIterator postings = termScorer.postings();
+                for (int doc = postings.nextDoc(); doc != PostingsIterator.NO_MORE_DOCS; doc = postings.nextDoc()) {
+                    postingsVisited++;
+                    if (accumulator.count(doc) >= minimumMatches) {
+                        accumulator.addScore(doc, termScorer.score());
+                    }
+                }
+            }
+            trace.count(accumulator.touchedCount(), postingsVisited);
+            trace.lap(Stage.SCORING);
+
+            return topKResults(snapshot, accumulator, minimumMatches, topK);
+        }
+        finally {
+            accumulator.clear();
+        }
+    }
+
+    /** One shard's part of a query, recording its stages and counts in a trace of the shard's own. */
+    private interface ShardExecution<T> {
+        List<T> execute(IndexSnapshot snapshot, QueryTrace trace);
+    }
+
+    /**
+     * Runs {@code execution} on every shard's snapshot and returns the shards' results in shard
+     * order. With several shards, every snapshot is viewed with the statistics of all of them,
+     * and all but the first shard run as subtasks of a {@link QueryScope} while the calling
+     * thread runs the first. Each shard fills its own trace, and the traces are added to
+     * {@code trace} once every shard is done.
+     *
+     * @param statistics statistics to score with instead of this node's own, or {@code null}
+     */
+    private <T> List<List<T>> scatter(CollectionStatistics statistics, QueryTrace trace, ShardExecution<T> execution) {
+        IndexSnapshot[] snapshots = index.snapshots();
+        if (snapshots.length == 1) {
+            IndexSnapshot snapshot = statistics == null ? snapshots[0] : snapshots[0].withStatistics(statistics);
+            return List.of(execution.execute(snapshot, trace));
+        }
+        if (statistics == null) {
+            statistics = new CollectionStatistics(snapshots);
+        }
+        List<QueryTrace> shardTraces = new ArrayList<>(snapshots.length);
+        try (QueryScope<List<T>> scope = new QueryScope<>(virtualThreads)) {
+            for (int shard = 1; shard < snapshots.length; shard++) {
+                IndexSnapshot snapshot = snapshots[shard].withStatistics(statistics);
+                QueryTrace shardTrace = trace.forShard();
+                shardTraces.add(shardTrace);
+                scope.fork(() -> executeShard(execution, snapshot, shardTrace));
+            }
+            QueryTrace firstTrace = trace.forShard();
+            shardTraces.add(firstTrace);
+            List<List<T>> results = new ArrayList<>(snapshots.length);
+            results.add(executeShard(execution, snapshots[0].withStatistics(statistics), firstTrace));
+            results.addAll(scope.join());
+            trace.addShards(shardTraces);
+            return results;
+        }
+    }
+
+    /** Runs one of several shards' part of a query, charging what follows its last lap to selection. */
+    private static <T> List<T> executeShard(ShardExecution<T> execution, IndexSnapshot snapshot, QueryTrace trace) {
+        trace.restart();
+        List<T> results = execution.execute(snapshot, trace);
+        trace.lap(Stage.SELECTION);
+        return results;
+    }
+
+    /** Shards hold disjoint document ids, so their sorted lists only need to be merged. */
+    static List<Integer> mergeDocumentIds(List<List<Integer>> shardResults) {
+        if (shardResults.size() == 1) {
+            return shardResults.getFirst();
+        }
+        List<Integer> documentIds = new ArrayList<>();
+        for (List<Integer> shardResult : shardResults) {
+            documentIds.addAll(shardResult);
+        }
+        documentIds.sort(null);
+        return documentIds;
+    }
+
+    /** The best {@code topK} of the shards' top-K lists, ties broken by document id as within a shard. */
+    static List<SearchResult> mergeTopK(List<List<SearchResult>> shardResults, int topK) {
+        if (shardResults.size() == 1) {
+            return shardResults.getFirst();
+        }
+        PriorityQueue<SearchResult> topKDocs = new PriorityQueue<>((topK + 1), WandSearcher.WORST_FIRST);
+        for (List<SearchResult> shardResult : shardResults) {
+            for (SearchResult result : shardResult) {
+                WandSearcher.offer(topKDocs, topK, result.documentId(), result.score());
+            }
+        }
+        return WandSearcher.sortedResults(topKDocs);
+    }
+
+    private static List<SearchResult> topKResults(IndexSnapshot snapshot, DocAccumulator accumulator, int minimumMatches,
+                                                  int topK) {
+        // Ties on the heap boundary are broken by document id so both execution paths agree
+        PriorityQueue<SearchResult> topKDocs = new PriorityQueue<>((topK + 1), WandSearcher.WORST_FIRST);
+
+        for (int i = 0; i < accumulator.touchedCount(); i++) {
+            int doc = accumulator.touchedDoc(i);
+            if (accumulator.count(doc) >= minimumMatches) {
+                WandSearcher.offer(topKDocs, topK, snapshot.documentId(doc), accumulator.score(doc));
+            }
+        }
+
+        return WandSearcher.sortedResults(topKDocs);
+    }
+
+    /**
+     * Edits a fuzzy query allows for one token. Short tokens get fewer, since a single edit
+     * already turns most two-letter tokens into dozens of unrelated terms: none below 3
+     * characters, at most one below 6.
+     */
+    static int allowedEdits(String token, int fuzziness) {
+        return Math.min(fuzziness, token.length() < 3 ? 0 : token.length() < 6 ? 1 : 2);
+    }
+
+    /**
+     * Counts and scores each query token as one clause over its expansions. A document counts
+     * once per clause, and the clause contributes its best-scoring expansion, weighted down by
+     * that expansion's edit distance, so several spellings of one token in a document are not
+     * rewarded twice.
+     *
+     * @return the number of postings walked
+     */
+    private long accumulateFuzzy(IndexSnapshot snapshot, List<String> tokens,
+                                 List<List<SuggestionService.Expansion>> tokenExpansions, DocAccumulator accumulator) {
+        long postingsVisited = 0;
+        for (int clause = 0; clause < tokens.size(); clause++) {
+            String token = tokens.get(clause);
+            List<SuggestionService.Expansion> expansions = tokenExpansions.get(clause);
+            TermScorer[] termScorers = new TermScorer[expansions.size()];
+            double[] boosts = new double[expansions.size()];
+            int count = 0;
+            for (SuggestionService.Expansion expansion : expansions) {
+                IndexSnapshot.Term term = snapshot.term(expansion.term());
+                if (term.docFreq() > 0) {
+                    termScorers[count] = scorer.termScorer(snapshot, term);
+                    boosts[count] = 1.0 - (double) expansion.distance() / Math.min(token.length(), expansion.term().length());
+                    count++;
+                }
+            }
+
+            if (count == 1) {
+                TermScorer termScorer = termScorers[0];
+                for (int doc = termScorer.postings().nextDoc(); doc != PostingsIterator.NO_MORE_DOCS;
+                     doc = termScorer.postings().nextDoc()) {
+                    postingsVisited++;
+                    accumulator.increment(doc);
+                    accumulator.addScore(doc, boosts[0] * termScorer.score());
+                }
+                continue;
+            }
+            // Merge the expansions' postings in doc order, taking each document's best expansion
+            PostingsIterator[] postings = new PostingsIterator[count];
+            int[] heap = new int[count];
+            int size = 0;
+            for (int i = 0; i < count; i++) {
+                postings[i] = termScorers[i].postings();
+                if (postings[i].nextDoc() != PostingsIterator.NO_MORE_DOCS) {
+                    heap[size] = i;
+                    siftUp(heap, size++, postings);
+                }
+            }
+            while (size > 0) {
+                int doc = postings[heap[0]].docId();
+                double best = 0;
+                while (size > 0 && postings[heap[0]].docId() == doc) {
+                    int i = heap[0];
+                    postingsVisited++;
+                    best = Math.max(best, boosts[i] * termScorers[i].score());
+                    // Advance the top in place; an exhausted one is replaced by the last entry
+                    if (postings[i].nextDoc() == PostingsIterator.NO_MORE_DOCS) {
+                        heap[0] = heap[--size];
+                    }
+                    siftDown(heap, size, postings);
+                }
+                accumulator.increment(doc);
+                accumulator.addScore(doc, best);
+            }
+        }
+        return postingsVisited;
+    }
+
+    /** Restores the min-heap on current doc ids after {@code heap[index]} was added. */
+    private static void siftUp(int[] heap, int index, PostingsIterator[] postings) {
+        int clause = heap[index];
+        int doc = postings[clause].docId();
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (postings[heap[parent]].docId() <= doc) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = clause;
+    }
+
+    /** Restores the min-heap on current doc ids after the top's doc id grew. */
+    private static void siftDown(int[] heap, int size, PostingsIterator[] postings) {
+        if (size == 0) {
+            return;
+        }
+        int clause = heap[0];
+        int doc = postings[clause].docId();
+        int index = 0;
+        for (int child = 1; child < size; child = 2 * index + 1) {
+            if (child + 1 < size && postings[heap[child + 1]].docId() < postings[heap[child]].docId()) {
+                child++;
+            }
+            if (postings[heap[child]].docId() >= doc) {
+                break;
             }
-            topKDocs.offer(new SearchResult(docId, score));
-            if (topKDocs.size() > topK) {
-                topKDocs.poll();
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = clause;
+    }
+
+    /**
+     * Each token's fuzzy expansions, looked up once per query rather than once per shard, or
+     * {@code null} when the query is exact.
+     */
+    private List<List<SuggestionService.Expansion>> expand(List<String> tokens, int fuzziness, QueryTrace trace) {
+        if (fuzziness == 0) {
+            return null;
+        }
+        List<List<SuggestionService.Expansion>> expansions = new ArrayList<>(tokens.size());
+        String first = tokens.getFirst();
+        if (tokens.size() == 1) {
+            expansions.add(vocabulary.expand(first, allowedEdits(first, fuzziness), maxExpansions));
+            trace.lap(Stage.EXPAND);
+            return expansions;
+        }
+        // Each expansion walks the whole vocabulary's automaton, so the tokens are expanded in parallel
+        try (QueryScope<List<SuggestionService.Expansion>> scope = new QueryScope<>(virtualThreads)) {
+            for (String token : tokens.subList(1, tokens.size())) {
+                scope.fork(() -> vocabulary.expand(token, allowedEdits(token, fuzziness), maxExpansions));
             }
+            expansions.add(vocabulary.expand(first, allowedEdits(first, fuzziness), maxExpansions));
+            expansions.addAll(scope.join());
         }
+        trace.lap(Stage.EXPAND);
+        return expansions;
+    }
+
+    private QueryTrace newTrace() {
+        return metrics == null ? QueryTrace.DISABLED : new QueryTrace();
+    }
 
-        List<SearchResult> results = new ArrayList<>(topKDocs);
-        results.sort(Comparator.comparingDouble(SearchResult::score).reversed().thenComparingInt(SearchResult::documentId));
+    /**
+     * Wraps a query's execution so that, with metrics, its trace starts when it is not served
+     * from the cache after all and is recorded once the shards' results are merged.
+     */
+    private <T> Supplier<List<T>> traced(QueryTrace trace, boolean ranked, Supplier<List<T>> execution) {
+        if (metrics == null) {
+            return execution;
+        }
+        return () -> {
+            trace.restart();
+            List<T> results = execution.get();
+            trace.lap(Stage.SELECTION);
+            metrics.recordQuery(trace, ranked);
+            return results;
+        };
+    }
+
+    /**
+     * Serves the query from the result cache when it was computed at the current index
+     * generation, otherwise executes it and caches an immutable copy. The generation is read
+     * before execution takes its snapshot, so a result is never tagged newer than its data.
+     *
+     * <p>Fuzzy results also depend on the vocabulary their tokens were expanded against, which
+     * catches up with the index after each write and at each rebuild. They are tagged with the
+     * sum of the generation and the {@link SuggestionService#version() vocabulary version}:
+     * neither ever decreases, so the sum changes whenever either does.</p>
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> cached(ParsedQuery query, int topK, double threshold, int fuzziness,
+                               Supplier<List<T>> execution) {
+        if (resultCache == null) {
+            return execution.get();
+        }
+
+        QueryResultCache.Key key = new QueryResultCache.Key(query.tokens(), query.phrases(), topK, threshold, fuzziness,
+                scorer.getClass().getName());
+        long generation = index.generation() + (fuzziness > 0 ? vocabulary.version() : 0);
+        List<T> results = (List<T>) resultCache.get(key, generation);
+        if (results == null) {
+            results = List.copyOf(execution.get());
+            resultCache.put(key, generation, results);
+        }
         return results;
     }
 
+    private ParsedQuery parse(String query, int fuzziness) {
+        ParsedQuery parsed = ParsedQuery.parse(tokenizer, query);
+        if (fuzziness > 0 && parsed.hasPhrases()) {
+            throw new IllegalArgumentException("Fuzzy search cannot be combined with phrases");
+        }
+        return parsed;
+    }
+
     private void validateThreshold(double threshold) {
         if (threshold <= 0 || threshold > 1) {
             throw new IllegalArgumentException("Threshold must be in the range (0, 1]");
         }
     }
 
-    private Set<Integer> getCandidateDocIds(List<String> tokens, double threshold) {
-
-        Set<Integer> candidateDocIds = new HashSet<>();
-        HashMap<Integer, Integer> docIdToTokenCount = new HashMap<>();
-
-        // Performing Threshold search: Return documents that contain more than threshold number of tokens
-        for (String token : tokens) {
-            var tokenPostings = invertedIndex.getPostings(token);
+    private void validateFuzziness(int fuzziness) {
+        if (fuzziness < 0 || fuzziness > MAX_FUZZINESS) {
+            throw new IllegalArgumentException("Fuzziness must be between 0 and " + MAX_FUZZINESS);
+        }
+        if (fuzziness > 0 && vocabulary == null) {
+            throw new IllegalArgumentException("Fuzzy search is not enabled");
+        }
+    }
 
-            for (Posting posting : tokenPostings) {
-                docIdToTokenCount.merge(posting.documentId(), 1, Integer::sum);
+    /** Scores every document that contains all query tokens, summing in query token order. */
+    private PriorityQueue<SearchResult> conjunctiveTopK(IndexSnapshot snapshot, IndexSnapshot.Term[] terms, int topK,
+                                                        QueryTrace trace) {
+        PriorityQueue<SearchResult> topKDocs = new PriorityQueue<>((topK + 1), WandSearcher.WORST_FIRST);
+        TermScorer[] termScorers = new TermScorer[terms.length];
+        PostingsIterator[] clauses = new PostingsIterator[terms.length];
+        for (int clause = 0; clause < clauses.length; clause++) {
+            termScorers[clause] = scorer.termScorer(snapshot, terms[clause]);
+            clauses[clause] = termScorers[clause].postings();
+        }
+        ConjunctionIterator conjunction = new ConjunctionIterator(clauses);
+        long candidates = 0;
+        for (int doc = conjunction.nextDoc(); doc != PostingsIterator.NO_MORE_DOCS; doc = conjunction.nextDoc()) {
+            candidates++;
+            double score = 0;
+            for (TermScorer termScorer : termScorers) {
+                score += termScorer.score();
             }
+            WandSearcher.offer(topKDocs, topK, snapshot.documentId(doc), score);
         }
+        trace.count(candidates, conjunction.postingsVisited());
+        return topKDocs;
+    }
 
-        int thresholdValue = (int) Math.ceil(tokens.size() * threshold);
-        for (Map.Entry<Integer, Integer> entry : docIdToTokenCount.entrySet()) {
-            if (entry.getValue() >= thresholdValue) {
-                candidateDocIds.add(entry.getKey());
+    /** Whether the threshold requires every query token, which allows a plain intersection. */
+    private static boolean isConjunctive(List<String> tokens, double threshold) {
+        return minimumMatches(tokens, threshold) >= tokens.size();
+    }
+
+    /** Number of query tokens a document must contain to satisfy the threshold. */
+    private static int minimumMatches(List<String> tokens, double threshold) {
+        return (int) Math.ceil(tokens.size() * threshold);
+    }
+
+    /**
+     * Looks every query token up in the snapshot once. A repeated token shares the
+     * {@link IndexSnapshot.Term} of its first occurrence but still counts as its own clause.
+     */
+    private static IndexSnapshot.Term[] resolve(IndexSnapshot snapshot, List<String> tokens) {
+        IndexSnapshot.Term[] terms = new IndexSnapshot.Term[tokens.size()];
+        for (int clause = 0; clause < terms.length; clause++) {
+            for (int previous = 0; previous < clause && terms[clause] == null; previous++) {
+                if (tokens.get(previous).equals(tokens.get(clause))) {
+                    terms[clause] = terms[previous];
+                }
+            }
+            if (terms[clause] == null) {
+                terms[clause] = snapshot.term(tokens.get(clause));
             }
         }
+        return terms;
+    }
 
-        return candidateDocIds;
+    /**
+     * Counts, per snapshot doc number, how many query tokens the document contains.
+     *
+     * @return the number of postings walked
+     */
+    private long countMatches(IndexSnapshot.Term[] terms, DocAccumulator accumulator) {
+        long postingsVisited = 0;
+        // Performing Threshold search: Return documents that contain more than threshold number of tokens
+        for (IndexSnapshot.Term term : terms) {
+            PostingsIterator postings = term.postings();
 
+            for (int doc = postings.nextDoc(); doc != PostingsIterator.NO_MORE_DOCS; doc = postings.nextDoc()) {
+                postingsVisited++;
+                accumulator.increment(doc);
+            }
+        }
+        return postingsVisited;
     }
 }
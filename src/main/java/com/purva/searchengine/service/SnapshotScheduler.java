@@ -0,0 +1,101 @@
+package com.purva.searchengine.service;
+
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.index.ShardedIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves the index to a snapshot file in the background whenever it changed, rolling and
+ * truncating the {@link WriteAheadLog} around each save, and once more on {@link #close()}.
+ */
+public class SnapshotScheduler implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(SnapshotScheduler.class);
+
+    private final ShardedIndex index;
+    private final Path file;
+    private final WriteAheadLog writeAheadLog;
+    private final ScheduledExecutorService executor;
+    private final long intervalMillis;
+    private long savedGeneration;
+
+    public SnapshotScheduler(InvertedIndex invertedIndex, Path file, Duration interval) {
+        this(invertedIndex, file, interval, null);
+    }
+
+    /** @param writeAheadLog the log to truncate after each save, or {@code null} */
+    public SnapshotScheduler(InvertedIndex invertedIndex, Path file, Duration interval, WriteAheadLog writeAheadLog) {
+        this(new ShardedIndex(invertedIndex), file, interval, writeAheadLog);
+    }
+
+    /** With several shards, each is saved to its own file next to {@code file}; see {@link ShardedIndex}. */
+    public SnapshotScheduler(ShardedIndex index, Path file, Duration interval, WriteAheadLog writeAheadLog) {
+        this.index = index;
+        this.file = file;
+        this.writeAheadLog = writeAheadLog;
+        this.savedGeneration = index.generation();
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "index-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.intervalMillis = interval.toMillis();
+    }
+
+    /** Starts the background saves; call once. */
+    public void start() {
+        executor.scheduleWithFixedDelay(this::saveQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Saves now if anything changed since the last save; returns whether a snapshot was written. */
+    public synchronized boolean saveIfChanged() {
+        // Read before saving: changes that race with the save are picked up by the next one
+        long generation = index.generation();
+        if (generation == savedGeneration) {
+            return false;
+        }
+        try {
+            long firstKeptLogFile = writeAheadLog != null ? writeAheadLog.roll() : 0;
+            index.save(file);
+            if (writeAheadLog != null) {
+                writeAheadLog.deleteBefore(firstKeptLogFile);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to save index snapshot to " + file, e);
+        }
+        savedGeneration = generation;
+        return true;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        catch (InterruptedException e) {
+            // The final save still runs; it is synchronized with a save in progress
+            Thread.currentThread().interrupt();
+        }
+        saveIfChanged();
+    }
+
+    private void saveQuietly() {
+        try {
+            saveIfChanged();
+        }
+        catch (RuntimeException e) {
+            // A failed save must not cancel the schedule; the previous snapshot is still intact
+            LOG.warn("Index snapshot failed", e);
+        }
+    }
+}
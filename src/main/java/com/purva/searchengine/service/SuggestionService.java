@@ -0,0 +1,244 @@
+package com.purva.searchengine.service;
+
+import com.purva.searchengine.index.IndexSnapshot;
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.index.ShardedIndex;
+import com.purva.searchengine.trie.FuzzyMatchConsumer;
+import com.purva.searchengine.trie.LevenshteinAutomaton;
+import com.purva.searchengine.trie.SuggestionIndex;
+import com.purva.searchengine.trie.Trie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Autocompletes prefixes and expands fuzzy query tokens with indexed terms, ranked by how
+ * often they occur in live documents. A background rebuild keeps the vocabulary current; see
+ * {@code docs/trie-design.md}.
+ */
+public class SuggestionService implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(SuggestionService.class);
+
+    /** Most suggestions one lookup returns. */
+    public static final int MAX_SUGGESTIONS = Trie.DEFAULT_CACHED_SUGGESTIONS;
+
+    private final ShardedIndex index;
+    private final int minPrefixLength;
+    /** {@code null} when rebuilds only happen on {@link #rebuildIfChanged()}. */
+    private final ScheduledExecutorService executor;
+    private final long rebuildIntervalMillis;
+    private volatile Suggesters suggesters;
+    private long builtGeneration;
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * The index of the last finished rebuild, the writes made while the running rebuild (if any)
+     * reads the index, and the writes made since.
+     */
+    private record Suggesters(SuggestionIndex index, Trie rebuilding, Trie recent) {
+        int frequency(String term) {
+            return index.frequency(term) + (rebuilding == null ? 0 : rebuilding.frequency(term)) + recent.frequency(term);
+        }
+    }
+
+    /** An indexed term within some edits of a query token. */
+    public record Expansion(String term, int distance) {}
+
+    public SuggestionService(InvertedIndex invertedIndex) {
+        this(invertedIndex, Trie.DEFAULT_MIN_PREFIX_LENGTH, Duration.ZERO);
+    }
+
+    /**
+     * Builds the first suggestion index from the current contents of the index.
+     *
+     * @param minPrefixLength shortest prefix that gets suggestions
+     * @param rebuildInterval delay between background rebuilds once {@link #start() started}, or
+     *                        zero to rebuild only on {@link #rebuildIfChanged()}
+     */
+    public SuggestionService(InvertedIndex invertedIndex, int minPrefixLength, Duration rebuildInterval) {
+        this(new ShardedIndex(invertedIndex), minPrefixLength, rebuildInterval);
+    }
+
+    /** Suggests the terms of every shard, with their frequencies summed over the shards. */
+    public SuggestionService(ShardedIndex index, int minPrefixLength, Duration rebuildInterval) {
+        this.index = index;
+        this.minPrefixLength = minPrefixLength;
+        this.builtGeneration = index.generation();
+        this.suggesters = new Suggesters(build(), null, newTrie());
+        if (rebuildInterval.isZero()) {
+            this.executor = null;
+        } else {
+            this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "suggestion-rebuild");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.rebuildIntervalMillis = rebuildInterval.toMillis();
+    }
+
+    /** Starts the background rebuilds, if there is a rebuild interval; call once. */
+    public void start() {
+        if (executor != null) {
+            executor.scheduleWithFixedDelay(this::rebuildQuietly, rebuildIntervalMillis, rebuildIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Adds the tokens of one document that has just been indexed. */
+    public void addDocument(List<String> tokens) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String token : tokens) {
+            counts.merge(token, 1, Integer::sum);
+        }
+        Trie recent = suggesters.recent();
+        counts.forEach(recent::insert);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Grows every time the terms or frequencies that lookups see change: after each added
+     * document and each rebuild. Read before a lookup, it is never newer than what the lookup saw.
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Rebuilds the suggestion index if the index changed since the last build; returns whether
+     * it did. Lookups keep being served from the previous one until the new one is swapped in.
+     */
+    public synchronized boolean rebuildIfChanged() {
+        // Read before building: changes that race with the build are picked up by the next one
+        long generation = index.generation();
+        if (generation == builtGeneration) {
+            return false;
+        }
+        // Writes are applied to the index before they reach the trie, so every write in the
+        // current trie is in the snapshot the build reads; later ones go to a fresh trie
+        Suggesters current = suggesters;
+        Trie recent = newTrie();
+        suggesters = new Suggesters(current.index(), current.recent(), recent);
+        suggesters = new Suggesters(build(), null, recent);
+        version.incrementAndGet();
+        builtGeneration = generation;
+        return true;
+    }
+
+    /**
+     * Up to {@code k} indexed terms starting with the prefix, most frequent first. The prefix
+     * is lowercased as the tokenizer does; terms are stored stemmed, as they are searched.
+     */
+    public List<String> suggest(String prefix, int k) {
+        if (k <= 0 || k > MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("k must be between 1 and " + MAX_SUGGESTIONS);
+        }
+        if (prefix == null) {
+            return List.of();
+        }
+        String normalized = prefix.trim().toLowerCase();
+        if (normalized.length() < minPrefixLength) {
+            return List.of();
+        }
+
+        Suggesters current = suggesters;
+        List<String> suggestions = current.index().topK(normalized, k);
+        boolean rebuildingMatches = current.rebuilding() != null && current.rebuilding().startsWith(normalized);
+        if (!rebuildingMatches && !current.recent().startsWith(normalized)) {
+            return suggestions;
+        }
+
+        // A term's count may be split between the parts, so re-rank the best candidates of each
+        Map<String, Integer> counts = new HashMap<>();
+        suggestions.forEach(term -> counts.put(term, 0));
+        if (rebuildingMatches) {
+            current.rebuilding().getTopKSuggestions(normalized, k).forEach(term -> counts.put(term, 0));
+        }
+        current.recent().getTopKSuggestions(normalized, k).forEach(term -> counts.put(term, 0));
+        counts.replaceAll((term, ignored) -> current.frequency(term));
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(k)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * The indexed terms within {@code maxEdits} edits of the token: the token itself first,
+     * then the closest and, among equally close ones, the most frequent, at most
+     * {@code maxExpansions} in all. Tokens longer than {@link LevenshteinAutomaton#MAX_LENGTH}
+     * are not expanded.
+     */
+    public List<Expansion> expand(String token, int maxEdits, int maxExpansions) {
+        if (maxEdits == 0 || token.length() > LevenshteinAutomaton.MAX_LENGTH) {
+            return List.of(new Expansion(token, 0));
+        }
+        // Distance and combined frequency per term; a term's distance is the same in every part
+        Map<String, int[]> matches = new HashMap<>();
+        FuzzyMatchConsumer collect = (term, distance, frequency) ->
+                matches.merge(term, new int[] {distance, frequency}, (a, b) -> {
+                    a[1] += b[1];
+                    return a;
+                });
+        Suggesters current = suggesters;
+        current.index().forEachFuzzyMatch(token, maxEdits, collect);
+        if (current.rebuilding() != null) {
+            current.rebuilding().forEachFuzzyMatch(token, maxEdits, collect);
+        }
+        current.recent().forEachFuzzyMatch(token, maxEdits, collect);
+        matches.putIfAbsent(token, new int[] {0, 0});
+
+        return matches.entrySet().stream()
+                .sorted(Comparator.<Map.Entry<String, int[]>>comparingInt(entry -> entry.getValue()[0])
+                        .thenComparing(entry -> entry.getValue()[1], Comparator.reverseOrder())
+                        .thenComparing(Map.Entry::getKey))
+                .limit(maxExpansions)
+                .map(entry -> new Expansion(entry.getKey(), entry.getValue()[0]))
+                .toList();
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private SuggestionIndex build() {
+        var builder = new SuggestionIndex.Builder();
+        for (IndexSnapshot snapshot : index.snapshots()) {
+            snapshot.forEachTerm(builder::add);
+        }
+        return builder.build(MAX_SUGGESTIONS);
+    }
+
+    private static Trie newTrie() {
+        return new Trie(MAX_SUGGESTIONS, 1);
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuildIfChanged();
+        }
+        catch (RuntimeException e) {
+            // A failed rebuild must not cancel the schedule; the previous index keeps serving
+            LOG.warn("Suggestion index rebuild failed", e);
+        }
+    }
+}
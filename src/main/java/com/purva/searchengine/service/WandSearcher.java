@@ -0,0 +1,181 @@
+package com.purva.searchengine.service;
+
+import com.purva.searchengine.index.IndexSnapshot;
+import com.purva.searchengine.index.PostingsIterator;
+import com.purva.searchengine.search.Scorer;
+import com.purva.searchengine.search.TermScorer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Document-at-a-time top-K retrieval with Block-Max WAND dynamic pruning. Its results are
+ * identical to exhaustive scoring; see {@code docs/search-service-design.md}.
+ */
+final class WandSearcher {
+    /** Widens the bounds so floating point rounding in the sums can never prune a real tie. */
+    private static final double BOUND_SLACK = 1 + 1e-9;
+
+    static final Comparator<SearchResult> WORST_FIRST =
+            Comparator.comparingDouble(SearchResult::score).thenComparing(SearchResult::documentId, Comparator.reverseOrder());
+
+    private final IndexSnapshot snapshot;
+    private final TermScorer[] scorers;
+    private final int minimumMatches;
+    private long candidates;
+    private long postingsVisited;
+
+    WandSearcher(IndexSnapshot snapshot, Scorer scorer, IndexSnapshot.Term[] terms, int minimumMatches) {
+        this.snapshot = snapshot;
+        this.scorers = new TermScorer[terms.length];
+        for (int clause = 0; clause < scorers.length; clause++) {
+            scorers[clause] = scorer.termScorer(snapshot, terms[clause]);
+        }
+        this.minimumMatches = minimumMatches;
+    }
+
+    PriorityQueue<SearchResult> search(int topK) {
+        int clauseCount = scorers.length;
+        PostingsIterator[] postings = new PostingsIterator[clauseCount];
+        double[] upperBounds = new double[clauseCount];
+        // Clause indexes ordered by their current document
+        int[] order = new int[clauseCount];
+        int[] blockEnds = new int[clauseCount];
+        double[] blockBounds = new double[clauseCount];
+        for (int clause = 0; clause < clauseCount; clause++) {
+            postings[clause] = scorers[clause].postings();
+            postings[clause].nextDoc();
+            postingsVisited++;
+            upperBounds[clause] = scorers[clause].maxScore() * BOUND_SLACK;
+            order[clause] = clause;
+            blockEnds[clause] = -1;
+        }
+
+        PriorityQueue<SearchResult> topKDocs = new PriorityQueue<>(topK + 1, WORST_FIRST);
+        while (true) {
+            sortByDocument(order, postings);
+            double threshold = topKDocs.size() < topK ? Double.NEGATIVE_INFINITY : topKDocs.peek().score();
+
+            int pivot = -1;
+            double boundSum = 0;
+            for (int i = 0; i < clauseCount; i++) {
+                boundSum += upperBounds[order[i]];
+                if (i + 1 >= minimumMatches && boundSum >= threshold) {
+                    pivot = i;
+                    break;
+                }
+            }
+            if (pivot < 0) {
+                return topKDocs;
+            }
+            int pivotDoc = postings[order[pivot]].docId();
+            if (pivotDoc == PostingsIterator.NO_MORE_DOCS) {
+                return topKDocs;
+            }
+
+            // Clauses that may contain the pivot: everything up to it plus later ones already on it
+            int last = pivot;
+            while (last + 1 < clauseCount && postings[order[last + 1]].docId() == pivotDoc) {
+                last++;
+            }
+            double blockSum = 0;
+            int nextCandidate = last + 1 < clauseCount ? postings[order[last + 1]].docId() : PostingsIterator.NO_MORE_DOCS;
+            for (int i = 0; i <= last; i++) {
+                int clause = order[i];
+                if (blockEnds[clause] < pivotDoc) {
+                    blockEnds[clause] = postings[clause].advanceShallow(pivotDoc);
+                    blockBounds[clause] = scorers[clause].blockMaxScore() * BOUND_SLACK;
+                }
+                blockSum += blockBounds[clause];
+                if (blockEnds[clause] != PostingsIterator.NO_MORE_DOCS) {
+                    nextCandidate = Math.min(nextCandidate, blockEnds[clause] + 1);
+                }
+            }
+
+            if (blockSum < threshold) {
+                // No document before the nearest block boundary can enter the heap
+                for (int i = 0; i <= last; i++) {
+                    PostingsIterator clause = postings[order[i]];
+                    if (clause.docId() < nextCandidate) {
+                        postingsVisited++;
+                        clause.advance(nextCandidate);
+                    }
+                }
+            } else if (postings[order[0]].docId() == pivotDoc) {
+                collect(pivotDoc, postings, topKDocs, topK);
+            } else {
+                for (int i = 0; i < pivot; i++) {
+                    PostingsIterator clause = postings[order[i]];
+                    if (clause.docId() < pivotDoc) {
+                        postingsVisited++;
+                        clause.advance(pivotDoc);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Scores the pivot document, offers it to the heap and moves every clause on it forward. */
+    private void collect(int doc, PostingsIterator[] postings, PriorityQueue<SearchResult> topKDocs, int topK) {
+        int matches = 0;
+        double score = 0;
+        for (int clause = 0; clause < postings.length; clause++) {
+            if (postings[clause].docId() == doc) {
+                matches++;
+                score += scorers[clause].score();
+                postings[clause].nextDoc();
+            }
+        }
+        candidates++;
+        postingsVisited += matches;
+        if (matches >= minimumMatches) {
+            offer(topKDocs, topK, snapshot.documentId(doc), score);
+        }
+    }
+
+    /** Number of documents {@link #search} scored. */
+    long candidates() {
+        return candidates;
+    }
+
+    /** Number of times a clause moved to another posting, a skip over whole blocks counting once. */
+    long postingsVisited() {
+        return postingsVisited;
+    }
+
+    /** Adds a result to a bounded {@link #WORST_FIRST} heap, allocating only if it gets in. */
+    static void offer(PriorityQueue<SearchResult> topKDocs, int topK, int documentId, double score) {
+        if (topKDocs.size() >= topK) {
+            SearchResult worst = topKDocs.peek();
+            if (score < worst.score() || (score == worst.score() && documentId > worst.documentId())) {
+                return;
+            }
+        }
+        topKDocs.offer(new SearchResult(documentId, score));
+        if (topKDocs.size() > topK) {
+            topKDocs.poll();
+        }
+    }
+
+    /** Insertion sort: queries are short and the order changes little between iterations. */
+    private static void sortByDocument(int[] order, PostingsIterator[] postings) {
+        for (int i = 1; i < order.length; i++) {
+            int clause = order[i];
+            int doc = postings[clause].docId();
+            int j = i - 1;
+            while (j >= 0 && postings[order[j]].docId() > doc) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = clause;
+        }
+    }
+
+    static List<SearchResult> sortedResults(PriorityQueue<SearchResult> topKDocs) {
+        List<SearchResult> results = new ArrayList<>(topKDocs);
+        results.sort(WORST_FIRST.reversed());
+        return results;
+    }
+}
@@ -0,0 +1,448 @@
+package com.purva.searchengine.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, checksummed log of document writes with group commit, replayed on startup on
+ * top of the latest index snapshot. Once a truncation or fsync fails, the log refuses every
+ * later write; see {@code docs/inverted-index-design.md}.
+ */
+public class WriteAheadLog implements AutoCloseable {
+    /** When an acknowledged write is guaranteed to survive a crash. */
+    public enum Durability {
+        /** Every write waits for an fsync. Concurrent writers share one fsync (group commit). */
+        FSYNC,
+        /** Writes return once they reach the OS; a background fsync runs every sync interval. */
+        INTERVAL,
+        /** Writes return once they reach the OS and are only synced when a file is rolled or closed. */
+        ASYNC
+    }
+
+    /** A logged write; {@code content} is {@code null} for a delete. */
+    public record Entry(int documentId, String content) {
+        public static Entry index(int documentId, String content) {
+            return new Entry(documentId, content);
+        }
+
+        public static Entry delete(int documentId) {
+            return new Entry(documentId, null);
+        }
+
+        public boolean isDelete() {
+            return content == null;
+        }
+    }
+
+    private static final byte INDEX = 1;
+    private static final byte DELETE = 2;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int ENTRY_HEADER_BYTES = 5;
+    /** One bit of a {@code long} mask per stripe. */
+    private static final int DOCUMENT_STRIPES = 64;
+    private static final Logger LOG = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    /** Opens a log file for appending. */
+    interface FileOpener {
+        FileChannel open(Path file) throws IOException;
+    }
+
+    private final Path directory;
+    private final Durability durability;
+    private final FileOpener opener;
+    /** {@code null} unless the durability mode is {@link Durability#INTERVAL}. */
+    private final ScheduledExecutorService syncExecutor;
+    private final long syncIntervalMillis;
+    /**
+     * Orders writes to the same document id. A writer holds the stripes of its ids, taken in
+     * increasing order, from logging its records until they are applied. Rolls and close take
+     * every stripe, so no logged write is still being applied. Taken before {@link #syncLock}.
+     */
+    private final ReentrantLock[] documentLocks = new ReentrantLock[DOCUMENT_STRIPES];
+    /** Serializes appends to the file and file rolls, in that lock order after {@link #syncLock}. */
+    private final ReentrantLock appendLock = new ReentrantLock();
+    /**
+     * Held by the one writer that runs an fsync on behalf of everyone waiting. Writers queue on
+     * it for the length of an fsync, so it is a lock rather than a monitor: a virtual thread
+     * blocked on a monitor would pin its carrier thread.
+     */
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private FileChannel channel;
+    private long fileNumber;
+    /** Written under {@link #appendLock}; volatile so an idle sync tick can skip without locking. */
+    private volatile long appendedSequence;
+    private volatile long syncedSequence;
+    /** Why the log refuses writes, or {@code null} while it accepts them. */
+    private volatile IOException failure;
+
+    public WriteAheadLog(Path directory, Durability durability, Duration syncInterval) throws IOException {
+        this(directory, durability, syncInterval, file -> FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+    }
+
+    WriteAheadLog(Path directory, Durability durability, Duration syncInterval, FileOpener opener) throws IOException {
+        this.directory = directory;
+        this.durability = durability;
+        this.opener = opener;
+        for (int stripe = 0; stripe < DOCUMENT_STRIPES; stripe++) {
+            documentLocks[stripe] = new ReentrantLock();
+        }
+        Files.createDirectories(directory);
+        List<Long> existing = fileNumbers();
+        this.fileNumber = existing.isEmpty() ? 1 : existing.getLast() + 1;
+        this.channel = openFile(fileNumber);
+
+        if (durability == Durability.INTERVAL) {
+            this.syncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.syncIntervalMillis = Math.max(1, syncInterval.toMillis());
+        } else {
+            this.syncExecutor = null;
+            this.syncIntervalMillis = 0;
+        }
+    }
+
+    /** Starts the background fsync of {@link Durability#INTERVAL} mode; call once, before the first append. */
+    public void start() {
+        if (syncExecutor != null) {
+            syncExecutor.scheduleWithFixedDelay(this::syncPending, syncIntervalMillis, syncIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public Durability durability() {
+        return durability;
+    }
+
+    /** Why the log refuses writes, or {@code null} while it accepts them. */
+    public IOException failure() {
+        return failure;
+    }
+
+    /**
+     * Logs {@code entries} and runs {@code apply} before any later write to the same document
+     * ids is applied, then waits for an fsync if the durability mode requires one.
+     *
+     * <p>A write is visible to searches before its fsync completes. If the log cannot be
+     * written, {@code apply} is not run and an {@link UncheckedIOException} is thrown. In
+     * {@link Durability#FSYNC} mode an {@link UncheckedIOException} is also thrown if the write
+     * could not be synced: it has been applied, but it is not acknowledged as durable.</p>
+     */
+    public <T> T append(List<Entry> entries, Supplier<T> apply) {
+        ByteBuffer records = encode(entries);
+        long stripes = stripes(entries);
+        long sequence;
+        T result;
+        lockStripes(stripes);
+        try {
+            appendLock.lock();
+            try {
+                write(records);
+                sequence = ++appendedSequence;
+            }
+            finally {
+                appendLock.unlock();
+            }
+            result = apply.get();
+        }
+        finally {
+            unlockStripes(stripes);
+        }
+        if (durability == Durability.FSYNC) {
+            sync(sequence);
+        }
+        return result;
+    }
+
+    /** Writes whole records, or none of them: a write that fails part-way is truncated off. */
+    private void write(ByteBuffer records) {
+        IOException failed = failure;
+        if (failed != null) {
+            throw new UncheckedIOException("The write-ahead log has failed and accepts no more writes", failed);
+        }
+        long start = -1;
+        try {
+            start = channel.size();
+            while (records.hasRemaining()) {
+                channel.write(records);
+            }
+        }
+        catch (IOException e) {
+            if (start >= 0) {
+                try {
+                    channel.truncate(start);
+                }
+                catch (IOException truncation) {
+                    e.addSuppressed(truncation);
+                    fail(e);
+                }
+            }
+            throw new UncheckedIOException("Failed to write to the write-ahead log", e);
+        }
+    }
+
+    /** Fails the log with {@code e}, unless it has failed already. */
+    void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+            LOG.error("Write-ahead log failed; refusing further writes until restart", e);
+        }
+    }
+
+    private static long stripes(List<Entry> entries) {
+        long stripes = 0;
+        for (Entry entry : entries) {
+            stripes |= 1L << Math.floorMod(entry.documentId(), DOCUMENT_STRIPES);
+        }
+        return stripes;
+    }
+
+    private void lockStripes(long stripes) {
+        for (long remaining = stripes; remaining != 0; remaining &= remaining - 1) {
+            documentLocks[Long.numberOfTrailingZeros(remaining)].lock();
+        }
+    }
+
+    private void unlockStripes(long stripes) {
+        for (long remaining = stripes; remaining != 0; remaining &= remaining - 1) {
+            documentLocks[Long.numberOfTrailingZeros(remaining)].unlock();
+        }
+    }
+
+    /** Replays every record logged before this log was opened, oldest first. */
+    public int replay(Consumer<Entry> consumer) throws IOException {
+        int replayed = 0;
+        for (long number : fileNumbers()) {
+            if (number >= fileNumber) {
+                break;
+            }
+            try (InputStream file = Files.newInputStream(file(number))) {
+                replayed += replay(new DataInputStream(new BufferedInputStream(file, 1 << 16)), consumer);
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * Syncs and closes the current file and starts a new one. Every record in earlier files
+     * has been applied to the index by the time this returns.
+     *
+     * @return the number of the new file, to pass to {@link #deleteBefore} once a snapshot is saved
+     */
+    public long roll() throws IOException {
+        lockStripes(-1L);
+        syncLock.lock();
+        appendLock.lock();
+        try {
+            channel.force(false);
+            channel.close();
+            syncedSequence = appendedSequence;
+            channel = openFile(++fileNumber);
+            return fileNumber;
+        }
+        catch (IOException e) {
+            fail(e);
+            throw e;
+        }
+        finally {
+            appendLock.unlock();
+            syncLock.unlock();
+            unlockStripes(-1L);
+        }
+    }
+
+    /** Deletes the files before {@code fileNumber}, whose records a saved snapshot now holds. */
+    public void deleteBefore(long fileNumber) throws IOException {
+        for (long number : fileNumbers()) {
+            if (number < fileNumber) {
+                Files.deleteIfExists(file(number));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (syncExecutor != null) {
+            syncExecutor.shutdown();
+            try {
+                syncExecutor.awaitTermination(1, TimeUnit.MINUTES);
+            }
+            catch (InterruptedException e) {
+                // The final fsync below still runs; an in-flight tick holds the sync lock until it is done
+                Thread.currentThread().interrupt();
+            }
+        }
+        lockStripes(-1L);
+        syncLock.lock();
+        appendLock.lock();
+        try {
+            channel.force(false);
+            channel.close();
+        }
+        finally {
+            appendLock.unlock();
+            syncLock.unlock();
+            unlockStripes(-1L);
+        }
+    }
+
+    /**
+     * Makes every append up to {@code sequence} durable. The first writer to get here syncs
+     * everything appended so far; writers that queued behind it find their record already
+     * synced and return without an fsync of their own. A failed fsync fails the log.
+     *
+     * @throws UncheckedIOException if {@code sequence} could not be synced
+     */
+    private void sync(long sequence) {
+        syncLock.lock();
+        try {
+            if (syncedSequence >= sequence) {
+                return;
+            }
+            IOException failed = failure;
+            if (failed != null) {
+                throw new UncheckedIOException("The write-ahead log has failed; the write was not synced", failed);
+            }
+            long target;
+            appendLock.lock();
+            try {
+                target = appendedSequence;
+            }
+            finally {
+                appendLock.unlock();
+            }
+            channel.force(false);
+            syncedSequence = target;
+        }
+        catch (IOException e) {
+            fail(e);
+            throw new UncheckedIOException("Failed to sync the write-ahead log", e);
+        }
+        finally {
+            syncLock.unlock();
+        }
+    }
+
+    /** The {@link Durability#INTERVAL} tick: syncs whatever was appended since the last sync. */
+    private void syncPending() {
+        long appended = appendedSequence;
+        if (appended == syncedSequence || failure != null) {
+            return;
+        }
+        try {
+            sync(appended);
+        }
+        catch (UncheckedIOException e) {
+            // Already logged by fail(); later appends are refused
+        }
+    }
+
+    private static ByteBuffer encode(List<Entry> entries) {
+        List<byte[]> contents = new ArrayList<>(entries.size());
+        int size = 0;
+        for (Entry entry : entries) {
+            byte[] content = entry.isDelete() ? new byte[0] : entry.content().getBytes(StandardCharsets.UTF_8);
+            contents.add(content);
+            size += RECORD_HEADER_BYTES + ENTRY_HEADER_BYTES + content.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        CRC32C checksum = new CRC32C();
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            byte[] content = contents.get(i);
+            int payloadStart = buffer.position() + RECORD_HEADER_BYTES;
+            buffer.putInt(ENTRY_HEADER_BYTES + content.length)
+                    .putInt(0)
+                    .put(entry.isDelete() ? DELETE : INDEX)
+                    .putInt(entry.documentId())
+                    .put(content);
+            checksum.reset();
+            checksum.update(buffer.array(), payloadStart, ENTRY_HEADER_BYTES + content.length);
+            buffer.putInt(payloadStart - 4, (int) checksum.getValue());
+        }
+        return buffer.flip();
+    }
+
+    private static int replay(DataInputStream in, Consumer<Entry> consumer) throws IOException {
+        CRC32C checksum = new CRC32C();
+        int replayed = 0;
+        while (true) {
+            byte[] payload;
+            int expected;
+            try {
+                int length = in.readInt();
+                expected = in.readInt();
+                if (length < ENTRY_HEADER_BYTES) {
+                    return replayed;
+                }
+                payload = in.readNBytes(length);
+                if (payload.length < length) {
+                    return replayed;
+                }
+            }
+            catch (EOFException e) {
+                return replayed;
+            }
+            checksum.reset();
+            checksum.update(payload);
+            if ((int) checksum.getValue() != expected) {
+                return replayed;
+            }
+
+            ByteBuffer record = ByteBuffer.wrap(payload);
+            byte type = record.get();
+            int documentId = record.getInt();
+            consumer.accept(type == DELETE
+                    ? Entry.delete(documentId)
+                    : Entry.index(documentId, new String(payload, ENTRY_HEADER_BYTES, payload.length - ENTRY_HEADER_BYTES,
+                            StandardCharsets.UTF_8)));
+            replayed++;
+        }
+    }
+
+    private FileChannel openFile(long number) throws IOException {
+        return opener.open(file(number));
+    }
+
+    private Path file(long number) {
+        return directory.resolve(String.format("wal-%020d.log", number));
+    }
+
+    private List<Long> fileNumbers() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.matches("wal-\\d{20}\\.log"))
+                    .map(name -> Long.parseLong(name.substring(4, 24)))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
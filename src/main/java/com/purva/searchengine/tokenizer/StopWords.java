@@ -1,5 +1,6 @@
 package com.purva.searchengine.tokenizer;
 
+import java.util.Arrays;
 import java.util.Set;
 
 public class StopWords {
@@ -11,4 +12,31 @@ public class StopWords {
             "such", "than", "that", "the", "their", "then", "there", "these",
             "they", "this", "to", "was", "will", "with", "i", "you", "we", "he", "she"
     );
+
+    /** Open-addressing table of the stop words, probed by {@link String#hashCode()}. */
+    private static final char[][] TABLE = new char[128][];
+
+    static {
+        for (String word : ENGLISH_STOP_WORDS) {
+            int slot = word.hashCode() & (TABLE.length - 1);
+            while (TABLE[slot] != null) {
+                slot = (slot + 1) & (TABLE.length - 1);
+            }
+            TABLE[slot] = word.toCharArray();
+        }
+    }
+
+    /** Same as {@code ENGLISH_STOP_WORDS.contains(new String(chars, 0, length))}, without creating the string. */
+    static boolean contains(char[] chars, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        for (int slot = hash & (TABLE.length - 1); TABLE[slot] != null; slot = (slot + 1) & (TABLE.length - 1)) {
+            if (Arrays.equals(TABLE[slot], 0, TABLE[slot].length, chars, 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,12 @@
+package com.purva.searchengine.tokenizer;
+
+import java.util.List;
+
+/**
+ * The tokens of a text and their positions, as {@link Tokenizer#tokenizeWithPositions} returns them.
+ *
+ * @param tokens    the tokens, in text order
+ * @param positions each token's position, ascending; stop words dropped between two tokens
+ *                  leave a gap
+ */
+public record TokenizedText(List<String> tokens, int[] positions) {}
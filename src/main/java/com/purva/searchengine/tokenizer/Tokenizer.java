@@ -1,76 +1,190 @@
 package com.purva.searchengine.tokenizer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Splits text into normalized, stop-word-filtered and lightly stemmed tokens in a single pass,
+ * following the rules in {@code docs/tokenizer-normalization.md}. A token's position counts the
+ * dropped words before it too, so a dropped word leaves a gap for phrase queries.
+ */
 public class Tokenizer {
+    /** Marks a char that ends the current token. */
+    private static final char SEPARATOR = 0;
+    private static final char[] ASCII_LOWER = new char[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            ASCII_LOWER[c] = c;
+            ASCII_LOWER[c - 'a' + 'A'] = c;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            ASCII_LOWER[c] = c;
+        }
+        ASCII_LOWER['+'] = '+';
+        ASCII_LOWER['.'] = '.';
+        ASCII_LOWER['#'] = '#';
+    }
 
     public List<String> tokenize(String text) {
         if (text == null || text.isBlank()) return List.of();
 
-        String cleanedText = normalizeAndHandleHyphens(text);
-        String[] rawTokens = cleanedText.split("\\s+");
         List<String> finalTokens = new ArrayList<>();
-
-        for (String token : rawTokens) {
-            if (token.isEmpty() || isStopWord(token) || isSingleLetterAlphabetic(token)) continue;
-
-            finalTokens.add(applyLightStemming(token));
-        }
+        tokenize(text, finalTokens::add);
         return finalTokens;
     }
 
-    private String normalizeAndHandleHyphens(String text) {
-        String lower = text.toLowerCase();
-        String normalized = lower.replaceAll("[^a-z0-9+.#\\s-]", " ");
-        return normalized.replace("-", " ");
+    /** Passes each token of {@code text} to {@code consumer} in order, without building a list. */
+    public void tokenize(String text, Consumer<String> consumer) {
+        scan(text, (token, position) -> consumer.accept(token));
     }
 
-    private boolean isStopWord(String token) {
-        return StopWords.ENGLISH_STOP_WORDS.contains(token);
+    /** Tokenizes {@code text}, keeping each token's position. */
+    public TokenizedText tokenizeWithPositions(String text) {
+        if (text == null || text.isBlank()) return new TokenizedText(List.of(), new int[0]);
+
+        List<String> tokens = new ArrayList<>();
+        int[][] positions = {new int[16]};
+        scan(text, (token, position) -> {
+            if (tokens.size() == positions[0].length) {
+                positions[0] = Arrays.copyOf(positions[0], tokens.size() << 1);
+            }
+            positions[0][tokens.size()] = position;
+            tokens.add(token);
+        });
+        return new TokenizedText(tokens, Arrays.copyOf(positions[0], tokens.size()));
     }
 
-    private boolean isSingleLetterAlphabetic(String token) {
-        return token.length() == 1 && Character.isLetter(token.charAt(0));
+    @FunctionalInterface
+    private interface TokenSink {
+        void accept(String token, int position);
     }
 
-    private String applyLightStemming(String word) {
-        int len = word.length();
-        if (len <= 3 || !containsVowel(word)) return word;
-        if (!isAlphabeticWord(word)) return word;
+    private void scan(String text, TokenSink consumer) {
+        if (text == null || text.isBlank()) return;
+
+        String language = Locale.getDefault().getLanguage();
+        boolean turkic = language.equals("tr") || language.equals("az");
+        boolean lithuanian = language.equals("lt");
+
+        Token token = new Token();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            char lower;
+            boolean endsToken = false;
+            if (c < 128) {
+                lower = turkic && c == 'I' ? SEPARATOR : ASCII_LOWER[c];
+            } else {
+                switch (c) {
+                    // KELVIN SIGN lowercases to a plain 'k'
+                    case '\u212A' -> lower = 'k';
+                    // Outside Turkic locales a dotted capital I becomes "i" plus a combining dot, which ends the token
+                    case '\u0130' -> {
+                        lower = 'i';
+                        endsToken = !turkic;
+                    }
+                    // Lithuanian keeps the dot of an accented capital I as a combining mark after the 'i'
+                    case '\u00CC', '\u00CD', '\u0128' -> {
+                        lower = lithuanian ? 'i' : SEPARATOR;
+                        endsToken = lithuanian;
+                    }
+                    default -> lower = SEPARATOR;
+                }
+            }
 
-        if (word.endsWith("ies")) {
-            return word.substring(0, len - 3) + "y";
+            if (lower == SEPARATOR) {
+                token.emit(consumer);
+                continue;
+            }
+            token.append(lower);
+            if (endsToken) {
+                token.emit(consumer);
+            }
         }
+        token.emit(consumer);
+    }
 
-        if (word.endsWith("ing")) {
-            String base = word.substring(0, len - 3);
-            if (base.length() > 1 && base.charAt(base.length() - 1) == base.charAt(base.length() - 2)) {
-                return base.substring(0, base.length() - 1);
+    /** Scratch buffer for the token being scanned, tracking what stemming needs to know about it. */
+    private static final class Token {
+        private char[] chars = new char[32];
+        private int length;
+        private boolean alphabetic = true;
+        private boolean hasVowel;
+        /** Words scanned so far, kept or not. */
+        private int position;
+
+        void append(char c) {
+            if (length == chars.length) {
+                chars = Arrays.copyOf(chars, length * 2);
+            }
+            chars[length++] = c;
+            if (c < 'a' || c > 'z') {
+                alphabetic = false;
+            } else if (c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u' || c == 'y') {
+                hasVowel = true;
             }
-            return base;
         }
 
-        if (word.endsWith("es") && len > 4) {
-            return word.substring(0, len - 2);
+        void emit(TokenSink consumer) {
+            if (length == 0) {
+                return;
+            }
+            if (!StopWords.contains(chars, length) && !isSingleLetterAlphabetic()) {
+                consumer.accept(new String(chars, 0, stemmedLength()), position);
+            }
+            position++;
+            length = 0;
+            alphabetic = true;
+            hasVowel = false;
         }
 
-        if (word.endsWith("sis")) {
-            return word;
+        private boolean isSingleLetterAlphabetic() {
+            return length == 1 && alphabetic;
         }
 
-        if (word.endsWith("s") && !word.endsWith("ss")) {
-            return word.substring(0, len - 1);
-        }
+        /** Applies the light stemming rules in place and returns the stemmed length. */
+        private int stemmedLength() {
+            int len = length;
+            if (len <= 3 || !hasVowel || !alphabetic) return len;
 
-        return word;
-    }
+            if (endsWith("ies")) {
+                chars[len - 3] = 'y';
+                return len - 2;
+            }
 
-    private boolean containsVowel(String word) {
-        return word.matches(".*[aeiouy].*");
-    }
+            if (endsWith("ing")) {
+                int base = len - 3;
+                if (base > 1 && chars[base - 1] == chars[base - 2]) {
+                    return base - 1;
+                }
+                return base;
+            }
+
+            if (endsWith("es") && len > 4) {
+                return len - 2;
+            }
 
-    private boolean isAlphabeticWord(String token) {
-        return token.matches("[a-z]+");
+            if (endsWith("sis")) {
+                return len;
+            }
+
+            if (endsWith("s") && !endsWith("ss")) {
+                return len - 1;
+            }
+
+            return len;
+        }
+
+        private boolean endsWith(String suffix) {
+            int start = length - suffix.length();
+            if (start < 0) return false;
+            for (int i = 0; i < suffix.length(); i++) {
+                if (chars[start + i] != suffix.charAt(i)) return false;
+            }
+            return true;
+        }
     }
-}
\ No newline at end of file
+}
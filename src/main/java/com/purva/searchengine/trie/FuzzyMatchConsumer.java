@@ -0,0 +1,7 @@
+package com.purva.searchengine.trie;
+
+/** Receives the terms a fuzzy lookup finds, each with its edit distance from the query term and its frequency. */
+@FunctionalInterface
+public interface FuzzyMatchConsumer {
+    void accept(String term, int distance, int frequency);
+}
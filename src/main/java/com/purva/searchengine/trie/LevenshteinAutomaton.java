@@ -0,0 +1,103 @@
+package com.purva.searchengine.trie;
+
+import java.util.Arrays;
+
+/**
+ * Nondeterministic automaton accepting every string within {@code maxEdits} insertions,
+ * deletions or substitutions of a term, simulated with one bitmask per edit count so a step
+ * costs {@code maxEdits + 1} word operations.
+ */
+public final class LevenshteinAutomaton {
+    /** Longest term the automaton supports, so that a row fits in a {@code long}. */
+    public static final int MAX_LENGTH = 63;
+
+    private final int length;
+    private final int maxEdits;
+    private final long rowMask;
+    /** Distinct characters of the term, in ascending order, and for each the bits of the positions after it. */
+    private final char[] characters;
+    private final long[] characterMasks;
+    private final boolean hasSurrogates;
+
+    LevenshteinAutomaton(String term, int maxEdits) {
+        if (term.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Terms longer than " + MAX_LENGTH + " characters are not supported");
+        }
+        this.length = term.length();
+        this.maxEdits = maxEdits;
+        this.rowMask = length == 63 ? -1L : (1L << (length + 1)) - 1;
+
+        this.characters = term.chars().distinct().sorted().collect(StringBuilder::new, StringBuilder::appendCodePoint,
+                StringBuilder::append).toString().toCharArray();
+        this.characterMasks = new long[characters.length];
+        for (int i = 0; i < length; i++) {
+            characterMasks[Arrays.binarySearch(characters, term.charAt(i))] |= 1L << (i + 1);
+        }
+        this.hasSurrogates = term.chars().anyMatch(c -> Character.isSurrogate((char) c));
+    }
+
+    /** A new state array, one row per edit count. */
+    long[] newState() {
+        return new long[maxEdits + 1];
+    }
+
+    /** Writes the state before any input: the first {@code d} characters may be deleted with {@code d} edits. */
+    void start(long[] state) {
+        for (int edits = 0; edits <= maxEdits; edits++) {
+            state[edits] = ((1L << (Math.min(edits, length) + 1)) - 1) & rowMask;
+        }
+    }
+
+    /** Reads one character from {@code state} into {@code next}; returns whether {@code next} can still match. */
+    boolean step(long[] state, char c, long[] next) {
+        long matches = 0;
+        for (int i = 0; i < characters.length; i++) {
+            if (characters[i] == c) {
+                matches = characterMasks[i];
+                break;
+            }
+        }
+        long below = state[0];
+        long alive = next[0] = (below << 1) & matches;
+        for (int edits = 1; edits <= maxEdits; edits++) {
+            long row = state[edits];
+            // Match, insertion of c, substitution by c, then deletions of term characters
+            long updated = ((row << 1) & matches) | below | (below << 1) | (next[edits - 1] << 1);
+            next[edits] = updated & rowMask;
+            below = row;
+            alive |= next[edits];
+        }
+        return alive != 0;
+    }
+
+    /**
+     * Smallest character above {@code dead}, in code point order, that {@code state} can read
+     * without dying, given that it cannot read {@code dead}; {@code -1} if there is none outside
+     * the surrogates. A state that cannot read some character has used up every edit, so only
+     * the term's own characters may follow it.
+     */
+    int nextLiveCharacter(long[] state, char dead, long[] scratch) {
+        for (char c : characters) {
+            if (c > dead && !Character.isSurrogate(c) && step(state, c, scratch)) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    /** Whether the term has supplementary characters, which {@link #nextLiveCharacter} never returns. */
+    boolean hasSurrogates() {
+        return hasSurrogates;
+    }
+
+    /** Fewest edits with which the input read so far matches the whole term, or {@code -1} if more than allowed. */
+    int distance(long[] state) {
+        long accept = 1L << length;
+        for (int edits = 0; edits <= maxEdits; edits++) {
+            if ((state[edits] & accept) != 0) {
+                return edits;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,318 @@
+package com.purva.searchengine.trie;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, array-backed table of terms sorted by UTF-8 bytes, serving the most frequent
+ * completions of a prefix from the contiguous range of terms it matches.
+ */
+public final class SuggestionIndex {
+    /** Longest range ranked by a scan at lookup time. */
+    static final int SCAN_LIMIT = 32;
+
+    private final byte[] terms;
+    private final int[] offsets;
+    private final int[] frequencies;
+    private final int maxSuggestions;
+    /** Top term indexes, best first, of each prefix matching more than {@link #SCAN_LIMIT} terms. */
+    private final Map<String, int[]> topByPrefix;
+
+    private SuggestionIndex(byte[] terms, int[] offsets, int[] frequencies, int maxSuggestions) {
+        this.terms = terms;
+        this.offsets = offsets;
+        this.frequencies = frequencies;
+        this.maxSuggestions = maxSuggestions;
+        this.topByPrefix = new HashMap<>();
+
+        // groupStarts[d] is where the run of terms sharing the current term's first d bytes began
+        int[] groupStarts = new int[16];
+        int previousLength = 0;
+        for (int i = 0; i <= size(); i++) {
+            int common = i == 0 || i == size() ? 0 : commonPrefix(i - 1, i);
+            for (int depth = previousLength; depth > common; depth--) {
+                if (i - groupStarts[depth] > SCAN_LIMIT && isCharBoundary(i - 1, depth)) {
+                    String prefix = new String(terms, offsets[i - 1], depth, StandardCharsets.UTF_8);
+                    topByPrefix.put(prefix, top(groupStarts[depth], i, maxSuggestions));
+                }
+            }
+            if (i < size()) {
+                int length = offsets[i + 1] - offsets[i];
+                if (length >= groupStarts.length) {
+                    groupStarts = Arrays.copyOf(groupStarts, Math.max(groupStarts.length * 2, length + 1));
+                }
+                Arrays.fill(groupStarts, common + 1, length + 1, i);
+                previousLength = length;
+            }
+        }
+    }
+
+    public int size() {
+        return frequencies.length;
+    }
+
+    /** Number of prefixes whose completions were precomputed. */
+    public int precomputedPrefixes() {
+        return topByPrefix.size();
+    }
+
+    /** Up to {@code k} terms starting with the prefix, highest frequency first, ties in term order. */
+    public List<String> topK(String prefix, int k) {
+        if (k > maxSuggestions) {
+            throw new IllegalArgumentException("k must not exceed " + maxSuggestions);
+        }
+        int[] top = topByPrefix.get(prefix);
+        if (top == null) {
+            byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+            top = top(lowerBound(key, false), lowerBound(key, true), k);
+        }
+        List<String> suggestions = new ArrayList<>(Math.min(k, top.length));
+        for (int i = 0; i < k && i < top.length; i++) {
+            suggestions.add(term(top[i]));
+        }
+        return suggestions;
+    }
+
+    /** Frequency of the term, {@code 0} if the index does not contain it. */
+    public int frequency(String term) {
+        byte[] key = term.getBytes(StandardCharsets.UTF_8);
+        int index = lowerBound(key, false);
+        return index < size() && offsets[index + 1] - offsets[index] == key.length && comparePrefix(index, key) == 0
+                ? frequencies[index] : 0;
+    }
+
+    /**
+     * Passes every term within {@code maxEdits} edits of {@code term} to the consumer, in term
+     * order. The terms are walked with a {@link LevenshteinAutomaton}, reusing its state for
+     * the prefix a term shares with the previous one. When a prefix leaves the automaton with
+     * no live state, a binary search jumps to the next term it can read.
+     */
+    public void forEachFuzzyMatch(String term, int maxEdits, FuzzyMatchConsumer consumer) {
+        LevenshteinAutomaton automaton = new LevenshteinAutomaton(term, maxEdits);
+        long[][] states = new long[term.length() + maxEdits + 2][];
+        for (int depth = 0; depth < states.length; depth++) {
+            states[depth] = automaton.newState();
+        }
+        automaton.start(states[0]);
+
+        // Candidates are decoded into reused buffers, and only as far as the automaton can
+        // stay alive: no string longer than the term plus every allowed insertion matches
+        char[] previous = new char[states.length - 1];
+        char[] candidate = new char[states.length - 1];
+        long[] scratch = automaton.newState();
+        int previousLength = 0;
+        // states[d] holds the state after the first d characters of previous, for d <= validDepth
+        int validDepth = 0;
+        int index = 0;
+        while (index < size()) {
+            int length = decode(index, candidate);
+            int common = Arrays.mismatch(previous, 0, previousLength, candidate, 0, length);
+            int depth = Math.min(validDepth, common < 0 ? length : common);
+            boolean alive = true;
+            while (alive && depth < length) {
+                alive = automaton.step(states[depth], candidate[depth], states[depth + 1]);
+                depth++;
+            }
+            char[] swap = previous;
+            previous = candidate;
+            candidate = swap;
+            previousLength = length;
+            if (alive) {
+                int distance = automaton.distance(states[depth]);
+                if (distance >= 0) {
+                    consumer.accept(new String(previous, 0, length), distance, frequencies[index]);
+                }
+                validDepth = depth;
+                index++;
+            } else {
+                validDepth = depth - 1;
+                index = nextCandidate(automaton, states[depth - 1], previous, depth, index, scratch);
+            }
+        }
+    }
+
+    /**
+     * Index of the first term after {@code index} that can still match, given that the
+     * automaton died on the last of the term's first {@code depth} characters, held in
+     * {@code prefix}. Terms continuing the parent prefix with a character the automaton cannot
+     * read are skipped by a binary search, as is the parent prefix itself once no character can
+     * follow it.
+     */
+    private int nextCandidate(LevenshteinAutomaton automaton, long[] parentState, char[] prefix, int depth, int index,
+                              long[] scratch) {
+        char dead = prefix[depth - 1];
+        if (Character.isHighSurrogate(dead)) {
+            // The prefix ends inside a character and has no UTF-8 form to seek to
+            return index + 1;
+        }
+        int next = Character.isSurrogate(dead) ? -1 : automaton.nextLiveCharacter(parentState, dead, scratch);
+        if (next >= 0) {
+            prefix[depth - 1] = (char) next;
+            return seek(new String(prefix, 0, depth).getBytes(StandardCharsets.UTF_8), false, index + 1);
+        }
+        // Supplementary characters sort after every other one and were not looked at
+        int skipped = automaton.hasSurrogates() || Character.isSurrogate(dead) ? depth : depth - 1;
+        return seek(new String(prefix, 0, skipped).getBytes(StandardCharsets.UTF_8), true, index + 1);
+    }
+
+    /** Decodes up to {@code chars.length} leading characters of the term; returns how many. */
+    private int decode(int index, char[] chars) {
+        int length = 0;
+        int i = offsets[index];
+        int end = offsets[index + 1];
+        while (i < end && length < chars.length) {
+            int b = terms[i] & 0xFF;
+            if (b < 0x80) {
+                chars[length++] = (char) b;
+                i++;
+                continue;
+            }
+            int codePoint;
+            if (b < 0xE0) {
+                codePoint = (b & 0x1F) << 6 | terms[i + 1] & 0x3F;
+                i += 2;
+            } else if (b < 0xF0) {
+                codePoint = (b & 0x0F) << 12 | (terms[i + 1] & 0x3F) << 6 | terms[i + 2] & 0x3F;
+                i += 3;
+            } else {
+                codePoint = (b & 0x07) << 18 | (terms[i + 1] & 0x3F) << 12 | (terms[i + 2] & 0x3F) << 6
+                        | terms[i + 3] & 0x3F;
+                i += 4;
+            }
+            if (Character.isBmpCodePoint(codePoint)) {
+                chars[length++] = (char) codePoint;
+            } else {
+                chars[length++] = Character.highSurrogate(codePoint);
+                if (length < chars.length) {
+                    chars[length++] = Character.lowSurrogate(codePoint);
+                }
+            }
+        }
+        return length;
+    }
+
+    private String term(int index) {
+        return new String(terms, offsets[index], offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+    }
+
+    /** Indexes of the {@code k} most frequent terms in {@code [from, to)}, best first. */
+    private int[] top(int from, int to, int k) {
+        int[] top = new int[Math.min(k, to - from)];
+        int count = 0;
+        for (int index = from; index < to; index++) {
+            int frequency = frequencies[index];
+            if (count == top.length && (count == 0 || frequency <= frequencies[top[count - 1]])) {
+                continue;
+            }
+            // Earlier indexes sort first, so a later term only displaces strictly lower frequencies
+            int position = count == top.length ? count - 1 : count++;
+            while (position > 0 && frequencies[top[position - 1]] < frequency) {
+                top[position] = top[position - 1];
+                position--;
+            }
+            top[position] = index;
+        }
+        return top;
+    }
+
+    /**
+     * First term index whose leading {@code key.length} bytes compare at or above the key, or
+     * strictly above it when {@code past} is set; the two bound the terms starting with the key.
+     */
+    private int lowerBound(byte[] key, boolean past) {
+        return lowerBound(key, past, 0, size());
+    }
+
+    /** As {@link #lowerBound(byte[], boolean)} from {@code from} on, galloping ahead first since the bound is usually near. */
+    private int seek(byte[] key, boolean past, int from) {
+        int low = from;
+        for (int step = 1; low < size(); step <<= 1) {
+            int probe = Math.min(size(), low + step) - 1;
+            int comparison = comparePrefix(probe, key);
+            if (comparison > 0 || !past && comparison == 0) {
+                return lowerBound(key, past, low, probe);
+            }
+            low = probe + 1;
+        }
+        return size();
+    }
+
+    private int lowerBound(byte[] key, boolean past, int from, int to) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int comparison = comparePrefix(mid, key);
+            if (comparison < 0 || past && comparison == 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** Compares the term's first {@code key.length} bytes with the key; a shorter term matching so far sorts below. */
+    private int comparePrefix(int index, byte[] key) {
+        int offset = offsets[index];
+        int length = offsets[index + 1] - offset;
+        int mismatch = Arrays.mismatch(terms, offset, offset + Math.min(length, key.length), key, 0, Math.min(length, key.length));
+        if (mismatch >= 0) {
+            return Byte.compareUnsigned(terms[offset + mismatch], key[mismatch]);
+        }
+        return length < key.length ? -1 : 0;
+    }
+
+    private int commonPrefix(int a, int b) {
+        int mismatch = Arrays.mismatch(terms, offsets[a], offsets[a + 1], terms, offsets[b], offsets[b + 1]);
+        return mismatch < 0 ? offsets[a + 1] - offsets[a] : mismatch;
+    }
+
+    /** Whether the term's first {@code depth} bytes end on a whole character. */
+    private boolean isCharBoundary(int index, int depth) {
+        return depth == offsets[index + 1] - offsets[index] || (terms[offsets[index] + depth] & 0xC0) != 0x80;
+    }
+
+    /** Collects terms in any order, summing the counts of a term added more than once. */
+    public static final class Builder {
+        private record Entry(byte[] term, int count) {}
+
+        private final List<Entry> entries = new ArrayList<>();
+
+        public Builder add(String term, int count) {
+            entries.add(new Entry(term.getBytes(StandardCharsets.UTF_8), count));
+            return this;
+        }
+
+        /** @param maxSuggestions most completions a lookup may ask for */
+        public SuggestionIndex build(int maxSuggestions) {
+            entries.sort((a, b) -> Arrays.compareUnsigned(a.term(), b.term()));
+            int[] offsets = new int[entries.size() + 1];
+            int[] frequencies = new int[entries.size()];
+            int size = 0;
+            int length = 0;
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                if (size > 0 && Arrays.equals(entries.get(i - 1).term(), entry.term())) {
+                    frequencies[size - 1] += entry.count();
+                    continue;
+                }
+                frequencies[size] = entry.count();
+                length += entry.term().length;
+                offsets[++size] = length;
+            }
+            byte[] terms = new byte[length];
+            for (int i = 0, term = 0; i < entries.size(); i++) {
+                byte[] bytes = entries.get(i).term();
+                if (i == 0 || !Arrays.equals(entries.get(i - 1).term(), bytes)) {
+                    System.arraycopy(bytes, 0, terms, offsets[term++], bytes.length);
+                }
+            }
+            return new SuggestionIndex(terms, Arrays.copyOf(offsets, size + 1), Arrays.copyOf(frequencies, size), maxSuggestions);
+        }
+    }
+}
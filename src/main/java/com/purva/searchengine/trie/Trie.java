@@ -1,27 +1,88 @@
 package com.purva.searchengine.trie;
 
 import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Prefix tree of words and their frequencies, caching each node's top completions so a lookup
+ * costs O(prefix length). Inserts are serialized; lookups take no lock.
+ */
 public class Trie {
+    public static final int DEFAULT_CACHED_SUGGESTIONS = 10;
+    public static final int DEFAULT_MIN_PREFIX_LENGTH = 2;
+
+    /** Highest frequency first, ties in lexicographic order. */
+    static final Comparator<Suggestion> RANKING =
+            Comparator.comparingInt(Suggestion::frequency).reversed().thenComparing(Suggestion::word);
+
     private final TrieNode root = new TrieNode();
+    private final int cachedSuggestions;
+    private final int minPrefixLength;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public Trie() {
+        this(DEFAULT_CACHED_SUGGESTIONS, DEFAULT_MIN_PREFIX_LENGTH);
+    }
+
+    /**
+     * @param cachedSuggestions completions cached per node; {@code 0} caches nothing and answers
+     *                          every lookup with a DFS
+     * @param minPrefixLength   shortest prefix that gets suggestions
+     */
+    public Trie(int cachedSuggestions, int minPrefixLength) {
+        if (cachedSuggestions < 0) {
+            throw new IllegalArgumentException("cachedSuggestions must not be negative");
+        }
+        this.cachedSuggestions = cachedSuggestions;
+        this.minPrefixLength = Math.max(1, minPrefixLength);
+    }
 
     public void insert(String word) {
-        TrieNode current = root;
-        for (char c : word.toCharArray()) {
-            if (!current.children.containsKey(c)) {
-                current.children.put(c, new TrieNode());
+        insert(word, 1);
+    }
+
+    /** Adds {@code count} occurrences of the word. */
+    public void insert(String word, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be greater than 0");
+        }
+        writeLock.lock();
+        try {
+            TrieNode[] path = new TrieNode[word.length() + 1];
+            TrieNode current = root;
+            path[0] = current;
+            for (int i = 0; i < word.length(); i++) {
+                TrieNode next = current.children.get(word.charAt(i));
+                if (next == null) {
+                    next = new TrieNode();
+                    current.children.put(word.charAt(i), next);
+                }
+                current = next;
+                path[i + 1] = current;
             }
-            current = current.children.get(c);
+            current.frequency += count;
+            current.isEndOfWord = true;
+
+            Suggestion suggestion = new Suggestion(word, current.frequency);
+            for (TrieNode node : path) {
+                node.offer(suggestion, cachedSuggestions);
+            }
+        } finally {
+            writeLock.unlock();
         }
-        current.isEndOfWord = true;
-        current.frequency++;
+    }
+
+    /** Frequency of the word, {@code 0} if it was never inserted. */
+    public int frequency(String word) {
+        TrieNode node = findNode(word);
+        return node == null ? 0 : node.frequency;
     }
 
     public boolean startsWith(String prefix) {
         return findNode(prefix) != null;
     }
 
-    private record Suggestion(String word, int frequency) {}
+    record Suggestion(String word, int frequency) {}
 
     private void dfs(TrieNode node, StringBuilder prefix, PriorityQueue<Suggestion> pq, int k) {
         if (node.isEndOfWord) {
@@ -40,17 +101,23 @@ public class Trie {
 
     public List<String> getTopKSuggestions(String prefix, int k) {
         if (k <= 0) return List.of();
-        if (prefix == null || prefix.length() < 2) return List.of();
+        if (prefix == null || prefix.length() < minPrefixLength) return List.of();
 
         TrieNode node = findNode(prefix);
         if (node == null) {
             return List.of();
         }
 
-        PriorityQueue<Suggestion> minHeap = new PriorityQueue<>(
-                Comparator.comparingInt((Suggestion s) -> s.frequency)
-                        .thenComparing(s -> s.word, Comparator.reverseOrder())
-        );
+        if (k <= cachedSuggestions) {
+            Suggestion[] cached = node.topSuggestions;
+            List<String> suggestions = new ArrayList<>(Math.min(k, cached.length));
+            for (int i = 0; i < k && i < cached.length; i++) {
+                suggestions.add(cached[i].word());
+            }
+            return suggestions;
+        }
+
+        PriorityQueue<Suggestion> minHeap = new PriorityQueue<>(RANKING.reversed());
 
         dfs(node, new StringBuilder(prefix), minHeap, k);
 
@@ -64,12 +131,45 @@ public class Trie {
         return suggestions;
     }
 
+    /**
+     * Passes every word within {@code maxEdits} edits of {@code term} to the consumer. The trie
+     * is walked depth first with a {@link LevenshteinAutomaton}, one state per depth, and a
+     * subtree is left as soon as its state is empty.
+     */
+    public void forEachFuzzyMatch(String term, int maxEdits, FuzzyMatchConsumer consumer) {
+        LevenshteinAutomaton automaton = new LevenshteinAutomaton(term, maxEdits);
+        long[][] states = new long[term.length() + maxEdits + 2][];
+        for (int depth = 0; depth < states.length; depth++) {
+            states[depth] = automaton.newState();
+        }
+        automaton.start(states[0]);
+        fuzzyMatches(root, new StringBuilder(), automaton, states, consumer);
+    }
+
+    private void fuzzyMatches(TrieNode node, StringBuilder word, LevenshteinAutomaton automaton, long[][] states,
+                              FuzzyMatchConsumer consumer) {
+        int depth = word.length();
+        if (node.isEndOfWord) {
+            int distance = automaton.distance(states[depth]);
+            if (distance >= 0) {
+                consumer.accept(word.toString(), distance, node.frequency);
+            }
+        }
+        for (var entry : node.children.entrySet()) {
+            if (automaton.step(states[depth], entry.getKey(), states[depth + 1])) {
+                word.append(entry.getKey());
+                fuzzyMatches(entry.getValue(), word, automaton, states, consumer);
+                word.setLength(depth);
+            }
+        }
+    }
+
     private TrieNode findNode(String prefix) {
         TrieNode current = root;
         if (prefix == null || prefix.isEmpty()) return root;
 
-        for (char c : prefix.toCharArray()) {
-            TrieNode next = current.children.get(c);
+        for (int i = 0; i < prefix.length(); i++) {
+            TrieNode next = current.children.get(prefix.charAt(i));
             if (next == null) return null;
             current = next;
         }
@@ -1,16 +1,65 @@
 package com.purva.searchengine.trie;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class TrieNode {
-    Map<Character, TrieNode> children;
-    boolean isEndOfWord;
-    int frequency;
+    private static final Trie.Suggestion[] NO_SUGGESTIONS = new Trie.Suggestion[0];
+
+    final Map<Character, TrieNode> children;
+    volatile boolean isEndOfWord;
+    volatile int frequency;
+    /**
+     * The best completions in this node's subtree, best first. Writers replace the array
+     * instead of changing it, so readers use whatever array they see without locking.
+     */
+    volatile Trie.Suggestion[] topSuggestions;
 
     TrieNode() {
-        children = new HashMap<>();
+        children = new ConcurrentHashMap<>();
         isEndOfWord = false;
         frequency = 0;
+        topSuggestions = NO_SUGGESTIONS;
+    }
+
+    /**
+     * Puts the word at its new rank among the cached completions, dropping its previous entry
+     * and, if the cache is full, the lowest-ranked one. A frequency only ever grows, so the word
+     * can only move up and no other completion has to come back from the subtree.
+     */
+    void offer(Trie.Suggestion suggestion, int capacity) {
+        Trie.Suggestion[] current = topSuggestions;
+        boolean cached = false;
+        for (Trie.Suggestion other : current) {
+            if (other.word().equals(suggestion.word())) {
+                cached = true;
+                break;
+            }
+        }
+        if (!cached && current.length == capacity
+                && (capacity == 0 || Trie.RANKING.compare(suggestion, current[capacity - 1]) > 0)) {
+            return;
+        }
+
+        Trie.Suggestion[] updated = new Trie.Suggestion[cached ? current.length : Math.min(current.length + 1, capacity)];
+        int length = 0;
+        boolean placed = false;
+        for (Trie.Suggestion other : current) {
+            if (other.word().equals(suggestion.word())) {
+                continue;
+            }
+            if (!placed && Trie.RANKING.compare(suggestion, other) < 0) {
+                updated[length++] = suggestion;
+                placed = true;
+            }
+            if (length == updated.length) {
+                break;
+            }
+            updated[length++] = other;
+        }
+        if (!placed) {
+            updated[length] = suggestion;
+        }
+        topSuggestions = updated;
     }
 }
@@ -0,0 +1,69 @@
+package com.purva.searchengine.benchmark;
+
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.search.Bm25Scorer;
+import com.purva.searchengine.service.SearchService;
+import com.purva.searchengine.tokenizer.Tokenizer;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Standalone benchmark for heap allocation per query on the candidate aggregation path.
+ * * Uses {@code com.sun.management.ThreadMXBean#getThreadAllocatedBytes}, which counts
+ * every byte the calling thread allocates, so the figures track young GC pressure per
+ * query directly. Queries use a relaxed threshold so candidates are aggregated over the
+ * union of the postings rather than intersected.
+ */
+public class AllocationBenchmark {
+    private static final int DOCUMENTS = 100_000;
+    private static final int QUERIES = 2_000;
+    private static final String[] QUERY_STRINGS = {"java test5", "search engine test3", "java test1 test2"};
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private interface Query {
+        int run(String query);
+    }
+
+    private static void measure(String title, Query query) {
+        for (int i = 0; i < QUERIES; i++) {
+            query.run(QUERY_STRINGS[i % QUERY_STRINGS.length]);
+        }
+
+        long threadId = Thread.currentThread().threadId();
+        long blackHole = 0;
+        long startBytes = THREADS.getThreadAllocatedBytes(threadId);
+        long startTime = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            blackHole += query.run(QUERY_STRINGS[i % QUERY_STRINGS.length]);
+        }
+        long elapsed = System.nanoTime() - startTime;
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - startBytes;
+
+        System.out.println("=== " + title + " ===");
+        System.out.printf("Average Latency:      %.2f µs%n", elapsed / 1000.0 / QUERIES);
+        System.out.printf("Allocated per Query:  %.1f KB%n", allocated / 1024.0 / QUERIES);
+        System.out.println("DCE Checksum:         " + blackHole);
+        System.out.println("==============================\n");
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        var tokenizer = new Tokenizer();
+        var invertedIndex = new InvertedIndex();
+        var searchService = new SearchService(tokenizer, invertedIndex, new Bm25Scorer());
+        var exhaustiveService = new SearchService(tokenizer, invertedIndex, new Bm25Scorer(),
+                SearchService.Options.DEFAULTS.withDynamicPruning(false));
+
+        for (int i = 1; i <= DOCUMENTS; i++) {
+            invertedIndex.index(i, List.of("java", "search", "engine", "test" + (i % 10)));
+        }
+        invertedIndex.flush();
+        invertedIndex.awaitMerges();
+
+        measure("THRESHOLD SEARCH (threshold=0.5)", query -> searchService.search(query, 0.5).size());
+        measure("EXHAUSTIVE BM25 RANKED SEARCH (threshold=0.5)", query -> exhaustiveService.rankedSearch(query, 10, 0.5).size());
+        invertedIndex.close();
+    }
+}
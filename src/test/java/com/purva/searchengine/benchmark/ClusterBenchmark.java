@@ -0,0 +1,180 @@
+package com.purva.searchengine.benchmark;
+
+import com.purva.searchengine.InMemorySearchEngineApplication;
+import com.purva.searchengine.service.ClusterSearchService;
+import com.purva.searchengine.service.ClusterUnavailableException;
+import com.purva.searchengine.service.DocumentService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Standalone benchmark for the multi-node coordinator.
+ * * Starts two engine nodes on local ports, each holding half of a random corpus, and puts a
+ * proxy in front of each that stalls a small share of the requests it forwards, like a replica
+ * in a GC pause. Every node is listed as two replicas, the proxy and the node itself, so the
+ * coordinator sends half of its calls through a proxy. Ranked queries are then timed against a
+ * single-node baseline, through the cluster without hedging, with hedged calls, and with a
+ * timeout short enough to drop a stalled node from the results.
+ */
+public class ClusterBenchmark {
+    private static final int DOCUMENTS = 50_000;
+    private static final int VOCABULARY = 5_000;
+    private static final int QUERIES = 2_000;
+    private static final double STALL_PROBABILITY = 0.02;
+    private static final int STALL_MILLIS = 200;
+
+    private static String word(Random random) {
+        char[] chars = new char[5 + random.nextInt(5)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return SpringApplication.run(InMemorySearchEngineApplication.class,
+                "--server.port=0", "--spring.main.banner-mode=off", "--logging.level.root=WARN",
+                "--search.cache.max-bytes=0");
+    }
+
+    private static URI url(ConfigurableApplicationContext node) {
+        return URI.create("http://localhost:" + node.getEnvironment().getProperty("local.server.port"));
+    }
+
+    /** Forwards every request to {@code target}, holding a few of them back first. */
+    private static HttpServer stallingProxy(URI target, HttpClient client, ExecutorService executor) throws IOException {
+        HttpServer proxy = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        proxy.setExecutor(executor);
+        proxy.createContext("/", exchange -> {
+            try {
+                if (ThreadLocalRandom.current().nextDouble() < STALL_PROBABILITY) {
+                    Thread.sleep(STALL_MILLIS);
+                }
+                forward(exchange, target, client);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finally {
+                exchange.close();
+            }
+        });
+        proxy.start();
+        return proxy;
+    }
+
+    private static void forward(HttpExchange exchange, URI target, HttpClient client) throws IOException, InterruptedException {
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readAllBytes();
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(target.resolve(exchange.getRequestURI()))
+                .header("Content-Type", "application/json");
+        request = body.length == 0 ? request.GET() : request.POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(response.statusCode(), response.body().length);
+        exchange.getResponseBody().write(response.body());
+    }
+
+    private static void measure(String label, List<String> queries, ClusterSearchService cluster) {
+        long[] latencies = new long[queries.size()];
+        int partial = 0;
+        int unavailable = 0;
+        for (int warmUp = 0; warmUp < 2; warmUp++) {
+            partial = 0;
+            unavailable = 0;
+            for (int q = 0; q < queries.size(); q++) {
+                long start = System.nanoTime();
+                try {
+                    if (cluster.rankedSearch(queries.get(q), 10, 0.5, 0).failedNodes() > 0) {
+                        partial++;
+                    }
+                }
+                catch (ClusterUnavailableException e) {
+                    unavailable++;
+                }
+                latencies[q] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%-26s p50 %7.2f ms, p99 %7.2f ms, p99.9 %7.2f ms, %d partial, %d unavailable%n", label + ":",
+                latencies[latencies.length / 2] / 1e6, latencies[(int) (latencies.length * 0.99)] / 1e6,
+                latencies[(int) (latencies.length * 0.999)] / 1e6, partial, unavailable);
+    }
+
+    public static void main(String[] args) throws IOException {
+        // DevTools would otherwise restart main() in a new class loader and run everything twice
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        // Otherwise the proxies' responses wait on Nagle's algorithm and delayed ACKs
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        var random = new Random(42);
+        List<String> vocabulary = new ArrayList<>(VOCABULARY);
+        for (int i = 0; i < VOCABULARY; i++) {
+            vocabulary.add(word(random));
+        }
+
+        ExecutorService proxyExecutor = Executors.newCachedThreadPool();
+        HttpClient proxyClient = HttpClient.newHttpClient();
+        try (ConfigurableApplicationContext first = startNode(); ConfigurableApplicationContext second = startNode()) {
+            for (int i = 1; i <= DOCUMENTS; i++) {
+                StringBuilder content = new StringBuilder();
+                for (int t = 20 + random.nextInt(80); t > 0; t--) {
+                    content.append(vocabulary.get((int) (VOCABULARY * Math.pow(random.nextDouble(), 3)))).append(' ');
+                }
+                (i % 2 == 0 ? first : second).getBean(DocumentService.class).indexDocument(i, content.toString());
+            }
+            List<String> queries = new ArrayList<>(QUERIES);
+            for (int q = 0; q < QUERIES; q++) {
+                queries.add(vocabulary.get(random.nextInt(VOCABULARY)) + " "
+                        + vocabulary.get((int) (VOCABULARY * Math.pow(random.nextDouble(), 3))));
+            }
+
+            HttpServer firstProxy = stallingProxy(url(first), proxyClient, proxyExecutor);
+            HttpServer secondProxy = stallingProxy(url(second), proxyClient, proxyExecutor);
+            List<List<URI>> nodes = List.of(
+                    List.of(URI.create("http://localhost:" + firstProxy.getAddress().getPort()), url(first)),
+                    List.of(URI.create("http://localhost:" + secondProxy.getAddress().getPort()), url(second)));
+            var jsonMapper = JsonMapper.builder().build();
+
+            System.out.println("=== CLUSTER SEARCH (" + DOCUMENTS + " docs over 2 nodes, " + QUERIES
+                    + " BM25 queries, top 10; " + (int) (STALL_PROBABILITY * 100) + "% of proxied calls stall "
+                    + STALL_MILLIS + " ms) ===");
+            try (var direct = new ClusterSearchService(List.of(List.of(url(first))), Duration.ofSeconds(1), Duration.ZERO, jsonMapper);
+                 var unhedged = new ClusterSearchService(nodes, Duration.ofSeconds(1), Duration.ZERO, jsonMapper);
+                 var hedged = new ClusterSearchService(nodes, Duration.ofSeconds(1), Duration.ofMillis(20), jsonMapper);
+                 var tight = new ClusterSearchService(nodes, Duration.ofMillis(50), Duration.ZERO, jsonMapper)) {
+                measure("One node, direct", queries, direct);
+                measure("Two nodes, no hedging", queries, unhedged);
+                measure("Two nodes, hedge 20 ms", queries, hedged);
+                measure("Two nodes, timeout 50 ms", queries, tight);
+            }
+            System.out.println("==============================\n");
+            firstProxy.stop(0);
+            secondProxy.stop(0);
+        }
+        finally {
+            proxyExecutor.shutdownNow();
+            proxyClient.shutdownNow();
+        }
+    }
+}
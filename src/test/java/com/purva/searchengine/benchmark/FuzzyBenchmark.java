@@ -0,0 +1,195 @@
+package com.purva.searchengine.benchmark;
+
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.search.Bm25Scorer;
+import com.purva.searchengine.service.SearchService;
+import com.purva.searchengine.service.SuggestionService;
+import com.purva.searchengine.tokenizer.Tokenizer;
+import com.purva.searchengine.trie.SuggestionIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * Standalone benchmark for typo-tolerant query expansion.
+ * * Misspelled tokens, made by one or two random edits of vocabulary words, are expanded
+ * against a 1M-term {@link SuggestionIndex} by walking it with a Levenshtein automaton, and by
+ * computing the edit distance to every term, skipping only terms whose length alone rules them
+ * out. Both must find the same terms. The second part runs whole fuzzy queries through
+ * {@link SearchService} against an index of short documents.
+ */
+public class FuzzyBenchmark {
+    private static final int TERMS = 1_000_000;
+    private static final int QUERIES = 2_000;
+    private static final int SCAN_QUERIES = 100;
+    private static final int DOCUMENTS = 100_000;
+    private static final int DOCUMENT_VOCABULARY = 20_000;
+
+    private static String word(Random random, int minLength, int maxLength) {
+        char[] chars = new char[minLength + random.nextInt(maxLength - minLength + 1)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    private static String misspell(Random random, String word, int edits) {
+        StringBuilder typo = new StringBuilder(word);
+        for (int e = 0; e < edits; e++) {
+            int position = random.nextInt(typo.length());
+            char c = (char) ('a' + random.nextInt(26));
+            switch (random.nextInt(3)) {
+                case 0 -> typo.setCharAt(position, c);
+                case 1 -> typo.insert(position, c);
+                default -> typo.deleteCharAt(position);
+            }
+        }
+        return typo.toString();
+    }
+
+    private static int editDistance(String a, String b, int[] previous, int[] current) {
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static long[] measure(List<String> queries, ToIntFunction<String> expansion, long[] matches) {
+        long[] latencies = new long[queries.size()];
+        for (int warmUp = 0; warmUp < 2; warmUp++) {
+            for (int q = 0; q < queries.size(); q++) {
+                long start = System.nanoTime();
+                matches[q] = expansion.applyAsInt(queries.get(q));
+                latencies[q] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static void printLatencies(String label, long[] latencies) {
+        System.out.printf("%-20s p50 %9.2f µs, p99 %9.2f µs%n", label + ":",
+                latencies[latencies.length / 2] / 1e3, latencies[(int) (latencies.length * 0.99)] / 1e3);
+    }
+
+    private static void measureExpansion(List<String> vocabulary, SuggestionIndex index, int maxEdits) {
+        var random = new Random(maxEdits);
+        List<String> queries = new ArrayList<>();
+        while (queries.size() < QUERIES) {
+            String word = vocabulary.get(random.nextInt(TERMS));
+            if (word.length() >= 6) {
+                queries.add(misspell(random, word, maxEdits));
+            }
+        }
+
+        long[] automatonMatches = new long[QUERIES];
+        long[] automaton = measure(queries, query -> {
+            int[] count = new int[1];
+            index.forEachFuzzyMatch(query, maxEdits, (term, distance, frequency) -> count[0]++);
+            return count[0];
+        }, automatonMatches);
+
+        int[] previous = new int[64];
+        int[] current = new int[64];
+        long[] scanMatches = new long[SCAN_QUERIES];
+        long[] scan = measure(queries.subList(0, SCAN_QUERIES), query -> {
+            int count = 0;
+            for (String term : vocabulary) {
+                if (Math.abs(term.length() - query.length()) <= maxEdits
+                        && editDistance(query, term, previous, current) <= maxEdits) {
+                    count++;
+                }
+            }
+            return count;
+        }, scanMatches);
+        for (int q = 0; q < SCAN_QUERIES; q++) {
+            if (automatonMatches[q] != scanMatches[q]) {
+                throw new IllegalStateException("Expansions differ for " + queries.get(q));
+            }
+        }
+
+        System.out.println("=== EXPANSION, " + maxEdits + " EDIT" + (maxEdits > 1 ? "S" : "") + " (" + TERMS + " terms) ===");
+        printLatencies("Brute-force Scan", scan);
+        printLatencies("Automaton Walk", automaton);
+        System.out.printf("Matches per Token:   %.1f%n", Arrays.stream(automatonMatches).average().orElse(0));
+        System.out.println("==============================\n");
+    }
+
+    private static void measureQueries() throws InterruptedException {
+        var random = new Random(42);
+        Set<String> vocabularySet = new LinkedHashSet<>();
+        while (vocabularySet.size() < DOCUMENT_VOCABULARY) {
+            vocabularySet.add(word(random, 6, 10));
+        }
+        List<String> vocabulary = List.copyOf(vocabularySet);
+
+        var tokenizer = new Tokenizer();
+        var invertedIndex = new InvertedIndex();
+        for (int i = 1; i <= DOCUMENTS; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int t = 10 + random.nextInt(40); t > 0; t--) {
+                text.append(vocabulary.get((int) (DOCUMENT_VOCABULARY * Math.pow(random.nextDouble(), 3)))).append(' ');
+            }
+            invertedIndex.index(i, tokenizer.tokenize(text.toString()));
+        }
+        invertedIndex.flush();
+        invertedIndex.awaitMerges();
+
+        var suggestionService = new SuggestionService(invertedIndex);
+        var searchService = new SearchService(tokenizer, invertedIndex, new Bm25Scorer(),
+                SearchService.Options.DEFAULTS.withVocabulary(suggestionService, SearchService.DEFAULT_MAX_EXPANSIONS));
+        List<String> exact = new ArrayList<>();
+        List<String> misspelled = new ArrayList<>();
+        for (int q = 0; q < QUERIES; q++) {
+            String first = vocabulary.get(random.nextInt(DOCUMENT_VOCABULARY));
+            String second = vocabulary.get(random.nextInt(DOCUMENT_VOCABULARY));
+            exact.add(first + " " + second);
+            misspelled.add(misspell(random, first, 1) + " " + misspell(random, second, 1));
+        }
+
+        long[] hits = new long[QUERIES];
+        System.out.println("=== RANKED QUERIES (" + DOCUMENTS + " docs, top 10, threshold 0.5) ===");
+        printLatencies("Exact, fuzziness 0", measure(exact, query -> searchService.rankedSearch(query, 10, 0.5).size(), hits));
+        printLatencies("Exact, fuzziness 2", measure(exact, query -> searchService.rankedSearch(query, 10, 0.5, 2).size(), hits));
+        printLatencies("Typos, fuzziness 0", measure(misspelled, query -> searchService.rankedSearch(query, 10, 0.5).size(), hits));
+        System.out.printf("  queries with hits: %d / %d%n", Arrays.stream(hits).filter(h -> h > 0).count(), QUERIES);
+        printLatencies("Typos, fuzziness 2", measure(misspelled, query -> searchService.rankedSearch(query, 10, 0.5, 2).size(), hits));
+        System.out.printf("  queries with hits: %d / %d%n", Arrays.stream(hits).filter(h -> h > 0).count(), QUERIES);
+        System.out.println("==============================\n");
+        suggestionService.close();
+        invertedIndex.close();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        var random = new Random(42);
+        Set<String> vocabularySet = new LinkedHashSet<>();
+        while (vocabularySet.size() < TERMS) {
+            vocabularySet.add(word(random, 3, 10));
+        }
+        List<String> vocabulary = List.copyOf(vocabularySet);
+        var builder = new SuggestionIndex.Builder();
+        for (int rank = 0; rank < TERMS; rank++) {
+            builder.add(vocabulary.get(rank), Math.max(1, TERMS / (rank + 1)));
+        }
+        SuggestionIndex index = builder.build(SuggestionService.MAX_SUGGESTIONS);
+
+        measureExpansion(vocabulary, index, 1);
+        measureExpansion(vocabulary, index, 2);
+        measureQueries();
+    }
+}
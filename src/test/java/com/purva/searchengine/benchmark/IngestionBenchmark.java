@@ -0,0 +1,112 @@
+package com.purva.searchengine.benchmark;
+
+import com.purva.searchengine.InMemorySearchEngineApplication;
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.index.TokenizedDocument;
+import com.purva.searchengine.tokenizer.Tokenizer;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Standalone benchmark for ingestion throughput in documents per second.
+ * * Compares one HTTP request per document ({@code POST /api/documents}) with NDJSON
+ * streamed to {@code POST /api/documents/bulk}, against the application started on a
+ * random local port. A library-level run isolates the index itself: one
+ * {@code InvertedIndex.index} call per document against {@code indexAll} batches.
+ */
+public class IngestionBenchmark {
+    private static final int SINGLE_DOCUMENTS = 10_000;
+    private static final int BULK_DOCUMENTS = 200_000;
+    private static final int LIBRARY_DOCUMENTS = 200_000;
+    private static final int LIBRARY_BATCH_SIZE = 4096;
+
+    private static String content(Random random) {
+        StringBuilder content = new StringBuilder();
+        for (int word = 20 + random.nextInt(40); word > 0; word--) {
+            content.append("word").append((int) (5000 * Math.pow(random.nextDouble(), 3))).append(' ');
+        }
+        return content.toString();
+    }
+
+    private static void report(String title, int documents, long elapsedNanos) {
+        System.out.println("=== " + title + " ===");
+        System.out.printf("Documents:       %d%n", documents);
+        System.out.printf("Elapsed:         %.2f s%n", elapsedNanos / 1e9);
+        System.out.printf("Throughput:      %.0f docs/sec%n", documents / (elapsedNanos / 1e9));
+        System.out.println("==============================\n");
+    }
+
+    private static void measureHttp(String baseUrl) throws IOException, InterruptedException {
+        var random = new Random(42);
+        HttpClient client = HttpClient.newHttpClient();
+
+        long start = System.nanoTime();
+        for (int docId = 1; docId <= SINGLE_DOCUMENTS; docId++) {
+            String json = "{\"documentId\": " + docId + ", \"content\": \"" + content(random) + "\"}";
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/documents"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .build();
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+        report("HTTP SINGLE-DOCUMENT INGESTION", SINGLE_DOCUMENTS, System.nanoTime() - start);
+
+        StringBuilder ndjson = new StringBuilder();
+        for (int docId = 1; docId <= BULK_DOCUMENTS; docId++) {
+            ndjson.append("{\"documentId\": ").append(1_000_000 + docId)
+                    .append(", \"content\": \"").append(content(random)).append("\"}\n");
+        }
+        start = System.nanoTime();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/documents/bulk"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(ndjson.toString()))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        report("HTTP BULK NDJSON INGESTION (status " + response.statusCode() + ")", BULK_DOCUMENTS, System.nanoTime() - start);
+    }
+
+    private static void measureLibrary() throws InterruptedException {
+        var random = new Random(7);
+        var tokenizer = new Tokenizer();
+        List<TokenizedDocument> documents = new ArrayList<>(LIBRARY_DOCUMENTS);
+        for (int docId = 1; docId <= LIBRARY_DOCUMENTS; docId++) {
+            documents.add(new TokenizedDocument(docId, tokenizer.tokenize(content(random))));
+        }
+
+        try (var invertedIndex = new InvertedIndex()) {
+            long start = System.nanoTime();
+            for (TokenizedDocument document : documents) {
+                invertedIndex.index(document.documentId(), document.tokens());
+            }
+            report("LIBRARY index() PER DOCUMENT", LIBRARY_DOCUMENTS, System.nanoTime() - start);
+        }
+
+        try (var invertedIndex = new InvertedIndex()) {
+            long start = System.nanoTime();
+            for (int from = 0; from < documents.size(); from += LIBRARY_BATCH_SIZE) {
+                invertedIndex.indexAll(documents.subList(from, Math.min(documents.size(), from + LIBRARY_BATCH_SIZE)));
+            }
+            report("LIBRARY indexAll() BATCHES OF " + LIBRARY_BATCH_SIZE, LIBRARY_DOCUMENTS, System.nanoTime() - start);
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        // DevTools would otherwise restart main() in a new class loader and run everything twice
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        measureLibrary();
+
+        try (ConfigurableApplicationContext context = SpringApplication.run(InMemorySearchEngineApplication.class,
+                "--server.port=0", "--spring.main.banner-mode=off", "--logging.level.root=WARN")) {
+            measureHttp("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.purva.searchengine.benchmark;
+
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.search.Bm25Scorer;
+import com.purva.searchengine.service.SearchService;
+import com.purva.searchengine.tokenizer.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Standalone benchmark for search and indexing tail latency under a mixed workload.
+ * * Writer threads index continuously while a reader thread issues ranked searches,
+ * which exposes any stall readers suffer while documents are written, sealed or merged.
+ */
+public class MixedWorkloadBenchmark {
+    private static final int WRITER_THREADS = 2;
+    private static final int DOCUMENTS_PER_WRITER = 20000;
+    private static final int SEARCHES = 1000;
+
+    private static void analysis(String title, List<Long> latencies) {
+        Collections.sort(latencies);
+        double avgMicros = latencies.stream().mapToLong(Long::longValue).average().orElse(0.0) / 1000.0;
+
+        System.out.println("=== " + title + " ===");
+        System.out.printf("Operations:      %d%n", latencies.size());
+        System.out.printf("Average Latency: %.2f µs%n", avgMicros);
+        System.out.printf("P99 Latency:     %.2f µs%n", latencies.get((int) (latencies.size() * 0.99)) / 1000.0);
+        System.out.printf("P99.9 Latency:   %.2f µs%n", latencies.get((int) (latencies.size() * 0.999)) / 1000.0);
+        System.out.printf("Max Latency:     %.2f µs%n", latencies.getLast() / 1000.0);
+        System.out.println("==============================\n");
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        var tokenizer = new Tokenizer();
+        var invertedIndex = new InvertedIndex();
+        var searchService = new SearchService(tokenizer, invertedIndex, new Bm25Scorer());
+
+        for (int i = 1; i <= 20000; i++) {
+            invertedIndex.index(i, List.of("java", "search", "engine", "test" + (i % 10)));
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<List<Long>> writeLatencies = new ArrayList<>();
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < WRITER_THREADS; w++) {
+            final int writerIndex = w;
+            List<Long> latencies = new ArrayList<>();
+            writeLatencies.add(latencies);
+            Thread writer = new Thread(() -> {
+                int docId = 1_000_000 * (writerIndex + 1);
+                int lastDocId = docId + DOCUMENTS_PER_WRITER;
+                while (running.get() && docId < lastDocId) {
+                    List<String> tokens = List.of("java", "search", "engine", "test" + (docId % 10), "w" + (docId % 1000));
+                    long start = System.nanoTime();
+                    invertedIndex.index(docId++, tokens);
+                    latencies.add(System.nanoTime() - start);
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+
+        String[] queries = {"java", "search engine", "engine test5", "test3"};
+        List<Long> searchLatencies = new ArrayList<>(SEARCHES);
+        long blackHole = 0;
+        for (int i = 0; i < SEARCHES; i++) {
+            long start = System.nanoTime();
+            blackHole += searchService.rankedSearch(queries[i % queries.length], 10, 0.75).size();
+            searchLatencies.add(System.nanoTime() - start);
+        }
+
+        running.set(false);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        List<Long> allWrites = new ArrayList<>();
+        writeLatencies.forEach(allWrites::addAll);
+        analysis("MIXED WORKLOAD: INDEXING", allWrites);
+        analysis("MIXED WORKLOAD: BM25 RANKED SEARCH", searchLatencies);
+        System.out.println("Segments: " + invertedIndex.getSegmentCount() + ", DCE Checksum: " + blackHole);
+    }
+}
@@ -0,0 +1,106 @@
+package com.purva.searchengine.benchmark;
+
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.search.Bm25Scorer;
+import com.purva.searchengine.service.SearchResult;
+import com.purva.searchengine.service.SearchService;
+import com.purva.searchengine.tokenizer.Tokenizer;
+
+import java.util.*;
+
+/**
+ * Standalone benchmark for the ranking impact of one-byte document length norms.
+ * * The engine scores with quantized lengths; this benchmark keeps the exact lengths and term
+ * frequencies of the query terms on the side, ranks the same queries with exact-length BM25
+ * by brute force and compares the two top-K lists. Document lengths are log-uniform between
+ * 5 and 2000 tokens so that most of them fall in the quantized range.
+ */
+public class NormQuantizationBenchmark {
+    private static final int DOCUMENTS = 20_000;
+    private static final int VOCABULARY = 2_000;
+    private static final int QUERIES = 300;
+    private static final int TOP_K = 10;
+    private static final double K1 = 1.5;
+    private static final double B = 0.75;
+
+    public static void main(String[] args) throws InterruptedException {
+        var random = new Random(42);
+        List<List<String>> queries = new ArrayList<>();
+        Set<String> queryTerms = new HashSet<>();
+        for (int q = 0; q < QUERIES; q++) {
+            List<String> query = new ArrayList<>();
+            for (int i = 1 + random.nextInt(3); i > 0; i--) {
+                query.add(term(random));
+            }
+            queries.add(query);
+            queryTerms.addAll(query);
+        }
+
+        var invertedIndex = new InvertedIndex();
+        int[] exactLengths = new int[DOCUMENTS + 1];
+        Map<String, Map<Integer, Integer>> exactPostings = new HashMap<>();
+        long totalLength = 0;
+        for (int docId = 1; docId <= DOCUMENTS; docId++) {
+            int length = (int) Math.round(5 * Math.pow(400, random.nextDouble()));
+            List<String> tokens = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                String term = term(random);
+                tokens.add(term);
+                if (queryTerms.contains(term)) {
+                    exactPostings.computeIfAbsent(term, k -> new HashMap<>()).merge(docId, 1, Integer::sum);
+                }
+            }
+            invertedIndex.index(docId, tokens);
+            exactLengths[docId] = length;
+            totalLength += length;
+        }
+        invertedIndex.flush();
+        invertedIndex.awaitMerges();
+        double exactAverageLength = (double) totalLength / DOCUMENTS;
+
+        var searchService = new SearchService(new Tokenizer(), invertedIndex, new Bm25Scorer());
+        int overlap = 0;
+        int identical = 0;
+        for (List<String> query : queries) {
+            List<Integer> expected = exactTopK(query, exactPostings, exactLengths, exactAverageLength);
+            List<Integer> actual = searchService.rankedSearch(String.join(" ", query), TOP_K, 0.1).stream()
+                    .map(SearchResult::documentId)
+                    .toList();
+            overlap += (int) actual.stream().filter(expected::contains).count();
+            identical += actual.equals(expected) ? 1 : 0;
+        }
+
+        System.out.println("=== DOCUMENT NORM QUANTIZATION (" + DOCUMENTS + " docs, top-" + TOP_K + ") ===");
+        System.out.printf("Exact avgdl:            %.2f%n", exactAverageLength);
+        System.out.printf("Quantized avgdl:        %.2f%n", invertedIndex.getAverageDocumentLength());
+        System.out.printf("Mean Overlap@%d:        %.2f%%%n", TOP_K, 100.0 * overlap / (QUERIES * TOP_K));
+        System.out.printf("Identical Rankings:     %.2f%%%n", 100.0 * identical / QUERIES);
+        System.out.println("Length Bytes per Doc:   1 (was 4 as int[], ~50 as HashMap<Integer,Integer>)");
+        System.out.println("==============================\n");
+        invertedIndex.close();
+    }
+
+    private static String term(Random random) {
+        return "t" + (int) (VOCABULARY * Math.pow(random.nextDouble(), 2));
+    }
+
+    private static List<Integer> exactTopK(List<String> query, Map<String, Map<Integer, Integer>> postings,
+                                           int[] lengths, double averageLength) {
+        Map<Integer, Double> scores = new HashMap<>();
+        for (String term : query) {
+            Map<Integer, Integer> termPostings = postings.getOrDefault(term, Map.of());
+            double documentFrequency = termPostings.size();
+            double idf = Math.log((DOCUMENTS - documentFrequency + 0.5) / (documentFrequency + 0.5) + 1);
+            for (Map.Entry<Integer, Integer> posting : termPostings.entrySet()) {
+                int termFrequency = posting.getValue();
+                double norm = K1 * (1 - B + B * (lengths[posting.getKey()] / averageLength));
+                scores.merge(posting.getKey(), idf * ((K1 + 1) * termFrequency) / (norm + termFrequency), Double::sum);
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(TOP_K)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+}
@@ -0,0 +1,108 @@
+package com.purva.searchengine.benchmark;
+
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.index.SegmentStorage;
+import com.purva.searchengine.index.TokenizedDocument;
+import com.purva.searchengine.search.Bm25Scorer;
+import com.purva.searchengine.service.SearchService;
+import com.purva.searchengine.tokenizer.Tokenizer;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Standalone benchmark comparing {@link SegmentStorage#HEAP} and {@link SegmentStorage#OFF_HEAP}
+ * on live heap size, GC time and ranked query latency.
+ * * Each storage mode runs in its own JVM with the same heap and direct memory limits, so
+ * GC statistics are not shared between them. The full GC pause is timed with an explicit
+ * {@code System.gc()} once the index is built; its cost grows with the live heap that has
+ * to be marked and compacted.
+ */
+public class OffHeapBenchmark {
+    private static final int DOCUMENTS = 2_000_000;
+    private static final int BATCH_SIZE = 4096;
+    private static final int QUERIES = 2_000;
+    private static final String[] JVM_OPTIONS = {"-Xmx3g", "-XX:MaxDirectMemorySize=3g", "-XX:+UseG1GC"};
+
+    private static List<String> tokens(Random random) {
+        List<String> tokens = new ArrayList<>();
+        for (int word = 20 + random.nextInt(40); word > 0; word--) {
+            tokens.add("word" + (int) (5000 * Math.pow(random.nextDouble(), 3)));
+        }
+        return tokens;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += collector.getCollectionTime();
+        }
+        return millis;
+    }
+
+    private static void run(SegmentStorage storage) throws InterruptedException {
+        var random = new Random(42);
+        try (var invertedIndex = new InvertedIndex(InvertedIndex.DEFAULT_FLUSH_THRESHOLD,
+                InvertedIndex.DEFAULT_SEGMENTS_PER_TIER, storage)) {
+            long start = System.nanoTime();
+            for (int from = 1; from <= DOCUMENTS; from += BATCH_SIZE) {
+                List<TokenizedDocument> batch = new ArrayList<>(BATCH_SIZE);
+                for (int docId = from; docId < Math.min(DOCUMENTS + 1, from + BATCH_SIZE); docId++) {
+                    batch.add(new TokenizedDocument(docId, tokens(random)));
+                }
+                invertedIndex.indexAll(batch);
+            }
+            invertedIndex.flush();
+            invertedIndex.awaitMerges();
+            long indexingNanos = System.nanoTime() - start;
+            long indexingGcMillis = gcMillis();
+
+            long gcStart = System.nanoTime();
+            System.gc();
+            long fullGcNanos = System.nanoTime() - gcStart;
+            long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+
+            var searchService = new SearchService(new Tokenizer(), invertedIndex, new Bm25Scorer());
+            long[] latencies = new long[QUERIES];
+            long queryGcStart = gcMillis();
+            for (int warmUp = 0; warmUp < 2; warmUp++) {
+                for (int q = 0; q < QUERIES; q++) {
+                    String query = "word" + random.nextInt(50) + " word" + random.nextInt(500) + " word" + random.nextInt(5000);
+                    long begin = System.nanoTime();
+                    searchService.rankedSearch(query, 10, 0.1);
+                    latencies[q] = System.nanoTime() - begin;
+                }
+            }
+            Arrays.sort(latencies);
+
+            System.out.println("=== " + storage + " SEGMENTS (" + DOCUMENTS + " docs, " + String.join(" ", JVM_OPTIONS) + ") ===");
+            System.out.printf("Indexing:            %.1f s (GC %d ms)%n", indexingNanos / 1e9, indexingGcMillis);
+            System.out.printf("Live Heap:           %.1f MB%n", heapUsed / 1e6);
+            System.out.printf("Off-Heap Segments:   %.1f MB%n", invertedIndex.getOffHeapSizeInBytes() / 1e6);
+            System.out.printf("Full GC Pause:       %.1f ms%n", fullGcNanos / 1e6);
+            System.out.printf("Query GC Time:       %d ms%n", gcMillis() - queryGcStart);
+            System.out.printf("p50 Query Latency:   %.1f µs%n", latencies[QUERIES / 2] / 1e3);
+            System.out.printf("p99 Query Latency:   %.1f µs%n", latencies[(int) (QUERIES * 0.99)] / 1e3);
+            System.out.println("==============================\n");
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 1) {
+            run(SegmentStorage.valueOf(args[0]));
+            return;
+        }
+        String java = ProcessHandle.current().info().command().orElse("java");
+        for (SegmentStorage storage : SegmentStorage.values()) {
+            List<String> command = new ArrayList<>(List.of(java));
+            command.addAll(List.of(JVM_OPTIONS));
+            command.addAll(List.of("-cp", System.getProperty("java.class.path"), OffHeapBenchmark.class.getName(), storage.name()));
+            new ProcessBuilder(command).inheritIO().start().waitFor();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.purva.searchengine.benchmark;
+
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.search.Bm25Scorer;
+import com.purva.searchengine.service.SearchService;
+import com.purva.searchengine.tokenizer.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * Standalone benchmark for positional postings and phrase queries.
+ * * Reports how many bytes the position streams add on top of the doc/freq postings, then runs
+ * the same two-token queries as a plain conjunction, an exact phrase and a sloppy phrase. The
+ * token pairs are taken from adjacent words of indexed documents, so every phrase has at least
+ * one match and most candidates of the conjunction still have to be verified.
+ */
+public class PhraseBenchmark {
+    private static final int DOCUMENTS = 200_000;
+    private static final int VOCABULARY = 20_000;
+    private static final int QUERIES = 2_000;
+
+    private static String word(Random random) {
+        char[] chars = new char[6 + random.nextInt(5)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    private static long[] measure(List<String> queries, ToIntFunction<String> search, long[] hits) {
+        long[] latencies = new long[queries.size()];
+        for (int warmUp = 0; warmUp < 3; warmUp++) {
+            for (int q = 0; q < queries.size(); q++) {
+                long start = System.nanoTime();
+                hits[q] = search.applyAsInt(queries.get(q));
+                latencies[q] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static void printLatencies(String label, long[] latencies, long[] hits) {
+        System.out.printf("%-20s p50 %9.2f µs, p99 %9.2f µs, %8.1f hits/query%n", label + ":",
+                latencies[latencies.length / 2] / 1e3, latencies[(int) (latencies.length * 0.99)] / 1e3,
+                Arrays.stream(hits).average().orElse(0));
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        var random = new Random(42);
+        Set<String> vocabularySet = new LinkedHashSet<>();
+        while (vocabularySet.size() < VOCABULARY) {
+            vocabularySet.add(word(random));
+        }
+        List<String> vocabulary = List.copyOf(vocabularySet);
+
+        var tokenizer = new Tokenizer();
+        var invertedIndex = new InvertedIndex();
+        List<String> pairs = new ArrayList<>();
+        long tokens = 0;
+        long start = System.nanoTime();
+        for (int i = 1; i <= DOCUMENTS; i++) {
+            String[] words = new String[20 + random.nextInt(180)];
+            for (int t = 0; t < words.length; t++) {
+                words[t] = vocabulary.get((int) (VOCABULARY * Math.pow(random.nextDouble(), 3)));
+            }
+            if (pairs.size() < QUERIES && i % (DOCUMENTS / QUERIES) == 0) {
+                int t = random.nextInt(words.length - 1);
+                pairs.add(words[t] + " " + words[t + 1]);
+            }
+            tokens += words.length;
+            invertedIndex.index(i, tokenizer.tokenize(String.join(" ", words)));
+        }
+        invertedIndex.flush();
+        invertedIndex.awaitMerges();
+        long indexMillis = (System.nanoTime() - start) / 1_000_000;
+
+        long postingsBytes = invertedIndex.getPostingsSizeInBytes();
+        long positionsBytes = invertedIndex.getPositionsSizeInBytes();
+        System.out.println("=== POSITIONAL POSTINGS (" + DOCUMENTS + " docs, " + tokens + " tokens) ===");
+        System.out.printf("Index Time:          %d ms%n", indexMillis);
+        System.out.printf("Doc/Freq Postings:   %.1f MB%n", postingsBytes / 1e6);
+        System.out.printf("Position Streams:    %.1f MB (%.2f bytes/token, +%.0f%%)%n", positionsBytes / 1e6,
+                (double) positionsBytes / tokens, 100.0 * positionsBytes / postingsBytes);
+        System.out.println("==============================\n");
+
+        var searchService = new SearchService(tokenizer, invertedIndex, new Bm25Scorer());
+        List<String> exact = pairs.stream().map(pair -> "\"" + pair + "\"").toList();
+        List<String> sloppy = pairs.stream().map(pair -> "\"" + pair + "\"~3").toList();
+
+        long[] hits = new long[pairs.size()];
+        System.out.println("=== BOOLEAN QUERIES (" + pairs.size() + " two-token queries, threshold 1.0) ===");
+        printLatencies("AND, no phrase", measure(pairs, query -> searchService.search(query, 1.0).size(), hits), hits);
+        printLatencies("Exact Phrase", measure(exact, query -> searchService.search(query, 1.0).size(), hits), hits);
+        printLatencies("Phrase, slop 3", measure(sloppy, query -> searchService.search(query, 1.0).size(), hits), hits);
+        System.out.println("==============================\n");
+
+        System.out.println("=== RANKED QUERIES (top 10) ===");
+        printLatencies("AND, no phrase", measure(pairs, query -> searchService.rankedSearch(query, 10, 1.0).size(), hits), hits);
+        printLatencies("Exact Phrase", measure(exact, query -> searchService.rankedSearch(query, 10, 1.0).size(), hits), hits);
+        printLatencies("Phrase, slop 3", measure(sloppy, query -> searchService.rankedSearch(query, 10, 1.0).size(), hits), hits);
+        System.out.println("==============================\n");
+        invertedIndex.close();
+    }
+}
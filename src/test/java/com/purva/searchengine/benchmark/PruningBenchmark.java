@@ -0,0 +1,112 @@
+package com.purva.searchengine.benchmark;
+
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.search.Bm25Scorer;
+import com.purva.searchengine.service.SearchService;
+import com.purva.searchengine.tokenizer.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Standalone benchmark comparing exhaustive ranked search with Block-Max WAND pruning.
+ * * Latency is reported for a grid of topK values and query lengths over synthetic corpora
+ * whose terms follow a Zipf distribution, so a few terms appear in most documents.
+ */
+public class PruningBenchmark {
+    private static final int DOCUMENTS = 100_000;
+    private static final int VOCABULARY = 5_000;
+    private static final int QUERIES = 200;
+    private static final int[] TOP_KS = {10, 100, 1000};
+    private static final int[] QUERY_LENGTHS = {1, 2, 3, 5};
+    private static final double[] ZIPF_EXPONENTS = {0.8, 1.1};
+
+    /** Samples term ranks with probability proportional to {@code 1 / rank^exponent}. */
+    private static final class ZipfTerms {
+        private final double[] cumulative = new double[VOCABULARY];
+
+        private ZipfTerms(double exponent) {
+            double sum = 0;
+            for (int rank = 0; rank < VOCABULARY; rank++) {
+                sum += 1 / Math.pow(rank + 1, exponent);
+                cumulative[rank] = sum;
+            }
+            for (int rank = 0; rank < VOCABULARY; rank++) {
+                cumulative[rank] /= sum;
+            }
+        }
+
+        private String next(Random random) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+            return "t" + (rank >= 0 ? rank : -rank - 1);
+        }
+    }
+
+    private static double averageMicros(SearchService searchService, List<String> queries, int topK) {
+        long blackHole = 0;
+        long start = System.nanoTime();
+        for (String query : queries) {
+            blackHole += searchService.rankedSearch(query, topK, 0.1).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (blackHole < 0) {
+            System.out.println(blackHole);
+        }
+        return elapsed / 1000.0 / queries.size();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        for (double exponent : ZIPF_EXPONENTS) {
+            run(exponent);
+        }
+    }
+
+    private static void run(double exponent) throws InterruptedException {
+        var random = new Random(42);
+        var terms = new ZipfTerms(exponent);
+        var tokenizer = new Tokenizer();
+        var invertedIndex = new InvertedIndex();
+        var exhaustive = new SearchService(tokenizer, invertedIndex, new Bm25Scorer(),
+                SearchService.Options.DEFAULTS.withDynamicPruning(false));
+        var pruned = new SearchService(tokenizer, invertedIndex, new Bm25Scorer());
+
+        for (int docId = 1; docId <= DOCUMENTS; docId++) {
+            List<String> tokens = new ArrayList<>();
+            int length = 10 + random.nextInt(90);
+            for (int i = 0; i < length; i++) {
+                tokens.add(terms.next(random));
+            }
+            invertedIndex.index(docId, tokens);
+        }
+        invertedIndex.flush();
+        invertedIndex.awaitMerges();
+
+        System.out.println("=== Block-Max WAND vs Exhaustive (" + DOCUMENTS + " docs, Zipf s=" + exponent + ") ===");
+        System.out.printf("%-6s %-8s %15s %15s %9s%n", "topK", "terms", "exhaustive µs", "bmw µs", "speedup");
+        for (int queryLength : QUERY_LENGTHS) {
+            List<String> queries = new ArrayList<>(QUERIES);
+            for (int q = 0; q < QUERIES; q++) {
+                StringBuilder query = new StringBuilder();
+                for (int i = 0; i < queryLength; i++) {
+                    query.append(terms.next(random)).append(' ');
+                }
+                queries.add(query.toString());
+            }
+
+            for (int topK : TOP_KS) {
+                // Warm-up pass so both paths are compiled before measuring
+                averageMicros(exhaustive, queries, topK);
+                averageMicros(pruned, queries, topK);
+
+                double exhaustiveMicros = averageMicros(exhaustive, queries, topK);
+                double prunedMicros = averageMicros(pruned, queries, topK);
+                System.out.printf("%-6d %-8d %15.2f %15.2f %8.2fx%n",
+                        topK, queryLength, exhaustiveMicros, prunedMicros, exhaustiveMicros / prunedMicros);
+            }
+        }
+        System.out.println("==============================\n");
+        invertedIndex.close();
+    }
+}
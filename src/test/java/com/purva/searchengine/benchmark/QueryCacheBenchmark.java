@@ -0,0 +1,108 @@
+package com.purva.searchengine.benchmark;
+
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.search.Bm25Scorer;
+import com.purva.searchengine.service.QueryResultCache;
+import com.purva.searchengine.service.SearchService;
+import com.purva.searchengine.tokenizer.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Standalone benchmark for the query result cache under a skewed query stream.
+ * * Queries are drawn from a Zipf distribution over a fixed pool of distinct queries, so a
+ * small head of popular queries makes up a large share of the volume. Each workload is run
+ * without writes and with one document indexed every {@link #WRITE_INTERVAL} queries, which
+ * invalidates every cached result and shows how much of the benefit survives ingestion.
+ */
+public class QueryCacheBenchmark {
+    private static final int DOCUMENTS = 100_000;
+    private static final int VOCABULARY = 5_000;
+    private static final int DISTINCT_QUERIES = 10_000;
+    private static final int QUERIES = 50_000;
+    private static final int WRITE_INTERVAL = 1_000;
+    private static final double QUERY_SKEW = 0.95;
+
+    private static void measure(String title, SearchService searchService, InvertedIndex invertedIndex,
+                                String[] queryPool, int[] stream, boolean withWrites) {
+        var random = new Random(7);
+        long[] latencies = new long[stream.length];
+        long blackHole = 0;
+        int docId = DOCUMENTS;
+        for (int i = 0; i < stream.length; i++) {
+            if (withWrites && i % WRITE_INTERVAL == 0) {
+                invertedIndex.index(++docId, List.of(word(random), word(random), word(random)));
+            }
+            long start = System.nanoTime();
+            blackHole += searchService.rankedSearch(queryPool[stream[i]], 10, 0.5).size();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+
+        System.out.println("=== " + title + " ===");
+        System.out.printf("Average Latency:    %.2f µs%n", Arrays.stream(latencies).average().orElse(0) / 1000.0);
+        System.out.printf("P50 Latency:        %.2f µs%n", latencies[latencies.length / 2] / 1000.0);
+        System.out.printf("P99 Latency:        %.2f µs%n", latencies[(int) (latencies.length * 0.99)] / 1000.0);
+        QueryResultCache.Stats stats = searchService.cacheStats();
+        if (stats != null) {
+            System.out.printf("Hit Rate:           %.2f%%%n", stats.hitRate() * 100);
+            System.out.printf("Cache Memory:       %d KB in %d entries%n", stats.usedBytes() / 1024, stats.entries());
+        }
+        System.out.println("DCE Checksum:       " + blackHole);
+        System.out.println("==============================\n");
+    }
+
+    private static String word(Random random) {
+        return "w" + (int) (VOCABULARY * Math.pow(random.nextDouble(), 3));
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        var random = new Random(42);
+        var invertedIndex = new InvertedIndex();
+        for (int i = 1; i <= DOCUMENTS; i++) {
+            List<String> tokens = new ArrayList<>();
+            for (int t = 10 + random.nextInt(40); t > 0; t--) {
+                tokens.add(word(random));
+            }
+            invertedIndex.index(i, tokens);
+        }
+        invertedIndex.flush();
+        invertedIndex.awaitMerges();
+
+        String[] queryPool = new String[DISTINCT_QUERIES];
+        for (int q = 0; q < DISTINCT_QUERIES; q++) {
+            queryPool[q] = word(random) + " " + word(random) + " " + word(random);
+        }
+
+        // Zipf sampling by inverse CDF over the query pool ranks
+        double[] cumulative = new double[DISTINCT_QUERIES];
+        double total = 0;
+        for (int rank = 0; rank < DISTINCT_QUERIES; rank++) {
+            total += 1 / Math.pow(rank + 1, QUERY_SKEW);
+            cumulative[rank] = total;
+        }
+        int[] stream = new int[QUERIES];
+        int head = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            stream[i] = rank < 0 ? -rank - 1 : rank;
+            head += stream[i] < DISTINCT_QUERIES / 100 ? 1 : 0;
+        }
+        System.out.printf("Top 1%% of queries:  %.1f%% of volume%n%n", 100.0 * head / QUERIES);
+
+        var tokenizer = new Tokenizer();
+        var bm25 = new Bm25Scorer();
+        measure("NO CACHE", new SearchService(tokenizer, invertedIndex, bm25), invertedIndex, queryPool, stream, false);
+        measure("CACHE (16 MB)", new SearchService(tokenizer, invertedIndex, bm25,
+                        SearchService.Options.DEFAULTS.withResultCache(new QueryResultCache(16 << 20))),
+                invertedIndex, queryPool, stream, false);
+        measure("NO CACHE + WRITES", new SearchService(tokenizer, invertedIndex, bm25), invertedIndex, queryPool, stream, true);
+        measure("CACHE (16 MB) + WRITES", new SearchService(tokenizer, invertedIndex, bm25,
+                        SearchService.Options.DEFAULTS.withResultCache(new QueryResultCache(16 << 20))),
+                invertedIndex, queryPool, stream, true);
+        invertedIndex.close();
+    }
+}
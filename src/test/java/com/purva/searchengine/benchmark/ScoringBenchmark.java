@@ -0,0 +1,71 @@
+package com.purva.searchengine.benchmark;
+
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.search.Bm25Scorer;
+import com.purva.searchengine.search.Scorer;
+import com.purva.searchengine.search.TfIdfScorer;
+import com.purva.searchengine.service.SearchService;
+import com.purva.searchengine.tokenizer.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Standalone benchmark for the cost of scoring one candidate posting.
+ * * Ranked queries run through the exhaustive path (no pruning), so every posting of every
+ * query term is scored; dividing the query time by the number of postings scored gives the
+ * per-candidate cost of the scoring SPI, including any per-call statistics lookups.
+ */
+public class ScoringBenchmark {
+    private static final int DOCUMENTS = 100_000;
+    private static final int QUERIES = 300;
+    private static final String[] QUERY_STRINGS = {"java", "search engine", "java search engine"};
+
+    private static void measure(String title, Scorer scorer, InvertedIndex invertedIndex) {
+        var searchService = new SearchService(new Tokenizer(), invertedIndex, scorer,
+                SearchService.Options.DEFAULTS.withDynamicPruning(false));
+        long scoredPerRound = 0;
+        for (String query : QUERY_STRINGS) {
+            for (String token : query.split(" ")) {
+                scoredPerRound += invertedIndex.getDocumentFrequency(token);
+            }
+        }
+
+        for (int i = 0; i < QUERIES; i++) {
+            searchService.rankedSearch(QUERY_STRINGS[i % QUERY_STRINGS.length], 10, 0.1);
+        }
+
+        long blackHole = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            blackHole += searchService.rankedSearch(QUERY_STRINGS[i % QUERY_STRINGS.length], 10, 0.1).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        double scored = (double) scoredPerRound * QUERIES / QUERY_STRINGS.length;
+
+        System.out.println("=== " + title + " ===");
+        System.out.printf("Average Latency:      %.2f µs%n", elapsed / 1000.0 / QUERIES);
+        System.out.printf("Cost per Candidate:   %.1f ns%n", elapsed / scored);
+        System.out.println("DCE Checksum:         " + blackHole);
+        System.out.println("==============================\n");
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        var random = new Random(42);
+        var invertedIndex = new InvertedIndex();
+        for (int i = 1; i <= DOCUMENTS; i++) {
+            List<String> tokens = new ArrayList<>(List.of("java", "search", "engine"));
+            for (int filler = random.nextInt(20); filler > 0; filler--) {
+                tokens.add("filler" + random.nextInt(1000));
+            }
+            invertedIndex.index(i, tokens);
+        }
+        invertedIndex.flush();
+        invertedIndex.awaitMerges();
+
+        measure("TF-IDF EXHAUSTIVE SCORING", new TfIdfScorer(), invertedIndex);
+        measure("BM25 EXHAUSTIVE SCORING", new Bm25Scorer(), invertedIndex);
+        invertedIndex.close();
+    }
+}
@@ -0,0 +1,126 @@
+package com.purva.searchengine.benchmark;
+
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.index.ShardedIndex;
+import com.purva.searchengine.index.TokenizedDocument;
+import com.purva.searchengine.search.Bm25Scorer;
+import com.purva.searchengine.service.SearchService;
+import com.purva.searchengine.tokenizer.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Standalone benchmark for doc-id sharding with scatter-gather search.
+ * * Indexes the same Zipf-like corpus into 1, 2, 4, ... shards, up to the number of cores, and
+ * for each shard count measures single-client ranked query latency, where only the fan-out to
+ * the shards can use more than one core, and throughput with one client per core, where the
+ * fan-out competes with the other clients for the same cores.
+ */
+public class ShardingBenchmark {
+    private static final int DOCUMENTS = 200_000;
+    private static final int VOCABULARY = 20_000;
+    private static final int QUERIES = 2_000;
+    private static final long THROUGHPUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private static String word(Random random) {
+        char[] chars = new char[6 + random.nextInt(5)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    private static String randomWord(Random random, List<String> vocabulary) {
+        return vocabulary.get((int) (VOCABULARY * Math.pow(random.nextDouble(), 3)));
+    }
+
+    public static void main(String[] args) throws Exception {
+        var random = new Random(42);
+        Set<String> vocabularySet = new LinkedHashSet<>();
+        while (vocabularySet.size() < VOCABULARY) {
+            vocabularySet.add(word(random));
+        }
+        List<String> vocabulary = List.copyOf(vocabularySet);
+
+        var tokenizer = new Tokenizer();
+        List<TokenizedDocument> documents = new ArrayList<>(DOCUMENTS);
+        for (int i = 1; i <= DOCUMENTS; i++) {
+            String[] words = new String[20 + random.nextInt(180)];
+            for (int t = 0; t < words.length; t++) {
+                words[t] = randomWord(random, vocabulary);
+            }
+            documents.add(new TokenizedDocument(i, tokenizer.tokenize(String.join(" ", words))));
+        }
+        List<String> queries = new ArrayList<>(QUERIES);
+        for (int q = 0; q < QUERIES; q++) {
+            StringBuilder query = new StringBuilder();
+            int length = 2 + random.nextInt(3);
+            for (int t = 0; t < length; t++) {
+                query.append(randomWord(random, vocabulary)).append(' ');
+            }
+            queries.add(query.toString());
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("=== SHARDED SEARCH (" + DOCUMENTS + " docs, " + QUERIES
+                + " BM25 queries, top 10, threshold 0.5, " + cores + " cores) ===");
+        // At least four shards, so machines with few cores still show what the fan-out costs
+        int maxShards = Math.max(cores, 4);
+        for (int shards = 1; shards <= maxShards; shards = shards < maxShards ? Math.min(shards * 2, maxShards) : shards + 1) {
+            try (var index = ShardedIndex.create(shards, i -> new InvertedIndex())) {
+                long start = System.nanoTime();
+                for (int from = 0; from < DOCUMENTS; from += 10_000) {
+                    index.indexAll(documents.subList(from, Math.min(from + 10_000, DOCUMENTS)));
+                }
+                index.flush();
+                index.awaitMerges();
+                long indexMillis = (System.nanoTime() - start) / 1_000_000;
+
+                var searchService = new SearchService(tokenizer, index, new Bm25Scorer(), SearchService.Options.DEFAULTS);
+                long[] latencies = new long[queries.size()];
+                for (int warmUp = 0; warmUp < 3; warmUp++) {
+                    for (int q = 0; q < queries.size(); q++) {
+                        long queryStart = System.nanoTime();
+                        searchService.rankedSearch(queries.get(q), 10, 0.5);
+                        latencies[q] = System.nanoTime() - queryStart;
+                    }
+                }
+                Arrays.sort(latencies);
+
+                AtomicInteger completed = new AtomicInteger();
+                ExecutorService clients = Executors.newFixedThreadPool(cores);
+                List<Future<?>> futures = new ArrayList<>();
+                long deadline = System.nanoTime() + THROUGHPUT_NANOS;
+                for (int c = 0; c < cores; c++) {
+                    int offset = c * (QUERIES / cores);
+                    futures.add(clients.submit(() -> {
+                        for (int q = offset; System.nanoTime() < deadline; q++) {
+                            searchService.rankedSearch(queries.get(q % QUERIES), 10, 0.5);
+                            completed.incrementAndGet();
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                clients.shutdown();
+
+                System.out.printf("%2d shard(s): index %6d ms, p50 %8.1f µs, p99 %8.1f µs, %8.0f queries/s%n",
+                        shards, indexMillis, latencies[latencies.length / 2] / 1e3,
+                        latencies[(int) (latencies.length * 0.99)] / 1e3,
+                        completed.get() / (THROUGHPUT_NANOS / 1e9));
+            }
+        }
+        System.out.println("==============================\n");
+    }
+}
@@ -0,0 +1,92 @@
+package com.purva.searchengine.benchmark;
+
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.index.TokenizedDocument;
+import com.purva.searchengine.search.Bm25Scorer;
+import com.purva.searchengine.service.SearchService;
+import com.purva.searchengine.tokenizer.Tokenizer;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Standalone benchmark for restart time: rebuilding the index from raw text against opening
+ * a saved snapshot.
+ * * Both paths end with the first ranked query answered, since a mapped snapshot defers the
+ * reading of postings to the queries that need them. Heap usage is measured after a full GC,
+ * with the rebuilt index released before the snapshot is opened.
+ */
+public class SnapshotBenchmark {
+    private static final int DOCUMENTS = 500_000;
+    private static final int BATCH_SIZE = 4096;
+    private static final String QUERY = "word1 word20 word300";
+
+    private static String content(Random random) {
+        StringBuilder content = new StringBuilder();
+        for (int word = 20 + random.nextInt(40); word > 0; word--) {
+            content.append("word").append((int) (5000 * Math.pow(random.nextDouble(), 3))).append(' ');
+        }
+        return content.toString();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static void report(String title, long elapsedNanos, long heapBytes) {
+        System.out.println("=== " + title + " ===");
+        System.out.printf("Time to First Query: %.2f s%n", elapsedNanos / 1e9);
+        System.out.printf("Heap Used:           %.1f MB%n", heapBytes / 1e6);
+        System.out.println("==============================\n");
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        var random = new Random(42);
+        List<String> contents = new ArrayList<>(DOCUMENTS);
+        for (int docId = 1; docId <= DOCUMENTS; docId++) {
+            contents.add(content(random));
+        }
+        var tokenizer = new Tokenizer();
+        Path file = Files.createTempFile("index", ".snapshot");
+        long baseline = usedHeap();
+
+        long start = System.nanoTime();
+        try (var invertedIndex = new InvertedIndex()) {
+            for (int from = 0; from < DOCUMENTS; from += BATCH_SIZE) {
+                List<TokenizedDocument> batch = new ArrayList<>(BATCH_SIZE);
+                for (int docId = from + 1; docId <= Math.min(DOCUMENTS, from + BATCH_SIZE); docId++) {
+                    batch.add(new TokenizedDocument(docId, tokenizer.tokenize(contents.get(docId - 1))));
+                }
+                invertedIndex.indexAll(batch);
+            }
+            invertedIndex.flush();
+            invertedIndex.awaitMerges();
+            new SearchService(tokenizer, invertedIndex, new Bm25Scorer()).rankedSearch(QUERY, 10, 0.1);
+            report("REBUILD FROM TEXT (" + DOCUMENTS + " docs)", System.nanoTime() - start, usedHeap() - baseline);
+
+            start = System.nanoTime();
+            invertedIndex.save(file);
+            System.out.printf("Save Time:           %.2f s%n", (System.nanoTime() - start) / 1e9);
+            System.out.printf("Snapshot Size:       %.1f MB%n%n", Files.size(file) / 1e6);
+        }
+
+        start = System.nanoTime();
+        try (var invertedIndex = InvertedIndex.open(file)) {
+            new SearchService(tokenizer, invertedIndex, new Bm25Scorer()).rankedSearch(QUERY, 10, 0.1);
+            report("OPEN MAPPED SNAPSHOT (" + invertedIndex.getTotalDocuments() + " docs)",
+                    System.nanoTime() - start, usedHeap() - baseline);
+        }
+        Files.delete(file);
+        // The raw text is part of the baseline, so it must not be collected before the last measurement
+        Reference.reachabilityFence(contents);
+    }
+}
@@ -0,0 +1,116 @@
+package com.purva.searchengine.benchmark;
+
+import com.purva.searchengine.trie.SuggestionIndex;
+import com.purva.searchengine.trie.Trie;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Standalone benchmark for autocomplete memory and latency.
+ * * A trie without per-node caches answers every lookup with a DFS of the prefix's subtree, as
+ * the original implementation did; the cached trie reads the top 10 off the prefix node, and
+ * the compact {@link SuggestionIndex} looks them up by prefix or ranks a short range of its
+ * sorted terms. Word frequencies follow a Zipf-like curve and prefixes of 1 to 5 characters
+ * are cut from random vocabulary words, so popular prefixes with large subtrees come up most
+ * often.
+ */
+public class SuggestBenchmark {
+    private static final int TERMS = 1_000_000;
+    private static final int QUERIES = 5_000;
+    private static final int K = 10;
+
+    private static String word(Random random, int minLength, int maxLength) {
+        char[] chars = new char[minLength + random.nextInt(maxLength - minLength + 1)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static void measure(String title, List<String> vocabulary, int cachedSuggestions) {
+        long baseline = usedHeap();
+        var trie = new Trie(cachedSuggestions, 1);
+        long start = System.nanoTime();
+        for (int rank = 0; rank < vocabulary.size(); rank++) {
+            trie.insert(vocabulary.get(rank), frequency(rank));
+        }
+        report(title, System.nanoTime() - start, usedHeap() - baseline, vocabulary, trie::getTopKSuggestions);
+        Reference.reachabilityFence(trie);
+    }
+
+    private static void measureCompact(List<String> vocabulary) {
+        long baseline = usedHeap();
+        long start = System.nanoTime();
+        SuggestionIndex index = buildCompact(vocabulary);
+        report("COMPACT SUGGESTION INDEX", System.nanoTime() - start, usedHeap() - baseline, vocabulary, index::topK);
+        System.out.println("Precomputed prefixes: " + index.precomputedPrefixes() + "\n");
+        Reference.reachabilityFence(index);
+    }
+
+    /** Builds in its own frame so the builder's entries are garbage when the heap is measured. */
+    private static SuggestionIndex buildCompact(List<String> vocabulary) {
+        var builder = new SuggestionIndex.Builder();
+        for (int rank = 0; rank < vocabulary.size(); rank++) {
+            builder.add(vocabulary.get(rank), frequency(rank));
+        }
+        return builder.build(K);
+    }
+
+    private static int frequency(int rank) {
+        return Math.max(1, TERMS / (rank + 1));
+    }
+
+    private static void report(String title, long buildNanos, long heap, List<String> vocabulary,
+                               BiFunction<String, Integer, List<String>> suggester) {
+        System.out.println("=== " + title + " (" + TERMS + " terms) ===");
+        System.out.printf("Build:               %.0f ms%n", buildNanos / 1e6);
+        System.out.printf("Heap:                %.1f MB%n", heap / 1e6);
+        for (int length = 1; length <= 5; length++) {
+            var random = new Random(length);
+            long[] latencies = new long[QUERIES];
+            for (int warmUp = 0; warmUp < 2; warmUp++) {
+                for (int q = 0; q < QUERIES; q++) {
+                    String word = vocabulary.get(random.nextInt(TERMS));
+                    String prefix = word.substring(0, Math.min(length, word.length()));
+                    long begin = System.nanoTime();
+                    List<String> suggestions = suggester.apply(prefix, K);
+                    latencies[q] = System.nanoTime() - begin;
+                    if (suggestions.isEmpty()) {
+                        throw new IllegalStateException("No suggestions for " + prefix);
+                    }
+                }
+            }
+            Arrays.sort(latencies);
+            System.out.printf("%d-char Prefix:       p50 %.2f µs, p99 %.2f µs%n", length,
+                    latencies[QUERIES / 2] / 1e3, latencies[(int) (QUERIES * 0.99)] / 1e3);
+        }
+        System.out.println("==============================\n");
+    }
+
+    public static void main(String[] args) {
+        var random = new Random(42);
+        Set<String> vocabularySet = new LinkedHashSet<>();
+        while (vocabularySet.size() < TERMS) {
+            vocabularySet.add(word(random, 3, 10));
+        }
+        List<String> vocabulary = List.copyOf(vocabularySet);
+
+        measure("DFS PER LOOKUP (original)", vocabulary, 0);
+        measure("CACHED TOP-" + K + " PER NODE", vocabulary, K);
+        measureCompact(vocabulary);
+    }
+}
@@ -0,0 +1,151 @@
+package com.purva.searchengine.benchmark;
+
+import com.purva.searchengine.index.IndexSnapshot;
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.index.TokenizedDocument;
+import com.purva.searchengine.search.Bm25Scorer;
+import com.purva.searchengine.service.SearchService;
+import com.purva.searchengine.tokenizer.Tokenizer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Standalone benchmark for term dictionary memory and term lookup throughput.
+ * * The vocabulary is large and mostly rare, as in an index over names, identifiers or
+ * misspellings, so the dictionary rather than the postings dominates the heap. A String-keyed
+ * hash map over the same vocabulary is measured alongside as the reference point. Lookups use
+ * fresh String copies so each one hashes or encodes its key, as a query token does, and half
+ * of them miss.
+ */
+public class TermDictionaryBenchmark {
+    private static final int TERMS = 1_000_000;
+    private static final int DOCUMENTS = 250_000;
+    private static final int TERMS_PER_DOCUMENT = 20;
+    private static final int BATCH_SIZE = 4096;
+    private static final int LOOKUPS = 1_000_000;
+    private static final int QUERIES = 20_000;
+    private static final int ROUNDS = 5;
+
+    private static String word(Random random, int minLength, int maxLength) {
+        char[] chars = new char[minLength + random.nextInt(maxLength - minLength + 1)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /** Best lookups per second over several rounds, each on fresh copies of the keys. */
+    private static double lookupsPerSecond(String[] keys, Predicate<String> lookup) {
+        long best = Long.MAX_VALUE;
+        int found = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            String[] copies = new String[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                copies[i] = new String(keys[i].toCharArray());
+            }
+            found = 0;
+            long start = System.nanoTime();
+            for (String key : copies) {
+                if (lookup.test(key)) {
+                    found++;
+                }
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        if (found != keys.length / 2) {
+            throw new IllegalStateException("Expected " + keys.length / 2 + " hits, found " + found);
+        }
+        return keys.length / (best / 1e9);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        var random = new Random(42);
+        Set<String> vocabularySet = new LinkedHashSet<>();
+        while (vocabularySet.size() < TERMS) {
+            vocabularySet.add(word(random, 3, 10));
+        }
+        List<String> vocabulary = List.copyOf(vocabularySet);
+        String[] keys = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            // Absent keys are longer than any vocabulary term
+            keys[i] = i % 2 == 0 ? vocabulary.get(random.nextInt(TERMS)) : word(random, 11, 12);
+        }
+        long baseline = usedHeap();
+
+        Map<String, Object> hashMap = new HashMap<>();
+        Object postings = new Object();
+        for (String term : vocabulary) {
+            hashMap.put(new String(term.toCharArray()), postings);
+        }
+        long hashMapHeap = usedHeap() - baseline;
+        double hashMapLookups = lookupsPerSecond(keys, key -> hashMap.get(key) != null);
+        System.out.println("=== STRING-KEYED HASH MAP (" + TERMS + " terms, no postings) ===");
+        System.out.printf("Heap:                %.1f MB (%.1f bytes/term)%n", hashMapHeap / 1e6, (double) hashMapHeap / TERMS);
+        System.out.printf("Lookups:             %.2f M/sec%n", hashMapLookups / 1e6);
+        System.out.println("==============================\n");
+        hashMap.clear();
+        baseline = usedHeap();
+
+        try (var invertedIndex = new InvertedIndex()) {
+            for (int from = 1; from <= DOCUMENTS; from += BATCH_SIZE) {
+                List<TokenizedDocument> batch = new ArrayList<>(BATCH_SIZE);
+                for (int docId = from; docId < Math.min(DOCUMENTS + 1, from + BATCH_SIZE); docId++) {
+                    List<String> tokens = new ArrayList<>(TERMS_PER_DOCUMENT);
+                    for (int i = 0; i < TERMS_PER_DOCUMENT; i++) {
+                        // Every term occurs at least once; the rest are drawn at random
+                        int term = i < 4 ? ((docId - 1) * 4 + i) % TERMS : random.nextInt(TERMS);
+                        tokens.add(new String(vocabulary.get(term).toCharArray()));
+                    }
+                    batch.add(new TokenizedDocument(docId, tokens));
+                }
+                invertedIndex.indexAll(batch);
+            }
+            invertedIndex.flush();
+            invertedIndex.awaitMerges();
+            long indexHeap = usedHeap() - baseline;
+
+            IndexSnapshot snapshot = invertedIndex.snapshot();
+            double indexLookups = lookupsPerSecond(keys, key -> snapshot.docFreq(key) > 0);
+
+            var searchService = new SearchService(new Tokenizer(), invertedIndex, new Bm25Scorer());
+            long[] latencies = new long[QUERIES];
+            for (int warmUp = 0; warmUp < 2; warmUp++) {
+                for (int q = 0; q < QUERIES; q++) {
+                    String query = keys[random.nextInt(LOOKUPS)] + " " + vocabulary.get(random.nextInt(TERMS))
+                            + " " + vocabulary.get(random.nextInt(TERMS));
+                    long begin = System.nanoTime();
+                    searchService.rankedSearch(query, 10, 0.1);
+                    latencies[q] = System.nanoTime() - begin;
+                }
+            }
+            Arrays.sort(latencies);
+
+            System.out.println("=== INDEX (" + DOCUMENTS + " docs, " + invertedIndex.getSegmentCount() + " segments) ===");
+            System.out.printf("Live Heap:           %.1f MB%n", indexHeap / 1e6);
+            System.out.printf("Term Dictionaries:   %.1f MB (%.1f bytes/term)%n",
+                    invertedIndex.getTermDictionarySizeInBytes() / 1e6, (double) invertedIndex.getTermDictionarySizeInBytes() / TERMS);
+            System.out.printf("docFreq Lookups:     %.2f M/sec%n", indexLookups / 1e6);
+            System.out.printf("p50 Query Latency:   %.1f µs%n", latencies[QUERIES / 2] / 1e3);
+            System.out.printf("p99 Query Latency:   %.1f µs%n", latencies[(int) (QUERIES * 0.99)] / 1e3);
+            System.out.println("==============================\n");
+        }
+        Reference.reachabilityFence(vocabulary);
+    }
+}
@@ -0,0 +1,82 @@
+package com.purva.searchengine.benchmark;
+
+import com.purva.searchengine.tokenizer.RegexTokenizer;
+import com.purva.searchengine.tokenizer.Tokenizer;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToIntFunction;
+
+/**
+ * Standalone benchmark for tokenizer throughput and allocation.
+ * * Compares the original regex-based tokenizer with the single-pass scanner, both returning
+ * a list and streaming tokens to a callback. The corpus is English-like text with
+ * capitalization, punctuation, hyphens, technical tokens and stemmable suffixes.
+ */
+public class TokenizerBenchmark {
+    private static final int DOCUMENTS = 20_000;
+    private static final int ROUNDS = 5;
+    private static final String[] WORDS = {
+            "the", "search", "engine", "indexes", "running", "stories", "and", "boxes", "with", "Java", "C++",
+            "node.js", "C#", "state-of-the-art", "analysis", "queries", "is", "a", "distributed", "systems",
+            "latency", "throughput", "caching", "version", "8", "2024", "Postings", "compression", "it", "for"
+    };
+    private static final String[] PUNCTUATION = {" ", " ", " ", " ", ", ", ". ", "! ", " (", ") ", "\n"};
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static void measure(String title, List<String> corpus, long corpusChars, ToIntFunction<String> tokenizer) {
+        long threadId = Thread.currentThread().threadId();
+        long tokens = 0;
+        long elapsed = Long.MAX_VALUE;
+        long allocated = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long startBytes = THREADS.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            tokens = 0;
+            for (String document : corpus) {
+                tokens += tokenizer.applyAsInt(document);
+            }
+            elapsed = Math.min(elapsed, System.nanoTime() - start);
+            allocated = THREADS.getThreadAllocatedBytes(threadId) - startBytes;
+        }
+
+        System.out.println("=== " + title + " ===");
+        System.out.printf("Throughput:          %.1f M chars/sec%n", corpusChars / (elapsed / 1e9) / 1e6);
+        System.out.printf("Tokens per Second:   %.2f M%n", tokens / (elapsed / 1e9) / 1e6);
+        System.out.printf("Allocated per Token: %.1f bytes%n", (double) allocated / tokens);
+        System.out.println("==============================\n");
+    }
+
+    public static void main(String[] args) {
+        var random = new Random(42);
+        List<String> corpus = new ArrayList<>(DOCUMENTS);
+        long corpusChars = 0;
+        for (int i = 0; i < DOCUMENTS; i++) {
+            StringBuilder document = new StringBuilder();
+            for (int word = 50 + random.nextInt(150); word > 0; word--) {
+                document.append(WORDS[random.nextInt(WORDS.length)]).append(PUNCTUATION[random.nextInt(PUNCTUATION.length)]);
+            }
+            corpus.add(document.toString());
+            corpusChars += document.length();
+        }
+
+        var regexTokenizer = new RegexTokenizer();
+        var tokenizer = new Tokenizer();
+        int[] count = new int[1];
+        for (int warmUp = 0; warmUp < 2; warmUp++) {
+            measure("WARM-UP", corpus.subList(0, 2000), corpusChars / 10, document -> regexTokenizer.tokenize(document).size());
+            measure("WARM-UP", corpus.subList(0, 2000), corpusChars / 10, document -> tokenizer.tokenize(document).size());
+        }
+
+        measure("REGEX TOKENIZER (original)", corpus, corpusChars, document -> regexTokenizer.tokenize(document).size());
+        measure("SCANNER, tokenize(String) -> List", corpus, corpusChars, document -> tokenizer.tokenize(document).size());
+        measure("SCANNER, tokenize(String, Consumer)", corpus, corpusChars, document -> {
+            count[0] = 0;
+            tokenizer.tokenize(document, token -> count[0]++);
+            return count[0];
+        });
+    }
+}
@@ -0,0 +1,244 @@
+package com.purva.searchengine.benchmark;
+
+import com.purva.searchengine.InMemorySearchEngineApplication;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Standalone benchmark for serving requests on virtual threads.
+ * * Starts the engine in a separate JVM, once on Tomcat's platform worker threads and once with
+ * {@code spring.threads.virtual.enabled}, each with two shards and a write-ahead log acknowledged
+ * after fsync. After bulk-loading a random corpus, 1k to 10k concurrent clients each keep a
+ * connection open and send ranked searches, with one document write in ten, pausing between
+ * requests so that all clients together offer a fixed request rate. That rate is below what
+ * the machine can serve, so the runs differ in how many connections and requests are in flight
+ * rather than in the load. Throughput and latency are measured over a fixed window after a
+ * warm-up, by which time every client has connected, and an unreported first run warms up each
+ * engine after its bulk load.
+ */
+public class VirtualThreadBenchmark {
+    private static final int DOCUMENTS = 50_000;
+    private static final int VOCABULARY = 5_000;
+    private static final int[] CLIENTS = {1_000, 5_000, 10_000};
+    private static final double WRITE_SHARE = 0.1;
+    /** Requests per second offered by all clients together. */
+    private static final int OFFERED_RATE = 250;
+    private static final Duration WARM_UP = Duration.ofSeconds(10);
+    private static final Duration MEASURED = Duration.ofSeconds(30);
+
+    private static String word(Random random) {
+        char[] chars = new char[5 + random.nextInt(5)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    private static String text(List<String> vocabulary, Random random, int length) {
+        StringBuilder content = new StringBuilder();
+        for (int t = length; t > 0; t--) {
+            content.append(vocabulary.get((int) (VOCABULARY * Math.pow(random.nextDouble(), 3)))).append(' ');
+        }
+        return content.toString();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static Process startNode(int port, boolean virtualThreads, Path walDirectory) throws IOException {
+        return new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xmx1g", "-Dspring.devtools.restart.enabled=false",
+                "-cp", System.getProperty("java.class.path"), InMemorySearchEngineApplication.class.getName(),
+                "--server.port=" + port, "--spring.main.banner-mode=off", "--logging.level.root=WARN",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--server.tomcat.max-connections=20000", "--server.tomcat.accept-count=10000",
+                // Keeps idle clients connected through their pauses
+                "--server.tomcat.keep-alive-timeout=5m", "--server.tomcat.max-keep-alive-requests=-1",
+                "--search.index.shards=2", "--search.cache.max-bytes=0",
+                "--search.wal.directory=" + walDirectory, "--search.wal.durability=fsync")
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+    }
+
+    private static void awaitStarted(Process node, HttpClient client, URI base) throws InterruptedException {
+        while (true) {
+            if (!node.isAlive()) {
+                throw new IllegalStateException("Engine exited with status " + node.exitValue());
+            }
+            try {
+                client.send(HttpRequest.newBuilder(base.resolve("/api/search?query=warmup")).build(),
+                        HttpResponse.BodyHandlers.discarding());
+                return;
+            }
+            catch (IOException e) {
+                Thread.sleep(200);
+            }
+        }
+    }
+
+    private static void bulkLoad(HttpClient client, URI base, List<String> vocabulary, Random random)
+            throws IOException, InterruptedException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 1; i <= DOCUMENTS; i++) {
+            body.append("{\"documentId\":").append(i).append(",\"content\":\"")
+                    .append(text(vocabulary, random, 20 + random.nextInt(80))).append("\"}\n");
+        }
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(base.resolve("/api/documents/bulk"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Bulk load answered " + response.statusCode());
+        }
+    }
+
+    /** One client's loop; returns the latencies of requests started inside the measured window. */
+    private static long[] client(HttpClient client, URI base, List<String> vocabulary, int clientId, int clients,
+                                 long pauseNanos, long measureFrom, long deadline, int[] errors) throws InterruptedException {
+        long[] latencies = new long[64];
+        int count = 0;
+        // Clients write interleaved new document ids above the corpus
+        int nextDocumentId = DOCUMENTS + 1 + clientId;
+        // Clients start spread over one pause, so requests arrive at a steady rate from the start
+        Thread.sleep(Duration.ofNanos(ThreadLocalRandom.current().nextLong(pauseNanos)));
+        while (System.nanoTime() < deadline) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            HttpRequest request;
+            if (random.nextDouble() < WRITE_SHARE) {
+                String content = vocabulary.get(random.nextInt(VOCABULARY)) + " " + vocabulary.get(random.nextInt(VOCABULARY));
+                request = HttpRequest.newBuilder(base.resolve("/api/documents"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"documentId\":" + nextDocumentId + ",\"content\":\"" + content + "\"}"))
+                        .timeout(Duration.ofSeconds(30))
+                        .build();
+                nextDocumentId += clients;
+            }
+            else {
+                String query = vocabulary.get(random.nextInt(VOCABULARY)) + " "
+                        + vocabulary.get((int) (VOCABULARY * Math.pow(random.nextDouble(), 3)));
+                request = HttpRequest.newBuilder(base.resolve("/api/search?topK=10&threshold=0.5&query="
+                                + URLEncoder.encode(query, StandardCharsets.UTF_8)))
+                        .timeout(Duration.ofSeconds(30))
+                        .build();
+            }
+            long start = System.nanoTime();
+            boolean failed;
+            try {
+                failed = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() >= 300;
+            }
+            catch (IOException e) {
+                failed = true;
+            }
+            long latency = System.nanoTime() - start;
+            if (start >= measureFrom && failed) {
+                errors[0]++;
+            }
+            else if (start >= measureFrom) {
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = latency;
+            }
+            Thread.sleep(Duration.ofNanos(Math.max(0, random.nextLong(2 * pauseNanos) - latency)));
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    /** Runs {@code clients} clients and returns their formatted throughput and latency. */
+    private static String measure(String label, HttpClient client, URI base, List<String> vocabulary, int clients)
+            throws InterruptedException, ExecutionException {
+        long pauseNanos = Duration.ofSeconds(clients).toNanos() / OFFERED_RATE;
+        long measureFrom = System.nanoTime() + Math.max(WARM_UP.toNanos(), pauseNanos);
+        long deadline = measureFrom + MEASURED.toNanos();
+        List<Future<long[]>> results = new ArrayList<>(clients);
+        List<int[]> errors = new ArrayList<>(clients);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int clientId = c;
+                int[] clientErrors = new int[1];
+                errors.add(clientErrors);
+                results.add(executor.submit(() -> client(client, base, vocabulary, clientId, clients, pauseNanos,
+                        measureFrom, deadline, clientErrors)));
+            }
+        }
+        long[] latencies = new long[0];
+        for (Future<long[]> result : results) {
+            long[] clientLatencies = result.get();
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + clientLatencies.length);
+            System.arraycopy(clientLatencies, 0, latencies, offset, clientLatencies.length);
+        }
+        Arrays.sort(latencies);
+        int failed = errors.stream().mapToInt(e -> e[0]).sum();
+        if (latencies.length == 0) {
+            return String.format("%-34s no request completed, %d errors", label + ":", failed);
+        }
+        return String.format("%-34s %8.0f req/s, p50 %8.2f ms, p99 %8.2f ms, p99.9 %8.2f ms, %d errors", label + ":",
+                latencies.length / (MEASURED.toNanos() / 1e9), latencies[latencies.length / 2] / 1e6,
+                latencies[(int) (latencies.length * 0.99)] / 1e6, latencies[(int) (latencies.length * 0.999)] / 1e6, failed);
+    }
+
+    public static void main(String[] args) throws Exception {
+        var random = new Random(42);
+        List<String> vocabulary = new ArrayList<>(VOCABULARY);
+        for (int i = 0; i < VOCABULARY; i++) {
+            vocabulary.add(word(random));
+        }
+
+        System.out.println("=== CONCURRENT CLIENTS (" + DOCUMENTS + " docs, 2 shards, ranked top-10 searches, "
+                + (int) (WRITE_SHARE * 100) + "% fsync'd writes; " + OFFERED_RATE + " req/s offered, "
+                + MEASURED.toSeconds() + " s per run) ===");
+        for (boolean virtualThreads : new boolean[] {false, true}) {
+            int port = freePort();
+            URI base = URI.create("http://localhost:" + port);
+            Path walDirectory = Files.createTempDirectory("vt-benchmark-wal");
+            Process node = startNode(port, virtualThreads, walDirectory);
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            try {
+                awaitStarted(node, client, base);
+                bulkLoad(client, base, vocabulary, new Random(7));
+                // Unreported: warms up the JIT and lets the merges the bulk load started finish
+                measure("Warm-up", client, base, vocabulary, CLIENTS[0]);
+                for (int clients : CLIENTS) {
+                    System.out.println(measure((virtualThreads ? "Virtual threads, " : "Platform threads, ")
+                            + clients + " clients", client, base, vocabulary, clients));
+                }
+            }
+            finally {
+                client.shutdownNow();
+                node.destroy();
+                node.waitFor();
+                try (var files = Files.walk(walDirectory)) {
+                    files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+                }
+            }
+        }
+        System.out.println("==============================\n");
+    }
+}
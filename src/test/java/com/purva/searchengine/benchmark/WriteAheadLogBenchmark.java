@@ -0,0 +1,97 @@
+package com.purva.searchengine.benchmark;
+
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.service.DocumentService;
+import com.purva.searchengine.service.WriteAheadLog;
+import com.purva.searchengine.tokenizer.Tokenizer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Standalone benchmark for {@code DocumentService.indexDocument} under each write-ahead log
+ * durability mode, against no log at all.
+ * * Writers run on their own threads and index single documents back to back, so FSYNC
+ * mode shows how many concurrent writers one group-committed fsync covers. Latency is the
+ * time each call takes, including its wait for the fsync.
+ */
+public class WriteAheadLogBenchmark {
+    private static final int DOCUMENTS = 20_000;
+    private static final int WRITERS = 8;
+
+    private static String content(Random random) {
+        StringBuilder content = new StringBuilder();
+        for (int word = 20 + random.nextInt(40); word > 0; word--) {
+            content.append("word").append((int) (5000 * Math.pow(random.nextDouble(), 3))).append(' ');
+        }
+        return content.toString();
+    }
+
+    private static void measure(String title, WriteAheadLog.Durability durability, int writers, List<String> contents)
+            throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("wal");
+        long[] latencies = new long[contents.size()];
+        long elapsed;
+        try (var invertedIndex = new InvertedIndex();
+             WriteAheadLog log = durability == null ? null : new WriteAheadLog(directory, durability, Duration.ofMillis(100))) {
+            if (log != null) {
+                log.start();
+            }
+            var documentService = new DocumentService(new Tokenizer(), invertedIndex,
+                    DocumentService.Options.NONE.withWriteAheadLog(log));
+            List<Thread> threads = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int writer = 0; writer < writers; writer++) {
+                int first = writer;
+                threads.add(Thread.ofPlatform().start(() -> {
+                    for (int i = first; i < contents.size(); i += writers) {
+                        long begin = System.nanoTime();
+                        documentService.indexDocument(i + 1, contents.get(i));
+                        latencies[i] = System.nanoTime() - begin;
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            elapsed = System.nanoTime() - start;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+
+        Arrays.sort(latencies);
+        System.out.println("=== " + title + " (" + writers + " writers) ===");
+        System.out.printf("Throughput:      %.0f docs/sec%n", contents.size() / (elapsed / 1e9));
+        System.out.printf("p50 Latency:     %.1f µs%n", latencies[latencies.length / 2] / 1e3);
+        System.out.printf("p99 Latency:     %.1f µs%n", latencies[(int) (latencies.length * 0.99)] / 1e3);
+        System.out.println("==============================\n");
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        var random = new Random(42);
+        List<String> contents = new ArrayList<>(DOCUMENTS);
+        for (int i = 0; i < DOCUMENTS; i++) {
+            contents.add(content(random));
+        }
+
+        // Warm-up
+        measure("WARM-UP", WriteAheadLog.Durability.ASYNC, WRITERS, contents);
+
+        measure("NO WRITE-AHEAD LOG", null, WRITERS, contents);
+        measure("ASYNC", WriteAheadLog.Durability.ASYNC, WRITERS, contents);
+        measure("INTERVAL (100 ms)", WriteAheadLog.Durability.INTERVAL, WRITERS, contents);
+        measure("FSYNC, GROUP COMMIT", WriteAheadLog.Durability.FSYNC, WRITERS, contents);
+        measure("FSYNC, GROUP COMMIT", WriteAheadLog.Durability.FSYNC, 1, contents.subList(0, DOCUMENTS / 4));
+    }
+}
@@ -1,5 +1,8 @@
 package com.purva.searchengine.controller;
 
+import com.purva.searchengine.service.BulkIndexResult;
+import com.purva.searchengine.service.BulkItemResult;
+import com.purva.searchengine.service.DocumentNotFoundException;
 import com.purva.searchengine.service.DocumentService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,6 +10,14 @@ import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -106,4 +117,44 @@ class IndexControllerTest {
                 .andExpect(jsonPath("$.status").value(400))
                 .andExpect(jsonPath("$.message").value("Invalid or missing request body"));
     }
+
+    @Test
+    void shouldReturn200whenDeletingAndReturn404whenDocumentIsMissing() throws Exception {
+        mockMvc.perform(delete("/api/documents/1"))
+                .andExpect(status().isOk());
+
+        doThrow(new DocumentNotFoundException(2)).when(documentService).deleteDocument(2);
+        mockMvc.perform(delete("/api/documents/2"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value(404))
+                .andExpect(jsonPath("$.message").value("Document 2 not found"));
+    }
+
+    @Test
+    void shouldReturn503whenTheWriteIsNotDurable() throws Exception {
+        doThrow(new UncheckedIOException("Failed to sync /var/search/wal/00001.log", new IOException("fsync failed")))
+                .when(documentService).indexDocument(1, "This is a test document.");
+
+        mockMvc.perform(post("/api/documents")
+                        .contentType("application/json")
+                        .content("{\"documentId\": 1, \"content\": \"This is a test document.\"}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.status").value(503))
+                .andExpect(jsonPath("$.message").value("Storage is unavailable"));
+    }
+
+    @Test
+    void shouldReturnPerItemStatusForBulkIndexing() throws Exception {
+        when(documentService.bulkIndex(any())).thenReturn(new BulkIndexResult(1, 1, List.of(
+                new BulkItemResult(1, 1, 201, null),
+                new BulkItemResult(2, null, 400, "Invalid JSON"))));
+
+        mockMvc.perform(post("/api/documents/bulk")
+                        .contentType("application/x-ndjson")
+                        .content("{\"documentId\": 1, \"content\": \"test\"}\n{broken\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.indexed").value(1))
+                .andExpect(jsonPath("$.items[1].status").value(400))
+                .andExpect(jsonPath("$.items[1].error").value("Invalid JSON"));
+    }
 }
@@ -1,5 +1,6 @@
 package com.purva.searchengine.controller;
 
+import com.purva.searchengine.service.QueryResultCache;
 import com.purva.searchengine.service.SearchService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,6 +8,7 @@ import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -84,6 +86,23 @@ class SearchControllerTest {
                 .andExpect(jsonPath("$.message").value("Threshold must be in the range (0, 1]"));
     }
 
+    @Test
+    void shouldReturn400whenFuzzinessIsInvalid() throws Exception {
+        mockMvc.perform(get("/api/search")
+                        .param("query", "test")
+                        .param("fuzziness", "3"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400))
+                .andExpect(jsonPath("$.message").value("Fuzziness must be between 0 and 2"));
+
+        mockMvc.perform(get("/api/search")
+                        .param("query", "test")
+                        .param("topK", "5")
+                        .param("fuzziness", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isArray());
+    }
+
     @Test
     void shouldReturnResultsWithDefaultThreshold() throws Exception {
         mockMvc.perform(get("/api/search")
@@ -98,4 +117,15 @@ class SearchControllerTest {
                 .andExpect(jsonPath("$").isArray());
     }
 
+    @Test
+    void shouldReturnCacheStatsOr404WhenCachingIsDisabled() throws Exception {
+        mockMvc.perform(get("/api/search/cache"))
+                .andExpect(status().isNotFound());
+
+        when(searchService.cacheStats()).thenReturn(new QueryResultCache.Stats(3, 1, 0, 1, 256, 1024));
+        mockMvc.perform(get("/api/search/cache"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hits").value(3))
+                .andExpect(jsonPath("$.misses").value(1));
+    }
 }
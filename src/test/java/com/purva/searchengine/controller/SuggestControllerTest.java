@@ -0,0 +1,53 @@
+package com.purva.searchengine.controller;
+
+import com.purva.searchengine.service.SuggestionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = SuggestController.class)
+class SuggestControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private SuggestionService suggestionService;
+
+    @Test
+    void shouldReturn400whenPrefixIsEmpty() throws Exception {
+        mockMvc.perform(get("/api/suggest")
+                        .param("prefix", " "))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Prefix parameter cannot be empty"));
+    }
+
+    @Test
+    void shouldReturn400whenKIsOutOfRange() throws Exception {
+        mockMvc.perform(get("/api/suggest")
+                        .param("prefix", "ja")
+                        .param("k", "11"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("k must be between 1 and 10"));
+    }
+
+    @Test
+    void shouldReturnSuggestions() throws Exception {
+        when(suggestionService.suggest("ja", 10)).thenReturn(List.of("java", "jar"));
+
+        mockMvc.perform(get("/api/suggest")
+                        .param("prefix", "ja"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value("java"))
+                .andExpect(jsonPath("$[1]").value("jar"));
+    }
+}
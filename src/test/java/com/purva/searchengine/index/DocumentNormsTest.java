@@ -0,0 +1,35 @@
+package com.purva.searchengine.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentNormsTest {
+
+    @Test
+    void shouldStoreShortLengthsExactly() {
+        for (int length = 0; length < 24; length++) {
+            assertEquals(length, DocumentNorms.quantize(length));
+        }
+    }
+
+    @Test
+    void shouldPreserveOrderAndStayWithinOneEighthBelowTheRealLength() {
+        int previous = 0;
+        for (int length = 1; length < 1_000_000; length++) {
+            int quantized = DocumentNorms.quantize(length);
+            assertTrue(quantized <= length, "Quantized length must not exceed the real one: " + length);
+            assertTrue(quantized >= length * 0.875, "Quantization error too large for " + length);
+            assertTrue(quantized >= previous, "Quantization must be monotonic at " + length);
+            previous = quantized;
+        }
+    }
+
+    @Test
+    void everyNormShouldRoundTrip() {
+        for (int norm = 0; norm < DocumentNorms.NORM_VALUES; norm++) {
+            assertEquals(norm, DocumentNorms.encode(DocumentNorms.decode(norm)));
+        }
+        assertEquals(255, DocumentNorms.encode(Integer.MAX_VALUE));
+    }
+}
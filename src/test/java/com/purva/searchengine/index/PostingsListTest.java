@@ -0,0 +1,186 @@
+package com.purva.searchengine.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostingsListTest {
+    private List<Posting> decode(PostingsIterator iterator) {
+        List<Posting> postings = new ArrayList<>();
+        for (int docId = iterator.nextDoc(); docId != PostingsIterator.NO_MORE_DOCS; docId = iterator.nextDoc()) {
+            postings.add(new Posting(docId, iterator.termFrequency()));
+        }
+        return postings;
+    }
+
+    @Test
+    void shouldRoundTripAppendedPostings() {
+        PostingsList postingsList = new PostingsList();
+        postingsList.add(1, 1);
+        postingsList.add(5, 3);
+        postingsList.add(130, 1);
+        postingsList.add(Integer.MAX_VALUE - 1, 70000);
+
+        assertEquals(List.of(
+                new Posting(1, 1),
+                new Posting(5, 3),
+                new Posting(130, 1),
+                new Posting(Integer.MAX_VALUE - 1, 70000)
+        ), decode(postingsList.iterator()));
+        assertEquals(4, postingsList.size());
+    }
+
+    @Test
+    void shouldKeepDocIdsSortedForOutOfOrderInserts() {
+        PostingsList postingsList = new PostingsList();
+        postingsList.add(10, 2);
+        postingsList.add(3, 1);
+        postingsList.add(7, 4);
+
+        assertEquals(List.of(new Posting(3, 1), new Posting(7, 4), new Posting(10, 2)), decode(postingsList.iterator()));
+    }
+
+    @Test
+    void shouldReplaceFrequencyWhenDocumentIsReindexed() {
+        PostingsList postingsList = new PostingsList();
+        postingsList.add(1, 1);
+        postingsList.add(2, 1);
+        postingsList.add(1, 5);
+
+        assertEquals(List.of(new Posting(1, 5), new Posting(2, 1)), decode(postingsList.iterator()));
+        assertEquals(2, postingsList.size());
+    }
+
+    @Test
+    void shouldEncodeDenseSingleFrequencyPostingsInOneByte() {
+        PostingsList postingsList = new PostingsList();
+        for (int docId = 1; docId <= 1000; docId++) {
+            postingsList.add(docId, 1);
+        }
+
+        assertEquals(1000, postingsList.sizeInBytes());
+    }
+
+    @Test
+    void shouldAdvanceToFirstDocumentAtOrAfterTarget() {
+        PostingsList postingsList = new PostingsList();
+        for (int docId = 2; docId <= 20; docId += 2) {
+            postingsList.add(docId, 1);
+        }
+
+        PostingsIterator iterator = postingsList.iterator();
+        assertEquals(8, iterator.advance(7));
+        assertEquals(8, iterator.advance(8));
+        assertEquals(20, iterator.advance(19));
+        assertEquals(PostingsIterator.NO_MORE_DOCS, iterator.advance(21));
+    }
+
+    @Test
+    void iteratorShouldNotObserveLaterAppends() {
+        PostingsList postingsList = new PostingsList();
+        postingsList.add(1, 1);
+        PostingsIterator iterator = postingsList.iterator();
+        postingsList.add(2, 1);
+
+        assertEquals(List.of(new Posting(1, 1)), decode(iterator));
+        assertEquals(1, iterator.cost());
+    }
+
+    @Test
+    void sizeBelowShouldCountEveryPostingBeforeTheBound() {
+        PostingsList postingsList = new PostingsList();
+        for (int ordinal = 0; ordinal < 300; ordinal++) {
+            postingsList.add(ordinal, 1);
+        }
+
+        assertEquals(0, postingsList.sizeBelow(0));
+        assertEquals(1, postingsList.sizeBelow(1));
+        assertEquals(PostingsList.BLOCK_SIZE, postingsList.sizeBelow(PostingsList.BLOCK_SIZE));
+        assertEquals(200, postingsList.sizeBelow(200), "Many postings may lie past a snapshot's bound");
+        assertEquals(300, postingsList.sizeBelow(300));
+        assertEquals(300, postingsList.sizeBelow(1000));
+    }
+
+    @Test
+    void shouldSkipWholeBlocksWhenAdvancing() {
+        PostingsList postingsList = new PostingsList();
+        for (int docId = 1; docId <= 1000; docId++) {
+            postingsList.add(docId * 3, docId % 7 + 1);
+        }
+
+        PostingsIterator iterator = postingsList.iterator();
+        assertEquals(3, iterator.nextDoc());
+        assertEquals(1500, iterator.advance(1499));
+        assertEquals(500 % 7 + 1, iterator.termFrequency());
+        assertEquals(1503, iterator.nextDoc());
+        assertEquals(3000, iterator.advance(2998));
+        assertEquals(PostingsIterator.NO_MORE_DOCS, iterator.advance(3001));
+    }
+
+    @Test
+    void shallowAdvanceShouldExposeBlockBoundsWithoutMovingTheIterator() {
+        PostingsList postingsList = new PostingsList();
+        for (int docId = 1; docId <= 300; docId++) {
+            // The second block holds one high-frequency posting in a short document
+            boolean outlier = docId == 200;
+            postingsList.add(docId, outlier ? 9 : 1, outlier ? 2 : 50);
+        }
+
+        PostingsIterator iterator = postingsList.iterator();
+        assertEquals(PostingsList.BLOCK_SIZE, iterator.advanceShallow(1));
+        assertEquals(1, iterator.blockMaxTermFrequency());
+        assertEquals(50, iterator.blockMinDocumentLength());
+
+        assertEquals(2 * PostingsList.BLOCK_SIZE, iterator.advanceShallow(150));
+        assertEquals(9, iterator.blockMaxTermFrequency());
+        assertEquals(2, iterator.blockMinDocumentLength());
+
+        assertEquals(300, iterator.advanceShallow(290));
+        assertEquals(1, iterator.blockMaxTermFrequency());
+        assertEquals(PostingsIterator.NO_MORE_DOCS, iterator.advanceShallow(301));
+        assertEquals(0, iterator.blockMaxTermFrequency());
+
+        assertEquals(1, iterator.nextDoc(), "Shallow advances must not move the iterator");
+        assertEquals(9, postingsList.maxTermFrequency());
+        assertEquals(2, postingsList.minDocumentLength());
+    }
+
+    @Test
+    void positionsShouldBeReadOnlyWhenAskedForAndSurviveBlockSkipsAndRewrites() {
+        PostingsList postingsList = new PostingsList();
+        for (int docId = 1; docId <= 1000; docId++) {
+            postingsList.add(docId * 2, 3, new int[] {docId, docId + 1, docId + 200}, docId + 200);
+        }
+        postingsList.add(1, 2, new int[] {4, 9}, 10);
+
+        PostingsIterator iterator = postingsList.iterator();
+        assertEquals(1, iterator.nextDoc());
+        assertEquals(4, iterator.nextPosition());
+        assertEquals(2, iterator.nextDoc());
+        assertEquals(4, iterator.nextDoc(), "Unread positions of earlier postings are skipped");
+        assertEquals(2, iterator.nextPosition());
+        assertEquals(3, iterator.nextPosition());
+        assertEquals(6, iterator.nextDoc());
+        assertEquals(3, iterator.nextPosition());
+
+        assertEquals(1500, iterator.advance(1499));
+        assertEquals(750, iterator.nextPosition());
+        assertEquals(751, iterator.nextPosition());
+        assertEquals(950, iterator.nextPosition());
+        assertEquals(2000, iterator.advance(2000));
+        assertEquals(1000, iterator.nextPosition());
+        assertEquals(1001, iterator.nextPosition());
+        assertEquals(1200, iterator.nextPosition());
+        assertTrue(postingsList.positionsSizeInBytes() > 0);
+    }
+
+    @Test
+    void emptyIteratorShouldReportNoPositions() {
+        PostingsIterator iterator = PostingsIterator.empty();
+        assertEquals(PostingsIterator.NO_MORE_DOCS, iterator.nextDoc());
+        assertEquals(PostingsIterator.NO_MORE_POSITIONS, iterator.nextPosition());
+    }
+}
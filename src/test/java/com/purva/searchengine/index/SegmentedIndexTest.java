@@ -0,0 +1,249 @@
+package com.purva.searchengine.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedIndexTest {
+    @Test
+    void shouldSealBufferAndMergeSegmentsByTier() throws InterruptedException {
+        try (InvertedIndex invertedIndex = new InvertedIndex(4, 2)) {
+            for (int docId = 1; docId <= 64; docId++) {
+                invertedIndex.index(docId, List.of("common", "term" + (docId % 4)));
+            }
+            invertedIndex.awaitMerges();
+
+            // 64 docs / flush size 4 = 16 sealed segments, which two-way tiered merging collapses into one
+            assertEquals(2, invertedIndex.getSegmentCount(), "One merged segment plus the empty write buffer");
+            assertEquals(64, invertedIndex.getTotalDocuments());
+            assertEquals(64, invertedIndex.getDocumentFrequency("common"));
+            assertEquals(16, invertedIndex.getDocumentFrequency("term1"));
+            assertEquals(64, invertedIndex.getPostingsMap("common").size());
+            assertEquals(2, invertedIndex.getDocumentLength(37));
+        }
+    }
+
+    @Test
+    void shouldReplacePreviousVersionWhenDocumentIsReindexed() throws InterruptedException {
+        try (InvertedIndex invertedIndex = new InvertedIndex(2, 2)) {
+            invertedIndex.index(1, List.of("old", "shared"));
+            invertedIndex.index(2, List.of("shared"));
+            invertedIndex.index(1, List.of("new", "shared", "shared"));
+
+            assertEquals(2, invertedIndex.getTotalDocuments());
+            assertTrue(invertedIndex.getPostings("old").isEmpty(), "Replaced version must not be returned");
+            assertEquals(2, invertedIndex.getPostingsMap("shared").get(1).termFrequency());
+            assertEquals(3, invertedIndex.getDocumentLength(1));
+            assertEquals(2.0, invertedIndex.getAverageDocumentLength());
+
+            invertedIndex.flush();
+            invertedIndex.awaitMerges();
+            assertFalse(invertedIndex.contains("old"), "Merging must drop the replaced postings");
+            assertEquals(2, invertedIndex.getDocumentFrequency("shared"));
+        }
+    }
+
+    @Test
+    void reindexingWithNoTokensShouldDeleteThePreviousVersion() throws InterruptedException {
+        try (InvertedIndex invertedIndex = new InvertedIndex(2, 2)) {
+            invertedIndex.index(1, List.of("old", "shared"));
+            invertedIndex.index(2, List.of("shared"));
+            invertedIndex.index(3, List.of("shared"));
+            long generation = invertedIndex.generation();
+
+            invertedIndex.index(1, List.of());
+            invertedIndex.indexAll(List.of(new TokenizedDocument(2, List.of())));
+
+            assertTrue(invertedIndex.getPostings("old").isEmpty(), "Replaced version must not be returned");
+            assertEquals(1, invertedIndex.getTotalDocuments());
+            assertEquals(1, invertedIndex.getDocumentFrequency("shared"));
+            assertEquals(1.0, invertedIndex.getAverageDocumentLength());
+            assertEquals(generation + 2, invertedIndex.generation());
+            assertFalse(invertedIndex.delete(1), "Nothing is left to delete");
+        }
+    }
+
+    @Test
+    void deleteShouldKeepStatisticsExactAndPurgeDeleteHeavySegments() throws InterruptedException {
+        try (InvertedIndex invertedIndex = new InvertedIndex(10, 10)) {
+            for (int docId = 1; docId <= 10; docId++) {
+                invertedIndex.index(docId, List.of("common", docId % 2 == 0 ? "even" : "odd"));
+            }
+            invertedIndex.awaitMerges();
+            long postingsBeforePurge = invertedIndex.getPostingsCount();
+
+            assertTrue(invertedIndex.delete(2));
+            assertFalse(invertedIndex.delete(2), "Deleting twice must report the document as missing");
+            assertFalse(invertedIndex.delete(99));
+            assertEquals(9, invertedIndex.getTotalDocuments());
+            assertEquals(9, invertedIndex.getDocumentFrequency("common"));
+            assertEquals(4, invertedIndex.getDocumentFrequency("even"));
+            assertEquals(2.0, invertedIndex.getAverageDocumentLength());
+            assertFalse(invertedIndex.getPostingsMap("even").containsKey(2));
+            invertedIndex.awaitMerges();
+            assertEquals(postingsBeforePurge, invertedIndex.getPostingsCount(), "One delete in ten is below the purge ratio");
+
+            invertedIndex.delete(4);
+            invertedIndex.delete(6);
+            invertedIndex.awaitMerges();
+            assertEquals(postingsBeforePurge - 6, invertedIndex.getPostingsCount(), "Purge should drop the deleted postings");
+            assertEquals(2, invertedIndex.getDocumentFrequency("even"));
+            assertEquals(7, invertedIndex.getTotalDocuments());
+        }
+    }
+
+    @Test
+    void offHeapSegmentsShouldAnswerLikeHeapSegments() throws InterruptedException {
+        try (InvertedIndex heap = new InvertedIndex(16, 2);
+             InvertedIndex offHeap = new InvertedIndex(16, 2, SegmentStorage.OFF_HEAP)) {
+            for (InvertedIndex invertedIndex : List.of(heap, offHeap)) {
+                // Waiting after every write keeps the seal and merge order, and so the segment layout, deterministic
+                for (int docId = 1; docId <= 300; docId++) {
+                    invertedIndex.index(docId, docId % 5 == 0 ? List.of("five", "common", "common") : List.of("common", "t" + docId % 7));
+                    invertedIndex.awaitMerges();
+                }
+                invertedIndex.delete(10);
+                invertedIndex.awaitMerges();
+                invertedIndex.index(20, List.of("moved"));
+                invertedIndex.flush();
+                invertedIndex.awaitMerges();
+            }
+
+            assertEquals(0, heap.getOffHeapSizeInBytes());
+            assertTrue(offHeap.getOffHeapSizeInBytes() > 0, "Sealed segments should live in direct memory");
+            assertEquals(heap.getSegmentCount(), offHeap.getSegmentCount());
+            assertEquals(heap.getTotalDocuments(), offHeap.getTotalDocuments());
+            assertEquals(heap.getAverageDocumentLength(), offHeap.getAverageDocumentLength());
+            for (String term : List.of("five", "common", "t3", "moved", "missing")) {
+                assertEquals(heap.getDocumentFrequency(term), offHeap.getDocumentFrequency(term), term);
+                assertEquals(heap.getPostingsMap(term), offHeap.getPostingsMap(term), term);
+            }
+
+            assertTrue(offHeap.delete(25));
+            assertEquals(heap.getDocumentFrequency("five") - 1, offHeap.getDocumentFrequency("five"));
+        }
+    }
+
+    @Test
+    void offHeapSnapshotShouldStillReadSegmentsAMergeReplaced() throws InterruptedException {
+        try (InvertedIndex invertedIndex = new InvertedIndex(2, 2, SegmentStorage.OFF_HEAP)) {
+            invertedIndex.index(1, List.of("java"));
+            invertedIndex.index(2, List.of("java"));
+            invertedIndex.awaitMerges();
+            IndexSnapshot snapshot = invertedIndex.snapshot();
+
+            invertedIndex.index(3, List.of("java"));
+            invertedIndex.index(4, List.of("java"));
+            invertedIndex.awaitMerges();
+
+            assertEquals(1, invertedIndex.getSegmentCount() - 1, "The two sealed segments should have been merged");
+            assertEquals(2, snapshot.docFreq("java"));
+            assertEquals(4, invertedIndex.getDocumentFrequency("java"));
+        }
+    }
+
+    @Test
+    void snapshotShouldNotObserveLaterWrites() throws InterruptedException {
+        try (InvertedIndex invertedIndex = new InvertedIndex(2, 2)) {
+            invertedIndex.index(1, List.of("java"));
+            IndexSnapshot snapshot = invertedIndex.snapshot();
+
+            for (int docId = 2; docId <= 10; docId++) {
+                invertedIndex.index(docId, List.of("java"));
+            }
+            invertedIndex.awaitMerges();
+
+            assertEquals(1, snapshot.totalDocuments());
+            assertEquals(1, snapshot.docFreq("java"));
+            PostingsIterator postings = snapshot.postings("java");
+            assertEquals(1, snapshot.documentId(postings.nextDoc()));
+            assertEquals(PostingsIterator.NO_MORE_DOCS, postings.nextDoc());
+        }
+    }
+
+    @Test
+    void snapshotShouldNotObserveWritesOrDeletesMadeBeforeItsTermsAreResolved() throws InterruptedException {
+        try (InvertedIndex invertedIndex = new InvertedIndex(100, 10)) {
+            invertedIndex.index(1, List.of("java"));
+            invertedIndex.index(2, List.of("java"));
+            IndexSnapshot snapshot = invertedIndex.snapshot();
+
+            // All in the same write buffer, past the snapshot's bound
+            for (int docId = 3; docId <= 10; docId++) {
+                invertedIndex.index(docId, List.of("java"));
+            }
+            invertedIndex.delete(1);
+
+            IndexSnapshot.Term java = snapshot.term("java");
+            assertEquals(2, java.docFreq());
+            PostingsIterator postings = java.postings();
+            assertEquals(2, postings.cost());
+            assertEquals(1, snapshot.documentId(postings.nextDoc()), "A later delete must stay invisible");
+            assertEquals(2, snapshot.documentId(postings.nextDoc()));
+            assertEquals(PostingsIterator.NO_MORE_DOCS, postings.nextDoc());
+            assertEquals(9, invertedIndex.snapshot().docFreq("java"));
+        }
+    }
+
+    @Test
+    void snapshotPostingsShouldAdvanceAcrossSegments() throws InterruptedException {
+        try (InvertedIndex invertedIndex = new InvertedIndex(3, 10)) {
+            for (int docId = 1; docId <= 10; docId++) {
+                invertedIndex.index(docId, docId % 2 == 0 ? List.of("even") : List.of("odd"));
+            }
+            IndexSnapshot snapshot = invertedIndex.snapshot();
+            PostingsIterator postings = snapshot.postings("even");
+
+            int doc = postings.advance(5);
+            assertEquals(6, snapshot.documentId(doc));
+            doc = postings.advance(doc + 3);
+            assertEquals(10, snapshot.documentId(doc));
+            assertEquals(PostingsIterator.NO_MORE_DOCS, postings.advance(doc + 1));
+        }
+    }
+
+    @Test
+    void concurrentWritersShouldNotLoseDocumentsDuringMerges() throws InterruptedException {
+        try (InvertedIndex invertedIndex = new InvertedIndex(8, 3)) {
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            CountDownLatch completionLatch = new CountDownLatch(8);
+
+            try {
+                for (int thread = 0; thread < 8; thread++) {
+                    final int threadIndex = thread;
+                    executor.submit(() -> {
+                        try {
+                            for (int j = 0; j < 500; j++) {
+                                int docId = threadIndex * 500 + j + 1;
+                                invertedIndex.index(docId, List.of("shared", "thread" + threadIndex));
+                                // Every writer also re-indexes an older document to exercise deletes racing merges
+                                if (j % 10 == 0 && j > 0) {
+                                    invertedIndex.index(docId - 5, List.of("shared", "thread" + threadIndex, "updated"));
+                                }
+                            }
+                        } finally {
+                            completionLatch.countDown();
+                        }
+                    });
+                }
+                assertTrue(completionLatch.await(30, TimeUnit.SECONDS), "Writers timed out");
+            } finally {
+                executor.shutdown();
+            }
+            invertedIndex.flush();
+            invertedIndex.awaitMerges();
+
+            assertEquals(4000, invertedIndex.getTotalDocuments());
+            assertEquals(4000, invertedIndex.getPostings("shared").size());
+            assertEquals(500, invertedIndex.getPostings("thread3").size());
+            assertEquals(8 * 49, invertedIndex.getPostings("updated").size());
+            assertEquals(4000 * 2 + 8 * 49, invertedIndex.snapshot().totalDocumentLength());
+        }
+    }
+}
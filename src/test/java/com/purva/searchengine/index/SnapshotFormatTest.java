@@ -0,0 +1,133 @@
+package com.purva.searchengine.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFormatTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void openedIndexShouldMatchTheSavedOne() throws IOException, InterruptedException {
+        Path file = directory.resolve("index.snapshot");
+        try (InvertedIndex original = new InvertedIndex(64, 4)) {
+            for (int docId = 1; docId <= 1000; docId++) {
+                original.index(docId, docId % 3 == 0 ? List.of("java", "fizz", "java") : List.of("java", "word" + (docId % 50)));
+            }
+            original.delete(9);
+            original.index(10, List.of("replaced"));
+            original.save(file);
+
+            try (InvertedIndex opened = InvertedIndex.open(file)) {
+                assertEquals(original.getTotalDocuments(), opened.getTotalDocuments());
+                assertEquals(original.getAverageDocumentLength(), opened.getAverageDocumentLength());
+                assertEquals(original.generation(), opened.generation());
+                for (String term : List.of("java", "fizz", "word7", "replaced", "missing")) {
+                    assertEquals(original.getDocumentFrequency(term), opened.getDocumentFrequency(term), term);
+                    assertEquals(original.getPostingsMap(term), opened.getPostingsMap(term), term);
+                }
+                assertEquals(3, opened.getDocumentLength(3));
+
+                // Block skipping and block bounds read from the mapped postings
+                IndexSnapshot snapshot = opened.snapshot();
+                PostingsIterator postings = snapshot.postings("fizz");
+                assertEquals(999, snapshot.documentId(postings.advance(997)));
+
+                // Positions read in place, for some postings only and after a block skip
+                postings = snapshot.postings("java");
+                for (int doc = postings.nextDoc(); doc != PostingsIterator.NO_MORE_DOCS;
+                     doc = postings.advance(doc < 100 ? doc + 1 : doc + 300)) {
+                    if (snapshot.documentId(doc) % 2 == 0) {
+                        assertEquals(0, postings.nextPosition());
+                        if (snapshot.documentId(doc) % 3 == 0) {
+                            assertEquals(2, postings.nextPosition());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void openedIndexShouldAcceptWritesMergesAndAnotherSave() throws IOException, InterruptedException {
+        Path file = directory.resolve("index.snapshot");
+        try (InvertedIndex original = new InvertedIndex(8, 2)) {
+            for (int docId = 1; docId <= 32; docId++) {
+                original.index(docId, List.of("old", "shared"));
+            }
+            original.awaitMerges();
+            original.save(file);
+        }
+
+        try (InvertedIndex opened = InvertedIndex.open(file, 8, 2)) {
+            for (int docId = 33; docId <= 64; docId++) {
+                opened.index(docId, List.of("new", "shared"));
+            }
+            opened.awaitMerges();
+            assertEquals(64, opened.getDocumentFrequency("shared"));
+            assertEquals(2, opened.getSegmentCount(), "The mapped segment should merge with the new one of its tier");
+
+            assertTrue(opened.delete(1));
+            opened.delete(2);
+            opened.save(file);
+        }
+
+        try (InvertedIndex reopened = InvertedIndex.open(file)) {
+            assertEquals(62, reopened.getTotalDocuments());
+            assertEquals(30, reopened.getDocumentFrequency("old"));
+            assertFalse(reopened.getPostingsMap("shared").containsKey(2));
+        }
+    }
+
+    @Test
+    void openShouldRejectACorruptedFile() throws IOException, InterruptedException {
+        Path file = directory.resolve("index.snapshot");
+        try (InvertedIndex original = new InvertedIndex()) {
+            original.index(1, List.of("java", "search"));
+            original.save(file);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {42}), Files.size(file) / 2);
+        }
+
+        IOException exception = assertThrows(IOException.class, () -> InvertedIndex.open(file));
+        assertTrue(exception.getMessage().contains("checksum"));
+        assertFalse(Files.exists(directory.resolve("index.snapshot.tmp")), "Temporary file should have been renamed");
+    }
+
+    @Test
+    void shardedIndexShouldSaveAndOpenOneFilePerShard() throws IOException, InterruptedException {
+        Path file = directory.resolve("index.snapshot");
+        try (ShardedIndex original = ShardedIndex.create(3, i -> new InvertedIndex(64, 4))) {
+            for (int docId = 1; docId <= 300; docId++) {
+                original.index(docId, List.of("java", "word" + (docId % 7)));
+            }
+            original.delete(5);
+            original.save(file);
+
+            assertFalse(Files.exists(file));
+            assertTrue(ShardedIndex.exists(file, 3));
+            assertFalse(ShardedIndex.exists(file, 4));
+            try (ShardedIndex opened = ShardedIndex.open(file, 3, 64, 4, SegmentStorage.HEAP)) {
+                assertEquals(299, opened.getTotalDocuments());
+                for (int shard = 0; shard < 3; shard++) {
+                    assertEquals(original.shard(shard).getTotalDocuments(), opened.shard(shard).getTotalDocuments());
+                    assertEquals(original.shard(shard).getPostingsMap("word3"), opened.shard(shard).getPostingsMap("word3"));
+                }
+                // Ids keep routing to the shard that holds them
+                assertTrue(opened.delete(6));
+                assertFalse(opened.delete(5));
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.purva.searchengine.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TermDictionaryTest {
+    private static byte[] utf8(String term) {
+        return term.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int termId(TermDictionary dictionary, String term) {
+        return dictionary.termId(term, utf8(term));
+    }
+
+    private static TermDictionary dictionaryOf(List<String> terms) {
+        byte[][] sortedTerms = terms.stream().map(TermDictionaryTest::utf8).toArray(byte[][]::new);
+        Arrays.sort(sortedTerms, Arrays::compareUnsigned);
+        return TermDictionary.of(sortedTerms);
+    }
+
+    @Test
+    void shouldAssignIdsInUnsignedByteOrder() {
+        // U+00E9 encodes to bytes above every ASCII byte, and "java" is a prefix of its neighbours
+        TermDictionary dictionary = dictionaryOf(List.of("zebra", "java", "javascript", "café", "javac", "a"));
+
+        assertEquals(6, dictionary.size());
+        assertEquals(List.of("a", "café", "java", "javac", "javascript", "zebra"),
+                List.of(dictionary.term(0), dictionary.term(1), dictionary.term(2), dictionary.term(3),
+                        dictionary.term(4), dictionary.term(5)));
+        assertEquals(2, termId(dictionary, "java"));
+        assertEquals(1, termId(dictionary, "café"));
+
+        assertEquals(-1, termId(dictionary, "jav"));
+        assertEquals(-1, termId(dictionary, "javab"));
+        assertEquals(-1, termId(dictionary, "javas"));
+        assertEquals(-1, termId(dictionary, "cafe"));
+        assertEquals(-1, termId(dictionary, "0"));
+        assertEquals(-1, termId(dictionary, "zebras"));
+        assertEquals(-1, termId(TermDictionary.EMPTY, "java"));
+    }
+
+    @Test
+    void shouldFindEveryTermAcrossBlocksAndRejectAbsentOnes() {
+        var random = new Random(42);
+        TreeSet<String> present = new TreeSet<>();
+        TreeSet<String> absent = new TreeSet<>();
+        String alphabet = "abcdeé-1";
+        while (present.size() + absent.size() < 5000) {
+            StringBuilder term = new StringBuilder();
+            for (int i = 1 + random.nextInt(8); i > 0; i--) {
+                term.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            (random.nextBoolean() ? present : absent).add(term.toString());
+        }
+        absent.removeAll(present);
+        TermDictionary dictionary = dictionaryOf(List.copyOf(present));
+
+        byte[][] expected = present.stream().map(TermDictionaryTest::utf8).toArray(byte[][]::new);
+        Arrays.sort(expected, Arrays::compareUnsigned);
+        for (int termId = 0; termId < expected.length; termId++) {
+            assertEquals(termId, dictionary.termId(new String(expected[termId], StandardCharsets.UTF_8), expected[termId]));
+            assertArrayEquals(expected[termId], dictionary.termBytes(termId));
+        }
+        for (String term : absent) {
+            assertEquals(-1, termId(dictionary, term), term);
+        }
+    }
+
+    @Test
+    void shouldRejectUnsortedOrDuplicateTerms() {
+        assertThrows(IllegalArgumentException.class, () -> TermDictionary.of(new byte[][] {utf8("b"), utf8("a")}));
+        assertThrows(IllegalArgumentException.class, () -> TermDictionary.of(new byte[][] {utf8("a"), utf8("a")}));
+    }
+}
@@ -17,7 +17,7 @@ class Bm25RankedSearchServiceTest {
     void shouldRankByTermFrequency() {
         var tokenizer = new Tokenizer();
         var invertedIndex = new InvertedIndex();
-        var scorer = new Bm25Scorer(invertedIndex);
+        var scorer = new Bm25Scorer();
         SearchService searchService = new SearchService(tokenizer, invertedIndex, scorer);
 
         tokenizeAndIndex("java java java - practise more java", 1, tokenizer, invertedIndex);
@@ -34,7 +34,7 @@ class Bm25RankedSearchServiceTest {
     void shouldRankRareTermsHigherThanCommonTerms() {
         var tokenizer = new Tokenizer();
         var invertedIndex = new InvertedIndex();
-        var scorer = new Bm25Scorer(invertedIndex);
+        var scorer = new Bm25Scorer();
         SearchService searchService = new SearchService(tokenizer, invertedIndex, scorer);
 
         tokenizeAndIndex("programming programming programming programming programming microservices", 1, tokenizer, invertedIndex);
@@ -50,7 +50,7 @@ class Bm25RankedSearchServiceTest {
     void shouldRankShorterDocumentHigherForSameTermFrequency() {
         var tokenizer = new Tokenizer();
         var invertedIndex = new InvertedIndex();
-        var scorer = new Bm25Scorer(invertedIndex);
+        var scorer = new Bm25Scorer();
         SearchService searchService = new SearchService(tokenizer, invertedIndex, scorer);
 
         tokenizeAndIndex("java programming", 1, tokenizer, invertedIndex);
@@ -65,7 +65,7 @@ class Bm25RankedSearchServiceTest {
     void shouldDemonstrateTermFrequencySaturation() {
         var tokenizer = new Tokenizer();
         var index = new InvertedIndex();
-        var scorer = new Bm25Scorer(index);
+        var scorer = new Bm25Scorer();
         SearchService searchService = new SearchService(tokenizer, index, scorer);
 
         tokenizeAndIndex("java java", 1, tokenizer, index);
@@ -85,7 +85,7 @@ class Bm25RankedSearchServiceTest {
     void shouldRankFullMatchesHigherThanPartialMatches() {
         var tokenizer = new Tokenizer();
         var invertedIndex = new InvertedIndex();
-        var scorer = new Bm25Scorer(invertedIndex);
+        var scorer = new Bm25Scorer();
         SearchService searchService = new SearchService(tokenizer, invertedIndex, scorer);
 
         tokenizeAndIndex("java spring boot microservices", 1, tokenizer, invertedIndex);
@@ -102,7 +102,7 @@ class Bm25RankedSearchServiceTest {
     void shouldThrowExceptionForInvalidThreshold() {
         var tokenizer = new Tokenizer();
         var invertedIndex = new InvertedIndex();
-        var scorer = new Bm25Scorer(invertedIndex);
+        var scorer = new Bm25Scorer();
         SearchService searchService = new SearchService(tokenizer, invertedIndex, scorer);
 
         IllegalArgumentException exception = assertThrows(
@@ -0,0 +1,66 @@
+package com.purva.searchengine.search;
+
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.service.SearchService;
+import com.purva.searchengine.tokenizer.Tokenizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConjunctiveSearchTest {
+
+    @Test
+    void strictSearchShouldMatchBruteForceIntersection() throws InterruptedException {
+        Random random = new Random(99);
+        Map<Integer, Set<String>> documents = new HashMap<>();
+        var tokenizer = new Tokenizer();
+
+        try (var invertedIndex = new InvertedIndex(256, 4)) {
+            var searchService = new SearchService(tokenizer, invertedIndex, new Bm25Scorer());
+            for (int i = 0; i < 6000; i++) {
+                // Later iterations re-index existing ids, so some segments carry deletions
+                int docId = 1 + random.nextInt(5000);
+                List<String> tokens = new ArrayList<>();
+                int length = 1 + random.nextInt(20);
+                for (int t = 0; t < length; t++) {
+                    tokens.add("t" + (int) (50 * Math.pow(random.nextDouble(), 2)));
+                }
+                invertedIndex.index(docId, tokens);
+                documents.put(docId, new HashSet<>(tokens));
+            }
+            invertedIndex.awaitMerges();
+
+            for (int q = 0; q < 100; q++) {
+                List<String> queryTokens = new ArrayList<>();
+                int queryLength = 1 + random.nextInt(4);
+                for (int t = 0; t < queryLength; t++) {
+                    queryTokens.add("t" + (int) (50 * Math.pow(random.nextDouble(), 2)));
+                }
+
+                List<Integer> expected = documents.entrySet().stream()
+                        .filter(entry -> entry.getValue().containsAll(queryTokens))
+                        .map(Map.Entry::getKey)
+                        .sorted()
+                        .toList();
+
+                assertEquals(expected, searchService.search(String.join(" ", queryTokens), 1.0), "Query " + queryTokens);
+            }
+        }
+    }
+
+    @Test
+    void shouldReturnNothingAsSoonAsOneTermIsMissing() {
+        var tokenizer = new Tokenizer();
+        var invertedIndex = new InvertedIndex();
+        var searchService = new SearchService(tokenizer, invertedIndex, new Bm25Scorer());
+
+        invertedIndex.index(1, tokenizer.tokenize("java spring boot"));
+        invertedIndex.index(2, tokenizer.tokenize("java spring"));
+
+        assertEquals(List.of(1, 2), searchService.search("java spring", 1.0));
+        assertTrue(searchService.search("java spring kotlin", 1.0).isEmpty());
+        assertTrue(searchService.rankedSearch("java spring kotlin", 5, 1.0).isEmpty());
+    }
+}
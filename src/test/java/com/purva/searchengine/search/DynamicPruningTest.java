@@ -0,0 +1,111 @@
+package com.purva.searchengine.search;
+
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.service.SearchResult;
+import com.purva.searchengine.service.SearchService;
+import com.purva.searchengine.tokenizer.Tokenizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DynamicPruningTest {
+    private static final int VOCABULARY = 200;
+
+    /** Skewed term distribution so the corpus mixes very common and rare terms, like real text. */
+    private static String randomTerm(Random random) {
+        return "t" + (int) (VOCABULARY * Math.pow(random.nextDouble(), 3));
+    }
+
+    private static InvertedIndex randomIndex(Random random, int flushThreshold, int documents) throws InterruptedException {
+        var invertedIndex = new InvertedIndex(flushThreshold, 4);
+        for (int docId = 1; docId <= documents; docId++) {
+            List<String> tokens = new ArrayList<>();
+            int length = 1 + random.nextInt(30);
+            for (int i = 0; i < length; i++) {
+                tokens.add(randomTerm(random));
+            }
+            invertedIndex.index(docId, tokens);
+        }
+        // Re-index a few documents so some segments carry deletions
+        for (int i = 0; i < 200; i++) {
+            invertedIndex.index(1 + random.nextInt(documents), List.of(randomTerm(random), randomTerm(random)));
+        }
+        invertedIndex.awaitMerges();
+        return invertedIndex;
+    }
+
+    private static void assertSameRanking(Scorer scorer, long seed, int flushThreshold, int documents) throws InterruptedException {
+        Random random = new Random(seed);
+        var tokenizer = new Tokenizer();
+        try (var invertedIndex = randomIndex(random, flushThreshold, documents)) {
+            var pruned = new SearchService(tokenizer, invertedIndex, scorer);
+            var exhaustive = new SearchService(tokenizer, invertedIndex, scorer,
+                    SearchService.Options.DEFAULTS.withDynamicPruning(false));
+
+            for (int q = 0; q < 200; q++) {
+                StringBuilder query = new StringBuilder();
+                int queryLength = 1 + random.nextInt(6);
+                for (int i = 0; i < queryLength; i++) {
+                    query.append(randomTerm(random)).append(' ');
+                }
+                int topK = 1 + random.nextInt(20);
+                double threshold = new double[] {0.1, 0.5, 0.75, 1.0}[random.nextInt(4)];
+
+                List<SearchResult> expected = exhaustive.rankedSearch(query.toString(), topK, threshold);
+                List<SearchResult> actual = pruned.rankedSearch(query.toString(), topK, threshold);
+                assertEquals(expected, actual, "Query '" + query + "' topK=" + topK + " threshold=" + threshold);
+            }
+        }
+    }
+
+    @Test
+    void wandShouldMatchExhaustiveBm25Ranking() throws InterruptedException {
+        assertSameRanking(new Bm25Scorer(), 42, 64, 3000);
+    }
+
+    @Test
+    void blockMaxWandShouldMatchExhaustiveRankingOnLongPostingLists() throws InterruptedException {
+        // Few large segments, so most postings lists span many blocks
+        assertSameRanking(new Bm25Scorer(), 1234, 4096, 20000);
+    }
+
+    @Test
+    void wandShouldMatchExhaustiveTfIdfRanking() throws InterruptedException {
+        assertSameRanking(new TfIdfScorer(), 7, 64, 3000);
+    }
+
+    @Test
+    void shouldBreakScoreTiesByDocumentId() {
+        var tokenizer = new Tokenizer();
+        var invertedIndex = new InvertedIndex();
+        var searchService = new SearchService(tokenizer, invertedIndex, new Bm25Scorer());
+
+        // Identical documents score identically; the lowest ids must win the last slots
+        for (int docId = 10; docId >= 1; docId--) {
+            invertedIndex.index(docId, tokenizer.tokenize("java search"));
+        }
+
+        var results = searchService.rankedSearch("java search", 3, 1.0);
+
+        assertEquals(List.of(1, 2, 3), results.stream().map(SearchResult::documentId).toList());
+    }
+
+    @Test
+    void shouldCountRepeatedQueryTokensLikeExhaustiveScoring() {
+        var tokenizer = new Tokenizer();
+        var invertedIndex = new InvertedIndex();
+        var pruned = new SearchService(tokenizer, invertedIndex, new Bm25Scorer());
+        var exhaustive = new SearchService(tokenizer, invertedIndex, new Bm25Scorer(),
+                SearchService.Options.DEFAULTS.withDynamicPruning(false));
+
+        invertedIndex.index(1, tokenizer.tokenize("java java spring"));
+        invertedIndex.index(2, tokenizer.tokenize("spring boot"));
+        invertedIndex.index(3, tokenizer.tokenize("java"));
+
+        assertEquals(exhaustive.rankedSearch("java java spring", 3, 0.6), pruned.rankedSearch("java java spring", 3, 0.6));
+    }
+}
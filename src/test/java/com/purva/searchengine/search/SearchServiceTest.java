@@ -1,7 +1,11 @@
 package com.purva.searchengine.search;
 
 import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.service.DocumentService;
+import com.purva.searchengine.service.QueryResultCache;
+import com.purva.searchengine.service.SearchResult;
 import com.purva.searchengine.service.SearchService;
+import com.purva.searchengine.service.SuggestionService;
 import com.purva.searchengine.tokenizer.Tokenizer;
 import org.junit.jupiter.api.Test;
 
@@ -14,7 +18,7 @@ class SearchServiceTest {
     void shouldReturnCorrectSearchResults() {
         var tokenizer = new Tokenizer();
         var invertedIndex = new InvertedIndex();
-        var scorer = new Bm25Scorer(invertedIndex);
+        var scorer = new Bm25Scorer();
 
         var tokens = tokenizer.tokenize("java programming language");
         invertedIndex.index(1, tokens);
@@ -45,7 +49,7 @@ class SearchServiceTest {
     void shouldHandleSearchWithStopWords() {
         var tokenizer = new Tokenizer();
         var invertedIndex = new InvertedIndex();
-        var scorer = new Bm25Scorer(invertedIndex);
+        var scorer = new Bm25Scorer();
 
         var tokens = tokenizer.tokenize("the quick brown fox");
         invertedIndex.index(1, tokens);
@@ -69,7 +73,7 @@ class SearchServiceTest {
     void shouldHandleSearchWithSingleLetterTokens() {
         var tokenizer = new Tokenizer();
         var invertedIndex = new InvertedIndex();
-        var scorer = new Bm25Scorer(invertedIndex);
+        var scorer = new Bm25Scorer();
 
         var tokens = tokenizer.tokenize("a quick brown fox");
         invertedIndex.index(1, tokens);
@@ -93,7 +97,7 @@ class SearchServiceTest {
     void shouldHandleCaseInsensitiveSearch() {
         var tokenizer = new Tokenizer();
         var invertedIndex = new InvertedIndex();
-        var scorer = new Bm25Scorer(invertedIndex);
+        var scorer = new Bm25Scorer();
 
         var tokens = tokenizer.tokenize("java programming language");
         invertedIndex.index(1, tokens);
@@ -117,7 +121,7 @@ class SearchServiceTest {
     void shouldReturnEmptyResultsForNonExistentTokens() {
         var tokenizer = new Tokenizer();
         var invertedIndex = new InvertedIndex();
-        var scorer = new Bm25Scorer(invertedIndex);
+        var scorer = new Bm25Scorer();
 
         var tokens = tokenizer.tokenize("java programming language");
         invertedIndex.index(1, tokens);
@@ -138,7 +142,7 @@ class SearchServiceTest {
     void shouldReturnEmptyResultsForEmptyOrNullQuery() {
         var tokenizer = new Tokenizer();
         var invertedIndex = new InvertedIndex();
-        var scorer = new Bm25Scorer(invertedIndex);
+        var scorer = new Bm25Scorer();
         var searchService = new SearchService(tokenizer, invertedIndex, scorer);
 
         var results = searchService.search("", 1.0);
@@ -152,7 +156,7 @@ class SearchServiceTest {
     void shouldReturnEmptyResultsWhenNoDocumentsMatchAllTokens() {
         var tokenizer = new Tokenizer();
         var invertedIndex = new InvertedIndex();
-        var scorer = new Bm25Scorer(invertedIndex);
+        var scorer = new Bm25Scorer();
 
         var tokens = tokenizer.tokenize("java programming");
         invertedIndex.index(1, tokens);
@@ -173,7 +177,7 @@ class SearchServiceTest {
     void shouldReturnSortedResults() {
         var tokenizer = new Tokenizer();
         var invertedIndex = new InvertedIndex();
-        var scorer = new Bm25Scorer(invertedIndex);
+        var scorer = new Bm25Scorer();
 
         var tokens = tokenizer.tokenize("java programming");
         invertedIndex.index(3, tokens);
@@ -194,7 +198,7 @@ class SearchServiceTest {
     void shouldThrowExceptionForInvalidThreshold() {
         var tokenizer = new Tokenizer();
         var invertedIndex = new InvertedIndex();
-        var scorer = new Bm25Scorer(invertedIndex);
+        var scorer = new Bm25Scorer();
         var searchService = new SearchService(tokenizer, invertedIndex, scorer);
 
         IllegalArgumentException exception = assertThrows(
@@ -226,7 +230,7 @@ class SearchServiceTest {
     void shouldReturnResultsWhenThresholdIsMet() {
         var tokenizer = new Tokenizer();
         var invertedIndex = new InvertedIndex();
-        var scorer = new Bm25Scorer(invertedIndex);
+        var scorer = new Bm25Scorer();
 
         invertedIndex.index(1, tokenizer.tokenize("java spring boot"));
         invertedIndex.index(2, tokenizer.tokenize("java spring hibernate"));
@@ -240,4 +244,113 @@ class SearchServiceTest {
         assertTrue(results.contains(2));
     }
 
+
+    @Test
+    void fuzzySearchShouldMatchMisspelledTokensAndRankExactMatchesFirst() {
+        var tokenizer = new Tokenizer();
+        var invertedIndex = new InvertedIndex();
+        invertedIndex.index(1, tokenizer.tokenize("python programming"));
+        invertedIndex.index(2, tokenizer.tokenize("pythons and snakes"));
+        invertedIndex.index(3, tokenizer.tokenize("java programming"));
+        var suggestionService = new SuggestionService(invertedIndex);
+        var searchService = new SearchService(tokenizer, invertedIndex, new Bm25Scorer(),
+                SearchService.Options.DEFAULTS.withVocabulary(suggestionService, SearchService.DEFAULT_MAX_EXPANSIONS));
+
+        assertTrue(searchService.search("pyton", 1.0).isEmpty());
+        assertEquals(List.of(1, 2), searchService.search("pyton", 1.0, 1));
+        assertEquals(List.of(1), searchService.search("pyton programing", 1.0, 2));
+
+        var ranked = searchService.rankedSearch("python", 10, 1.0, 1);
+        assertEquals(List.of(1, 2), ranked.stream().map(SearchResult::documentId).toList());
+
+        // Tokens shorter than three characters are never expanded
+        assertTrue(searchService.search("jv", 1.0, 2).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> searchService.search("python", 1.0, 3));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SearchService(tokenizer, invertedIndex, new Bm25Scorer()).search("python", 1.0, 1));
+    }
+
+    @Test
+    void fuzzyExpansionsOfOneTokenShouldCountOncePerDocument() {
+        var tokenizer = new Tokenizer();
+        var invertedIndex = new InvertedIndex();
+        invertedIndex.index(1, tokenizer.tokenize("cart cast coat"));
+        invertedIndex.index(2, tokenizer.tokenize("cat dog"));
+        invertedIndex.index(3, tokenizer.tokenize("dig"));
+        invertedIndex.index(4, tokenizer.tokenize("coat dig"));
+        var suggestionService = new SuggestionService(invertedIndex);
+        var searchService = new SearchService(tokenizer, invertedIndex, new Bm25Scorer(),
+                SearchService.Options.DEFAULTS.withVocabulary(suggestionService, SearchService.DEFAULT_MAX_EXPANSIONS));
+
+        // Document 1 matches three expansions of "cat" but none of "dog"
+        assertEquals(List.of(2, 4), searchService.search("cat dog", 1.0, 1));
+        assertEquals(List.of(2, 4), searchService.rankedSearch("cat dog", 10, 1.0, 1).stream()
+                .map(SearchResult::documentId).toList());
+    }
+
+    @Test
+    void cachedFuzzyResultsShouldFollowTheVocabulary() {
+        var tokenizer = new Tokenizer();
+        var invertedIndex = new InvertedIndex();
+        var suggestionService = new SuggestionService(invertedIndex);
+        var searchService = new SearchService(tokenizer, invertedIndex, new Bm25Scorer(), SearchService.Options.DEFAULTS
+                .withResultCache(new QueryResultCache(1 << 20))
+                .withVocabulary(suggestionService, SearchService.DEFAULT_MAX_EXPANSIONS));
+
+        // The vocabulary hears of a write only after the index has applied it
+        invertedIndex.index(1, tokenizer.tokenize("python"));
+        assertTrue(searchService.search("pyton", 1.0, 1).isEmpty());
+        suggestionService.addDocument(tokenizer.tokenize("python"));
+        assertEquals(List.of(1), searchService.search("pyton", 1.0, 1));
+    }
+
+    @Test
+    void phraseSearchShouldRequireTokensInOrderWithinTheSlop() {
+        var tokenizer = new Tokenizer();
+        var invertedIndex = new InvertedIndex();
+        var documentService = new DocumentService(tokenizer, invertedIndex);
+        documentService.indexDocument(1, "quick brown fox");
+        documentService.indexDocument(2, "brown quick fox");
+        documentService.indexDocument(3, "quick red brown fox");
+        documentService.indexDocument(4, "the fox is quick and brown");
+        var searchService = new SearchService(tokenizer, invertedIndex, new Bm25Scorer());
+
+        assertEquals(List.of(1, 2, 3, 4), searchService.search("quick brown", 1.0));
+        // The dropped stop word still takes a position, so document 4 needs a slop of 1
+        assertEquals(List.of(1), searchService.search("\"quick brown\"", 1.0));
+        // A stop word in the phrase leaves a gap too, which any word fills
+        assertEquals(List.of(3, 4), searchService.search("\"quick and brown\"", 1.0));
+        assertEquals(List.of(1, 3, 4), searchService.search("\"quick brown\"~1", 1.0));
+        assertEquals(List.of(1, 2, 3, 4), searchService.search("\"quick brown\"~2", 1.0));
+        // An unmatched quote runs to the end of the query
+        assertEquals(List.of(4), searchService.search("\"fox is quick", 1.0));
+
+        // Phrases are required; the threshold applies to the tokens outside them
+        assertEquals(List.of(1, 3), searchService.search("\"brown fox\" quick red", 0.5));
+        assertEquals(List.of(3), searchService.search("\"brown fox\" quick red", 1.0));
+        var ranked = searchService.rankedSearch("\"quick brown\"~2 red fox", 10, 0.5);
+        assertEquals(List.of(1, 2, 3, 4), ranked.stream().map(SearchResult::documentId).sorted().toList());
+        assertEquals(3, ranked.getFirst().documentId());
+
+        assertThrows(IllegalArgumentException.class, () -> searchService.search("\"quick brown\"~51", 1.0));
+        var fuzzyService = new SearchService(tokenizer, invertedIndex, new Bm25Scorer(), SearchService.Options.DEFAULTS
+                .withVocabulary(new SuggestionService(invertedIndex), SearchService.DEFAULT_MAX_EXPANSIONS));
+        assertThrows(IllegalArgumentException.class, () -> fuzzyService.search("\"quick brown\"", 1.0, 1));
+    }
+
+    @Test
+    void repeatedPhraseTokensShouldMatchDifferentOccurrences() {
+        var tokenizer = new Tokenizer();
+        var invertedIndex = new InvertedIndex();
+        var documentService = new DocumentService(tokenizer, invertedIndex);
+        documentService.indexDocument(1, "java programming");
+        documentService.indexDocument(2, "java java");
+        documentService.indexDocument(3, "java and java");
+        var searchService = new SearchService(tokenizer, invertedIndex, new Bm25Scorer());
+
+        assertEquals(List.of(2), searchService.search("\"java java\"", 1.0));
+        // A single java must not fill both places of the phrase, whatever the slop
+        assertEquals(List.of(2, 3), searchService.search("\"java java\"~1", 1.0));
+        assertEquals(List.of(2, 3), searchService.search("\"java java\"~3", 1.0));
+    }
 }
@@ -0,0 +1,110 @@
+package com.purva.searchengine.search;
+
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.index.ShardedIndex;
+import com.purva.searchengine.service.SearchService;
+import com.purva.searchengine.service.SuggestionService;
+import com.purva.searchengine.tokenizer.Tokenizer;
+import com.purva.searchengine.trie.Trie;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedSearchTest {
+    private static final int VOCABULARY = 300;
+    private static final int DOCUMENTS = 3_000;
+    private static final int SHARDS = 4;
+
+    private static List<String> vocabulary(Random random) {
+        List<String> words = new ArrayList<>();
+        while (words.size() < VOCABULARY) {
+            char[] chars = new char[5 + random.nextInt(4)];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char) ('a' + random.nextInt(26));
+            }
+            words.add(new String(chars));
+        }
+        return words;
+    }
+
+    /** Skewed term distribution so the corpus mixes very common and rare terms, like real text. */
+    private static String randomText(Random random, List<String> words, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append(words.get((int) (VOCABULARY * Math.pow(random.nextDouble(), 3)))).append(' ');
+        }
+        return text.toString();
+    }
+
+    private static String randomQuery(Random random, List<String> words) {
+        String query = randomText(random, words, 1 + random.nextInt(4));
+        return switch (random.nextInt(4)) {
+            case 0 -> "\"" + query.strip() + "\"~" + random.nextInt(4);
+            case 1 -> "\"" + randomText(random, words, 2).strip() + "\" " + query;
+            default -> query;
+        };
+    }
+
+    @Test
+    void shardedSearchShouldMatchTheUnshardedEngine() throws InterruptedException {
+        var random = new Random(7);
+        var tokenizer = new Tokenizer();
+        List<String> words = vocabulary(random);
+        try (var single = new InvertedIndex(500, 4);
+             var sharded = ShardedIndex.create(SHARDS, i -> new InvertedIndex(500, 4))) {
+            for (int docId = 1; docId <= DOCUMENTS; docId++) {
+                List<String> tokens = tokenizer.tokenize(randomText(random, words, 1 + random.nextInt(40)));
+                single.index(docId, tokens);
+                sharded.index(docId, tokens);
+            }
+            // Re-index and delete the same documents on both, so shards carry deletions too
+            for (int i = 0; i < 300; i++) {
+                int docId = 1 + random.nextInt(DOCUMENTS);
+                if (random.nextBoolean()) {
+                    assertEquals(single.delete(docId), sharded.delete(docId));
+                }
+                else {
+                    List<String> tokens = tokenizer.tokenize(randomText(random, words, 3));
+                    single.index(docId, tokens);
+                    sharded.index(docId, tokens);
+                }
+            }
+            single.awaitMerges();
+            sharded.awaitMerges();
+            assertEquals(single.getTotalDocuments(), sharded.getTotalDocuments());
+            for (int shard = 0; shard < SHARDS; shard++) {
+                assertTrue(sharded.shard(shard).getTotalDocuments() > 0, "Shard " + shard + " is empty");
+            }
+
+            for (Scorer scorer : List.of(new Bm25Scorer(), new TfIdfScorer())) {
+                var expected = new SearchService(tokenizer, single, scorer, SearchService.Options.DEFAULTS
+                        .withVocabulary(new SuggestionService(single), SearchService.DEFAULT_MAX_EXPANSIONS));
+                var vocabulary = new SuggestionService(sharded, Trie.DEFAULT_MIN_PREFIX_LENGTH, Duration.ZERO);
+                // Shards and fuzzy tokens fan out to the common pool, or to a virtual thread each
+                for (boolean virtualThreads : new boolean[] {false, true}) {
+                    var actual = new SearchService(tokenizer, sharded, scorer, SearchService.Options.DEFAULTS
+                            .withVocabulary(vocabulary, SearchService.DEFAULT_MAX_EXPANSIONS)
+                            .withVirtualThreads(virtualThreads));
+                    for (int q = 0; q < 100; q++) {
+                        String query = randomQuery(random, words);
+                        int topK = 1 + random.nextInt(20);
+                        double threshold = new double[] {0.1, 0.5, 1.0}[random.nextInt(3)];
+                        int fuzziness = query.indexOf('"') < 0 ? random.nextInt(3) : 0;
+                        String message = "Query '" + query + "' topK=" + topK + " threshold=" + threshold
+                                + " fuzziness=" + fuzziness + " virtualThreads=" + virtualThreads;
+
+                        assertEquals(expected.search(query, threshold, fuzziness),
+                                actual.search(query, threshold, fuzziness), message);
+                        assertEquals(expected.rankedSearch(query, topK, threshold, fuzziness),
+                                actual.rankedSearch(query, topK, threshold, fuzziness), message);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -23,7 +23,7 @@ class TfIdfRankedSearchServiceTest {
     void setup() {
         var tokenizer = new Tokenizer();
         var invertedIndex = new InvertedIndex();
-        var scorer = new TfIdfScorer(invertedIndex);
+        var scorer = new TfIdfScorer();
         searchService = new SearchService(tokenizer, invertedIndex, scorer);
 
         var tokens = tokenizer.tokenize(doc1);
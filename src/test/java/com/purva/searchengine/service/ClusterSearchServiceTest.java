@@ -0,0 +1,173 @@
+package com.purva.searchengine.service;
+
+import com.purva.searchengine.InMemorySearchEngineApplication;
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.search.Bm25Scorer;
+import com.purva.searchengine.tokenizer.Tokenizer;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterSearchServiceTest {
+    private static final List<String> QUERIES = List.of("java", "java programming", "python search engine",
+            "\"search engine\"", "\"java engine\"~3 python");
+    private static final String[] CONTENTS = {
+            "java programming language", "python programming language", "search engine in java",
+            "python search engine", "java virtual machine", "the search engine indexes java and python",
+            "engine for java search", "programming a search engine", "java", "python"};
+
+    private static ConfigurableApplicationContext first;
+    private static ConfigurableApplicationContext second;
+    private static HttpServer slowNode;
+    private static ExecutorService slowNodeExecutor;
+    private static SearchService reference;
+
+    private static ConfigurableApplicationContext startNode(String... properties) {
+        String[] args = new String[properties.length + 3];
+        args[0] = "--server.port=0";
+        args[1] = "--spring.main.banner-mode=off";
+        args[2] = "--logging.level.root=WARN";
+        System.arraycopy(properties, 0, args, 3, properties.length);
+        return SpringApplication.run(InMemorySearchEngineApplication.class, args);
+    }
+
+    private static URI url(ConfigurableApplicationContext node) {
+        return URI.create("http://localhost:" + node.getEnvironment().getProperty("local.server.port"));
+    }
+
+    private static int deadPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @BeforeAll
+    static void startNodes() throws IOException {
+        // DevTools would otherwise restart each node in a new class loader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        first = startNode();
+        second = startNode("--search.index.shards=2");
+
+        var tokenizer = new Tokenizer();
+        var invertedIndex = new InvertedIndex();
+        for (int i = 0; i < 40; i++) {
+            int documentId = i + 1;
+            String content = CONTENTS[i % CONTENTS.length] + (i % 3 == 0 ? " java" : "");
+            (documentId % 2 == 0 ? first : second).getBean(DocumentService.class).indexDocument(documentId, content);
+            invertedIndex.index(documentId, tokenizer.tokenize(content));
+        }
+        reference = new SearchService(tokenizer, invertedIndex, new Bm25Scorer());
+        // The first requests to a fresh node are slow enough to miss the timeout
+        try (var cluster = cluster(Duration.ZERO, List.of(List.of(url(first)), List.of(url(second))))) {
+            for (String query : QUERIES) {
+                cluster.rankedSearch(query, 5, 0.5, 0);
+                cluster.search(query, 1.0, 0);
+            }
+        }
+
+        // Accepts every call and answers none of them in time
+        slowNode = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        slowNodeExecutor = Executors.newCachedThreadPool();
+        slowNode.setExecutor(slowNodeExecutor);
+        slowNode.createContext("/", exchange -> {
+            try {
+                Thread.sleep(10_000);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        slowNode.start();
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        first.close();
+        second.close();
+        slowNode.stop(0);
+        slowNodeExecutor.shutdownNow();
+    }
+
+    private static ClusterSearchService cluster(Duration hedgeAfter, List<List<URI>> nodes) {
+        return new ClusterSearchService(nodes, Duration.ofSeconds(1), hedgeAfter, JsonMapper.builder().build());
+    }
+
+    @Test
+    void clusterShouldScoreLikeOneNodeHoldingEveryDocument() {
+        try (var cluster = cluster(Duration.ZERO, List.of(List.of(url(first)), List.of(url(second))))) {
+            for (String query : QUERIES) {
+                var ranked = cluster.rankedSearch(query, 5, 0.5, 0);
+                assertEquals(0, ranked.failedNodes());
+                assertEquals(reference.rankedSearch(query, 5, 0.5), ranked.results(), query);
+
+                var matches = cluster.search(query, 1.0, 0);
+                assertEquals(0, matches.failedNodes());
+                assertEquals(reference.search(query, 1.0), matches.results(), query);
+            }
+            assertThrows(IllegalArgumentException.class, () -> cluster.rankedSearch("\"java engine\"~51", 5, 0.5, 0));
+            assertThrows(IllegalArgumentException.class, () -> cluster.search("java", 0.5, 1));
+        }
+    }
+
+    @Test
+    void slowAndDeadNodesShouldBeLeftOutOfPartialResults() throws IOException {
+        URI deadNode = URI.create("http://localhost:" + deadPort());
+        URI slow = URI.create("http://localhost:" + slowNode.getAddress().getPort());
+        try (var healthy = cluster(Duration.ZERO, List.of(List.of(url(first))));
+             var cluster = cluster(Duration.ZERO, List.of(List.of(url(first)), List.of(slow), List.of(deadNode)));
+             var down = cluster(Duration.ZERO, List.of(List.of(slow), List.of(deadNode)))) {
+            var ranked = cluster.rankedSearch("java programming", 5, 0.5, 0);
+            assertEquals(2, ranked.failedNodes());
+            assertEquals(healthy.rankedSearch("java programming", 5, 0.5, 0).results(), ranked.results());
+            assertEquals(2, cluster.search("java", 1.0, 0).failedNodes());
+
+            assertThrows(ClusterUnavailableException.class, () -> down.rankedSearch("java", 5, 0.5, 0));
+        }
+    }
+
+    @Test
+    void hedgedCallsShouldBeAnsweredByTheFasterReplica() {
+        URI slow = URI.create("http://localhost:" + slowNode.getAddress().getPort());
+        List<List<URI>> nodes = List.of(List.of(slow, url(first)), List.of(url(second)));
+        // The first call to a node goes to its first replica, here the one that never answers in time
+        try (var unhedged = cluster(Duration.ZERO, nodes);
+             var hedged = cluster(Duration.ofMillis(50), nodes)) {
+            assertEquals(1, unhedged.rankedSearch("java", 5, 0.5, 0).failedNodes());
+            for (String query : QUERIES) {
+                var ranked = hedged.rankedSearch(query, 5, 0.5, 0);
+                assertEquals(0, ranked.failedNodes(), query);
+                assertEquals(reference.rankedSearch(query, 5, 0.5), ranked.results(), query);
+            }
+        }
+    }
+
+    @Test
+    void aNodeWhoseReplicasBothFailFastShouldFailWithoutWaitingForTheTimeout() throws IOException {
+        List<List<URI>> nodes = List.of(List.of(url(first)),
+                List.of(URI.create("http://localhost:" + deadPort()), URI.create("http://localhost:" + deadPort())));
+        try (var cluster = new ClusterSearchService(nodes, Duration.ofSeconds(30), Duration.ofSeconds(10),
+                JsonMapper.builder().build())) {
+            long start = System.nanoTime();
+            assertEquals(1, cluster.rankedSearch("java", 5, 0.5, 0).failedNodes());
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(5)) < 0,
+                    "The refused first attempt should be hedged at once, and the refused hedge should end the call");
+        }
+    }
+}
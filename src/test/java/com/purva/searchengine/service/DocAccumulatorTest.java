@@ -0,0 +1,89 @@
+package com.purva.searchengine.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocAccumulatorTest {
+
+    @Test
+    void shouldReturnDocsReachingTheMinimumCount() {
+        DocAccumulator accumulator = DocAccumulator.forCurrentThread(10);
+        try {
+            accumulator.increment(7);
+            accumulator.increment(2);
+            accumulator.increment(7);
+            accumulator.increment(5);
+            accumulator.increment(2);
+
+            assertArrayEquals(new int[] {7, 2}, accumulator.docsWithCountAtLeast(2));
+            assertArrayEquals(new int[] {7, 2, 5}, accumulator.docsWithCountAtLeast(1));
+        }
+        finally {
+            accumulator.clear();
+        }
+    }
+
+    @Test
+    void clearShouldResetOnlyTouchedSlotsForTheNextQuery() {
+        DocAccumulator accumulator = DocAccumulator.forCurrentThread(10);
+        accumulator.increment(3);
+        accumulator.addScore(3, 1.5);
+        accumulator.clear();
+
+        DocAccumulator reused = DocAccumulator.forCurrentThread(10);
+        assertSame(accumulator, reused, "Accumulator should be reused within a thread");
+        assertEquals(0, reused.count(3));
+        assertEquals(0.0, reused.score(3));
+        assertEquals(0, reused.docsWithCountAtLeast(1).length);
+    }
+
+    @Test
+    void shouldGrowWhenTheIndexOutgrowsItsCapacity() {
+        DocAccumulator accumulator = DocAccumulator.forCurrentThread(4);
+        accumulator.clear();
+
+        DocAccumulator grown = DocAccumulator.forCurrentThread(1000);
+        try {
+            grown.increment(999);
+            assertEquals(1, grown.count(999));
+        }
+        finally {
+            grown.clear();
+        }
+    }
+
+    @Test
+    void virtualThreadsShouldShareClearedAccumulatorsWithoutSharingBusyOnes() throws InterruptedException {
+        AtomicReference<DocAccumulator> first = new AtomicReference<>();
+        AtomicReference<DocAccumulator> concurrent = new AtomicReference<>();
+        AtomicReference<DocAccumulator> next = new AtomicReference<>();
+        Thread.ofVirtual().start(() -> {
+            DocAccumulator accumulator = DocAccumulator.forCurrentThread(10);
+            first.set(accumulator);
+            accumulator.increment(3);
+            try {
+                Thread.ofVirtual().start(() -> {
+                    DocAccumulator other = DocAccumulator.forCurrentThread(10);
+                    concurrent.set(other);
+                    other.clear();
+                }).join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            accumulator.clear();
+        }).join();
+        Thread.ofVirtual().start(() -> {
+            DocAccumulator accumulator = DocAccumulator.forCurrentThread(10);
+            next.set(accumulator);
+            accumulator.clear();
+        }).join();
+
+        assertNotSame(first.get(), concurrent.get(), "A busy accumulator must not be handed out");
+        assertTrue(next.get() == first.get() || next.get() == concurrent.get(), "A cleared accumulator should be reused");
+        assertEquals(0, next.get().count(3));
+    }
+}
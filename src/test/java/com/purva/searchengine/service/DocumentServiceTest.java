@@ -0,0 +1,138 @@
+package com.purva.searchengine.service;
+
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.index.Posting;
+import com.purva.searchengine.tokenizer.Tokenizer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentServiceTest {
+
+    @Test
+    void bulkIndexShouldReportEveryLineAndKeepGoingPastBadOnes() throws Exception {
+        try (var invertedIndex = new InvertedIndex()) {
+            var documentService = new DocumentService(new Tokenizer(), invertedIndex);
+            String ndjson = """
+                    {"documentId": 1, "content": "java search engine"}
+                    {"documentId": 2, "content": "broken
+                    
+                    {"content": "no id"}
+                    {"documentId": 3, "content": "  "}
+                    {"documentId": 1, "content": "java update"}
+                    """;
+
+            BulkIndexResult result = documentService.bulkIndex(new StringReader(ndjson));
+
+            assertEquals(2, result.indexed());
+            assertEquals(3, result.failed());
+            assertEquals(List.of(1, 2, 4, 5, 6), result.items().stream().map(BulkItemResult::line).toList());
+            assertEquals(List.of(201, 400, 400, 400, 201), result.items().stream().map(BulkItemResult::status).toList());
+            assertEquals("Document content cannot be null or blank", result.items().get(3).error());
+
+            assertEquals(1, invertedIndex.getTotalDocuments(), "Later line should replace the earlier copy of document 1");
+            assertFalse(invertedIndex.contains("engine"));
+            assertTrue(invertedIndex.contains("update"));
+        }
+    }
+
+    @Test
+    void unindexableDocumentsShouldBeRejectedWithoutTouchingPreviousVersions() throws Exception {
+        try (var invertedIndex = new InvertedIndex()) {
+            var documentService = new DocumentService(new Tokenizer(), invertedIndex);
+            documentService.indexDocument(1, "java search");
+            documentService.indexDocument(2, "java update");
+            String ndjson = """
+                    {"documentId": 0, "content": "zero"}
+                    {"documentId": -4, "content": "negative"}
+                    {"documentId": 1, "content": "the and"}
+                    {"documentId": 3, "content": "python"}
+                    """;
+
+            BulkIndexResult result = documentService.bulkIndex(new StringReader(ndjson));
+
+            assertEquals(1, result.indexed());
+            assertEquals(3, result.failed());
+            assertEquals(List.of(400, 400, 400, 201), result.items().stream().map(BulkItemResult::status).toList());
+            assertEquals(DocumentService.INVALID_ID, result.items().get(1).error());
+            assertEquals(DocumentService.NO_INDEXABLE_TERMS, result.items().get(2).error());
+            assertFalse(invertedIndex.contains("zero"));
+            assertEquals(List.of(1, 2), invertedIndex.getPostings("java").stream().map(Posting::documentId).toList(),
+                    "The rejected line leaves document 1 as it was");
+
+            // The single-document endpoint keeps ignoring them
+            documentService.indexDocument(2, "and the");
+            documentService.indexDocument(0, "zero");
+            assertTrue(invertedIndex.contains("update"));
+            assertFalse(invertedIndex.contains("zero"));
+            assertEquals(3, invertedIndex.getTotalDocuments());
+        }
+    }
+
+    @Test
+    void bulkIndexShouldApplyDocumentsAcrossSeveralBatches() throws IOException, InterruptedException {
+        int documents = DocumentService.BULK_BATCH_SIZE * 2 + 10;
+        StringBuilder ndjson = new StringBuilder();
+        for (int docId = 1; docId <= documents; docId++) {
+            ndjson.append("{\"documentId\": ").append(docId).append(", \"content\": \"bulk doc").append(docId % 7).append("\"}\n");
+        }
+
+        try (var invertedIndex = new InvertedIndex()) {
+            var documentService = new DocumentService(new Tokenizer(), invertedIndex);
+            BulkIndexResult result = documentService.bulkIndex(new StringReader(ndjson.toString()));
+
+            assertEquals(documents, result.indexed());
+            assertEquals(documents, invertedIndex.getTotalDocuments());
+            assertEquals(documents, invertedIndex.getDocumentFrequency("bulk"));
+        }
+    }
+
+    @Test
+    void indexedDocumentsShouldFeedSuggestionsUntilTheNextRebuild() throws IOException, InterruptedException {
+        try (var invertedIndex = new InvertedIndex()) {
+            var documentService = new DocumentService(new Tokenizer(), invertedIndex);
+            documentService.indexDocument(1, "Java javac java");
+            var suggestionService = new SuggestionService(invertedIndex);
+            documentService = new DocumentService(new Tokenizer(), invertedIndex,
+                    DocumentService.Options.NONE.withSuggestionService(suggestionService));
+            documentService.bulkIndex(new StringReader("""
+                    {"documentId": 2, "content": "jar javac"}
+                    {"documentId": 3, "content": "javac"}
+                    """));
+
+            // javac is counted once in the built index and twice in the documents added since
+            assertEquals(List.of("javac", "java", "jar"), suggestionService.suggest("JA", 10));
+            assertEquals(List.of("javac"), suggestionService.suggest("jav", 1));
+            assertEquals(List.of(), suggestionService.suggest("j", 10));
+
+            assertTrue(suggestionService.rebuildIfChanged());
+            assertFalse(suggestionService.rebuildIfChanged());
+            assertEquals(List.of("javac", "java", "jar"), suggestionService.suggest("ja", 10));
+        }
+    }
+
+    @Test
+    void suggestionsShouldCountOnlyLiveDocuments() throws InterruptedException {
+        try (var invertedIndex = new InvertedIndex()) {
+            var documentService = new DocumentService(new Tokenizer(), invertedIndex);
+            documentService.indexDocument(1, "search search search engine");
+            invertedIndex.flush();
+            documentService.indexDocument(2, "search seal seal seal");
+            documentService.indexDocument(3, "seal seal");
+            documentService.deleteDocument(3);
+
+            var suggestionService = new SuggestionService(invertedIndex);
+            assertEquals(List.of("search", "seal"), suggestionService.suggest("se", 10));
+            assertEquals(List.of("search"), suggestionService.suggest("sear", 10));
+
+            documentService.deleteDocument(2);
+            assertEquals(List.of("search", "seal"), suggestionService.suggest("se", 10));
+            suggestionService.rebuildIfChanged();
+            assertEquals(List.of("search"), suggestionService.suggest("se", 10));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.purva.searchengine.service;
+
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.index.ShardedIndex;
+import com.purva.searchengine.search.Bm25Scorer;
+import com.purva.searchengine.tokenizer.Tokenizer;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EngineMetricsTest {
+
+    private static long stageCount(MeterRegistry registry, String query, String stage) {
+        return registry.get("search.stage").tags("query", query, "stage", stage).timer().count();
+    }
+
+    private static ShardedIndex twoShards() {
+        return ShardedIndex.create(2, shard -> new InvertedIndex());
+    }
+
+    private static void indexCorpus(DocumentService documentService) {
+        documentService.indexDocument(1, "java search engine");
+        documentService.indexDocument(2, "java update");
+        documentService.indexDocument(3, "search tips");
+        documentService.indexDocument(4, "python");
+    }
+
+    @Test
+    void queriesShouldRecordTheStagesTheyWentThroughAndWhatTheyVisited() throws InterruptedException {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        try (ShardedIndex index = twoShards()) {
+            var metrics = new EngineMetrics(registry, index);
+            var tokenizer = new Tokenizer();
+            indexCorpus(new DocumentService(tokenizer, index, DocumentService.Options.NONE));
+            // Exhaustive scoring, so discovery and scoring are separate stages
+            var searchService = new SearchService(tokenizer, index, new Bm25Scorer(),
+                    SearchService.Options.DEFAULTS.withDynamicPruning(false).withMetrics(metrics));
+
+            assertEquals(3, searchService.rankedSearch("java search", 10, 0.5).size());
+
+            for (String stage : List.of("tokenize", "discovery", "scoring", "selection")) {
+                assertEquals(1, stageCount(registry, "ranked", stage), stage);
+            }
+            assertEquals(0, stageCount(registry, "ranked", "expand"));
+            assertEquals(0, stageCount(registry, "search", "tokenize"));
+            // Three documents contain a query token; both tokens' postings are walked to count, then to score
+            assertEquals(3, registry.get("search.candidates").tag("query", "ranked").summary().totalAmount());
+            assertEquals(8, registry.get("search.postings").tag("query", "ranked").summary().totalAmount());
+
+            assertEquals(List.of(1), searchService.search("java search", 1.0));
+            assertEquals(1, stageCount(registry, "search", "discovery"));
+            assertEquals(0, stageCount(registry, "search", "scoring"));
+            assertEquals(1, registry.get("search.candidates").tag("query", "search").summary().totalAmount());
+        }
+    }
+
+    @Test
+    void cachedQueriesShouldNotBeRecorded() throws InterruptedException {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        try (ShardedIndex index = twoShards()) {
+            var metrics = new EngineMetrics(registry, index);
+            var tokenizer = new Tokenizer();
+            indexCorpus(new DocumentService(tokenizer, index, DocumentService.Options.NONE));
+            var searchService = new SearchService(tokenizer, index, new Bm25Scorer(), SearchService.Options.DEFAULTS
+                    .withResultCache(new QueryResultCache(1 << 20)).withMetrics(metrics));
+
+            searchService.rankedSearch("java", 10, 1.0);
+            searchService.rankedSearch("java", 10, 1.0);
+
+            assertEquals(1, stageCount(registry, "ranked", "scoring"));
+            assertEquals(1, registry.get("search.candidates").tag("query", "ranked").summary().count());
+        }
+    }
+
+    @Test
+    void writesShouldRecordTheirStagesAndWriterLockAcquisitions() throws InterruptedException {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        try (ShardedIndex index = twoShards()) {
+            var metrics = new EngineMetrics(registry, index);
+            var documentService = new DocumentService(new Tokenizer(), index,
+                    DocumentService.Options.NONE.withMetrics(metrics));
+
+            indexCorpus(documentService);
+            documentService.deleteDocument(4);
+
+            assertEquals(4, registry.get("index.stage").tags("operation", "index", "stage", "tokenize").timer().count());
+            assertEquals(4, registry.get("index.stage").tags("operation", "index", "stage", "write").timer().count());
+            assertEquals(1, registry.get("index.stage").tags("operation", "delete", "stage", "write").timer().count());
+            assertEquals(0, registry.get("index.stage").tags("operation", "index", "stage", "log").timer().count(),
+                    "Nothing is logged without a write-ahead log");
+
+            FunctionTimer writerLock = registry.get("index.writer.lock").functionTimer();
+            assertEquals(index.writerLockStats().acquisitions(), (long) writerLock.count());
+            assertTrue(writerLock.count() >= 5, "Every write takes its shard's writer lock");
+            assertEquals(0, registry.get("index.writer.lock.contended").functionCounter().count());
+        }
+    }
+
+    @Test
+    void theDisabledTraceShouldRecordNothing() {
+        QueryTrace trace = QueryTrace.DISABLED;
+        trace.lap(QueryTrace.Stage.TOKENIZE);
+        trace.count(3, 7);
+        trace.addShards(List.of(new QueryTrace()));
+
+        assertSame(QueryTrace.DISABLED, trace.forShard());
+        assertEquals(0, trace.stageNanos(QueryTrace.Stage.TOKENIZE));
+        assertEquals(0, trace.candidates());
+        assertEquals(0, trace.postings());
+    }
+}
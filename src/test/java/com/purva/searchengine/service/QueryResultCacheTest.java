@@ -0,0 +1,92 @@
+package com.purva.searchengine.service;
+
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.search.Bm25Scorer;
+import com.purva.searchengine.tokenizer.Tokenizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryResultCacheTest {
+
+    @Test
+    void shouldServeRepeatedQueriesUntilTheIndexChanges() throws InterruptedException {
+        var tokenizer = new Tokenizer();
+        try (var invertedIndex = new InvertedIndex()) {
+            var searchService = new SearchService(tokenizer, invertedIndex, new Bm25Scorer(),
+                    SearchService.Options.DEFAULTS.withResultCache(new QueryResultCache(1 << 20)));
+            invertedIndex.index(1, tokenizer.tokenize("java search engine"));
+
+            List<SearchResult> first = searchService.rankedSearch("java engine", 10, 1.0);
+            List<SearchResult> second = searchService.rankedSearch("Java, ENGINE!", 10, 1.0);
+            assertSame(first, second, "Queries with the same tokens should share a cache entry");
+            assertEquals(1, searchService.cacheStats().hits());
+
+            invertedIndex.index(2, tokenizer.tokenize("java engine"));
+            assertEquals(2, searchService.rankedSearch("java engine", 10, 1.0).size(), "Indexing should invalidate cached results");
+            assertEquals(List.of(1, 2), searchService.search("java engine", 1.0));
+            assertEquals(3, searchService.cacheStats().misses());
+        }
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntriesOverTheByteBudget() {
+        var cache = new QueryResultCache(4096);
+        List<Integer> results = List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        for (int i = 0; i < 100; i++) {
+            cache.put(key("term" + i), 0, results);
+            cache.get(key("term0"), 0);
+        }
+
+        QueryResultCache.Stats stats = cache.stats();
+        assertTrue(stats.usedBytes() <= stats.maxBytes());
+        assertTrue(stats.evictions() > 0);
+        assertNotNull(cache.get(key("term0"), 0), "Recently used entry should survive eviction");
+        assertNull(cache.get(key("term1"), 0));
+        assertNull(cache.get(key("term0"), 1), "Entry from an older generation should be a miss");
+    }
+
+    @Test
+    void shouldNotCacheResultsLargerThanAnEighthOfTheBudget() {
+        var cache = new QueryResultCache(4096);
+        cache.put(key("common"), 0, Collections.nCopies(1000, 0));
+
+        assertNull(cache.get(key("common"), 0));
+        assertEquals(0, cache.stats().entries());
+    }
+
+    @Test
+    void stripedCacheShouldStayWithinItsBudgetUnderConcurrentUse() throws InterruptedException {
+        // Two stripes of 1 MiB, each holding a few thousand entries
+        var cache = new QueryResultCache(2 << 20);
+        List<Integer> results = List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    var key = key("term" + (thread * 20_000 + i));
+                    cache.put(key, 0, results);
+                    cache.get(key, 0);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        QueryResultCache.Stats stats = cache.stats();
+        assertTrue(stats.usedBytes() <= stats.maxBytes());
+        assertTrue(stats.usedBytes() > stats.maxBytes() / 2, "Both stripes should be in use");
+        assertEquals(160_000, stats.hits() + stats.misses());
+        assertEquals(160_000, stats.entries() + stats.evictions());
+    }
+
+    private static QueryResultCache.Key key(String token) {
+        return new QueryResultCache.Key(List.of(token), List.of(), 0, 1.0, 0, "scorer");
+    }
+}
@@ -0,0 +1,287 @@
+package com.purva.searchengine.service;
+
+import com.purva.searchengine.index.InvertedIndex;
+import com.purva.searchengine.tokenizer.Tokenizer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+    @TempDir
+    Path directory;
+
+    private WriteAheadLog open(Path walDirectory) throws IOException {
+        return new WriteAheadLog(walDirectory, WriteAheadLog.Durability.FSYNC, Duration.ofMillis(100));
+    }
+
+    private List<WriteAheadLog.Entry> replay(Path walDirectory) throws IOException, InterruptedException {
+        List<WriteAheadLog.Entry> entries = new ArrayList<>();
+        try (WriteAheadLog log = open(walDirectory)) {
+            log.replay(entries::add);
+        }
+        return entries;
+    }
+
+    @Test
+    void replayShouldReturnEntriesInOrderAndStopAtATornRecord() throws IOException, InterruptedException {
+        Path walDirectory = directory.resolve("wal");
+        try (WriteAheadLog log = open(walDirectory)) {
+            log.append(List.of(WriteAheadLog.Entry.index(1, "java search"), WriteAheadLog.Entry.index(2, "héllo wörld")), () -> null);
+            log.append(List.of(WriteAheadLog.Entry.delete(1)), () -> null);
+        }
+        assertEquals(List.of(WriteAheadLog.Entry.index(1, "java search"), WriteAheadLog.Entry.index(2, "héllo wörld"),
+                WriteAheadLog.Entry.delete(1)), replay(walDirectory));
+
+        // A crash in the middle of a write leaves a partial record at the end of a file
+        try (Stream<Path> files = Files.list(walDirectory)) {
+            Path first = files.sorted().findFirst().orElseThrow();
+            Files.write(first, new byte[] {0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+        }
+        assertEquals(3, replay(walDirectory).size());
+    }
+
+    @Test
+    void serviceShouldRecoverWritesMadeAfterTheLastSnapshot() throws IOException, InterruptedException {
+        Path walDirectory = directory.resolve("wal");
+        Path snapshot = directory.resolve("index.snapshot");
+        try (var invertedIndex = new InvertedIndex(); WriteAheadLog log = open(walDirectory)) {
+            var documentService = new DocumentService(new Tokenizer(), invertedIndex,
+                    DocumentService.Options.NONE.withWriteAheadLog(log));
+            var scheduler = new SnapshotScheduler(invertedIndex, snapshot, Duration.ofHours(1), log);
+            documentService.indexDocument(1, "java search engine");
+            documentService.indexDocument(2, "java virtual machine");
+            assertTrue(scheduler.saveIfChanged());
+
+            documentService.indexDocument(3, "search engine");
+            documentService.deleteDocument(1);
+            documentService.indexDocument(2, "garbage collector");
+            // Simulate a crash: the scheduler is dropped without its final save
+        }
+
+        try (var invertedIndex = InvertedIndex.open(snapshot); WriteAheadLog log = open(walDirectory)) {
+            var documentService = new DocumentService(new Tokenizer(), invertedIndex,
+                    DocumentService.Options.NONE.withWriteAheadLog(log));
+            assertEquals(3, documentService.replayLog(), "Writes saved in the snapshot should have been truncated from the log");
+
+            assertEquals(2, invertedIndex.getTotalDocuments());
+            assertEquals(0, invertedIndex.getDocumentFrequency("java"));
+            assertEquals(1, invertedIndex.getDocumentFrequency("search"));
+            assertEquals(1, invertedIndex.getDocumentFrequency("garbage"));
+        }
+    }
+
+    @Test
+    void groupCommitShouldKeepEveryConcurrentWrite() throws Exception {
+        Path walDirectory = directory.resolve("wal");
+        int threads = 8;
+        int perThread = 200;
+        try (var invertedIndex = new InvertedIndex(); WriteAheadLog log = open(walDirectory)) {
+            var documentService = new DocumentService(new Tokenizer(), invertedIndex,
+                    DocumentService.Options.NONE.withWriteAheadLog(log));
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int first = t * perThread + 1;
+                writers.add(Thread.ofPlatform().start(() -> {
+                    for (int docId = first; docId < first + perThread; docId++) {
+                        documentService.indexDocument(docId, "concurrent document " + docId);
+                    }
+                }));
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+
+        try (var invertedIndex = new InvertedIndex(); WriteAheadLog log = open(walDirectory)) {
+            var documentService = new DocumentService(new Tokenizer(), invertedIndex,
+                    DocumentService.Options.NONE.withWriteAheadLog(log));
+            assertEquals(threads * perThread, documentService.replayLog());
+            assertEquals(threads * perThread, invertedIndex.getDocumentFrequency("concurrent"));
+        }
+    }
+
+    @Test
+    void writesToOtherDocumentsShouldNotWaitForAnApplyInProgress() throws Exception {
+        try (WriteAheadLog log = open(directory.resolve("wal"))) {
+            var applying = new CountDownLatch(1);
+            var release = new CountDownLatch(1);
+            Thread slow = Thread.ofPlatform().start(() -> log.append(List.of(WriteAheadLog.Entry.index(1, "slow")), () -> {
+                applying.countDown();
+                try {
+                    return release.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+            assertTrue(applying.await(10, TimeUnit.SECONDS));
+
+            assertEquals("applied", log.append(List.of(WriteAheadLog.Entry.index(2, "fast")), () -> "applied"));
+            release.countDown();
+            slow.join();
+        }
+    }
+
+    @Test
+    void aFailedLogShouldRefuseWritesWithoutApplyingThem() throws IOException, InterruptedException {
+        Path walDirectory = directory.resolve("wal");
+        try (WriteAheadLog log = open(walDirectory)) {
+            log.append(List.of(WriteAheadLog.Entry.index(1, "java")), () -> null);
+            assertNull(log.failure());
+
+            var failure = new IOException("fsync failed");
+            log.fail(failure);
+            log.fail(new IOException("later failure"));
+            assertSame(failure, log.failure(), "The first failure is the one reported");
+
+            var applied = new AtomicBoolean();
+            var refused = assertThrows(UncheckedIOException.class,
+                    () -> log.append(List.of(WriteAheadLog.Entry.index(2, "search")), () -> applied.getAndSet(true)));
+            assertSame(failure, refused.getCause());
+            assertFalse(applied.get());
+        }
+        assertEquals(List.of(WriteAheadLog.Entry.index(1, "java")), replay(walDirectory));
+    }
+
+    @Test
+    void aFailedFsyncShouldNotBeAcknowledged() throws IOException, InterruptedException {
+        var failing = new AtomicBoolean();
+        var log = new WriteAheadLog(directory.resolve("wal"), WriteAheadLog.Durability.FSYNC, Duration.ofMillis(100),
+                file -> new FailingForceChannel(FileChannel.open(file, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND), failing));
+        log.append(List.of(WriteAheadLog.Entry.index(1, "java")), () -> null);
+
+        failing.set(true);
+        var applied = new AtomicBoolean();
+        var unsynced = assertThrows(UncheckedIOException.class,
+                () -> log.append(List.of(WriteAheadLog.Entry.index(2, "search")), () -> applied.getAndSet(true)));
+        assertTrue(applied.get(), "The write was applied before its fsync");
+        assertSame(log.failure(), unsynced.getCause());
+
+        failing.set(false);
+        assertThrows(UncheckedIOException.class,
+                () -> log.append(List.of(WriteAheadLog.Entry.index(3, "engine")), () -> null));
+        log.close();
+    }
+
+    /** Delegates to a real channel, except that {@code force} throws while {@code failing} is set. */
+    private static final class FailingForceChannel extends FileChannel {
+        private final FileChannel delegate;
+        private final AtomicBoolean failing;
+
+        FailingForceChannel(FileChannel delegate, AtomicBoolean failing) {
+            this.delegate = delegate;
+            this.failing = failing;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            if (failing.get()) {
+                throw new IOException("fsync failed");
+            }
+            delegate.force(metaData);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return delegate.write(src);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
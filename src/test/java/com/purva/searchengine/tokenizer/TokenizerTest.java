@@ -1,7 +1,11 @@
 package com.purva.searchengine.tokenizer;
 
 import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -63,4 +67,57 @@ class TokenizerTest {
         assertTrue(tokens.isEmpty(), "Should be empty as all words are noise");
         assertEquals(List.of(), tokens);
     }
-}
\ No newline at end of file
+
+    @Test
+    void callbackShouldReceiveTheSameTokensAsTheList() {
+        String input = "Running C++ builds on Node.js servers";
+        List<String> tokens = new ArrayList<>();
+        tokenizer.tokenize(input, tokens::add);
+
+        assertEquals(tokenizer.tokenize(input), tokens);
+    }
+
+    @Test
+    void droppedWordsShouldStillAdvanceThePosition() {
+        String input = "The fox is quick and a brown-ish fox";
+        TokenizedText text = tokenizer.tokenizeWithPositions(input);
+
+        assertEquals(tokenizer.tokenize(input), text.tokens());
+        assertArrayEquals(new int[] {1, 3, 6, 7, 8}, text.positions());
+        assertEquals(0, tokenizer.tokenizeWithPositions(" the ").positions().length);
+    }
+
+    @Test
+    void shouldMatchTheRegexTokenizerOnARandomCorpus() {
+        // Word parts that hit every stemming rule, stop words, technical tokens and the non-ASCII
+        // characters whose lowercase form is ASCII, mixed with separators of every kind
+        String[] parts = {
+                "stor", "ies", "runn", "ing", "box", "es", "analy", "sis", "cat", "s", "ss", "class", "sky", "rhythm",
+                "the", "And", "I", "a", "x", "Z", "7", "2024", "c++", "C#", "node.js", ".", "+", "#", "-", "--",
+                "\u0130", "\u212A", "\u00CC", "\u00CD", "\u0128", "\u0131", "\u00DF", "\u03A3", "\u00C9t\u00E9",
+                "\uD83D\uDE00", "\uD800", " ", "  ", "\t", "\n", "\r\n", "\u000B", "\f", "\u00A0", "\u0085", "\u2028",
+                "\u3000", ",", "!", "(", ")", "_", "'", "\"", "/"
+        };
+        var regexTokenizer = new RegexTokenizer();
+        var random = new Random(7);
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            for (String tag : List.of("en", "tr", "az", "lt", "el")) {
+                Locale.setDefault(Locale.forLanguageTag(tag));
+                for (int text = 0; text < 20_000; text++) {
+                    StringBuilder input = new StringBuilder();
+                    for (int part = random.nextInt(30); part > 0; part--) {
+                        String value = parts[random.nextInt(parts.length)];
+                        input.append(random.nextInt(4) == 0 ? value.toUpperCase(Locale.ROOT) : value);
+                    }
+                    String document = input.toString();
+                    assertEquals(regexTokenizer.tokenize(document), tokenizer.tokenize(document),
+                            () -> "Locale " + tag + ", input: " + document);
+                }
+            }
+        }
+        finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+}
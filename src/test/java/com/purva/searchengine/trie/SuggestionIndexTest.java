@@ -0,0 +1,125 @@
+package com.purva.searchengine.trie;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestionIndexTest {
+
+    @Test
+    void shouldSumRepeatedTermsAndRankByFrequencyThenTerm() {
+        SuggestionIndex index = new SuggestionIndex.Builder()
+                .add("javascript", 1)
+                .add("java", 1)
+                .add("jacket", 1)
+                .add("java", 1)
+                .add("café", 4)
+                .build(10);
+
+        assertEquals(4, index.size());
+        assertEquals(2, index.frequency("java"));
+        assertEquals(0, index.frequency("jav"));
+        assertEquals(List.of("java", "jacket", "javascript"), index.topK("ja", 3));
+        assertEquals(List.of("java"), index.topK("java", 1));
+        assertEquals(List.of("café"), index.topK("caf", 10));
+        assertEquals(List.of(), index.topK("xyz", 10));
+        assertThrows(IllegalArgumentException.class, () -> index.topK("ja", 11));
+    }
+
+    @Test
+    void shouldMatchTheTrieOnLargeAndSmallPrefixRanges() {
+        var random = new Random(42);
+        var builder = new SuggestionIndex.Builder();
+        Trie trie = new Trie(0, 1);
+        // 'é' takes two UTF-8 bytes, so some byte-level prefixes end inside a character
+        String alphabet = "abcé";
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int length = 1 + random.nextInt(7); length > 0; length--) {
+                word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            int count = 1 + random.nextInt(5);
+            builder.add(word.toString(), count);
+            trie.insert(word.toString(), count);
+        }
+        SuggestionIndex index = builder.build(10);
+
+        assertTrue(index.precomputedPrefixes() > 0);
+        for (String prefix : List.of("a", "é", "ab", "éé", "cab", "abcé", "ééaa", "bcaéb", "abcabca")) {
+            assertEquals(trie.getTopKSuggestions(prefix, 10), index.topK(prefix, 10), prefix);
+            assertEquals(trie.frequency(prefix), index.frequency(prefix), prefix);
+        }
+    }
+
+    @Test
+    void fuzzyMatchesShouldAgreeWithTheEditDistanceOfEveryTerm() {
+        var random = new Random(7);
+        var builder = new SuggestionIndex.Builder();
+        Trie trie = new Trie(0, 1);
+        Map<String, Integer> vocabulary = new HashMap<>();
+        String alphabet = "abcé";
+        for (int i = 0; i < 5_000; i++) {
+            String word = randomWord(random, alphabet, 8);
+            builder.add(word, 1);
+            trie.insert(word);
+            vocabulary.merge(word, 1, Integer::sum);
+        }
+        SuggestionIndex index = builder.build(10);
+
+        for (int maxEdits = 1; maxEdits <= 2; maxEdits++) {
+            for (int query = 0; query < 50; query++) {
+                String term = randomWord(random, alphabet, 7);
+                Map<String, Integer> expected = new TreeMap<>();
+                for (String word : vocabulary.keySet()) {
+                    int distance = editDistance(term, word);
+                    if (distance <= maxEdits) {
+                        expected.put(word, distance);
+                    }
+                }
+                Map<String, Integer> fromIndex = new TreeMap<>();
+                index.forEachFuzzyMatch(term, maxEdits, (word, distance, frequency) -> {
+                    assertEquals(vocabulary.get(word), frequency);
+                    assertNull(fromIndex.put(word, distance), word);
+                });
+                Map<String, Integer> fromTrie = new TreeMap<>();
+                trie.forEachFuzzyMatch(term, maxEdits, (word, distance, frequency) -> fromTrie.put(word, distance));
+
+                assertEquals(expected, fromIndex, term);
+                assertEquals(expected, fromTrie, term);
+            }
+        }
+    }
+
+    private static String randomWord(Random random, String alphabet, int maxLength) {
+        StringBuilder word = new StringBuilder();
+        for (int length = 1 + random.nextInt(maxLength); length > 0; length--) {
+            word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return word.toString();
+    }
+
+    private static int editDistance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -93,4 +93,50 @@ class TrieTest {
         var suggestions = trie.getTopKSuggestions("ja", 1);
         assertEquals(List.of("java"), suggestions);
     }
+
+    @Test
+    void shouldReorderCachedSuggestionsAsFrequenciesGrow() {
+        Trie trie = new Trie(2, 2);
+        trie.insert("java", 3);
+        trie.insert("jacket", 2);
+        trie.insert("jade");
+
+        assertEquals(List.of("java", "jacket"), trie.getTopKSuggestions("ja", 2));
+
+        trie.insert("jade", 2);
+        assertEquals(List.of("jade", "java"), trie.getTopKSuggestions("ja", 2));
+
+        trie.insert("jacket", 5);
+        assertEquals(List.of("jacket", "jade"), trie.getTopKSuggestions("ja", 2));
+        assertEquals(List.of("jacket"), trie.getTopKSuggestions("jac", 2));
+    }
+
+    @Test
+    void cachedSuggestionsShouldMatchFullSubtreeSearch() {
+        var random = new java.util.Random(42);
+        Trie cached = new Trie(5, 1);
+        Trie uncached = new Trie(0, 1);
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int length = 1 + random.nextInt(5); length > 0; length--) {
+                word.append((char) ('a' + random.nextInt(4)));
+            }
+            int count = 1 + random.nextInt(3);
+            cached.insert(word.toString(), count);
+            uncached.insert(word.toString(), count);
+        }
+
+        for (String prefix : List.of("a", "b", "ab", "dd", "cab", "abcd")) {
+            assertEquals(uncached.getTopKSuggestions(prefix, 5), cached.getTopKSuggestions(prefix, 5), prefix);
+        }
+        // More suggestions than each node caches come from the subtree search
+        assertEquals(uncached.getTopKSuggestions("a", 20), cached.getTopKSuggestions("a", 20));
+        assertEquals(20, cached.getTopKSuggestions("a", 20).size());
+    }
+
+    @Test
+    void shouldRejectNonPositiveCounts() {
+        Trie trie = new Trie();
+        assertThrows(IllegalArgumentException.class, () -> trie.insert("java", 0));
+    }
 }